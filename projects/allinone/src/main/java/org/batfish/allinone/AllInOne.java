@@ -179,9 +179,11 @@ public class AllInOne {
           @Override
           public void run() {
             WorkExecutorCreator workExecutorCreator =
-                (logger, settings) ->
+                (logger, settings, worker) ->
                     new BatfishWorkerServiceWorkExecutor(
-                        logger, settings.getContainersLocation(), Driver.getBatfishWorkerService());
+                        logger,
+                        settings.getContainersLocation(),
+                        Driver.getBatfishWorkerService(worker));
             try {
               org.batfish.coordinator.Main.main(
                   argArray, _logger, bindPortFutures, workExecutorCreator);
@@ -56,6 +56,9 @@ public class BDDReachabilityAnalysis implements Serializable {
   private final Table<StateExpr, StateExpr, Transition> _forwardEdgeTable;
   // postState --> preState --> transition from pre to post
   private transient Supplier<Table<StateExpr, StateExpr, Transition>> _transposedEdgeTable;
+  // _forwardEdgeTable and _transposedEdgeTable, compiled for fixpoint computations
+  private transient Supplier<IndexedStateGraph> _forwardGraph;
+  private transient Supplier<IndexedStateGraph> _transposedGraph;
 
   // stateExprs that correspond to the IngressLocations of interest
   private final ImmutableSet<StateExpr> _ingressLocationStates;
@@ -77,6 +80,8 @@ public class BDDReachabilityAnalysis implements Serializable {
   private void initTransientFields() {
     _transposedEdgeTable =
         Suppliers.memoize(() -> BDDReachabilityUtils.transposeAndMaterialize(_forwardEdgeTable));
+    _forwardGraph = Suppliers.memoize(() -> IndexedStateGraph.of(_forwardEdgeTable));
+    _transposedGraph = Suppliers.memoize(() -> IndexedStateGraph.of(_transposedEdgeTable.get()));
   }
 
   @Serial
@@ -89,8 +94,7 @@ public class BDDReachabilityAnalysis implements Serializable {
   Map<StateExpr, BDD> computeReverseReachableStates() {
     Map<StateExpr, BDD> reverseReachableStates = new HashMap<>();
     reverseReachableStates.put(Query.INSTANCE, _queryHeaderSpaceBdd);
-    BDDReachabilityUtils.backwardFixpointTransposed(
-        _transposedEdgeTable.get(), reverseReachableStates);
+    BDDReachabilityUtils.backwardFixpointTransposed(_transposedGraph.get(), reverseReachableStates);
     return ImmutableMap.copyOf(reverseReachableStates);
   }
 
@@ -101,8 +105,7 @@ public class BDDReachabilityAnalysis implements Serializable {
    */
   public Map<StateExpr, BDD> computeReverseReachableStates(Map<StateExpr, BDD> roots) {
     Map<StateExpr, BDD> reverseReachableStates = new HashMap<>(roots);
-    BDDReachabilityUtils.backwardFixpointTransposed(
-        _transposedEdgeTable.get(), reverseReachableStates);
+    BDDReachabilityUtils.backwardFixpointTransposed(_transposedGraph.get(), reverseReachableStates);
     return ImmutableMap.copyOf(reverseReachableStates);
   }
 
@@ -110,7 +113,7 @@ public class BDDReachabilityAnalysis implements Serializable {
     Map<StateExpr, BDD> forwardReachableStates = new LinkedHashMap<>();
     _ingressLocationStates.forEach(
         state -> forwardReachableStates.put(state, _bddPacket.getFactory().one()));
-    BDDReachabilityUtils.forwardFixpoint(_forwardEdgeTable, forwardReachableStates);
+    BDDReachabilityUtils.forwardFixpoint(_forwardGraph.get(), forwardReachableStates);
     return ImmutableMap.copyOf(forwardReachableStates);
   }
 
@@ -121,7 +124,7 @@ public class BDDReachabilityAnalysis implements Serializable {
   public Map<StateExpr, BDD> computeForwardReachableStates(
       Map<StateExpr, BDD> initialReachableStates) {
     Map<StateExpr, BDD> forwardReachableStates = new LinkedHashMap<>(initialReachableStates);
-    BDDReachabilityUtils.forwardFixpoint(_forwardEdgeTable, forwardReachableStates);
+    BDDReachabilityUtils.forwardFixpoint(_forwardGraph.get(), forwardReachableStates);
     return ImmutableMap.copyOf(forwardReachableStates);
   }
 
@@ -26,6 +26,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Suppliers;
 import com.google.common.collect.BoundType;
 import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
@@ -251,6 +252,10 @@ public final class BDDReachabilityAnalysisFactory {
   private final BDD _zero;
   private final IpsRoutedOutInterfacesFactory _ipsRoutesOutInterfacesFactory;
 
+  // edges that do not depend on the query, shared by all analyses created by this factory.
+  private final Supplier<List<Edge>> _queryIndependentEdges =
+      Suppliers.memoize(() -> computeEdges().collect(ImmutableList.toImmutableList()));
+
   public BDDReachabilityAnalysisFactory(
       BDDPacket packet,
       Map<String, Configuration> configs,
@@ -623,10 +628,13 @@ public final class BDDReachabilityAnalysisFactory {
   }
 
   /*
-   * These edges do not depend on the query. Compute them separately so that we can later cache them
-   * across queries if we want to.
+   * These edges do not depend on the query, so they are computed once and reused across queries.
    */
   private Stream<Edge> generateEdges() {
+    return _queryIndependentEdges.get().stream();
+  }
+
+  private Stream<Edge> computeEdges() {
     return Streams.concat(
         generateRules_PreInInterface_NodeDropAclIn(),
         generateRules_PreInInterface_PostInInterface(),
@@ -1838,6 +1846,11 @@ public final class BDDReachabilityAnalysisFactory {
     return _bddOutgoingOriginalFlowFilterManagers;
   }
 
+  /** Returns the {@link BDDPacket} whose variables label the edges of the reachability graph. */
+  public @Nonnull BDDPacket getBDDPacket() {
+    return _bddPacket;
+  }
+
   public Map<String, BDDSourceManager> getBDDSourceManagers() {
     return _bddSourceManagers;
   }
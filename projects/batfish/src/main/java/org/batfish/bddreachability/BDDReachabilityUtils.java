@@ -7,24 +7,26 @@ import static org.batfish.common.util.CollectionUtil.toImmutableMap;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableTable;
-import com.google.common.collect.LinkedListMultimap;
-import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Streams;
 import com.google.common.collect.Table;
 import com.google.common.collect.Tables;
-import java.util.ArrayList;
+import java.util.ArrayDeque;
 import java.util.Collection;
-import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
-import java.util.List;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Optional;
-import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.function.BiFunction;
 import java.util.stream.Stream;
 import net.sf.javabdd.BDD;
-import net.sf.javabdd.BDDFactory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.batfish.bddreachability.transition.Transition;
 import org.batfish.bddreachability.transition.Transitions;
 import org.batfish.common.BatfishException;
@@ -52,6 +54,8 @@ import org.batfish.symbolic.state.StateExpr;
  * Utility methods for {@link BDDReachabilityAnalysis} and {@link BDDReachabilityAnalysisFactory}.
  */
 public final class BDDReachabilityUtils {
+  private static final Logger LOGGER = LogManager.getLogger(BDDReachabilityUtils.class);
+
   public static Table<StateExpr, StateExpr, Transition> computeForwardEdgeTable(
       Iterable<Edge> edges) {
     return computeForwardEdgeTable(Streams.stream(edges));
@@ -73,87 +77,98 @@ public final class BDDReachabilityUtils {
       // No work to do.
       return;
     }
-    // Get a BDDFactory for zero and orAll.
-    BDDFactory factory = reachableSets.entrySet().iterator().next().getValue().getFactory();
-
-    // For each state to process in the next round, all the incoming BDDs.
-    ListMultimap<StateExpr, BDD> dirtyInputs = LinkedListMultimap.create();
-
-    // To (try to) minimize how many times we're transiting the same edges, dirtyStates will be
-    // removed in order of increasing visitCounts.
-    // invariants:
-    // 1. the queue never contains duplicate elements.
-    // 2. visitCounts are never incremented while the state is in the queue.
-    HashMap<StateExpr, Integer> visitCounts = new HashMap<>();
-    PriorityQueue<StateExpr> dirtyStates =
-        new PriorityQueue<>(Comparator.comparingInt(st -> visitCounts.getOrDefault(st, 0)));
+    fixpoint(reachableSets, IndexedStateGraph.of(edges), traverse);
+  }
 
-    // Seed the dirty inputs with the initial reachable sets, then clear the reachable sets.
-    reachableSets.forEach(
-        (key, value) -> {
-          dirtyInputs.put(key, value.id());
-          dirtyStates.add(key);
-        });
-    reachableSets.clear();
+  /**
+   * Apply edges to the reachableSets until a fixed point is reached, recording counters in {@code
+   * stats}. See {@link IndexedStateGraph#fixpoint(Map, BiFunction, FixpointStats)}.
+   */
+  @VisibleForTesting
+  static void fixpoint(
+      Map<StateExpr, BDD> reachableSets,
+      Table<StateExpr, StateExpr, Transition> edges,
+      BiFunction<Transition, BDD, BDD> traverse,
+      FixpointStats stats) {
+    if (reachableSets.isEmpty()) {
+      // No work to do.
+      return;
+    }
+    IndexedStateGraph.of(edges).fixpoint(reachableSets, traverse, stats);
+  }
 
-    while (!dirtyStates.isEmpty()) {
-      StateExpr dirtyState = dirtyStates.remove();
-      visitCounts.compute(dirtyState, (unused, oldCount) -> oldCount == null ? 1 : oldCount + 1);
-      List<BDD> inputs = dirtyInputs.removeAll(dirtyState);
-      assert !inputs.isEmpty();
-      BDD prior = reachableSets.get(dirtyState);
+  /** Apply edges to the reachableSets until a fixed point is reached. */
+  static void fixpoint(
+      Map<StateExpr, BDD> reachableSets,
+      IndexedStateGraph graph,
+      BiFunction<Transition, BDD, BDD> traverse) {
+    FixpointStats stats = new FixpointStats();
+    graph.fixpoint(reachableSets, traverse, stats);
+    LOGGER.debug("fixpoint: {}", stats);
+  }
 
-      BDD newValue;
-      if (prior != null) {
-        List<BDD> tmp = new ArrayList<>(inputs.size() + 1);
-        tmp.addAll(inputs);
-        tmp.add(prior);
-        newValue = factory.orAll(tmp);
-      } else {
-        newValue = factory.orAll(inputs);
-      }
+  /**
+   * Computes the strongly connected components of the graph, using an iterative version of Tarjan's
+   * algorithm. Returns the index of the component of each state with an edge. Components are
+   * numbered in topological order: every edge leads from a component to itself or to a component
+   * with a larger index.
+   */
+  static Map<StateExpr, Integer> topologicalSccIndices(Table<StateExpr, StateExpr, ?> edges) {
+    Map<StateExpr, Integer> index = new HashMap<>();
+    Map<StateExpr, Integer> lowLink = new HashMap<>();
+    Deque<StateExpr> sccStack = new ArrayDeque<>();
+    Set<StateExpr> onSccStack = new HashSet<>();
+    // Tarjan's algorithm finds components in reverse topological order.
+    Map<StateExpr, Integer> reverseTopologicalScc = new HashMap<>();
+    int numSccs = 0;
 
-      if (newValue.equals(prior)) {
-        // No change, so no need to update neighbors.
-        newValue.free();
-        inputs.forEach(BDD::free);
+    // The depth-first search stack: each state and its successors that are yet to be explored.
+    Deque<Entry<StateExpr, Iterator<StateExpr>>> dfsStack = new ArrayDeque<>();
+    for (StateExpr root : Iterables.concat(edges.rowKeySet(), edges.columnKeySet())) {
+      if (index.containsKey(root)) {
         continue;
       }
-
-      // Update the value and free the old one.
-      reachableSets.put(dirtyState, newValue);
-      if (prior != null) {
-        prior.free();
+      index.put(root, index.size());
+      lowLink.put(root, index.get(root));
+      sccStack.push(root);
+      onSccStack.add(root);
+      dfsStack.push(Maps.immutableEntry(root, edges.row(root).keySet().iterator()));
+      while (!dfsStack.isEmpty()) {
+        StateExpr state = dfsStack.peek().getKey();
+        Iterator<StateExpr> successors = dfsStack.peek().getValue();
+        if (successors.hasNext()) {
+          StateExpr successor = successors.next();
+          if (!index.containsKey(successor)) {
+            index.put(successor, index.size());
+            lowLink.put(successor, index.get(successor));
+            sccStack.push(successor);
+            onSccStack.add(successor);
+            dfsStack.push(Maps.immutableEntry(successor, edges.row(successor).keySet().iterator()));
+          } else if (onSccStack.contains(successor)) {
+            lowLink.put(state, Math.min(lowLink.get(state), index.get(successor)));
+          }
+          continue;
+        }
+        dfsStack.pop();
+        int stateLowLink = lowLink.get(state);
+        if (stateLowLink == index.get(state)) {
+          // state is the root of a component. Pop it.
+          StateExpr member;
+          do {
+            member = sccStack.pop();
+            onSccStack.remove(member);
+            reverseTopologicalScc.put(member, numSccs);
+          } while (member != state);
+          numSccs++;
+        }
+        if (!dfsStack.isEmpty()) {
+          StateExpr parent = dfsStack.peek().getKey();
+          lowLink.put(parent, Math.min(lowLink.get(parent), stateLowLink));
+        }
       }
-
-      Map<StateExpr, Transition> dirtyStateEdges = edges.row(dirtyState);
-      if (dirtyStateEdges.isEmpty()) {
-        inputs.forEach(BDD::free);
-        continue;
-      }
-
-      // Compute the newly learned BDDs (union of inputs) and then free them.
-      BDD learned = prior == null ? newValue.id() : factory.orAllAndFree(inputs);
-
-      // Forward the learned BDDs along each outgoing edge.
-      dirtyStateEdges.forEach(
-          (neighbor, edge) -> {
-            long priorBDDs = factory.numOutstandingBDDs();
-            BDD result = traverse.apply(edge, learned);
-            long newBDDs = factory.numOutstandingBDDs();
-            assert newBDDs - priorBDDs == 1
-                : "Leak of size " + (newBDDs - priorBDDs - 1) + ": " + edge;
-            if (!result.isZero()) {
-              // this is a new result. add it to neighbor's inputs. if neighbor isn't already in
-              // the dirtyStates queue, add it.
-              if (!dirtyInputs.containsKey(neighbor)) {
-                dirtyStates.add(neighbor);
-              }
-              dirtyInputs.put(neighbor, result);
-            }
-          });
-      learned.free();
     }
+    int lastScc = numSccs - 1;
+    return toImmutableMap(reverseTopologicalScc, Entry::getKey, e -> lastScc - e.getValue());
   }
 
   @VisibleForTesting
@@ -190,6 +205,12 @@ public final class BDDReachabilityUtils {
     fixpoint(reverseReachable, transposedEdgeTable, Transition::transitBackward);
   }
 
+  /** Like {@link #backwardFixpointTransposed(Table, Map)}, on a compiled transposed graph. */
+  static void backwardFixpointTransposed(
+      IndexedStateGraph transposedGraph, Map<StateExpr, BDD> reverseReachable) {
+    fixpoint(reverseReachable, transposedGraph, Transition::transitBackward);
+  }
+
   /**
    * Returns an immutable copy of the input table that has been materialized in transposed form.
    *
@@ -215,6 +236,11 @@ public final class BDDReachabilityUtils {
     fixpoint(reachable, forwardEdgeTable, Transition::transitForward);
   }
 
+  /** Like {@link #forwardFixpoint(Table, Map)}, on a compiled graph. */
+  static void forwardFixpoint(IndexedStateGraph forwardGraph, Map<StateExpr, BDD> reachable) {
+    fixpoint(reachable, forwardGraph, Transition::transitForward);
+  }
+
   static Map<IngressLocation, BDD> getIngressLocationBdds(
       Map<StateExpr, BDD> stateReachableBdds, Set<StateExpr> ingressLocationStates, BDD zero) {
     return toImmutableMap(
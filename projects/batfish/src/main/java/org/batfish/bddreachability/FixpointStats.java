@@ -0,0 +1,104 @@
+package org.batfish.bddreachability;
+
+import com.google.common.base.MoreObjects;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * Counters collected while running {@link BDDReachabilityUtils#fixpoint}, for profiling.
+ *
+ * <p>The fixpoint processes the strongly connected components (SCCs) of the graph in topological
+ * order, so the time spent in each SCC shows where the graph has loops that must be iterated.
+ */
+@ParametersAreNonnullByDefault
+final class FixpointStats {
+  private int _sccs;
+  private int _largestScc;
+  private long _visits;
+  private long _traversals;
+  private long _unions;
+  private long[] _nanosByScc = new long[0];
+
+  void setSccs(int sccs, int largestScc) {
+    _sccs = sccs;
+    _largestScc = largestScc;
+    _nanosByScc = new long[sccs];
+  }
+
+  void recordVisit(int scc, long nanos) {
+    _visits++;
+    _nanosByScc[scc] += nanos;
+  }
+
+  void recordTraversal() {
+    _traversals++;
+  }
+
+  void recordUnion() {
+    _unions++;
+  }
+
+  /** The number of strongly connected components of the graph. */
+  int getSccs() {
+    return _sccs;
+  }
+
+  /** The number of states in the largest strongly connected component. */
+  int getLargestScc() {
+    return _largestScc;
+  }
+
+  /** The number of times a state was processed. */
+  long getVisits() {
+    return _visits;
+  }
+
+  /** The number of times a transition was applied. */
+  long getTraversals() {
+    return _traversals;
+  }
+
+  /** The number of unions of the inputs of a state. */
+  long getUnions() {
+    return _unions;
+  }
+
+  /** The time spent processing the states of the given component, in nanoseconds. */
+  long getNanos(int scc) {
+    return _nanosByScc[scc];
+  }
+
+  /** The index of the component in which the most time was spent, or -1 if there are none. */
+  int getSlowestScc() {
+    int slowest = -1;
+    for (int i = 0; i < _nanosByScc.length; i++) {
+      if (slowest == -1 || _nanosByScc[i] > _nanosByScc[slowest]) {
+        slowest = i;
+      }
+    }
+    return slowest;
+  }
+
+  /** The total time spent processing states, in nanoseconds. */
+  long getTotalNanos() {
+    long total = 0;
+    for (long nanos : _nanosByScc) {
+      total += nanos;
+    }
+    return total;
+  }
+
+  @Override
+  public String toString() {
+    int slowest = getSlowestScc();
+    return MoreObjects.toStringHelper(FixpointStats.class)
+        .add("sccs", _sccs)
+        .add("largestScc", _largestScc)
+        .add("visits", _visits)
+        .add("traversals", _traversals)
+        .add("unions", _unions)
+        .add("totalMs", getTotalNanos() / 1_000_000)
+        .add("slowestScc", slowest)
+        .add("slowestSccMs", slowest == -1 ? 0 : _nanosByScc[slowest] / 1_000_000)
+        .toString();
+  }
+}
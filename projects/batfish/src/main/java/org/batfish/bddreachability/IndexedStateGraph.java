@@ -0,0 +1,307 @@
+package org.batfish.bddreachability;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Table;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.PriorityQueue;
+import java.util.function.BiFunction;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import net.sf.javabdd.BDD;
+import net.sf.javabdd.BDDFactory;
+import org.batfish.bddreachability.transition.Transition;
+import org.batfish.symbolic.state.StateExpr;
+
+/**
+ * A reachability graph compiled to a dense representation for {@link
+ * BDDReachabilityUtils#fixpoint}.
+ *
+ * <p>Each {@link StateExpr} is assigned an integer id, and the outgoing edges of all states are
+ * stored in compressed sparse row form: the edges of state {@code i} are at positions {@code
+ * _offsets[i]} (inclusive) to {@code _offsets[i + 1]} (exclusive) of {@code _targets} and {@code
+ * _transitions}. States are only hashed when converting the initial and final reachable sets, so
+ * the fixpoint itself only scans arrays.
+ *
+ * <p>States are numbered in topological order of their strongly connected components (SCCs): every
+ * edge leads from a component to itself or to a component with a larger index.
+ */
+@ParametersAreNonnullByDefault
+final class IndexedStateGraph {
+
+  private final @Nonnull StateExpr[] _states;
+  private final @Nonnull Map<StateExpr, Integer> _ids;
+  private final @Nonnull int[] _offsets;
+  private final @Nonnull int[] _targets;
+  private final @Nonnull Transition[] _transitions;
+  // state id -> index of its SCC
+  private final @Nonnull int[] _sccs;
+  private final int _numSccs;
+  private final int _largestScc;
+
+  /** Compiles the graph whose edges are given by {@code edges}: row key -> column key. */
+  static @Nonnull IndexedStateGraph of(Table<StateExpr, StateExpr, Transition> edges) {
+    // Number the states in order of first appearance.
+    Map<StateExpr, Integer> firstIds = new HashMap<>();
+    List<StateExpr> states = new ArrayList<>();
+    for (Table.Cell<StateExpr, StateExpr, Transition> cell : edges.cellSet()) {
+      addState(cell.getRowKey(), firstIds, states);
+      addState(cell.getColumnKey(), firstIds, states);
+    }
+    int numStates = states.size();
+    int[] offsets = new int[numStates + 1];
+    for (Table.Cell<StateExpr, StateExpr, Transition> cell : edges.cellSet()) {
+      offsets[firstIds.get(cell.getRowKey()) + 1]++;
+    }
+    for (int i = 0; i < numStates; i++) {
+      offsets[i + 1] += offsets[i];
+    }
+    int[] targets = new int[offsets[numStates]];
+    Transition[] transitions = new Transition[offsets[numStates]];
+    int[] next = Arrays.copyOf(offsets, numStates);
+    for (Table.Cell<StateExpr, StateExpr, Transition> cell : edges.cellSet()) {
+      int pos = next[firstIds.get(cell.getRowKey())]++;
+      targets[pos] = firstIds.get(cell.getColumnKey());
+      transitions[pos] = cell.getValue();
+    }
+    Map<StateExpr, Integer> sccIndices = BDDReachabilityUtils.topologicalSccIndices(edges);
+    int[] sccs = new int[numStates];
+    for (int i = 0; i < numStates; i++) {
+      sccs[i] = sccIndices.get(states.get(i));
+    }
+    return new IndexedStateGraph(
+        states.toArray(new StateExpr[0]), sccs, offsets, targets, transitions);
+  }
+
+  private static void addState(
+      StateExpr state, Map<StateExpr, Integer> ids, List<StateExpr> states) {
+    if (!ids.containsKey(state)) {
+      ids.put(state, states.size());
+      states.add(state);
+    }
+  }
+
+  /**
+   * Renumbers the given graph in topological order of its SCCs, given the topological index of the
+   * SCC of each state.
+   */
+  private IndexedStateGraph(
+      StateExpr[] states, int[] sccs, int[] offsets, int[] targets, Transition[] transitions) {
+    int numStates = states.length;
+    int numSccs = 0;
+    for (int scc : sccs) {
+      numSccs = Math.max(numSccs, scc + 1);
+    }
+    int[] sccSizes = new int[numSccs];
+    int largestScc = 0;
+    for (int i = 0; i < numStates; i++) {
+      largestScc = Math.max(largestScc, ++sccSizes[sccs[i]]);
+    }
+
+    // Counting sort of the states by SCC.
+    int[] sccStarts = new int[numSccs + 1];
+    for (int i = 0; i < numSccs; i++) {
+      sccStarts[i + 1] = sccStarts[i] + sccSizes[i];
+    }
+    int[] newIds = new int[numStates];
+    for (int i = 0; i < numStates; i++) {
+      newIds[i] = sccStarts[sccs[i]]++;
+    }
+
+    _states = new StateExpr[numStates];
+    _sccs = new int[numStates];
+    _offsets = new int[numStates + 1];
+    _targets = new int[targets.length];
+    _transitions = new Transition[transitions.length];
+    ImmutableMap.Builder<StateExpr, Integer> ids = ImmutableMap.builderWithExpectedSize(numStates);
+    for (int i = 0; i < numStates; i++) {
+      _states[newIds[i]] = states[i];
+      _sccs[newIds[i]] = sccs[i];
+      _offsets[newIds[i] + 1] = offsets[i + 1] - offsets[i];
+      ids.put(states[i], newIds[i]);
+    }
+    for (int i = 0; i < numStates; i++) {
+      _offsets[i + 1] += _offsets[i];
+    }
+    for (int i = 0; i < numStates; i++) {
+      int pos = _offsets[newIds[i]];
+      for (int j = offsets[i]; j < offsets[i + 1]; j++, pos++) {
+        _targets[pos] = newIds[targets[j]];
+        _transitions[pos] = transitions[j];
+      }
+    }
+    _ids = ids.buildOrThrow();
+    _numSccs = numSccs;
+    _largestScc = largestScc;
+  }
+
+  /** The id of the given state, or -1 if it has no edges. */
+  int getId(StateExpr state) {
+    Integer id = _ids.get(state);
+    return id == null ? -1 : id;
+  }
+
+  /** The index of the SCC of the state with the given id. */
+  int getScc(int id) {
+    return _sccs[id];
+  }
+
+  /** The number of SCCs in the graph. */
+  int getNumSccs() {
+    return _numSccs;
+  }
+
+  /**
+   * Apply edges to the reachableSets until a fixed point is reached, recording counters in {@code
+   * stats}.
+   *
+   * <p>The SCCs of the graph are processed in topological order, so a state is only processed once
+   * all its inputs from upstream components are known. Only states within a component that has a
+   * loop are processed more than once.
+   */
+  void fixpoint(
+      Map<StateExpr, BDD> reachableSets,
+      BiFunction<Transition, BDD, BDD> traverse,
+      FixpointStats stats) {
+    if (reachableSets.isEmpty()) {
+      // No work to do.
+      return;
+    }
+    // Get a BDDFactory for zero and orAll.
+    BDDFactory factory = reachableSets.values().iterator().next().getFactory();
+    stats.setSccs(_numSccs, _largestScc);
+
+    int numStates = _states.length;
+    BDD[] reachable = new BDD[numStates];
+
+    // For each state to process in the next round, all the incoming BDDs. Non-null iff the state
+    // is in dirtyStates.
+    @SuppressWarnings("unchecked")
+    List<BDD>[] dirtyInputs = new List[numStates];
+
+    // dirtyStates are removed in topological order of their SCCs. Within a component, to (try to)
+    // minimize how many times we're transiting the same edges, they are removed in order of
+    // increasing visitCounts.
+    // invariants:
+    // 1. the queue never contains duplicate elements.
+    // 2. visitCounts are never incremented while the state is in the queue.
+    int[] visitCounts = new int[numStates];
+    PriorityQueue<Integer> dirtyStates =
+        new PriorityQueue<>(
+            (a, b) -> {
+              int cmp = Integer.compare(_sccs[a], _sccs[b]);
+              return cmp != 0 ? cmp : Integer.compare(visitCounts[a], visitCounts[b]);
+            });
+
+    // Seed the dirty inputs with the initial reachable sets, then clear the reachable sets.
+    // States without edges are not part of the graph; they only reach themselves.
+    Map<StateExpr, BDD> isolated = new HashMap<>();
+    for (Entry<StateExpr, BDD> entry : reachableSets.entrySet()) {
+      int id = getId(entry.getKey());
+      if (id == -1) {
+        isolated.put(entry.getKey(), entry.getValue().id());
+        continue;
+      }
+      dirtyInputs[id] = new ArrayList<>(1);
+      dirtyInputs[id].add(entry.getValue().id());
+      dirtyStates.add(id);
+    }
+    reachableSets.clear();
+
+    while (!dirtyStates.isEmpty()) {
+      long start = System.nanoTime();
+      int dirtyState = dirtyStates.remove();
+      visitCounts[dirtyState]++;
+      List<BDD> inputs = dirtyInputs[dirtyState];
+      dirtyInputs[dirtyState] = null;
+      visit(dirtyState, inputs, reachable, traverse, factory, dirtyInputs, dirtyStates, stats);
+      stats.recordVisit(_sccs[dirtyState], System.nanoTime() - start);
+    }
+
+    for (int i = 0; i < numStates; i++) {
+      if (reachable[i] != null) {
+        reachableSets.put(_states[i], reachable[i]);
+      }
+    }
+    reachableSets.putAll(isolated);
+  }
+
+  private void visit(
+      int dirtyState,
+      List<BDD> inputs,
+      BDD[] reachable,
+      BiFunction<Transition, BDD, BDD> traverse,
+      BDDFactory factory,
+      List<BDD>[] dirtyInputs,
+      PriorityQueue<Integer> dirtyStates,
+      FixpointStats stats) {
+    assert !inputs.isEmpty();
+    BDD prior = reachable[dirtyState];
+
+    BDD newValue;
+    if (prior != null) {
+      List<BDD> tmp = new ArrayList<>(inputs.size() + 1);
+      tmp.addAll(inputs);
+      tmp.add(prior);
+      newValue = factory.orAll(tmp);
+    } else {
+      newValue = factory.orAll(inputs);
+    }
+    stats.recordUnion();
+
+    if (newValue.equals(prior)) {
+      // No change, so no need to update neighbors.
+      newValue.free();
+      inputs.forEach(BDD::free);
+      return;
+    }
+
+    // Update the value and free the old one.
+    reachable[dirtyState] = newValue;
+    if (prior != null) {
+      prior.free();
+    }
+
+    int begin = _offsets[dirtyState];
+    int end = _offsets[dirtyState + 1];
+    if (begin == end) {
+      inputs.forEach(BDD::free);
+      return;
+    }
+
+    // Compute the newly learned BDDs (union of inputs) and then free them.
+    BDD learned;
+    if (prior == null) {
+      learned = newValue.id();
+      inputs.forEach(BDD::free);
+    } else {
+      learned = factory.orAllAndFree(inputs);
+      stats.recordUnion();
+    }
+
+    // Forward the learned BDDs along each outgoing edge.
+    for (int pos = begin; pos < end; pos++) {
+      Transition edge = _transitions[pos];
+      long priorBDDs = factory.numOutstandingBDDs();
+      BDD result = traverse.apply(edge, learned);
+      stats.recordTraversal();
+      long newBDDs = factory.numOutstandingBDDs();
+      assert newBDDs - priorBDDs == 1 : "Leak of size " + (newBDDs - priorBDDs - 1) + ": " + edge;
+      if (!result.isZero()) {
+        // this is a new result. add it to neighbor's inputs. if neighbor isn't already in the
+        // dirtyStates queue, add it.
+        int neighbor = _targets[pos];
+        if (dirtyInputs[neighbor] == null) {
+          dirtyInputs[neighbor] = new ArrayList<>();
+          dirtyStates.add(neighbor);
+        }
+        dirtyInputs[neighbor].add(result);
+      }
+    }
+    learned.free();
+  }
+}
@@ -0,0 +1,137 @@
+package org.batfish.bddreachability;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import net.sf.javabdd.BDD;
+import net.sf.javabdd.BDDFactory;
+import org.batfish.common.bdd.BDDPacket;
+import org.batfish.datamodel.FlowDisposition;
+import org.batfish.datamodel.IpSpace;
+import org.batfish.datamodel.acl.AclLineMatchExpr;
+import org.batfish.specifier.IpSpaceAssignment;
+import org.batfish.specifier.Location;
+import org.batfish.symbolic.IngressLocation;
+
+/**
+ * Computes {@link BDDReachabilityAnalysisFactory#getAllBDDs} in parallel, by splitting the source
+ * locations into partitions.
+ *
+ * <p>Reachability from a set of sources is the union of reachability from each of them, so the
+ * partitions are independent. Since {@link BDDFactory BDD factories} are not thread-safe, each
+ * partition is analyzed on its own {@link BDDPacket} and {@link BDDReachabilityAnalysisFactory}.
+ * The results are then {@link BDDFactory#transfer(BDD) transferred} to the packet of the first
+ * partition and merged, so no factory beyond those of the partitions is built.
+ *
+ * <p>Every partition builds the reachability graph of the whole network, so this only pays off when
+ * there are enough source locations for the fixpoints to dominate.
+ */
+@ParametersAreNonnullByDefault
+public final class PartitionedReachability {
+
+  /** The merged results of all partitions, and the {@link BDDPacket} they belong to. */
+  public static final class Result {
+    private final @Nonnull BDDPacket _bddPacket;
+    private final @Nonnull Map<IngressLocation, BDD> _ingressLocationBDDs;
+
+    private Result(BDDPacket bddPacket, Map<IngressLocation, BDD> ingressLocationBDDs) {
+      _bddPacket = bddPacket;
+      _ingressLocationBDDs = ingressLocationBDDs;
+    }
+
+    public @Nonnull BDDPacket getBDDPacket() {
+      return _bddPacket;
+    }
+
+    public @Nonnull Map<IngressLocation, BDD> getIngressLocationBDDs() {
+      return _ingressLocationBDDs;
+    }
+  }
+
+  /**
+   * Returns the {@link IngressLocation} BDDs of all flows with one of the given dispositions, as
+   * {@link BDDReachabilityAnalysisFactory#getAllBDDs} does, analyzing each partition of {@code
+   * srcIpSpaceAssignment} in parallel.
+   *
+   * @param factories Creates a {@link BDDReachabilityAnalysisFactory} for the network on the given
+   *     {@link BDDPacket}. All factories must allocate the same BDD variables.
+   * @param partitions The maximum number of partitions to analyze.
+   */
+  public static @Nonnull Result getAllBDDs(
+      Function<BDDPacket, BDDReachabilityAnalysisFactory> factories,
+      int partitions,
+      IpSpaceAssignment srcIpSpaceAssignment,
+      AclLineMatchExpr initialHeaderSpace,
+      Set<String> forbiddenTransitNodes,
+      Set<String> requiredTransitNodes,
+      Set<String> finalNodes,
+      Set<FlowDisposition> actions) {
+    List<IpSpaceAssignment> assignments = partition(srcIpSpaceAssignment, partitions);
+    if (assignments.isEmpty()) {
+      return new Result(new BDDPacket(), ImmutableMap.of());
+    }
+    List<BDDPacket> packets =
+        assignments.stream().map(assignment -> new BDDPacket()).collect(toImmutableList());
+    List<Map<IngressLocation, BDD>> results =
+        IntStream.range(0, assignments.size())
+            .parallel()
+            .mapToObj(
+                i ->
+                    factories
+                        .apply(packets.get(i))
+                        .getAllBDDs(
+                            assignments.get(i),
+                            initialHeaderSpace,
+                            forbiddenTransitNodes,
+                            requiredTransitNodes,
+                            finalNodes,
+                            actions))
+            .collect(toImmutableList());
+
+    // Several partitions may have sources that are the same ingress location, e.g. interfaces in
+    // the same VRF.
+    BDDPacket target = packets.get(0);
+    Map<IngressLocation, BDD> merged = new HashMap<>(results.get(0));
+    for (Map<IngressLocation, BDD> result : results.subList(1, results.size())) {
+      result.forEach(
+          (ingressLocation, bdd) ->
+              merged.merge(ingressLocation, target.getFactory().transfer(bdd), BDD::orWith));
+    }
+    return new Result(target, merged);
+  }
+
+  /**
+   * Splits the locations of {@code assignment} round-robin into at most {@code partitions}
+   * non-empty assignments. Each location keeps its {@link IpSpace}.
+   */
+  @VisibleForTesting
+  static @Nonnull List<IpSpaceAssignment> partition(IpSpaceAssignment assignment, int partitions) {
+    checkArgument(partitions > 0, "Number of partitions must be positive: %s", partitions);
+    List<IpSpaceAssignment.Builder> builders =
+        IntStream.range(0, partitions)
+            .mapToObj(i -> IpSpaceAssignment.builder())
+            .collect(toImmutableList());
+    int locations = 0;
+    for (IpSpaceAssignment.Entry entry : assignment.getEntries()) {
+      for (Location location : entry.getLocations()) {
+        builders.get(locations++ % partitions).assign(location, entry.getIpSpace());
+      }
+    }
+    return builders.stream()
+        .limit(Math.min(locations, partitions))
+        .map(IpSpaceAssignment.Builder::build)
+        .collect(toImmutableList());
+  }
+
+  private PartitionedReachability() {}
+}
@@ -17,6 +17,7 @@ import org.batfish.grammar.GrammarSettings;
 import org.batfish.identifiers.NetworkId;
 import org.batfish.identifiers.QuestionId;
 import org.batfish.identifiers.SnapshotId;
+import org.batfish.main.BfCache;
 import org.batfish.main.Driver.RunMode;
 import org.batfish.version.Versioned;
 
@@ -24,6 +25,8 @@ public final class Settings extends BaseSettings implements GrammarSettings {
 
   public static final String ARG_CHECK_BGP_REACHABILITY = "checkbgpsessionreachability";
 
+  private static final String ARG_CONVERSION_REUSE = "conversionreuse";
+
   private static final String ARG_DATAPLANE_ENGINE_NAME = "dataplaneengine";
 
   private static final String ARG_DEBUG_FLAGS = "debugflags";
@@ -46,6 +49,13 @@ public final class Settings extends BaseSettings implements GrammarSettings {
 
   private static final String ARG_JOBS = "jobs";
 
+  private static final String ARG_MAX_CACHED_DATA_PLANE_NODES = "maxcacheddataplanenodes";
+
+  private static final String ARG_MAX_CACHED_TESTRIG_NODES = "maxcachedtestrignodes";
+
+  private static final String ARG_MAX_CACHED_VENDOR_CONFIGURATION_NODES =
+      "maxcachedvendorconfigurationnodes";
+
   private static final String ARG_MAX_PARSER_CONTEXT_LINES = "maxparsercontextlines";
 
   private static final String ARG_MAX_PARSER_CONTEXT_TOKENS = "maxparsercontexttokens";
@@ -60,6 +70,8 @@ public final class Settings extends BaseSettings implements GrammarSettings {
 
   private static final String ARG_PRINT_PARSE_TREE_LINE_NUMS = "printparsetreelinenums";
 
+  private static final String ARG_REACHABILITY_PARTITIONS = "reachabilitypartitions";
+
   public static final String ARG_RUN_MODE = "runmode";
 
   private static final String ARG_SEQUENTIAL = "sequential";
@@ -235,6 +247,22 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     return _config.getBoolean(ARG_PARSE_REUSE);
   }
 
+  public boolean getConversionReuse() {
+    return _config.getBoolean(ARG_CONVERSION_REUSE);
+  }
+
+  public int getMaxCachedDataPlaneNodes() {
+    return _config.getInt(ARG_MAX_CACHED_DATA_PLANE_NODES);
+  }
+
+  public int getMaxCachedTestrigNodes() {
+    return _config.getInt(ARG_MAX_CACHED_TESTRIG_NODES);
+  }
+
+  public int getMaxCachedVendorConfigurationNodes() {
+    return _config.getInt(ARG_MAX_CACHED_VENDOR_CONFIGURATION_NODES);
+  }
+
   @Override
   public int getMaxParserContextLines() {
     return _config.getInt(ARG_MAX_PARSER_CONTEXT_LINES);
@@ -269,6 +297,10 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     return name != null ? new QuestionId(name) : null;
   }
 
+  public int getReachabilityPartitions() {
+    return _config.getInt(ARG_REACHABILITY_PARTITIONS);
+  }
+
   public RunMode getRunMode() {
     return RunMode.valueOf(_config.getString(ARG_RUN_MODE).toUpperCase());
   }
@@ -381,16 +413,24 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     setDefaultProperty(ARG_IGNORE_UNKNOWN, true);
     setDefaultProperty(ARG_JOBS, Integer.MAX_VALUE);
     setDefaultProperty(BfConsts.ARG_LOG_LEVEL, "debug");
+    setDefaultProperty(
+        ARG_MAX_CACHED_DATA_PLANE_NODES, BfConsts.DEFAULT_MAX_CACHED_DATA_PLANE_NODES);
+    setDefaultProperty(ARG_MAX_CACHED_TESTRIG_NODES, BfCache.DEFAULT_MAX_CACHED_TESTRIG_NODES);
+    setDefaultProperty(
+        ARG_MAX_CACHED_VENDOR_CONFIGURATION_NODES,
+        BfCache.DEFAULT_MAX_CACHED_VENDOR_CONFIGURATION_NODES);
     setDefaultProperty(ARG_MAX_PARSER_CONTEXT_LINES, 10);
     setDefaultProperty(ARG_MAX_PARSER_CONTEXT_TOKENS, 10);
     setDefaultProperty(ARG_MAX_PARSE_TREE_PRINT_LENGTH, 0);
     setDefaultProperty(ARG_CHECK_BGP_REACHABILITY, true);
     setDefaultProperty(ARG_NO_SHUFFLE, false);
     setDefaultProperty(ARG_PARSE_REUSE, false);
+    setDefaultProperty(ARG_CONVERSION_REUSE, false);
     setDefaultProperty(ARG_PRECOMPUTE_AUTOCOMPLETE, true);
     setDefaultProperty(ARG_PRINT_PARSE_TREES, false);
     setDefaultProperty(ARG_PRINT_PARSE_TREE_LINE_NUMS, false);
     setDefaultProperty(BfConsts.ARG_QUESTION_NAME, null);
+    setDefaultProperty(ARG_REACHABILITY_PARTITIONS, 1);
     setDefaultProperty(ARG_RUN_MODE, RunMode.WORKER.toString());
     setDefaultProperty(ARG_SEQUENTIAL, false);
     setDefaultProperty(BfConsts.ARG_SNAPSHOT_NAME, null);
@@ -511,6 +551,21 @@ public final class Settings extends BaseSettings implements GrammarSettings {
 
     addBooleanOption(ARG_HISTOGRAM, "build histogram of unimplemented features");
 
+    addOption(
+        ARG_MAX_CACHED_DATA_PLANE_NODES,
+        "max total number of nodes in snapshots whose data planes are cached in memory",
+        ARGNAME_NUMBER);
+
+    addOption(
+        ARG_MAX_CACHED_TESTRIG_NODES,
+        "max total number of nodes in snapshots whose configurations are cached in memory",
+        ARGNAME_NUMBER);
+
+    addOption(
+        ARG_MAX_CACHED_VENDOR_CONFIGURATION_NODES,
+        "max total number of nodes in snapshots whose vendor configurations are cached in memory",
+        ARGNAME_NUMBER);
+
     addOption(
         ARG_MAX_PARSER_CONTEXT_LINES,
         "max number of surrounding lines to print on parser error",
@@ -531,6 +586,8 @@ public final class Settings extends BaseSettings implements GrammarSettings {
 
     addBooleanOption(ARG_PARSE_REUSE, "reuse parse results when appropriate");
 
+    addBooleanOption(ARG_CONVERSION_REUSE, "reuse conversion results when appropriate");
+
     addBooleanOption(ARG_PRECOMPUTE_AUTOCOMPLETE, "pre-compute autocomplete results");
 
     addBooleanOption(ARG_PRINT_PARSE_TREES, "print parse trees");
@@ -540,6 +597,11 @@ public final class Settings extends BaseSettings implements GrammarSettings {
 
     addOption(BfConsts.ARG_QUESTION_NAME, "name of question", ARGNAME_NAME);
 
+    addOption(
+        ARG_REACHABILITY_PARTITIONS,
+        "max number of source location partitions whose reachability is computed in parallel",
+        ARGNAME_NUMBER);
+
     addOption(
         ARG_RUN_MODE,
         "mode to run in",
@@ -681,18 +743,23 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     getBooleanOptionValue(ARG_IGNORE_UNSUPPORTED);
     getBooleanOptionValue(BfConsts.COMMAND_INIT_INFO);
     getIntOptionValue(ARG_JOBS);
+    getIntOptionValue(ARG_MAX_CACHED_DATA_PLANE_NODES);
+    getIntOptionValue(ARG_MAX_CACHED_TESTRIG_NODES);
+    getIntOptionValue(ARG_MAX_CACHED_VENDOR_CONFIGURATION_NODES);
     getIntOptionValue(ARG_MAX_PARSER_CONTEXT_LINES);
     getIntOptionValue(ARG_MAX_PARSER_CONTEXT_TOKENS);
     getIntOptionValue(ARG_MAX_PARSE_TREE_PRINT_LENGTH);
     getBooleanOptionValue(ARG_PRINT_PARSE_TREES);
     getBooleanOptionValue(ARG_PRINT_PARSE_TREE_LINE_NUMS);
     getStringOptionValue(BfConsts.ARG_QUESTION_NAME);
+    getIntOptionValue(ARG_REACHABILITY_PARTITIONS);
     getStringOptionValue(ARG_RUN_MODE);
     getBooleanOptionValue(ARG_SEQUENTIAL);
     getBooleanOptionValue(BfConsts.COMMAND_PARSE_VENDOR_INDEPENDENT);
     getBooleanOptionValue(BfConsts.COMMAND_PARSE_VENDOR_SPECIFIC);
     getBooleanOptionValue(ARG_NO_SHUFFLE);
     getBooleanOptionValue(ARG_PARSE_REUSE);
+    getBooleanOptionValue(ARG_CONVERSION_REUSE);
     getStringOptionValue(BfConsts.ARG_SNAPSHOT_NAME);
     getPathOptionValue(BfConsts.ARG_STORAGE_BASE);
     getStringOptionValue(BfConsts.ARG_TASK_PLUGIN);
@@ -771,6 +838,10 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     _config.setProperty(ARG_PRINT_PARSE_TREE_LINE_NUMS, printParseTreeLineNums);
   }
 
+  public void setReachabilityPartitions(int reachabilityPartitions) {
+    _config.setProperty(ARG_REACHABILITY_PARTITIONS, reachabilityPartitions);
+  }
+
   public void setRunMode(RunMode runMode) {
     _config.setProperty(ARG_RUN_MODE, runMode.toString());
   }
@@ -35,7 +35,6 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -49,6 +48,7 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -364,6 +364,24 @@ final class BgpRoutingProcess implements RoutingProcess<BgpTopology, BgpRoute<?,
    */
   private boolean _successfulWatchedTracksChanged;
 
+  /**
+   * Memoized outcomes of export policies, shared by all neighbors pulling from this process in an
+   * iteration. Cleared at the end of each iteration, and when track states change.
+   */
+  private final @Nonnull RoutingPolicyResultCache _policyResultCache;
+
+  /**
+   * Default minimum number of routes received over a session for them to be imported in parallel.
+   */
+  static final int DEFAULT_PARALLEL_IMPORT_THRESHOLD = 2048;
+
+  /**
+   * Minimum number of routes received over a session for their import transformations and import
+   * policy to be applied in parallel. Merging the imported routes into the RIBs, best-path
+   * selection, and export are always sequential.
+   */
+  private int _parallelImportThreshold = DEFAULT_PARALLEL_IMPORT_THRESHOLD;
+
   private static final Logger LOGGER = LogManager.getLogger(BgpRoutingProcess.class);
 
   /**
@@ -405,6 +423,7 @@ final class BgpRoutingProcess implements RoutingProcess<BgpTopology, BgpRoute<?,
 
     _successfulWatchedTracks = ImmutableSet.of();
     _successfulWatchedTracksPrev = ImmutableSet.of();
+    _policyResultCache = new RoutingPolicyResultCache();
 
     // Initialize all RIBs
     BgpTieBreaker bestPathTieBreaker =
@@ -1015,81 +1034,61 @@ final class BgpRoutingProcess implements RoutingProcess<BgpTopology, BgpRoute<?,
     Builder<AnnotatedRoute<AbstractRoute>> perNeighborDeltaForRibGroups = RibDelta.builder();
 
     BgpRoutingProcess remoteProcess = getNeighborBgpProcess(remoteConfigId, nodes);
-    Iterator<RouteAdvertisement<Bgpv4Route>> exportedRoutes =
+    List<RouteAdvertisement<Bgpv4Route>> exportedRoutes =
         remoteProcess
             .getOutgoingRoutesForEdge(edgeId, nodes, bgpTopology, nc, isNewSession)
             // Different incoming routes may be transformed to equivalent learned routes (due to
             // transformBgpRouteOnImport or the import policy). If this occurs with one withdrawn
             // route and another added route, the add should be applied second.
             .sorted(Comparator.comparing(ra -> !ra.isWithdrawn()))
-            .iterator();
+            .collect(ImmutableList.toImmutableList());
+
+    String importPolicyName = ourBgpConfig.getIpv4UnicastAddressFamily().getImportPolicy();
+    // TODO: ensure there is always an import policy
+    RoutingPolicy importPolicy =
+        importPolicyName == null ? null : _policies.get(importPolicyName).orElse(null);
+
+    // Import transformations and the import policy are applied to each route independently, so a
+    // large batch (e.g., a full table from a new session) is imported in parallel. The results are
+    // then merged into the RIBs in their original order, so the outcome is deterministic.
+    // TODO: partition the RIBs by prefix, so that merges, best-path selection, and export can run
+    //       in parallel too. Today they share per-RIB state: the prefix trie, the best path map,
+    //       and the logical clock used to break ties by arrival order. Export also traces prefixes
+    //       and allocates path IDs as it goes.
+    IntStream indices = IntStream.range(0, exportedRoutes.size());
+    if (exportedRoutes.size() >= _parallelImportThreshold) {
+      indices = indices.parallel();
+    }
+    List<ImportResult> importResults =
+        indices
+            .mapToObj(
+                i ->
+                    importV4UnicastRoute(
+                        exportedRoutes.get(i).getRoute(),
+                        ourConfigId,
+                        ourBgpConfig,
+                        ourSessionProperties,
+                        importPolicy))
+            .collect(ImmutableList.toImmutableList());
 
     // Process all routes from neighbor
-    while (exportedRoutes.hasNext()) {
-      // consume exported routes
-      RouteAdvertisement<Bgpv4Route> remoteRouteAdvert = exportedRoutes.next();
+    for (int i = 0; i < exportedRoutes.size(); i++) {
+      RouteAdvertisement<Bgpv4Route> remoteRouteAdvert = exportedRoutes.get(i);
       Bgpv4Route remoteRoute = remoteRouteAdvert.getRoute();
-
-      Bgpv4Route.Builder transformedIncomingRouteBuilder =
-          transformBgpRouteOnImport(
-              remoteRoute,
-              ourSessionProperties.getLocalAs(),
-              ourBgpConfig
-                  .getIpv4UnicastAddressFamily()
-                  .getAddressFamilyCapabilities()
-                  .getAllowLocalAsIn(),
-              ourSessionProperties.isEbgp(),
-              _process,
-              ourSessionProperties.getRemoteIp(),
-              ourConfigId.getPeerInterface());
-      if (transformedIncomingRouteBuilder == null) {
-        // Route could not be imported for core protocol reasons
+      ImportResult importResult = importResults.get(i);
+      Bgpv4Route transformedIncomingRoute = importResult._route;
+      if (transformedIncomingRoute == null) {
+        // Route could not be imported for core protocol reasons or due to routing policy
         _prefixTracer.filtered(
             remoteRoute.getNetwork(),
             remoteConfigId.getHostname(),
             ourSessionProperties.getRemoteIp(),
             remoteConfigId.getVrfName(),
-            null,
+            importResult._rejectedByPolicy ? importPolicyName : null,
             IN);
         continue;
       }
 
-      // Note whether new route is received from route reflector client
-      AddressFamily ourAfSettingsForPeer = ourBgpConfig.getIpv4UnicastAddressFamily();
-      assert ourAfSettingsForPeer
-          != null; // invariant of proper queue setup and route exchange for this AF type
-      transformedIncomingRouteBuilder.setReceivedFromRouteReflectorClient(
-          !ourSessionProperties.isEbgp() && ourAfSettingsForPeer.getRouteReflectorClient());
-
-      // Process route through import policy, if one exists
-      String importPolicyName = ourBgpConfig.getIpv4UnicastAddressFamily().getImportPolicy();
-      boolean acceptIncoming = true;
-      // TODO: ensure there is always an import policy
-      if (importPolicyName != null) {
-        RoutingPolicy importPolicy = _policies.get(importPolicyName).orElse(null);
-        if (importPolicy != null) {
-          acceptIncoming =
-              importPolicy.processBgpRoute(
-                  remoteRoute,
-                  transformedIncomingRouteBuilder,
-                  ourSessionProperties,
-                  IN,
-                  _successfulWatchedTracks::contains);
-        }
-      }
-      if (!acceptIncoming) {
-        // Route could not be imported due to routing policy
-        _prefixTracer.filtered(
-            remoteRoute.getNetwork(),
-            remoteConfigId.getHostname(),
-            ourSessionProperties.getRemoteIp(),
-            remoteConfigId.getVrfName(),
-            importPolicyName,
-            IN);
-        continue;
-      }
-      Bgpv4Route transformedIncomingRoute = transformedIncomingRouteBuilder.build();
-
       // If new route gets leaked to other VRFs via RibGroup, this VRF should be its source VRF.
       AnnotatedRoute<AbstractRoute> annotatedTransformedRoute =
           annotateRoute(transformedIncomingRoute);
@@ -1132,6 +1131,91 @@ final class BgpRoutingProcess implements RoutingProcess<BgpTopology, BgpRoute<?,
     }
   }
 
+  /**
+   * Sets the minimum number of routes received over a session for them to be imported in parallel.
+   */
+  void setParallelImportThreshold(int parallelImportThreshold) {
+    _parallelImportThreshold = parallelImportThreshold;
+  }
+
+  /** The result of applying import transformations and policy to a received route. */
+  private static final class ImportResult {
+    private static final ImportResult REJECTED_BY_PROTOCOL = new ImportResult(null, false);
+    private static final ImportResult REJECTED_BY_POLICY = new ImportResult(null, true);
+
+    /** The route to merge into our RIBs, or {@code null} if the route was not imported. */
+    private final @Nullable Bgpv4Route _route;
+
+    private final boolean _rejectedByPolicy;
+
+    private ImportResult(@Nullable Bgpv4Route route, boolean rejectedByPolicy) {
+      _route = route;
+      _rejectedByPolicy = rejectedByPolicy;
+    }
+  }
+
+  /**
+   * Applies import transformations and {@code importPolicy} to a route received over the session
+   * to {@code ourConfigId}.
+   *
+   * <p>May be called concurrently for the routes of one session, because it only reads state that
+   * does not change while the session's routes are imported:
+   *
+   * <ul>
+   *   <li>The transformation builds a new route from a copy of {@code remoteRoute}, and reads only
+   *       the immutable process and session settings.
+   *   <li>The import policy builds a new environment per call, and writes only to the route
+   *       builder of that call. The {@link Configuration} maps it reads are not modified during
+   *       the data plane computation. Its lazily compiled form is published through a volatile
+   *       field, and compiling it twice in a race is harmless.
+   *   <li>The caches shared by policy evaluation, such as those of AS-path and community matching
+   *       and of route attribute interning, are thread-safe.
+   *   <li>{@link #_successfulWatchedTracks} is immutable, and is only replaced between
+   *       iterations.
+   * </ul>
+   *
+   * <p>All other effects of importing, such as prefix tracing and RIB updates, are applied by the
+   * caller sequentially.
+   */
+  private @Nonnull ImportResult importV4UnicastRoute(
+      Bgpv4Route remoteRoute,
+      BgpPeerConfigId ourConfigId,
+      BgpPeerConfig ourBgpConfig,
+      BgpSessionProperties ourSessionProperties,
+      @Nullable RoutingPolicy importPolicy) {
+    AddressFamily ourAfSettingsForPeer = ourBgpConfig.getIpv4UnicastAddressFamily();
+    assert ourAfSettingsForPeer
+        != null; // invariant of proper queue setup and route exchange for this AF type
+    Bgpv4Route.Builder transformedIncomingRouteBuilder =
+        transformBgpRouteOnImport(
+            remoteRoute,
+            ourSessionProperties.getLocalAs(),
+            ourAfSettingsForPeer.getAddressFamilyCapabilities().getAllowLocalAsIn(),
+            ourSessionProperties.isEbgp(),
+            _process,
+            ourSessionProperties.getRemoteIp(),
+            ourConfigId.getPeerInterface());
+    if (transformedIncomingRouteBuilder == null) {
+      return ImportResult.REJECTED_BY_PROTOCOL;
+    }
+
+    // Note whether new route is received from route reflector client
+    transformedIncomingRouteBuilder.setReceivedFromRouteReflectorClient(
+        !ourSessionProperties.isEbgp() && ourAfSettingsForPeer.getRouteReflectorClient());
+
+    // Process route through import policy, if one exists
+    if (importPolicy != null
+        && !importPolicy.processBgpRoute(
+            remoteRoute,
+            transformedIncomingRouteBuilder,
+            ourSessionProperties,
+            IN,
+            _successfulWatchedTracks::contains)) {
+      return ImportResult.REJECTED_BY_POLICY;
+    }
+    return new ImportResult(transformedIncomingRouteBuilder.build(), false);
+  }
+
   /**
    * Generates and returns all BGP advertisements this process should send over the given edge this
    * iteration. These advertisements come from BGP routes, non-BGP routes (if this process does not
@@ -1831,15 +1915,11 @@ final class BgpRoutingProcess implements RoutingProcess<BgpTopology, BgpRoute<?,
     }
 
     // Process transformed outgoing route by the export policy
-    boolean shouldExport =
-        exportPolicy.processBgpRoute(
-            exportCandidate,
-            transformedOutgoingRouteBuilder,
-            ourSessionProperties,
-            Direction.OUT,
-            _successfulWatchedTracks::contains);
+    B exportedRouteBuilder =
+        applyExportPolicy(
+            exportPolicy, exportCandidate, transformedOutgoingRouteBuilder, ourSessionProperties);
 
-    if (!shouldExport) {
+    if (exportedRouteBuilder == null) {
       // This route could not be exported due to export policy
       _prefixTracer.filtered(
           exportCandidate.getNetwork(),
@@ -1850,6 +1930,7 @@ final class BgpRoutingProcess implements RoutingProcess<BgpTopology, BgpRoute<?,
           Direction.OUT);
       return Optional.empty();
     }
+    transformedOutgoingRouteBuilder = exportedRouteBuilder;
     if (exportCandidate instanceof EvpnType5Route) {
       // Need to specially set NH for EVPN type 5 routes.
       // invariants of export candidate being EVPN
@@ -1886,6 +1967,42 @@ final class BgpRoutingProcess implements RoutingProcess<BgpTopology, BgpRoute<?,
     return Optional.of(transformedOutgoingRoute);
   }
 
+  /**
+   * Processes {@code builder} through {@code exportPolicy}, memoizing the outcome for IPv4 unicast
+   * routes in {@link #_policyResultCache}.
+   *
+   * @return The builder of the route to export, which may be a copy of {@code builder}, or {@code
+   *     null} if the export policy rejects the route.
+   */
+  @SuppressWarnings("unchecked")
+  private <B extends BgpRoute.Builder<B, ?>> @Nullable B applyExportPolicy(
+      RoutingPolicy exportPolicy,
+      AbstractRouteDecorator exportCandidate,
+      B builder,
+      BgpSessionProperties ourSessionProperties) {
+    if (builder instanceof Bgpv4Route.Builder) {
+      // Bgpv4Route.Builder is final, so B is Bgpv4Route.Builder
+      return (B)
+          _policyResultCache
+              .process(
+                  exportPolicy,
+                  exportCandidate,
+                  (Bgpv4Route.Builder) builder,
+                  ourSessionProperties,
+                  Direction.OUT,
+                  _successfulWatchedTracks::contains)
+              .orElse(null);
+    }
+    return exportPolicy.processBgpRoute(
+            exportCandidate,
+            builder,
+            ourSessionProperties,
+            Direction.OUT,
+            _successfulWatchedTracks::contains)
+        ? builder
+        : null;
+  }
+
   /**
    * Given an {@link AbstractRoute}, run it through the BGP outbound transformations and export
    * routing policy.
@@ -1939,15 +2056,11 @@ final class BgpRoutingProcess implements RoutingProcess<BgpTopology, BgpRoute<?,
                 REDISTRIBUTE);
 
     // Process transformed outgoing route by the export policy
-    boolean shouldExport =
-        exportPolicy.processBgpRoute(
-            exportCandidate,
-            transformedOutgoingRouteBuilder,
-            ourSessionProperties,
-            Direction.OUT,
-            _successfulWatchedTracks::contains);
+    Bgpv4Route.Builder exportedRouteBuilder =
+        applyExportPolicy(
+            exportPolicy, exportCandidate, transformedOutgoingRouteBuilder, ourSessionProperties);
 
-    if (!shouldExport) {
+    if (exportedRouteBuilder == null) {
       // This route could not be exported due to export policy
       _prefixTracer.filtered(
           exportCandidate.getNetwork(),
@@ -1958,6 +2071,7 @@ final class BgpRoutingProcess implements RoutingProcess<BgpTopology, BgpRoute<?,
           Direction.OUT);
       return null;
     }
+    transformedOutgoingRouteBuilder = exportedRouteBuilder;
 
     // Apply final post-policy transformations before sending advertisement to neighbor
     BgpProtocolHelper.transformBgpRoutePostExport(
@@ -2563,6 +2677,10 @@ final class BgpRoutingProcess implements RoutingProcess<BgpTopology, BgpRoute<?,
     _successfulWatchedTracks = computeSuccessfulWatchedTracks(trackMethodEvaluatorProvider);
     _successfulWatchedTracksChanged =
         !_successfulWatchedTracks.equals(_successfulWatchedTracksPrev);
+    if (_successfulWatchedTracksChanged) {
+      // memoized policy outcomes may depend on the old track states
+      _policyResultCache.clear();
+    }
     if (_successfulWatchedTracksChanged && !_exportFromBgpRib) {
       // Sanity check that we are calling this method prior to its own execution schedule in the
       // iteration, and prior to any other node's execution schedule that touches this node.
@@ -2606,6 +2724,17 @@ final class BgpRoutingProcess implements RoutingProcess<BgpTopology, BgpRoute<?,
     _ebgpv4DeltaBestPathBuilder = RibDelta.builder();
     _evpnType3DeltaBuilder = RibDelta.builder();
     _evpnType5DeltaBuilder = RibDelta.builder();
+
+    if (LOGGER.isDebugEnabled() && _policyResultCache.getMisses() > 0) {
+      LOGGER.debug(
+          "Node {}, VRF {}: export policy cache hits {}, misses {}, entries {}",
+          _hostname,
+          _vrfName,
+          _policyResultCache.getHits(),
+          _policyResultCache.getMisses(),
+          _policyResultCache.size());
+    }
+    _policyResultCache.clear();
   }
 
   /**
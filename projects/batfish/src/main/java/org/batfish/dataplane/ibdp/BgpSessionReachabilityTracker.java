@@ -0,0 +1,138 @@
+package org.batfish.dataplane.ibdp;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Sets;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedSet;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.batfish.common.topology.L3Adjacencies;
+import org.batfish.datamodel.DataPlane;
+import org.batfish.datamodel.Edge;
+import org.batfish.datamodel.FibEntry;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.Topology;
+import org.batfish.datamodel.bgp.BgpSessionReachabilityCache;
+import org.batfish.datamodel.vxlan.Layer2Vni;
+import org.batfish.datamodel.vxlan.Layer3Vni;
+
+/**
+ * Keeps a {@link BgpSessionReachabilityCache} valid across the topology iterations of {@link
+ * IncrementalBdpEngine}, so BGP sessions are only re-checked when forwarding along their paths may
+ * have changed.
+ *
+ * <p>A trace depends on the FIBs and VNIs of the nodes it traverses, and on whether their layer-3
+ * neighbors reply to ARP, which depends on the neighbors' FIBs (e.g., for proxy ARP). So when the
+ * forwarding state of a node changes, results that traversed the node or any of its neighbors are
+ * dropped. When the layer-3 topology, L3 adjacencies, or IP ownership change, all results are
+ * dropped.
+ *
+ * <p>The forwarding state of each node is retained until the next update, and compared for
+ * equality. The FIB entries are held by reference, so the tracker only keeps the FIB entries of the
+ * previous iteration alive.
+ */
+@ParametersAreNonnullByDefault
+final class BgpSessionReachabilityTracker {
+
+  /**
+   * Drops cached results that may be invalid for {@code dataplane}, and returns the cache to use
+   * for it.
+   */
+  @Nonnull
+  BgpSessionReachabilityCache update(
+      DataPlane dataplane,
+      TopologyContext topologyContext,
+      Map<Ip, Map<String, Set<String>>> ipVrfOwners) {
+    int sizeBefore = _cache.size();
+    Set<String> affected = advance(dataplane, topologyContext, ipVrfOwners);
+    if (affected == null) {
+      _cache.invalidateAll();
+    } else {
+      _cache.invalidate(affected);
+    }
+    LOGGER.debug(
+        "BGP session reachability cache: kept {} of {} results", _cache.size(), sizeBefore);
+    return _cache;
+  }
+
+  /**
+   * Records the state that cached results depend on for {@code dataplane}, and returns the nodes
+   * whose results may be invalid since the last call, or {@code null} if all results may be
+   * invalid.
+   */
+  @VisibleForTesting
+  @Nullable
+  Set<String> advance(
+      DataPlane dataplane,
+      TopologyContext topologyContext,
+      Map<Ip, Map<String, Set<String>>> ipVrfOwners) {
+    Topology layer3Topology = topologyContext.getLayer3Topology();
+    L3Adjacencies l3Adjacencies = topologyContext.getL3Adjacencies();
+    Map<String, ForwardingState> forwardingStates = computeForwardingStates(dataplane);
+    Set<String> affected;
+    if (!layer3Topology.equals(_layer3Topology)
+        || !l3Adjacencies.equals(_l3Adjacencies)
+        || !ipVrfOwners.equals(_ipVrfOwners)) {
+      affected = null;
+    } else {
+      Set<String> changed = new HashSet<>();
+      for (String node : Sets.union(forwardingStates.keySet(), _forwardingStates.keySet())) {
+        if (!Objects.equals(forwardingStates.get(node), _forwardingStates.get(node))) {
+          changed.add(node);
+        }
+      }
+      Map<String, SortedSet<Edge>> nodeEdges = layer3Topology.getNodeEdges();
+      affected = new HashSet<>(changed);
+      for (String node : changed) {
+        for (Edge edge : nodeEdges.getOrDefault(node, ImmutableSortedSet.of())) {
+          affected.add(edge.getNode1());
+          affected.add(edge.getNode2());
+        }
+      }
+    }
+    _layer3Topology = layer3Topology;
+    _l3Adjacencies = l3Adjacencies;
+    _ipVrfOwners = ipVrfOwners;
+    _forwardingStates = forwardingStates;
+    return affected;
+  }
+
+  /** The forwarding state of a node: its FIB entries and VNIs, by VRF. */
+  private record ForwardingState(
+      Map<String, Set<FibEntry>> fibEntries,
+      Map<String, Set<Layer2Vni>> layer2Vnis,
+      Map<String, Set<Layer3Vni>> layer3Vnis) {}
+
+  private static @Nonnull Map<String, ForwardingState> computeForwardingStates(
+      DataPlane dataplane) {
+    return dataplane.getFibs().entrySet().stream()
+        .collect(
+            ImmutableMap.toImmutableMap(
+                Entry::getKey,
+                nodeFibs ->
+                    new ForwardingState(
+                        nodeFibs.getValue().entrySet().stream()
+                            .collect(
+                                ImmutableMap.toImmutableMap(
+                                    Entry::getKey, vrfFib -> vrfFib.getValue().allEntries())),
+                        ImmutableMap.copyOf(dataplane.getLayer2Vnis().row(nodeFibs.getKey())),
+                        ImmutableMap.copyOf(dataplane.getLayer3Vnis().row(nodeFibs.getKey())))));
+  }
+
+  private static final Logger LOGGER = LogManager.getLogger(BgpSessionReachabilityTracker.class);
+
+  private final @Nonnull BgpSessionReachabilityCache _cache = new BgpSessionReachabilityCache();
+  private @Nullable Topology _layer3Topology;
+  private @Nullable L3Adjacencies _l3Adjacencies;
+  private @Nullable Map<Ip, Map<String, Set<String>>> _ipVrfOwners;
+  private @Nonnull Map<String, ForwardingState> _forwardingStates = ImmutableMap.of();
+}
@@ -29,6 +29,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.SortedMap;
@@ -149,7 +150,8 @@ final class IncrementalBdpEngine {
       PartialDataplane currentDataplane,
       TopologyContext initialTopologyContext,
       NetworkConfigurations networkConfigurations,
-      Map<Ip, Map<String, Set<String>>> ipVrfOwners) {
+      Map<Ip, Map<String, Set<String>>> ipVrfOwners,
+      BgpSessionReachabilityTracker bgpSessionTracker) {
     // Update topologies
     LOGGER.info("Updating dynamic topologies");
 
@@ -199,7 +201,8 @@ final class IncrementalBdpEngine {
             true,
             trEngCurrentL3Topology,
             currentDataplane.getFibs(),
-            currentTopologyContext.getL3Adjacencies());
+            currentTopologyContext.getL3Adjacencies(),
+            bgpSessionTracker.update(currentDataplane, currentTopologyContext, ipVrfOwners));
 
     // Update L3 adjacencies if necessary.
     L3Adjacencies newAdjacencies;
@@ -445,6 +448,11 @@ final class IncrementalBdpEngine {
     // nodes by hostname. See https://github.com/batfish/batfish/pull/7054 description.
     List<VirtualRouter> vrs =
         toListInRandomOrder(nodes.values().stream().flatMap(n -> n.getVirtualRouters().stream()));
+    int bgpParallelImportThreshold = _settings.getBgpParallelImportThreshold();
+    vrs.stream()
+        .map(VirtualRouter::getBgpRoutingProcess)
+        .filter(Objects::nonNull)
+        .forEach(bgp -> bgp.setParallelImportThreshold(bgpParallelImportThreshold));
     NetworkConfigurations networkConfigurations = NetworkConfigurations.of(configurations);
 
     /*
@@ -478,13 +486,16 @@ final class IncrementalBdpEngine {
     PartialDataplane currentDataplane =
         nextDataplane(priorTopologyContext, nodes, vrs, initialIpOwners);
 
+    // Memoizes BGP session reachability checks across topology iterations
+    BgpSessionReachabilityTracker bgpSessionTracker = new BgpSessionReachabilityTracker();
     TopologyContext currentTopologyContext =
         nextTopologyContext(
             priorTopologyContext,
             currentDataplane,
             initialTopologyContext,
             networkConfigurations,
-            initialIpVrfOwners);
+            initialIpVrfOwners,
+            bgpSessionTracker);
     Map<String, Collection<TrackRoute>> trackRoutesByHostname = collectTrackRoutes(configurations);
     Map<String, Collection<TrackReachability>> trackReachabilitiesByHostname =
         collectTrackReachabilities(configurations);
@@ -532,7 +543,8 @@ final class IncrementalBdpEngine {
               currentDataplane,
               initialTopologyContext,
               networkConfigurations,
-              currentIpOwners.getIpVrfOwners());
+              currentIpOwners.getIpVrfOwners(),
+              bgpSessionTracker);
 
       // Activate/deactivate IRBs based on L2 VNI edge changes (VXLAN-aware autostate)
       Set<String> autostateAffectedHostnames =
@@ -1163,6 +1175,14 @@ final class IncrementalBdpEngine {
     int ospfInternalIterations = 0;
     boolean dirty = true;
 
+    if (_settings.getOspfSpf()) {
+      LOGGER.info("OSPF internal: SPF");
+      allNodes.values().parallelStream()
+          .flatMap(n -> n.getVirtualRouters().stream())
+          .flatMap(vr -> vr.getOspfProcesses().values().stream())
+          .forEach(process -> process.initializeIntraAreaRoutesBySpf(allNodes));
+    }
+
     while (dirty) {
       ospfInternalIterations++;
       LOGGER.info("OSPF internal: Iteration {}", ospfInternalIterations);
@@ -2,7 +2,10 @@ package org.batfish.dataplane.ibdp;
 
 import com.google.auto.service.AutoService;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.SortedSet;
+import javax.annotation.Nonnull;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.batfish.common.NetworkSnapshot;
@@ -11,8 +14,11 @@ import org.batfish.common.plugin.Plugin;
 import org.batfish.common.topology.TopologyProvider;
 import org.batfish.datamodel.BgpAdvertisement;
 import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.Topology;
 import org.batfish.datamodel.answers.IncrementalBdpAnswerElement;
+import org.batfish.datamodel.eigrp.EigrpTopologyUtils;
 import org.batfish.datamodel.isis.IsisTopology;
+import org.batfish.version.BatfishVersion;
 
 /** A batfish plugin that registers the Incremental Batfish Data Plane (ibdp) Engine. */
 @AutoService(Plugin.class)
@@ -24,6 +30,8 @@ public final class IncrementalDataPlanePlugin extends DataPlanePlugin {
 
   private IncrementalBdpEngine _engine;
 
+  private IncrementalDataPlaneSettings _settings;
+
   public IncrementalDataPlanePlugin() {}
 
   @Override
@@ -32,8 +40,17 @@ public final class IncrementalDataPlanePlugin extends DataPlanePlugin {
     Set<BgpAdvertisement> externalAdverts =
         _batfish.loadExternalBgpAnnouncements(snapshot, configurations);
 
-    LOGGER.info("Building topology for data-plane");
     TopologyProvider topologyProvider = _batfish.getTopologyProvider();
+    if (_settings.getReuseIdenticalParentDataPlane()) {
+      Optional<ComputeDataPlaneResult> parentResult =
+          reuseIdenticalParentDataPlane(
+              snapshot, configurations, externalAdverts, topologyProvider);
+      if (parentResult.isPresent()) {
+        return parentResult.get();
+      }
+    }
+
+    LOGGER.info("Building topology for data-plane");
     TopologyContext topologyContext =
         TopologyContext.builder()
             .setIpsecTopology(topologyProvider.getInitialIpsecTopology(snapshot))
@@ -60,11 +77,88 @@ public final class IncrementalDataPlanePlugin extends DataPlanePlugin {
     return answer;
   }
 
+  /**
+   * If {@code snapshot} was forked from a snapshot with a stored dataplane, and all inputs to the
+   * dataplane computation are unchanged, returns the parent's dataplane and topologies. Otherwise,
+   * returns {@link Optional#empty()}.
+   *
+   * <p>Only identical forks are handled. A fork with any changed node is recomputed in full, even
+   * if the change is confined to a few nodes: the stored data plane keeps final RIBs but not the
+   * per-neighbor protocol state a localized recomputation over the changed nodes and their
+   * neighbors would need.
+   */
+  private @Nonnull Optional<ComputeDataPlaneResult> reuseIdenticalParentDataPlane(
+      NetworkSnapshot snapshot,
+      Map<String, Configuration> configurations,
+      Set<BgpAdvertisement> externalAdverts,
+      TopologyProvider topologyProvider) {
+    Optional<NetworkSnapshot> maybeParent = _batfish.getParentSnapshotWithDataPlane(snapshot);
+    if (!maybeParent.isPresent()) {
+      return Optional.empty();
+    }
+    NetworkSnapshot parent = maybeParent.get();
+    Optional<Map<String, String>> parentHashes = _batfish.loadConfigurationHashes(parent);
+    Optional<Map<String, String>> hashes = _batfish.loadConfigurationHashes(snapshot);
+    if (!parentHashes.isPresent() || !hashes.isPresent()) {
+      LOGGER.info(
+          "Configuration hashes of snapshot {} or parent {} are missing, recomputing data plane",
+          snapshot.getSnapshot(),
+          parent.getSnapshot());
+      return Optional.empty();
+    }
+    SortedSet<String> changedNodes =
+        ParentSnapshotDiff.changedNodes(parentHashes.get(), hashes.get());
+    if (!changedNodes.isEmpty()) {
+      LOGGER.info(
+          "{} of {} nodes changed relative to parent snapshot {}, recomputing data plane in full",
+          changedNodes.size(),
+          configurations.size(),
+          parent.getSnapshot());
+      return Optional.empty();
+    }
+    // The configurations are identical, so they stand in for the parent's.
+    if (!externalAdverts.equals(_batfish.loadExternalBgpAnnouncements(parent, configurations))) {
+      LOGGER.info(
+          "External BGP announcements changed relative to parent snapshot {}, recomputing data"
+              + " plane",
+          parent.getSnapshot());
+      return Optional.empty();
+    }
+    if (!topologyProvider
+        .getLayer1Topologies(snapshot)
+        .equals(topologyProvider.getLayer1Topologies(parent))) {
+      LOGGER.info(
+          "Layer 1 topology changed relative to parent snapshot {}, recomputing data plane",
+          parent.getSnapshot());
+      return Optional.empty();
+    }
+
+    LOGGER.info("Reusing data plane of parent snapshot {}", parent.getSnapshot());
+    Topology layer3Topology = topologyProvider.getLayer3Topology(parent);
+    TopologyContext topologyContext =
+        TopologyContext.builder()
+            .setBgpTopology(topologyProvider.getBgpTopology(parent))
+            .setEigrpTopology(EigrpTopologyUtils.initEigrpTopology(configurations, layer3Topology))
+            .setIsisTopology(
+                IsisTopology.initIsisTopology(
+                    configurations, topologyProvider.getInitialLayer3Topology(snapshot)))
+            .setLayer3Topology(layer3Topology)
+            .setLayer1Topologies(topologyProvider.getLayer1Topologies(snapshot))
+            .setL3Adjacencies(topologyProvider.getL3Adjacencies(parent))
+            .setOspfTopology(topologyProvider.getInitialOspfTopology(snapshot))
+            .setVxlanTopology(topologyProvider.getVxlanTopology(parent))
+            .build();
+    IncrementalBdpAnswerElement answerElement = new IncrementalBdpAnswerElement();
+    answerElement.setVersion(BatfishVersion.getVersionStatic());
+    return Optional.of(
+        new ComputeDataPlaneResult(
+            answerElement, _batfish.loadDataPlane(parent), topologyContext));
+  }
+
   @Override
   protected void dataPlanePluginInitialize() {
-    _engine =
-        new IncrementalBdpEngine(
-            new IncrementalDataPlaneSettings(_batfish.getSettingsConfiguration()));
+    _settings = new IncrementalDataPlaneSettings(_batfish.getSettingsConfiguration());
+    _engine = new IncrementalBdpEngine(_settings);
   }
 
   @Override
@@ -16,7 +16,11 @@ public final class IncrementalDataPlaneSettings {
 
   private Configuration _config;
 
+  public static final String PROP_BGP_PARALLEL_IMPORT_THRESHOLD = "bgpparallelimportthreshold";
   public static final String PROP_COLORING = "coloring";
+  public static final String PROP_OSPF_SPF = "ospfspf";
+  public static final String PROP_REUSE_IDENTICAL_PARENT_DATAPLANE =
+      "reuseidenticalparentdataplane";
   public static final String PROP_SCHEDULE = "schedule";
 
   /**
@@ -47,7 +51,11 @@ public final class IncrementalDataPlaneSettings {
 
   /** Initialize defaults for all properties */
   private void initDefaults() {
+    _config.setProperty(
+        PROP_BGP_PARALLEL_IMPORT_THRESHOLD, BgpRoutingProcess.DEFAULT_PARALLEL_IMPORT_THRESHOLD);
     _config.setProperty(PROP_COLORING, SATURATION.toString());
+    _config.setProperty(PROP_OSPF_SPF, false);
+    _config.setProperty(PROP_REUSE_IDENTICAL_PARENT_DATAPLANE, false);
     _config.setProperty(PROP_SCHEDULE, NODE_COLORED.toString());
   }
 
@@ -63,4 +71,31 @@ public final class IncrementalDataPlaneSettings {
   public Coloring getColoringType() {
     return Coloring.valueOf(_config.getString(PROP_COLORING));
   }
+
+  /**
+   * Whether a forked snapshot whose dataplane inputs are identical to those of its parent should
+   * reuse the parent's stored dataplane instead of recomputing it.
+   *
+   * <p>This is not an incremental computation: forks with any changed node are always recomputed
+   * in full, from scratch.
+   */
+  public boolean getReuseIdenticalParentDataPlane() {
+    return _config.getBoolean(PROP_REUSE_IDENTICAL_PARENT_DATAPLANE);
+  }
+
+  /**
+   * Whether OSPF intra-area routes should be computed up front by a shortest path first computation
+   * over the OSPF topology, rather than only by exchanging routes with neighbors hop by hop.
+   */
+  public boolean getOspfSpf() {
+    return _config.getBoolean(PROP_OSPF_SPF);
+  }
+
+  /**
+   * Minimum number of routes received over a BGP session in one iteration for their import
+   * transformations and policy to be applied in parallel.
+   */
+  public int getBgpParallelImportThreshold() {
+    return _config.getInt(PROP_BGP_PARALLEL_IMPORT_THRESHOLD);
+  }
 }
@@ -11,15 +11,21 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.Streams;
 import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.stream.Stream;
 import javax.annotation.Nonnull;
@@ -106,6 +112,13 @@ final class OspfRoutingProcess implements RoutingProcess<OspfTopology, OspfRoute
   private final @Nonnull OspfExternalType2Rib _type2Rib;
   private final @Nonnull OspfRib _ospfRib;
 
+  /**
+   * Intra-area routes this process originates, by area. Computed on demand by the shortest path
+   * first computations of all processes, which may run in parallel.
+   */
+  private final @Nonnull Map<Long, Set<OspfIntraAreaRoute>> _originatedIntraAreaRoutes =
+      new ConcurrentHashMap<>();
+
   /*
    * Message queues. For determinism, these must be sorted. However, for performance, they should not be SortedMap.
    */
@@ -392,7 +405,19 @@ final class OspfRoutingProcess implements RoutingProcess<OspfTopology, OspfRoute
   @Nonnull
   RibDelta<OspfIntraAreaRoute> initializeRoutesByArea(OspfArea area) {
     RibDelta.Builder<OspfIntraAreaRoute> deltaBuilder = RibDelta.builder();
+    computeOriginatedIntraAreaRoutes(area)
+        .forEach(r -> deltaBuilder.from(_intraAreaRib.mergeRouteGetDelta(r)));
+    return deltaBuilder.build();
+  }
 
+  /**
+   * Compute the intra-area routes this process originates in a given area, based on available
+   * interfaces. Does not modify any state, so it is safe to call on other processes.
+   *
+   * @param area {@link OspfArea area configuration}
+   */
+  private @Nonnull Set<OspfIntraAreaRoute> computeOriginatedIntraAreaRoutes(OspfArea area) {
+    ImmutableSet.Builder<OspfIntraAreaRoute> routes = ImmutableSet.builder();
     for (String ifaceName : area.getInterfaces()) {
       Interface iface = _c.getAllInterfaces().get(ifaceName);
       if (iface == null || !iface.getActive() || !iface.getOspfEnabled()) {
@@ -406,16 +431,28 @@ final class OspfRoutingProcess implements RoutingProcess<OspfTopology, OspfRoute
       // Create a route for each interface address
       // Only create a /32 host address for this interface if 1. it is a loopback and the network
       // type is not P2P or 2. its type is p2mp (See RFC 2328 Section 2.1.1)
-      Set<OspfIntraAreaRoute> allRoutes =
-          getIfaceAddressesForIntraAreaRoutes(iface)
-              .map(
-                  ifaceAddr ->
-                      computeIntraAreaRouteFromInterface(area.getAreaNumber(), iface, ifaceAddr))
-              .collect(ImmutableSet.toImmutableSet());
-
-      allRoutes.forEach(r -> deltaBuilder.from(_intraAreaRib.mergeRouteGetDelta(r)));
+      getIfaceAddressesForIntraAreaRoutes(iface)
+          .map(
+              ifaceAddr ->
+                  computeIntraAreaRouteFromInterface(area.getAreaNumber(), iface, ifaceAddr))
+          .forEach(routes::add);
     }
-    return deltaBuilder.build();
+    return routes.build();
+  }
+
+  /**
+   * Return the intra-area routes this process originates in a given area, computing them only the
+   * first time they are requested. Safe to call on other processes.
+   */
+  private @Nonnull Set<OspfIntraAreaRoute> getOriginatedIntraAreaRoutes(long area) {
+    return _originatedIntraAreaRoutes.computeIfAbsent(
+        area,
+        a -> {
+          OspfArea areaConfig = _process.getAreas().get(a);
+          return areaConfig == null
+              ? ImmutableSet.of()
+              : computeOriginatedIntraAreaRoutes(areaConfig);
+        });
   }
 
   @VisibleForTesting
@@ -470,6 +507,185 @@ final class OspfRoutingProcess implements RoutingProcess<OspfTopology, OspfRoute
     return _process.isAreaBorderRouter();
   }
 
+  /**
+   * Seed the intra-area RIB with the routes computed by {@link
+   * #computeIntraAreaRoutesBySpf(Map)}. Must be called after all processes are initialized and
+   * before the first iteration.
+   *
+   * <p>The route exchange still runs afterwards, but no advertisement is better than the seeded
+   * routes, so intra-area routes converge in a couple of iterations rather than one iteration per
+   * hop. Inter-area and external routes are still propagated by the exchange.
+   */
+  void initializeIntraAreaRoutesBySpf(Map<String, Node> allNodes) {
+    RibDelta.Builder<OspfIntraAreaRoute> intraAreaBuilder = RibDelta.builder();
+    computeIntraAreaRoutesBySpf(allNodes)
+        .forEach(r -> intraAreaBuilder.from(_intraAreaRib.mergeRouteGetDelta(r)));
+    RibDelta<OspfIntraAreaRoute> intraAreaDelta = intraAreaBuilder.build();
+    RibDelta.Builder<OspfInterAreaRoute> interAreaBuilder = RibDelta.builder();
+    intraAreaDelta.getActions().stream()
+        .filter(ra -> !ra.isWithdrawn())
+        .forEach(
+            ra -> processIntraAreaRouteAtABR(interAreaBuilder, ra.getRoute(), ra.getReason()));
+    RibDelta<OspfInterAreaRoute> interAreaDelta = interAreaBuilder.build();
+    // Inter-area routes of an ABR are sent out with the initialization delta
+    _initializationDelta =
+        new InternalDelta(
+            _initializationDelta._intraArea,
+            RibDelta.<OspfInterAreaRoute>builder()
+                .from(_initializationDelta._interArea)
+                .from(interAreaDelta)
+                .build(),
+            _initializationDelta._internalSummary);
+    _changeset.from(RibDelta.importRibDelta(_ospfRib, intraAreaDelta));
+    _changeset.from(RibDelta.importRibDelta(_ospfRib, interAreaDelta));
+  }
+
+  /**
+   * Compute the intra-area routes of this process by running a shortest path first computation
+   * over the OSPF topology of each of its areas.
+   *
+   * <p>The result is the fixed point of the intra-area route exchange: for each prefix originated
+   * in an area, a route through each neighbor on a shortest path to a closest originator, with the
+   * attributes the route would have if advertised along that path. Link costs are those added on
+   * import, i.e., the cost of the receiving interface.
+   *
+   * <p>Only reads the configuration of other processes, so it may run on all processes in parallel.
+   */
+  private @Nonnull Set<OspfIntraAreaRoute> computeIntraAreaRoutesBySpf(
+      Map<String, Node> allNodes) {
+    ImmutableSet.Builder<OspfIntraAreaRoute> routes = ImmutableSet.builder();
+    for (long area : _process.getAreas().keySet()) {
+      computeIntraAreaRoutesBySpf(area, allNodes, routes);
+    }
+    return routes.build();
+  }
+
+  /** Compute the intra-area routes of this process in a single area. */
+  private void computeIntraAreaRoutesBySpf(
+      long area, Map<String, Node> allNodes, ImmutableSet.Builder<OspfIntraAreaRoute> routes) {
+    // Dijkstra from this process. Processes are settled in order of increasing distance.
+    Map<OspfRoutingProcess, Long> distances = new HashMap<>();
+    Map<OspfRoutingProcess, List<SpfLink>> links = new HashMap<>();
+    List<OspfRoutingProcess> settled = new ArrayList<>();
+    PriorityQueue<SpfEntry> queue =
+        new PriorityQueue<>(Comparator.comparingLong((SpfEntry entry) -> entry._distance));
+    distances.put(this, 0L);
+    queue.add(new SpfEntry(this, 0L));
+    while (!queue.isEmpty()) {
+      SpfEntry entry = queue.remove();
+      if (links.containsKey(entry._process) || entry._distance > distances.get(entry._process)) {
+        // Already settled through a shorter or equally short path
+        continue;
+      }
+      List<SpfLink> processLinks = entry._process.getSpfLinks(area, allNodes, _topology);
+      links.put(entry._process, processLinks);
+      settled.add(entry._process);
+      for (SpfLink link : processLinks) {
+        long distance = entry._distance + link._cost;
+        Long currentDistance = distances.get(link._neighbor);
+        if (currentDistance == null || distance < currentDistance) {
+          distances.put(link._neighbor, distance);
+          queue.add(new SpfEntry(link._neighbor, distance));
+        }
+      }
+    }
+
+    // Links of this process that start a shortest path to each settled process (ECMP). Zero-cost
+    // links may make the settle order inconsistent with the paths, so iterate until stable.
+    Map<OspfRoutingProcess, Set<SpfLink>> firstHops = new HashMap<>();
+    boolean changed = true;
+    while (changed) {
+      changed = false;
+      for (OspfRoutingProcess process : settled) {
+        long distance = distances.get(process);
+        for (SpfLink link : links.get(process)) {
+          if (distance + link._cost != distances.get(link._neighbor)) {
+            continue;
+          }
+          Set<SpfLink> neighborFirstHops =
+              firstHops.computeIfAbsent(link._neighbor, p -> new LinkedHashSet<>());
+          if (process == this) {
+            changed |= neighborFirstHops.add(link);
+          }
+          // Zero-cost loops through this process also count, as they do in the route exchange
+          changed |= neighborFirstHops.addAll(firstHops.getOrDefault(process, ImmutableSet.of()));
+        }
+      }
+    }
+
+    // Find the metric of the best routes to each prefix originated in the area
+    Map<OspfRoutingProcess, Set<OspfIntraAreaRoute>> originated = new HashMap<>();
+    Map<Prefix, Long> bestMetrics = new HashMap<>();
+    for (OspfRoutingProcess process : settled) {
+      Set<OspfIntraAreaRoute> processRoutes = process.getOriginatedIntraAreaRoutes(area);
+      originated.put(process, processRoutes);
+      long distance = distances.get(process);
+      processRoutes.forEach(
+          r -> bestMetrics.merge(r.getNetwork(), distance + r.getMetric(), Long::min));
+    }
+
+    // Import the best routes through the first hops of the paths to their originators
+    for (OspfRoutingProcess process : settled) {
+      long distance = distances.get(process);
+      for (OspfIntraAreaRoute route : originated.get(process)) {
+        long metric = distance + route.getMetric();
+        if (metric != bestMetrics.get(route.getNetwork())) {
+          continue;
+        }
+        if (process == this) {
+          routes.add(route);
+        }
+        for (SpfLink link : firstHops.getOrDefault(process, ImmutableSet.of())) {
+          routes.add(importIntraAreaRouteBySpf(route, link, metric));
+        }
+      }
+    }
+  }
+
+  /**
+   * Return the route originated by a process in this area as it would be received over the first
+   * hop of a shortest path to that process, had it been advertised along that path.
+   */
+  private @Nonnull OspfIntraAreaRoute importIntraAreaRouteBySpf(
+      OspfIntraAreaRoute originatedRoute, SpfLink link, long metric) {
+    String ifaceName = link._edge.getHead().getInterfaceName();
+    OspfIntraAreaRoute advertisedRoute =
+        originatedRoute.toBuilder()
+            .setNextHop(NextHopIp.of(link._neighborIp))
+            .setNonRouting(true)
+            .build();
+    OspfIntraAreaRoute.Builder routeBuilder =
+        transformIntraAreaRouteOnImport(
+            advertisedRoute, ifaceName, metric - originatedRoute.getMetric());
+    applyDistributeList(_c, _vrfName, ifaceName, routeBuilder);
+    return routeBuilder.build();
+  }
+
+  /** Return the links over which this process receives routes from neighbors in a given area. */
+  private @Nonnull List<SpfLink> getSpfLinks(
+      long area, Map<String, Node> allNodes, OspfTopology topology) {
+    ImmutableList.Builder<SpfLink> links = ImmutableList.builder();
+    getIncomingEdgeStream(topology)
+        .forEach(
+            edgeId -> {
+              OspfSessionProperties session = topology.getSession(edgeId).orElse(null);
+              assert session != null; // Invariant of the edge existing
+              if (session.getArea() != area) {
+                return;
+              }
+              OspfRoutingProcess neighbor = getNeighborProcess(edgeId.getTail(), allNodes);
+              assert neighbor != null; // Otherwise the edge should not have been established
+              links.add(
+                  new SpfLink(
+                      edgeId,
+                      neighbor,
+                      // Neighbor IP is the IP of tail node which means Ip1
+                      session.getIpLink().getIp1(),
+                      getIncrementalCost(edgeId.getHead().getInterfaceName(), false)));
+            });
+    return links.build();
+  }
+
   /**
    * Extract the {@link OspfRoutingProcess} belonging to the given {@link OspfNeighborConfigId
    * OspfNeighborId}
@@ -660,25 +876,34 @@ final class OspfRoutingProcess implements RoutingProcess<OspfTopology, OspfRoute
         processRouteAdvertisement(
             routeAdvertisement.toBuilder().setRoute(intraAreaRoute).build(), _intraAreaRib));
 
-    /*
-    If we are an ABR, convert intra-area routes to inter-area routes (i.e., Type 1 -> Type 3) and put them
-    into our inter-area RIB. Note these non-routing because intra-area specific routes should always be preferred.
-    */
-    if (isABR()) {
-      // If this area has summaries, make sure we only convert the non-summarized-routes to
-      // inter-area routes.
-      RouteFilterList areaFilter = _areaFilters.get(intraAreaRoute.getArea());
-      if (areaFilter == null || areaFilter.permits(intraAreaRoute.getNetwork())) {
-        OspfInterAreaRoute interAreaRoute =
-            OspfInterAreaRoute.builder(intraAreaRoute).setNonRouting(true).build();
-        interAreaDelta.from(
-            processRouteAdvertisement(
-                RouteAdvertisement.<OspfInterAreaRoute>builder()
-                    .setReason(routeAdvertisement.getReason())
-                    .setRoute(interAreaRoute)
-                    .build(),
-                _interAreaRib));
-      }
+    processIntraAreaRouteAtABR(interAreaDelta, intraAreaRoute, routeAdvertisement.getReason());
+  }
+
+  /**
+   * If we are an ABR, convert intra-area routes to inter-area routes (i.e., Type 1 -> Type 3) and
+   * put them into our inter-area RIB. Note these non-routing because intra-area specific routes
+   * should always be preferred.
+   */
+  private void processIntraAreaRouteAtABR(
+      RibDelta.Builder<OspfInterAreaRoute> interAreaDelta,
+      OspfIntraAreaRoute intraAreaRoute,
+      Reason reason) {
+    if (!isABR()) {
+      return;
+    }
+    // If this area has summaries, make sure we only convert the non-summarized-routes to
+    // inter-area routes.
+    RouteFilterList areaFilter = _areaFilters.get(intraAreaRoute.getArea());
+    if (areaFilter == null || areaFilter.permits(intraAreaRoute.getNetwork())) {
+      OspfInterAreaRoute interAreaRoute =
+          OspfInterAreaRoute.builder(intraAreaRoute).setNonRouting(true).build();
+      interAreaDelta.from(
+          processRouteAdvertisement(
+              RouteAdvertisement.<OspfInterAreaRoute>builder()
+                  .setReason(reason)
+                  .setRoute(interAreaRoute)
+                  .build(),
+              _interAreaRib));
     }
   }
 
@@ -1706,6 +1931,34 @@ final class OspfRoutingProcess implements RoutingProcess<OspfTopology, OspfRoute
         .collect(toOrderedHashCode());
   }
 
+  /** A link over which a process receives intra-area routes from a neighbor, used by SPF */
+  private static final class SpfLink {
+    /** The incoming edge, whose head is the receiving interface */
+    private final @Nonnull EdgeId _edge;
+
+    private final @Nonnull OspfRoutingProcess _neighbor;
+    private final @Nonnull Ip _neighborIp;
+    private final long _cost;
+
+    private SpfLink(EdgeId edge, OspfRoutingProcess neighbor, Ip neighborIp, long cost) {
+      _edge = edge;
+      _neighbor = neighbor;
+      _neighborIp = neighborIp;
+      _cost = cost;
+    }
+  }
+
+  /** A process and a tentative distance to it, queued by SPF */
+  private static final class SpfEntry {
+    private final @Nonnull OspfRoutingProcess _process;
+    private final long _distance;
+
+    private SpfEntry(OspfRoutingProcess process, long distance) {
+      _process = process;
+      _distance = distance;
+    }
+  }
+
   /** Wrapper around intra- and inter-area RIB deltas */
   private static final class InternalDelta {
     private final @Nonnull RibDelta<OspfIntraAreaRoute> _intraArea;
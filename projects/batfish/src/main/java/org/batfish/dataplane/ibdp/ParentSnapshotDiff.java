@@ -0,0 +1,32 @@
+package org.batfish.dataplane.ibdp;
+
+import static com.google.common.collect.ImmutableSortedSet.toImmutableSortedSet;
+
+import com.google.common.collect.Ordering;
+import com.google.common.collect.Sets;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedSet;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/** Utility for comparing the configurations of a forked snapshot with those of its parent. */
+@ParametersAreNonnullByDefault
+final class ParentSnapshotDiff {
+
+  /**
+   * Returns the hostnames of nodes that were added, removed, or modified in {@code child} relative
+   * to {@code parent}, given the hash of each node's stored configuration in each snapshot.
+   *
+   * <p>Equal hashes imply equal stored configurations; the converse need not hold, so a node may be
+   * conservatively reported as changed.
+   */
+  static @Nonnull SortedSet<String> changedNodes(
+      Map<String, String> parent, Map<String, String> child) {
+    return Sets.union(parent.keySet(), child.keySet()).stream()
+        .filter(hostname -> !Objects.equals(parent.get(hostname), child.get(hostname)))
+        .collect(toImmutableSortedSet(Ordering.natural()));
+  }
+
+  private ParentSnapshotDiff() {}
+}
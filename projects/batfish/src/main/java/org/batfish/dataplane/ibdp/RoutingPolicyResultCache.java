@@ -0,0 +1,133 @@
+package org.batfish.dataplane.ibdp;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.datamodel.AbstractRouteDecorator;
+import org.batfish.datamodel.BgpSessionProperties;
+import org.batfish.datamodel.Bgpv4Route;
+import org.batfish.datamodel.route.nh.NextHopDiscard;
+import org.batfish.datamodel.routing_policy.Environment.Direction;
+import org.batfish.datamodel.routing_policy.RoutingPolicy;
+import org.batfish.datamodel.routing_policy.RoutingPolicy.BgpRouteProcessingOutcome;
+
+/**
+ * Memoizes the outcomes of the BGP routing policies of one {@link BgpRoutingProcess}.
+ *
+ * <p>A process exports each route through the same export policy once per neighbor, so with many
+ * neighbors sharing a policy (e.g., a peer group of route-reflector clients) the same policy is
+ * evaluated many times on the same input. The outcome of a policy, including the changes it makes
+ * to the output route, is determined by the policy, the input route, the initial output route, the
+ * {@link BgpSessionProperties}, the {@link Direction}, and the track states. Outcomes that did not
+ * read the session properties are shared by all sessions; the others are keyed by their session.
+ *
+ * <p>Track states may change between iterations, so the cache must be {@link #clear() cleared}
+ * whenever they do. May be used concurrently.
+ */
+@ParametersAreNonnullByDefault
+final class RoutingPolicyResultCache {
+
+  /**
+   * Processes {@code inputRoute} through {@code policy}, like {@link
+   * RoutingPolicy#processBgpRoute}.
+   *
+   * @return A builder for the output route, or {@link Optional#empty()} if the policy rejected the
+   *     route. On a cache miss, this is {@code outputRoute} itself. On a hit, it is a new builder
+   *     with the state {@code outputRoute} would have had, and {@code outputRoute} is not modified.
+   */
+  @Nonnull
+  Optional<Bgpv4Route.Builder> process(
+      RoutingPolicy policy,
+      AbstractRouteDecorator inputRoute,
+      Bgpv4Route.Builder outputRoute,
+      BgpSessionProperties sessionProperties,
+      Direction direction,
+      Predicate<String> successfulTrack) {
+    RouteState initialState = RouteState.of(outputRoute);
+    Key sessionIndependentKey =
+        new Key(policy.getName(), inputRoute, initialState, null, direction);
+    RouteState cached = _outcomes.get(sessionIndependentKey);
+    if (cached == null) {
+      cached =
+          _outcomes.get(
+              new Key(policy.getName(), inputRoute, initialState, sessionProperties, direction));
+    }
+    if (cached != null) {
+      _hits.increment();
+      return cached == REJECTED ? Optional.empty() : Optional.of(cached.toBuilder());
+    }
+
+    _misses.increment();
+    BgpRouteProcessingOutcome outcome =
+        policy.processBgpRouteWithDependencies(
+            inputRoute, outputRoute, sessionProperties, direction, successfulTrack);
+    Key key =
+        outcome.readBgpSessionProperties()
+            ? new Key(policy.getName(), inputRoute, initialState, sessionProperties, direction)
+            : sessionIndependentKey;
+    _outcomes.put(key, outcome.accepted() ? RouteState.of(outputRoute) : REJECTED);
+    return outcome.accepted() ? Optional.of(outputRoute) : Optional.empty();
+  }
+
+  /** Removes all memoized outcomes and resets the statistics. */
+  void clear() {
+    _outcomes.clear();
+    _hits.reset();
+    _misses.reset();
+  }
+
+  /** The number of lookups answered from the cache since it was last cleared. */
+  long getHits() {
+    return _hits.sum();
+  }
+
+  /** The number of lookups that evaluated a policy since the cache was last cleared. */
+  long getMisses() {
+    return _misses.sum();
+  }
+
+  /** The number of memoized outcomes. */
+  int size() {
+    return _outcomes.size();
+  }
+
+  /**
+   * The state of a {@link Bgpv4Route.Builder}. The next hop may be unset, e.g. before export
+   * policy, so it is stored separately from the other attributes.
+   */
+  private record RouteState(@Nullable Bgpv4Route route, boolean nextHopSet) {
+    private static @Nonnull RouteState of(Bgpv4Route.Builder builder) {
+      if (builder.getNextHop() != null) {
+        return new RouteState(builder.build(), true);
+      }
+      Bgpv4Route route = builder.setNextHop(NextHopDiscard.instance()).build();
+      builder.clearNextHop();
+      return new RouteState(route, false);
+    }
+
+    private @Nonnull Bgpv4Route.Builder toBuilder() {
+      assert route != null;
+      Bgpv4Route.Builder builder = route.toBuilder();
+      return nextHopSet ? builder : builder.clearNextHop();
+    }
+  }
+
+  private record Key(
+      String policyName,
+      AbstractRouteDecorator inputRoute,
+      RouteState initialState,
+      @Nullable BgpSessionProperties sessionProperties,
+      Direction direction) {}
+
+  /** Marks outcomes in which the policy rejected the route. */
+  private static final RouteState REJECTED = new RouteState(null, false);
+
+  private final @Nonnull Map<Key, RouteState> _outcomes = new ConcurrentHashMap<>();
+  private final @Nonnull LongAdder _hits = new LongAdder();
+  private final @Nonnull LongAdder _misses = new LongAdder();
+}
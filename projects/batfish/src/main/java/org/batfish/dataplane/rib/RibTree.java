@@ -113,18 +113,15 @@ final class RibTree<R extends AbstractRouteDecorator> implements Serializable {
   @Nonnull
   Set<R> getLongestPrefixMatch(
       Ip address, int maxPrefixLength, ResolutionRestriction<R> restriction) {
-    for (int pl = maxPrefixLength; pl >= 0; pl--) {
-      Set<R> routes = _root.longestPrefixMatch(address, pl);
-      if (hasAllowedForwardingRoute(routes, restriction)) {
-        if (onlyAllowedForwardingRoutes(routes, restriction)) {
-          return routes;
-        }
-        return routes.stream()
-            .filter(r -> !r.getAbstractRoute().getNonForwarding() && restriction.test(r))
-            .collect(ImmutableSet.toImmutableSet());
-      }
+    Set<R> routes =
+        _root.longestPrefixMatch(
+            address, maxPrefixLength, rs -> hasAllowedForwardingRoute(rs, restriction));
+    if (routes.isEmpty() || onlyAllowedForwardingRoutes(routes, restriction)) {
+      return routes;
     }
-    return ImmutableSet.of();
+    return routes.stream()
+        .filter(r -> !r.getAbstractRoute().getNonForwarding() && restriction.test(r))
+        .collect(ImmutableSet.toImmutableSet());
   }
 
   /** Equivalent to {@link #getRoutes()}.{@link Set#size}. */
@@ -38,6 +38,7 @@ import org.batfish.datamodel.IpAccessList;
 import org.batfish.datamodel.IpSpace;
 import org.batfish.datamodel.LineAction;
 import org.batfish.datamodel.TcpFlags;
+import org.batfish.datamodel.acl.IndexedAcl;
 import org.batfish.datamodel.collections.NodeInterfacePair;
 import org.batfish.datamodel.flow.EnterInputIfaceStep;
 import org.batfish.datamodel.flow.EnterInputIfaceStep.EnterInputIfaceStepDetail;
@@ -145,7 +146,7 @@ public final class TracerouteUtils {
     // check filter
     if (!ignoreFilters) {
       FilterResult filterResult =
-          filter.filter(currentFlow, inInterfaceName, aclDefinitions, namedIpSpaces);
+          IndexedAcl.filter(filter, currentFlow, inInterfaceName, aclDefinitions, namedIpSpaces);
       if (filterResult.getAction() == LineAction.DENY) {
         action = StepAction.DENIED;
       }
@@ -0,0 +1,149 @@
+package org.batfish.grammar;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Queue;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * Finds which of a fixed set of ASCII literals occur in a text, in a single pass over the text.
+ *
+ * <p>The literals are compiled into an Aho-Corasick automaton, whose transitions are precomputed
+ * for all ASCII characters. Since no literal contains a non-ASCII character, a non-ASCII character
+ * resets the automaton.
+ */
+@ParametersAreNonnullByDefault
+final class LiteralScanner {
+
+  LiteralScanner(List<String> literals) {
+    _literals = ImmutableList.copyOf(literals);
+    for (String literal : _literals) {
+      checkArgument(!literal.isEmpty(), "Literals must be non-empty");
+      checkArgument(
+          literal.chars().allMatch(c -> c < ALPHABET_SIZE), "Not an ASCII literal: %s", literal);
+    }
+
+    // Build the trie.
+    List<int[]> children = new ArrayList<>();
+    List<int[]> outputs = new ArrayList<>();
+    children.add(newChildren());
+    outputs.add(NO_OUTPUTS);
+    for (int i = 0; i < _literals.size(); i++) {
+      int state = ROOT;
+      for (char c : _literals.get(i).toCharArray()) {
+        if (children.get(state)[c] == ABSENT) {
+          children.get(state)[c] = children.size();
+          children.add(newChildren());
+          outputs.add(NO_OUTPUTS);
+        }
+        state = children.get(state)[c];
+      }
+      outputs.set(state, append(outputs.get(state), i));
+    }
+
+    // Complete the transitions and outputs along failure links, breadth-first.
+    int numStates = children.size();
+    int[] delta = new int[numStates * ALPHABET_SIZE];
+    int[] fail = new int[numStates];
+    Queue<Integer> queue = new ArrayDeque<>();
+    for (int c = 0; c < ALPHABET_SIZE; c++) {
+      int child = children.get(ROOT)[c];
+      if (child == ABSENT) {
+        delta[c] = ROOT;
+      } else {
+        delta[c] = child;
+        fail[child] = ROOT;
+        queue.add(child);
+      }
+    }
+    while (!queue.isEmpty()) {
+      int state = queue.remove();
+      int[] failOutputs = outputs.get(fail[state]);
+      if (failOutputs.length > 0) {
+        int[] stateOutputs = outputs.get(state);
+        int[] merged = Arrays.copyOf(stateOutputs, stateOutputs.length + failOutputs.length);
+        System.arraycopy(failOutputs, 0, merged, stateOutputs.length, failOutputs.length);
+        outputs.set(state, merged);
+      }
+      for (int c = 0; c < ALPHABET_SIZE; c++) {
+        int child = children.get(state)[c];
+        int failTarget = delta[fail[state] * ALPHABET_SIZE + c];
+        if (child == ABSENT) {
+          delta[state * ALPHABET_SIZE + c] = failTarget;
+        } else {
+          delta[state * ALPHABET_SIZE + c] = child;
+          fail[child] = failTarget;
+          queue.add(child);
+        }
+      }
+    }
+    _delta = delta;
+    _outputs = outputs.toArray(new int[0][]);
+  }
+
+  /**
+   * Returns the indices of the literals that occur in {@code text}. Stops reading {@code text} once
+   * all literals have been found.
+   */
+  @Nonnull
+  BitSet scan(CharSequence text) {
+    int numLiterals = _literals.size();
+    BitSet found = new BitSet(numLiterals);
+    if (numLiterals == 0) {
+      return found;
+    }
+    int numFound = 0;
+    int state = ROOT;
+    int length = text.length();
+    for (int i = 0; i < length; i++) {
+      char c = text.charAt(i);
+      state = c < ALPHABET_SIZE ? _delta[state * ALPHABET_SIZE + c] : ROOT;
+      for (int literal : _outputs[state]) {
+        if (!found.get(literal)) {
+          found.set(literal);
+          if (++numFound == numLiterals) {
+            return found;
+          }
+        }
+      }
+    }
+    return found;
+  }
+
+  @Nonnull
+  List<String> getLiterals() {
+    return _literals;
+  }
+
+  private static int[] newChildren() {
+    int[] children = new int[ALPHABET_SIZE];
+    Arrays.fill(children, ABSENT);
+    return children;
+  }
+
+  private static int[] append(int[] array, int value) {
+    int[] appended = Arrays.copyOf(array, array.length + 1);
+    appended[array.length] = value;
+    return appended;
+  }
+
+  private static final int ALPHABET_SIZE = 128;
+  private static final int ROOT = 0;
+  private static final int ABSENT = -1;
+  private static final int[] NO_OUTPUTS = new int[0];
+
+  private final @Nonnull List<String> _literals;
+
+  /** The next state for each state and ASCII character, at index {@code state * 128 + char}. */
+  private final @Nonnull int[] _delta;
+
+  /** The indices of the literals that end at each state. */
+  private final @Nonnull int[][] _outputs;
+}
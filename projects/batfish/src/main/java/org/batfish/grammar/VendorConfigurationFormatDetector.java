@@ -1,7 +1,12 @@
 package org.batfish.grammar;
 
+import com.google.common.collect.ImmutableList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -24,80 +29,159 @@ public final class VendorConfigurationFormatDetector {
     return new VendorConfigurationFormatDetector(fileText).identifyConfigurationFormat();
   }
 
-  private static final Pattern BATFISH_CONFIG_FORMAT_PATTERN =
-      Pattern.compile("(?m)^[!#] *BATFISH[-_]FORMAT *: *([a-zA-Z0-9_-]+)");
+  /**
+   * The literals whose occurrences in the file text are found in a single pass by {@link
+   * LiteralScanner}, with their indices in the scanner. Populated by {@link #probe(String,
+   * String...)} and {@link #CONTAINED_LITERALS}, so must be declared before them.
+   */
+  private static final Map<String, Integer> LITERAL_INDICES = new LinkedHashMap<>();
 
-  private static final Pattern BANNER_PATTERN = Pattern.compile("(?m)^banner ");
-  private static final Pattern A10_PATTERN =
-      Pattern.compile(
+  /**
+   * A regex, and literals at least one of which occurs in every match of the regex. The regex is
+   * only run on file text containing one of the literals, so most regexes never run on most files.
+   */
+  private static final class Probe {
+    private Probe(Pattern pattern, int[] literalIndices) {
+      _pattern = pattern;
+      _literalIndices = literalIndices;
+    }
+
+    private final @Nonnull Pattern _pattern;
+    private final @Nonnull int[] _literalIndices;
+  }
+
+  private static @Nonnull Probe probe(String regex, String... literals) {
+    int[] literalIndices = new int[literals.length];
+    for (int i = 0; i < literals.length; i++) {
+      literalIndices[i] = registerLiteral(literals[i]);
+    }
+    return new Probe(Pattern.compile(regex), literalIndices);
+  }
+
+  private static int registerLiteral(String literal) {
+    return LITERAL_INDICES.computeIfAbsent(literal, l -> LITERAL_INDICES.size());
+  }
+
+  private static final Probe BATFISH_CONFIG_FORMAT_PATTERN =
+      probe("(?m)^[!#] *BATFISH[-_]FORMAT *: *([a-zA-Z0-9_-]+)", "BATFISH");
+
+  private static final Probe BANNER_PATTERN = probe("(?m)^banner ", "banner ");
+  private static final Probe A10_PATTERN =
+      probe(
           "(?m)version \\d+.\\d+.\\d+[\\w-.]*, build \\d+"
-              + " \\([A-Za-z]+-\\d{1,2}-\\d{4},\\d\\d:\\d\\d\\)");
-  private static final Pattern ALCATEL_AOS_PATTERN = Pattern.compile("(?m)^system name");
-  private static final Pattern ARUBAOS_PATTERN = Pattern.compile("(?m)^netservice.*$");
-  private static final Pattern BLADE_NETWORK_PATTERN = Pattern.compile("(?m)^switch-type");
-  private static final Pattern CADANT_NETWORK_PATTERN = Pattern.compile("(?m)^shelfname");
-  private static final Pattern CHECK_POINT_GATEWAY_PATTERN =
-      Pattern.compile("(?m)^# Configuration of [\\w-]+\\R+# Language version: ");
-  private static final Pattern CUMULUS_CONCATENATED_PATTERN =
-      Pattern.compile("(?m)^# This file describes the network interfaces");
-  private static final Pattern CUMULUS_NCLU_PATTERN = Pattern.compile("(?m)^net del all$");
-  private static final Pattern F5_HOSTNAME_PATTERN = Pattern.compile("(?m)^tmsh .*$");
-  private static final Pattern F5_BIGIP_STRUCTURED_HEADER_PATTERN =
-      Pattern.compile("(?m)^#TMSH-VERSION: .*$");
-  private static final Pattern F5_BIGIP_STRUCTURED_LTM_GLOBAL_SETTINGS_PATTERN =
-      Pattern.compile("(?m)^ltm\\s+global-settings\\s*(general|rule)\\s*\\{.*$");
-  private static final Pattern F5_BIGIP_STRUCTURED_SYS_GLOBAL_SETTINGS_PATTERN =
-      Pattern.compile("(?m)^sys\\s+global-settings\\s*\\{.*$");
-  private static final Pattern METAMAKO_MOS_PATTERN =
-      Pattern.compile("(?m)^! device: [^\\n]+ MOS-\\d+\\.\\d+\\.\\d+\\)$");
-  private static final Pattern MRV_HOSTNAME_PATTERN =
-      Pattern.compile("(?m)^configuration hostname .*$");
-  private static final Pattern MSS_PATTERN = Pattern.compile("(?m)^set system name");
+              + " \\([A-Za-z]+-\\d{1,2}-\\d{4},\\d\\d:\\d\\d\\)",
+          ", build ");
+  private static final Probe ALCATEL_AOS_PATTERN = probe("(?m)^system name", "system name");
+  private static final Probe ARUBAOS_PATTERN = probe("(?m)^netservice.*$", "netservice");
+  private static final Probe BLADE_NETWORK_PATTERN = probe("(?m)^switch-type", "switch-type");
+  private static final Probe CADANT_NETWORK_PATTERN = probe("(?m)^shelfname", "shelfname");
+  private static final Probe CHECK_POINT_GATEWAY_PATTERN =
+      probe("(?m)^# Configuration of [\\w-]+\\R+# Language version: ", "# Language version: ");
+  private static final Probe CUMULUS_CONCATENATED_PATTERN =
+      probe(
+          "(?m)^# This file describes the network interfaces",
+          "# This file describes the network interfaces");
+  private static final Probe CUMULUS_NCLU_PATTERN = probe("(?m)^net del all$", "net del all");
+  private static final Probe F5_HOSTNAME_PATTERN = probe("(?m)^tmsh .*$", "tmsh ");
+  private static final Probe F5_BIGIP_STRUCTURED_HEADER_PATTERN =
+      probe("(?m)^#TMSH-VERSION: .*$", "#TMSH-VERSION: ");
+  private static final Probe F5_BIGIP_STRUCTURED_LTM_GLOBAL_SETTINGS_PATTERN =
+      probe("(?m)^ltm\\s+global-settings\\s*(general|rule)\\s*\\{.*$", "global-settings");
+  private static final Probe F5_BIGIP_STRUCTURED_SYS_GLOBAL_SETTINGS_PATTERN =
+      probe("(?m)^sys\\s+global-settings\\s*\\{.*$", "global-settings");
+  private static final Probe METAMAKO_MOS_PATTERN =
+      probe("(?m)^! device: [^\\n]+ MOS-\\d+\\.\\d+\\.\\d+\\)$", "! device: ");
+  private static final Probe MRV_HOSTNAME_PATTERN =
+      probe("(?m)^configuration hostname .*$", "configuration hostname ");
+  private static final Probe MSS_PATTERN = probe("(?m)^set system name", "set system name");
 
   // checkSros patterns (Nokia SR-OS / SR-SIM, MD-CLI). SR-OS configs are emitted by
   // `admin show configuration` (brace/hierarchical, rooted at `configure {`) and can also
   // be supplied in the absolute-path flat form (`/configure ...` lines, the Junos-`set`
   // analog). The TiMOS banner and the "Configuration format version" header are
   // SR-OS-specific tells that brace form alone (which collides with Juniper) is not.
-  private static final Pattern SROS_TIMOS_PATTERN = Pattern.compile("(?m)^# *TiMOS-");
-  private static final Pattern SROS_CONFIG_VERSION_PATTERN =
-      Pattern.compile("(?m)^# *Configuration format version \\d+\\.\\d+ revision \\d+");
-  private static final Pattern SROS_FLAT_CONFIGURE_PATTERN =
-      Pattern.compile("(?m)^\\s*/configure ");
+  private static final Probe SROS_TIMOS_PATTERN = probe("(?m)^# *TiMOS-", "TiMOS-");
+  private static final Probe SROS_CONFIG_VERSION_PATTERN =
+      probe(
+          "(?m)^# *Configuration format version \\d+\\.\\d+ revision \\d+",
+          "Configuration format version ");
+  private static final Probe SROS_FLAT_CONFIGURE_PATTERN =
+      probe("(?m)^\\s*/configure ", "/configure ");
 
-  private static final Pattern RANCID_BASE_PATTERN =
-      Pattern.compile("(?m)^[!#]RANCID-CONTENT-TYPE: ([a-zA-Z0-9_-]+)");
+  private static final Probe RANCID_BASE_PATTERN =
+      probe("(?m)^[!#]RANCID-CONTENT-TYPE: ([a-zA-Z0-9_-]+)", "RANCID-CONTENT-TYPE: ");
 
   // checkCisco patterns
-  private static final Pattern ASA_VERSION_LINE_PATTERN = Pattern.compile("(?m)(^ASA Version.*$)");
-  private static final Pattern CISCO_LIKE_PATTERN =
-      Pattern.compile("(?m)(^boot system flash.*$)|(^interface .*$)");
-  private static final Pattern CISCO_STYLE_ACL_PATTERN =
-      Pattern.compile("(?m)(^(ip )?access-list.*$)");
-  private static final Pattern NEXUS_COMMIT_LINE_PATTERN = Pattern.compile("(?m)^ *commit *$");
-  private static final Pattern NEXUS_FEATURE_LINE_PATTERN =
-      Pattern.compile("(?m)^\\s*(no\\s*)?feature\\s+[^\\s+].*$");
-  private static final Pattern NEXUS_BOOT_NXOS_PATTERN = Pattern.compile("boot nxos");
-  private static final Pattern NEXUS_BOOTFLASH_PATTERN =
-      Pattern.compile("bootflash:(n\\d+|/?nxos)");
+  private static final Probe ASA_VERSION_LINE_PATTERN =
+      probe("(?m)(^ASA Version.*$)", "ASA Version");
+  private static final Probe CISCO_LIKE_PATTERN =
+      probe("(?m)(^boot system flash.*$)|(^interface .*$)", "boot system flash", "interface ");
+  private static final Probe CISCO_STYLE_ACL_PATTERN =
+      probe("(?m)(^(ip )?access-list.*$)", "access-list");
+  private static final Probe NEXUS_COMMIT_LINE_PATTERN = probe("(?m)^ *commit *$", "commit");
+  private static final Probe NEXUS_FEATURE_LINE_PATTERN =
+      probe("(?m)^\\s*(no\\s*)?feature\\s+[^\\s+].*$", "feature");
+  private static final Probe NEXUS_BOOT_NXOS_PATTERN = probe("boot nxos", "boot nxos");
+  private static final Probe NEXUS_BOOTFLASH_PATTERN =
+      probe("bootflash:(n\\d+|/?nxos)", "bootflash:");
 
   // checkJuniper patterns
-  private static final Pattern FLAT_JUNIPER_HOSTNAME_DECLARATION_PATTERN =
-      Pattern.compile("(?m)^set (groups [^ ][^ ]* )?system host-name ");
-  private static final Pattern FLATTENED_JUNIPER_PATTERN =
-      Pattern.compile(Pattern.quote(BATFISH_FLATTENED_JUNIPER_HEADER));
+  private static final Probe FLAT_JUNIPER_HOSTNAME_DECLARATION_PATTERN =
+      probe("(?m)^set (groups [^ ][^ ]* )?system host-name ", "system host-name ");
   // Juniper-specific keywords and stanzas (stanzas match "keyword {" or "keyword{")
-  private static final Pattern JUNIPER_PATTERN =
-      Pattern.compile(
-          "(firewall|policy-options|snmp|routing-instances|groups) *\\{|apply-groups|replace:");
+  private static final Probe JUNIPER_PATTERN =
+      probe(
+          "(firewall|policy-options|snmp|routing-instances|groups) *\\{|apply-groups|replace:",
+          "firewall",
+          "policy-options",
+          "snmp",
+          "routing-instances",
+          "groups",
+          "replace:");
 
   // checkPaloAlto patterns
-  private static final Pattern FLAT_PALO_ALTO_PATTERN =
-      Pattern.compile(Pattern.quote(BATFISH_FLATTENED_PALO_ALTO_HEADER));
-  private static final Pattern PALO_ALTO_PANORAMA_DEVICECONFIG_PATTERN =
-      Pattern.compile("(?m)(send-to-panorama|panorama-server|deviceconfig)");
+  private static final Probe PALO_ALTO_PANORAMA_DEVICECONFIG_PATTERN =
+      probe(
+          "(?m)(send-to-panorama|panorama-server|deviceconfig)",
+          "send-to-panorama",
+          "panorama-server",
+          "deviceconfig");
   // open brace not likely to be opening a string literal of a JSON object
-  private static final Pattern PALO_ALTO_NESTED_PATTERN = Pattern.compile("(?m)[^\"']\\{");
+  private static final Probe PALO_ALTO_NESTED_PATTERN = probe("(?m)[^\"']\\{", "{");
+
+  /** Literals searched for with {@link #fileTextContains(String)}. */
+  private static final ImmutableList<String> CONTAINED_LITERALS =
+      ImmutableList.of(
+          BATFISH_FLATTENED_JUNIPER_HEADER,
+          BATFISH_FLATTENED_PALO_ALTO_HEADER,
+          "IOS XR",
+          "set system config-management commit-revisions",
+          "INPUT",
+          "OUTPUT",
+          "FORWARD",
+          "set hostname",
+          "system",
+          "{",
+          "}",
+          "host-name",
+          "interfaces",
+          "application metamux",
+          "application metawatch",
+          "System.SystemName",
+          "set prompt",
+          "config-management",
+          "commit-revisions",
+          "config system global");
+
+  static {
+    CONTAINED_LITERALS.forEach(VendorConfigurationFormatDetector::registerLiteral);
+  }
+
+  /** Built on first use, once all literals are registered. */
+  private static final class Scanner {
+    private static final LiteralScanner INSTANCE =
+        new LiteralScanner(ImmutableList.copyOf(LITERAL_INDICES.keySet()));
+  }
 
   private String _fileText;
 
@@ -105,12 +189,38 @@ public final class VendorConfigurationFormatDetector {
 
   private boolean _notJuniper;
 
+  /** The indices of the registered literals occurring in the file text, once scanned. */
+  private @Nullable BitSet _literalsPresent;
+
   private VendorConfigurationFormatDetector(String fileText) {
     _fileText = fileText;
   }
 
-  private boolean fileTextMatches(Pattern pattern) {
-    return pattern.matcher(_fileText).find();
+  private boolean literalPresent(int literalIndex) {
+    if (_literalsPresent == null) {
+      _literalsPresent = Scanner.INSTANCE.scan(_fileText);
+    }
+    return _literalsPresent.get(literalIndex);
+  }
+
+  private boolean fileTextContains(String literal) {
+    Integer literalIndex = LITERAL_INDICES.get(literal);
+    return literalIndex == null ? _fileText.contains(literal) : literalPresent(literalIndex);
+  }
+
+  /** Returns a matcher positioned at the first match of {@code probe}, or {@code null}. */
+  private @Nullable Matcher find(Probe probe) {
+    for (int literalIndex : probe._literalIndices) {
+      if (literalPresent(literalIndex)) {
+        Matcher m = probe._pattern.matcher(_fileText);
+        return m.find() ? m : null;
+      }
+    }
+    return null;
+  }
+
+  private boolean fileTextMatches(Probe probe) {
+    return find(probe) != null;
   }
 
   private void configureHeuristicBlacklist() {
@@ -136,15 +246,18 @@ public final class VendorConfigurationFormatDetector {
   private static final String ARISTA_EOS_LINE_REGEX = "^! device: .*\\(.*EOS-\\d";
   private static final String ARISTA_FLASH_REGEX = "^.*boot system flash.*\\.swi";
   private static final String ARISTA_TELLS_REGEX = "^ip (ext)?community-list regexp";
-  private static final Pattern ARISTA_PATTERN =
-      Pattern.compile(
+  private static final Probe ARISTA_PATTERN =
+      probe(
           "(?m)("
               + ARISTA_EOS_LINE_REGEX
               + "|"
               + ARISTA_FLASH_REGEX
               + "|"
               + ARISTA_TELLS_REGEX
-              + ")");
+              + ")",
+          "! device: ",
+          "boot system flash",
+          "community-list regexp");
 
   private @Nullable ConfigurationFormat checkArista() {
     if (fileTextMatches(ARISTA_PATTERN)) {
@@ -183,9 +296,13 @@ public final class VendorConfigurationFormatDetector {
   }
 
   /** Assuming Cisco device, try to find things that indicate IOS-XR. */
-  private static final Pattern XR_QUALIFIERS =
-      Pattern.compile(
-          "(?m)^\\s*(interface Bundle-Ether|end-policy\\b|end-set\\b|ipv4 access-list\\b)");
+  private static final Probe XR_QUALIFIERS =
+      probe(
+          "(?m)^\\s*(interface Bundle-Ether|end-policy\\b|end-set\\b|ipv4 access-list\\b)",
+          "interface Bundle-Ether",
+          "end-policy",
+          "end-set",
+          "ipv4 access-list");
 
   private @Nullable ConfigurationFormat checkCisco() {
     if (fileTextMatches(ASA_VERSION_LINE_PATTERN)) {
@@ -209,7 +326,7 @@ public final class VendorConfigurationFormatDetector {
   }
 
   private @Nullable ConfigurationFormat checkCiscoXr() {
-    if (_fileText.contains("IOS XR")) {
+    if (fileTextContains("IOS XR")) {
       return ConfigurationFormat.CISCO_IOS_XR;
     }
     return null;
@@ -230,12 +347,15 @@ public final class VendorConfigurationFormatDetector {
   }
 
   private @Nullable ConfigurationFormat checkEmpty() {
-    String trimmedText = _fileText.trim();
-    if (trimmedText.isEmpty()) {
-      return ConfigurationFormat.EMPTY;
+    // like trim, without copying the text
+    for (int i = 0; i < _fileText.length(); i++) {
+      char c = _fileText.charAt(i);
+      if (c > ' ') {
+        _firstChar = c;
+        return null;
+      }
     }
-    _firstChar = trimmedText.charAt(0);
-    return null;
+    return ConfigurationFormat.EMPTY;
   }
 
   private @Nullable ConfigurationFormat checkF5() {
@@ -253,16 +373,14 @@ public final class VendorConfigurationFormatDetector {
   }
 
   private @Nullable ConfigurationFormat checkFlatVyos() {
-    if (_fileText.contains("set system config-management commit-revisions")) {
+    if (fileTextContains("set system config-management commit-revisions")) {
       return ConfigurationFormat.FLAT_VYOS;
     }
     return null;
   }
 
   private @Nullable ConfigurationFormat checkIpTables() {
-    if (_fileText.contains("INPUT")
-        && _fileText.contains("OUTPUT")
-        && _fileText.contains("FORWARD")) {
+    if (fileTextContains("INPUT") && fileTextContains("OUTPUT") && fileTextContains("FORWARD")) {
       return ConfigurationFormat.IPTABLES;
     }
     return null;
@@ -271,24 +389,24 @@ public final class VendorConfigurationFormatDetector {
   private @Nullable ConfigurationFormat checkJuniper(boolean preMatch) {
     if (_notJuniper) {
       return null;
-    } else if (FLATTENED_JUNIPER_PATTERN.matcher(_fileText).find(0)) {
+    } else if (fileTextContains(BATFISH_FLATTENED_JUNIPER_HEADER)) {
       return ConfigurationFormat.FLAT_JUNIPER;
-    } else if (_fileText.contains("set hostname")) {
+    } else if (fileTextContains("set hostname")) {
       return ConfigurationFormat.JUNIPER_SWITCH;
     }
 
     // Decide whether we believe this is a Juniper file.
     boolean isJuniper =
         preMatch
-            || FLAT_JUNIPER_HOSTNAME_DECLARATION_PATTERN.matcher(_fileText).find(0)
+            || fileTextMatches(FLAT_JUNIPER_HOSTNAME_DECLARATION_PATTERN)
             || fileTextMatches(JUNIPER_PATTERN)
-            || _fileText.contains("system")
-                && _fileText.contains("{")
-                && _fileText.contains("}")
-                && _fileText.contains("host-name")
-                && _fileText.contains("interfaces");
+            || fileTextContains("system")
+                && fileTextContains("{")
+                && fileTextContains("}")
+                && fileTextContains("host-name")
+                && fileTextContains("interfaces");
     if (isJuniper) {
-      return (_fileText.contains("{"))
+      return (fileTextContains("{"))
           ? ConfigurationFormat.JUNIPER
           : ConfigurationFormat.FLAT_JUNIPER;
     }
@@ -296,8 +414,8 @@ public final class VendorConfigurationFormatDetector {
   }
 
   private @Nullable ConfigurationFormat checkMetamako() {
-    if (_fileText.contains("application metamux")
-        || _fileText.contains("application metawatch")
+    if (fileTextContains("application metamux")
+        || fileTextContains("application metawatch")
         || fileTextMatches(METAMAKO_MOS_PATTERN)) {
       return ConfigurationFormat.METAMAKO;
     }
@@ -305,7 +423,7 @@ public final class VendorConfigurationFormatDetector {
   }
 
   private @Nullable ConfigurationFormat checkMrv() {
-    if (_fileText.contains("System.SystemName")) {
+    if (fileTextContains("System.SystemName")) {
       return ConfigurationFormat.MRV;
     }
     return null;
@@ -326,7 +444,7 @@ public final class VendorConfigurationFormatDetector {
   }
 
   private @Nullable ConfigurationFormat checkPaloAlto(boolean preMatch) {
-    if (fileTextMatches(FLAT_PALO_ALTO_PATTERN)) {
+    if (fileTextContains(BATFISH_FLATTENED_PALO_ALTO_HEADER)) {
       return ConfigurationFormat.PALO_ALTO;
     } else if (preMatch || fileTextMatches(PALO_ALTO_PANORAMA_DEVICECONFIG_PATTERN)) {
       if (fileTextMatches(PALO_ALTO_NESTED_PATTERN)) {
@@ -338,8 +456,8 @@ public final class VendorConfigurationFormatDetector {
   }
 
   private @Nullable ConfigurationFormat checkBatfish() {
-    Matcher m = BATFISH_CONFIG_FORMAT_PATTERN.matcher(_fileText);
-    if (!m.find()) {
+    Matcher m = find(BATFISH_CONFIG_FORMAT_PATTERN);
+    if (m == null) {
       return null;
     }
     String format = m.group(1);
@@ -353,8 +471,8 @@ public final class VendorConfigurationFormatDetector {
   }
 
   private @Nullable ConfigurationFormat checkRancid() {
-    Matcher m = RANCID_BASE_PATTERN.matcher(_fileText);
-    if (!m.find()) {
+    Matcher m = find(RANCID_BASE_PATTERN);
+    if (m == null) {
       return null;
     }
     // Based on types and aliases defined in
@@ -465,36 +583,35 @@ public final class VendorConfigurationFormatDetector {
     return null;
   }
 
-  private static final Pattern RUCKUS_ICX_MODULE_PATTERN =
-      Pattern.compile("module \\d+ icx", Pattern.MULTILINE);
+  private static final Probe RUCKUS_ICX_MODULE_PATTERN = probe("(?m)module \\d+ icx", " icx");
 
   private @Nullable ConfigurationFormat checkRuckusIcx() {
-    if (RUCKUS_ICX_MODULE_PATTERN.matcher(_fileText).find()) {
+    if (fileTextMatches(RUCKUS_ICX_MODULE_PATTERN)) {
       return ConfigurationFormat.RUCKUS_ICX;
     }
     return null;
   }
 
   private @Nullable ConfigurationFormat checkVxWorks() {
-    if (_firstChar == '!' && _fileText.contains("set prompt")) {
+    if (_firstChar == '!' && fileTextContains("set prompt")) {
       return ConfigurationFormat.VXWORKS;
     }
     return null;
   }
 
   private @Nullable ConfigurationFormat checkVyos() {
-    if (_fileText.contains("system")
-        && _fileText.contains("{")
-        && _fileText.contains("}")
-        && _fileText.contains("config-management")
-        && _fileText.contains("commit-revisions")) {
+    if (fileTextContains("system")
+        && fileTextContains("{")
+        && fileTextContains("}")
+        && fileTextContains("config-management")
+        && fileTextContains("commit-revisions")) {
       return ConfigurationFormat.VYOS;
     }
     return null;
   }
 
   private @Nullable ConfigurationFormat checkFortios() {
-    if (_fileText.contains("config system global")) {
+    if (fileTextContains("config system global")) {
       return ConfigurationFormat.FORTIOS;
     }
     return null;
@@ -97,10 +97,18 @@ public class ConvertConfigurationResult
     }
   }
 
+  public ConvertConfigurationAnswerElement getAnswerElement() {
+    return _answerElement;
+  }
+
   public Map<String, Configuration> getConfigurations() {
     return _configurations;
   }
 
+  public Map<String, Warnings> getWarningsByHost() {
+    return _warningsByHost;
+  }
+
   @Override
   public BatfishLoggerHistory getHistory() {
     return _history;
@@ -44,6 +44,7 @@ import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.Ordering;
 import com.google.common.collect.Sets;
 import com.google.common.collect.Table;
+import com.google.common.hash.HashCode;
 import com.google.common.hash.Hasher;
 import com.google.common.hash.Hashing;
 import com.google.errorprone.annotations.MustBeClosed;
@@ -94,6 +95,7 @@ import org.batfish.bddreachability.BDDReachabilityAnalysis;
 import org.batfish.bddreachability.BDDReachabilityAnalysisFactory;
 import org.batfish.bddreachability.BidirectionalReachabilityAnalysis;
 import org.batfish.bddreachability.IpsRoutedOutInterfacesFactory;
+import org.batfish.bddreachability.PartitionedReachability;
 import org.batfish.common.Answerer;
 import org.batfish.common.BatfishException;
 import org.batfish.common.BatfishException.BatfishStackTrace;
@@ -145,6 +147,7 @@ import org.batfish.datamodel.Interface.DependencyType;
 import org.batfish.datamodel.InterfaceType;
 import org.batfish.datamodel.NetworkConfigurations;
 import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.SnapshotMetadata;
 import org.batfish.datamodel.SwitchportMode;
 import org.batfish.datamodel.Topology;
 import org.batfish.datamodel.acl.AclLineMatchExpr;
@@ -197,12 +200,15 @@ import org.batfish.identifiers.NodeRolesId;
 import org.batfish.identifiers.QuestionId;
 import org.batfish.identifiers.SnapshotId;
 import org.batfish.identifiers.StorageBasedIdResolver;
+import org.batfish.job.BatfishJob;
 import org.batfish.job.BatfishJobExecutor;
 import org.batfish.job.ConvertConfigurationJob;
+import org.batfish.job.ConvertConfigurationResult;
 import org.batfish.job.ParseEnvironmentBgpTableJob;
 import org.batfish.job.ParseResult;
 import org.batfish.job.ParseVendorConfigurationJob;
 import org.batfish.job.ParseVendorConfigurationResult;
+import org.batfish.main.BfCache.BddReachabilityKey;
 import org.batfish.question.ReachabilityParameters;
 import org.batfish.question.ResolvedReachabilityParameters;
 import org.batfish.question.SrcNattedConstraint;
@@ -428,6 +434,9 @@ public class Batfish extends PluginConsumer implements IBatfish {
 
   private SortedMap<BgpTableFormat, BgpTablePlugin> _bgpTablePlugins;
 
+  private final Cache<BddReachabilityKey, CachedBddReachabilityAnalysisFactory>
+      _cachedBddReachabilityAnalysisFactories;
+
   private final Cache<NetworkSnapshot, SortedMap<String, Configuration>> _cachedConfigurations;
 
   private final Cache<NetworkSnapshot, DataPlane> _cachedDataPlanes;
@@ -464,6 +473,8 @@ public class Batfish extends PluginConsumer implements IBatfish {
       Cache<NetworkSnapshot, DataPlane> cachedDataPlanes,
       Map<NetworkSnapshot, SortedMap<String, BgpAdvertisementsByVrf>> cachedEnvironmentBgpTables,
       Cache<NetworkSnapshot, Map<String, VendorConfiguration>> cachedVendorConfigurations,
+      Cache<BddReachabilityKey, CachedBddReachabilityAnalysisFactory>
+          cachedBddReachabilityAnalysisFactories,
       @Nullable StorageProvider alternateStorageProvider,
       @Nullable IdResolver alternateIdResolver) {
     _settings = settings;
@@ -472,6 +483,7 @@ public class Batfish extends PluginConsumer implements IBatfish {
     _cachedDataPlanes = cachedDataPlanes;
     _cachedEnvironmentBgpTables = cachedEnvironmentBgpTables;
     _cachedVendorConfigurations = cachedVendorConfigurations;
+    _cachedBddReachabilityAnalysisFactories = cachedBddReachabilityAnalysisFactories;
     _externalBgpAdvertisementPlugins = new TreeSet<>();
     initLocalSettings(settings);
     _logger = _settings.getLogger();
@@ -720,6 +732,9 @@ public class Batfish extends PluginConsumer implements IBatfish {
     // If already present, invalidate a dataplane for this snapshot.
     // (unlikely, only when devs force recomputation)
     _cachedDataPlanes.invalidate(snapshot);
+    _cachedBddReachabilityAnalysisFactories.invalidateAll(
+        ImmutableList.of(
+            new BddReachabilityKey(snapshot, false), new BddReachabilityKey(snapshot, true)));
 
     // Reserve space for the new dataplane in the in-memory cache by inserting and invalidating a
     // dummy value.
@@ -774,13 +789,36 @@ public class Batfish extends PluginConsumer implements IBatfish {
     _logger.info("\n*** CONVERTING VENDOR CONFIGURATIONS TO INDEPENDENT FORMAT ***\n");
     _logger.resetTimer();
     Map<String, Configuration> configurations = new TreeMap<>();
-    List<ConvertConfigurationJob> jobs = new ArrayList<>();
+    // Computed up front, since conversion may modify the vendor configurations
+    Map<String, String> reuseKeys = ImmutableMap.of();
+    if (_settings.getConversionReuse()) {
+      HashCode conversionContextHash =
+          GetOrConvertConfigurationJob.hashConversionContext(conversionContext);
+      reuseKeys =
+          vendorConfigurations.entrySet().parallelStream()
+              .collect(
+                  ImmutableMap.toImmutableMap(
+                      Entry::getKey,
+                      e ->
+                          GetOrConvertConfigurationJob.computeKey(
+                              _settings,
+                              e.getKey(),
+                              e.getValue(),
+                              conversionContextHash,
+                              runtimeData)));
+    }
+    List<BatfishJob<ConvertConfigurationResult>> jobs = new ArrayList<>();
     for (Entry<String, VendorConfiguration> config : vendorConfigurations.entrySet()) {
       VendorConfiguration vc = config.getValue();
       ConvertConfigurationJob job =
           new ConvertConfigurationJob(
               _settings, conversionContext, runtimeData, vc, config.getKey());
-      jobs.add(job);
+      String reuseKey = reuseKeys.get(config.getKey());
+      jobs.add(
+          reuseKey == null
+              ? job
+              : new GetOrConvertConfigurationJob(
+                  _settings, _storage, getContainerName(), job, config.getKey(), reuseKey));
     }
     BatfishJobExecutor.runJobsInExecutor(
         _settings,
@@ -1155,6 +1193,42 @@ public class Batfish extends PluginConsumer implements IBatfish {
         });
   }
 
+  @Override
+  public @Nonnull Optional<NetworkSnapshot> getParentSnapshotWithDataPlane(
+      NetworkSnapshot snapshot) {
+    SnapshotMetadata metadata;
+    try {
+      metadata =
+          BatfishObjectMapper.mapper()
+              .readValue(
+                  _storage.loadSnapshotMetadata(snapshot.getNetwork(), snapshot.getSnapshot()),
+                  SnapshotMetadata.class);
+    } catch (FileNotFoundException e) {
+      return Optional.empty();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    SnapshotId parentSnapshotId = metadata.getParentSnapshotId();
+    if (parentSnapshotId == null) {
+      return Optional.empty();
+    }
+    NetworkSnapshot parent = new NetworkSnapshot(snapshot.getNetwork(), parentSnapshotId);
+    try {
+      return _storage.hasDataPlane(parent) ? Optional.of(parent) : Optional.empty();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public @Nonnull Optional<Map<String, String>> loadConfigurationHashes(NetworkSnapshot snapshot) {
+    try {
+      return _storage.loadConfigurationHashes(snapshot);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
   @Override
   public SortedMap<String, BgpAdvertisementsByVrf> loadEnvironmentBgpTables(
       NetworkSnapshot snapshot) {
@@ -1323,34 +1397,36 @@ public class Batfish extends PluginConsumer implements IBatfish {
       // - answering a question
       // - question successful
       // - client did not request full successful answers
-      String answerString = BatfishObjectMapper.writeString(answer);
       boolean summarizeWorkJsonLogAnswer =
           writeLog
               && _settings.getQuestionName() != null
               && !_settings.getAlwaysIncludeAnswerInWorkJsonLog()
               && answer.getStatus() == AnswerStatus.SUCCESS;
-      String workJsonLogAnswerString;
+      Answer workJsonLogAnswer;
       if (summarizeWorkJsonLogAnswer) {
         Answer summaryAnswer = new Answer();
         summaryAnswer.setQuestion(answer.getQuestion());
         summaryAnswer.setStatus(answer.getStatus());
         summaryAnswer.setSummary(answer.getSummary());
         // do not include answer elements
-        workJsonLogAnswerString = BatfishObjectMapper.writeString(summaryAnswer);
+        workJsonLogAnswer = summaryAnswer;
       } else {
-        workJsonLogAnswerString = answerString;
+        workJsonLogAnswer = answer;
+      }
+      // The text of a large answer can take several times the memory of the answer itself, so
+      // only build it when it is actually logged.
+      if (_logger.isActive(BatfishLogger.LEVEL_DEBUG)) {
+        _logger.debug(BatfishObjectMapper.writeString(answer));
       }
-      _logger.debug(answerString);
-      writeJsonAnswerWithLog(answerString, workJsonLogAnswerString, writeLog);
+      writeJsonAnswerWithLog(answer, workJsonLogAnswer, writeLog);
     } catch (Exception e) {
       BatfishException be = new BatfishException("Error in sending answer", e);
       try {
         Answer failureAnswer = Answer.failureAnswer(e.toString(), answer.getQuestion());
         failureAnswer.addAnswerElement(be.getBatfishStackTrace());
-        String answerString = BatfishObjectMapper.writeString(failureAnswer);
-        _logger.error(answerString);
+        _logger.error(BatfishObjectMapper.writeString(failureAnswer));
         // write "answer" to work json log if caller requested
-        writeJsonAnswerWithLog(answerString, answerString, writeLog);
+        writeJsonAnswerWithLog(failureAnswer, failureAnswer, writeLog);
       } catch (Exception e1) {
         _logger.errorf(
             "Could not serialize failure answer. %s", Throwables.getStackTraceAsString(e1));
@@ -2957,63 +3033,80 @@ public class Batfish extends PluginConsumer implements IBatfish {
         params.getSrcNatted() == SrcNattedConstraint.UNCONSTRAINED,
         "Requiring or forbidding Source NAT is currently unsupported");
 
-    BDDPacket pkt = new BDDPacket();
     boolean ignoreFilters = params.getIgnoreFilters();
-    BDDReachabilityAnalysisFactory bddReachabilityAnalysisFactory =
-        getBddReachabilityAnalysisFactory(snapshot, pkt, ignoreFilters);
-
-    Map<IngressLocation, BDD> reachableBDDs =
-        bddReachabilityAnalysisFactory.getAllBDDs(
-            params.getSourceIpAssignment(),
-            params.getHeaderSpace(),
-            params.getForbiddenTransitNodes(),
-            params.getRequiredTransitNodes(),
-            params.getFinalNodes(),
-            params.getActions());
-
-    Set<Flow> flows = constructFlows(pkt, reachableBDDs);
+    int partitions = _settings.getReachabilityPartitions();
+    Set<Flow> flows;
+    if (partitions > 1) {
+      PartitionedReachability.Result result =
+          PartitionedReachability.getAllBDDs(
+              pkt -> getBddReachabilityAnalysisFactory(snapshot, pkt, ignoreFilters),
+              partitions,
+              params.getSourceIpAssignment(),
+              params.getHeaderSpace(),
+              params.getForbiddenTransitNodes(),
+              params.getRequiredTransitNodes(),
+              params.getFinalNodes(),
+              params.getActions());
+      flows = constructFlows(result.getBDDPacket(), result.getIngressLocationBDDs());
+    } else {
+      flows =
+          withBddReachabilityAnalysisFactory(
+              snapshot,
+              ignoreFilters,
+              bddReachabilityAnalysisFactory -> {
+                Map<IngressLocation, BDD> reachableBDDs =
+                    bddReachabilityAnalysisFactory.getAllBDDs(
+                        params.getSourceIpAssignment(),
+                        params.getHeaderSpace(),
+                        params.getForbiddenTransitNodes(),
+                        params.getRequiredTransitNodes(),
+                        params.getFinalNodes(),
+                        params.getActions());
+                return constructFlows(bddReachabilityAnalysisFactory.getBDDPacket(), reachableBDDs);
+              });
+    }
 
     return new TraceWrapperAsAnswerElement(buildFlows(snapshot, flows, ignoreFilters));
   }
 
   @Override
   public Set<Flow> bddLoopDetection(NetworkSnapshot snapshot) {
-    BDDPacket pkt = new BDDPacket();
     // TODO add ignoreFilters parameter
     boolean ignoreFilters = false;
-    BDDReachabilityAnalysisFactory bddReachabilityAnalysisFactory =
-        getBddReachabilityAnalysisFactory(snapshot, pkt, ignoreFilters);
-    BDDLoopDetectionAnalysis analysis =
-        bddReachabilityAnalysisFactory.bddLoopDetectionAnalysis(
-            getAllSourcesInferFromLocationIpSpaceAssignment(snapshot));
-    Map<IngressLocation, BDD> loopBDDs = analysis.detectLoops();
-
-    return loopBDDs.entrySet().stream()
-        .map(
-            entry ->
-                pkt.getFlow(entry.getValue())
-                    .map(
-                        fb -> {
-                          IngressLocation loc = entry.getKey();
-                          fb.setIngressNode(loc.getNode());
-                          switch (loc.getType()) {
-                            case INTERFACE_LINK -> fb.setIngressInterface(loc.getInterface());
-                            case VRF -> fb.setIngressVrf(loc.getVrf());
-                          }
-                          return fb.build();
-                        }))
-        .flatMap(Optional::stream)
-        .collect(ImmutableSet.toImmutableSet());
+    return withBddReachabilityAnalysisFactory(
+        snapshot,
+        ignoreFilters,
+        bddReachabilityAnalysisFactory -> {
+          BDDPacket pkt = bddReachabilityAnalysisFactory.getBDDPacket();
+          BDDLoopDetectionAnalysis analysis =
+              bddReachabilityAnalysisFactory.bddLoopDetectionAnalysis(
+                  getAllSourcesInferFromLocationIpSpaceAssignment(snapshot));
+          Map<IngressLocation, BDD> loopBDDs = analysis.detectLoops();
+
+          return loopBDDs.entrySet().stream()
+              .map(
+                  entry ->
+                      pkt.getFlow(entry.getValue())
+                          .map(
+                              fb -> {
+                                IngressLocation loc = entry.getKey();
+                                fb.setIngressNode(loc.getNode());
+                                switch (loc.getType()) {
+                                  case INTERFACE_LINK -> fb.setIngressInterface(loc.getInterface());
+                                  case VRF -> fb.setIngressVrf(loc.getVrf());
+                                }
+                                return fb.build();
+                              }))
+              .flatMap(Optional::stream)
+              .collect(ImmutableSet.toImmutableSet());
+        });
   }
 
   @Override
   public Set<Flow> bddMultipathConsistency(
       NetworkSnapshot snapshot, MultipathConsistencyParameters parameters) {
-    BDDPacket pkt = new BDDPacket();
     // TODO add ignoreFilters parameter
     boolean ignoreFilters = false;
-    BDDReachabilityAnalysisFactory bddReachabilityAnalysisFactory =
-        getBddReachabilityAnalysisFactory(snapshot, pkt, ignoreFilters);
     IpSpaceAssignment srcIpSpaceAssignment = parameters.getSrcIpSpaceAssignment();
     Set<String> finalNodes = parameters.getFinalNodes();
     Set<FlowDisposition> failureDispositions =
@@ -3032,24 +3125,31 @@ public class Batfish extends PluginConsumer implements IBatfish {
             FlowDisposition.EXITS_NETWORK);
     Set<String> forbiddenTransitNodes = parameters.getForbiddenTransitNodes();
     Set<String> requiredTransitNodes = parameters.getRequiredTransitNodes();
-    Map<IngressLocation, BDD> successBdds =
-        bddReachabilityAnalysisFactory.getAllBDDs(
-            srcIpSpaceAssignment,
-            parameters.getHeaderSpace(),
-            forbiddenTransitNodes,
-            requiredTransitNodes,
-            finalNodes,
-            successDispositions);
-    Map<IngressLocation, BDD> failureBdds =
-        bddReachabilityAnalysisFactory.getAllBDDs(
-            srcIpSpaceAssignment,
-            parameters.getHeaderSpace(),
-            forbiddenTransitNodes,
-            requiredTransitNodes,
-            finalNodes,
-            failureDispositions);
-
-    return ImmutableSet.copyOf(computeMultipathInconsistencies(pkt, successBdds, failureBdds));
+    return withBddReachabilityAnalysisFactory(
+        snapshot,
+        ignoreFilters,
+        bddReachabilityAnalysisFactory -> {
+          Map<IngressLocation, BDD> successBdds =
+              bddReachabilityAnalysisFactory.getAllBDDs(
+                  srcIpSpaceAssignment,
+                  parameters.getHeaderSpace(),
+                  forbiddenTransitNodes,
+                  requiredTransitNodes,
+                  finalNodes,
+                  successDispositions);
+          Map<IngressLocation, BDD> failureBdds =
+              bddReachabilityAnalysisFactory.getAllBDDs(
+                  srcIpSpaceAssignment,
+                  parameters.getHeaderSpace(),
+                  forbiddenTransitNodes,
+                  requiredTransitNodes,
+                  finalNodes,
+                  failureDispositions);
+
+          return ImmutableSet.copyOf(
+              computeMultipathInconsistencies(
+                  bddReachabilityAnalysisFactory.getBDDPacket(), successBdds, failureBdds));
+        });
   }
 
   public @Nonnull IpSpaceAssignment getAllSourcesInferFromLocationIpSpaceAssignment(
@@ -3064,6 +3164,35 @@ public class Batfish extends PluginConsumer implements IBatfish {
         locations, specifierContext);
   }
 
+  /**
+   * Applies {@code analysis} to the {@link BDDReachabilityAnalysisFactory} of the snapshot. The
+   * factory is built on first use and then cached, so it is shared by all BDD-based questions about
+   * the snapshot, which run one at a time on it. BDDs created by {@code analysis} must not escape
+   * it.
+   *
+   * <p>See {@link CachedBddReachabilityAnalysisFactory} for when a cached factory is dropped.
+   */
+  @VisibleForTesting
+  <T> T withBddReachabilityAnalysisFactory(
+      NetworkSnapshot snapshot,
+      boolean ignoreFilters,
+      Function<BDDReachabilityAnalysisFactory, T> analysis) {
+    BddReachabilityKey key = new BddReachabilityKey(snapshot, ignoreFilters);
+    CachedBddReachabilityAnalysisFactory cached =
+        _cachedBddReachabilityAnalysisFactories.get(
+            key,
+            k ->
+                CachedBddReachabilityAnalysisFactory.create(
+                    getBddReachabilityAnalysisFactory(snapshot, new BDDPacket(), ignoreFilters),
+                    loadConfigurations(snapshot).size()));
+    T result = cached.apply(analysis);
+    if (cached.isOutgrown()) {
+      LOGGER.info("Dropping outgrown BDD reachability analysis factory of {}", snapshot);
+      _cachedBddReachabilityAnalysisFactories.asMap().remove(key, cached);
+    }
+    return result;
+  }
+
   private @Nonnull BDDReachabilityAnalysisFactory getBddReachabilityAnalysisFactory(
       NetworkSnapshot snapshot, BDDPacket pkt, boolean ignoreFilters) {
     DataPlane dataPlane = loadDataPlane(snapshot);
@@ -3182,7 +3311,7 @@ public class Batfish extends PluginConsumer implements IBatfish {
         .collect(ImmutableSet.toImmutableSet());
   }
 
-  private void writeJsonAnswer(String structuredAnswerString) throws IOException {
+  private void writeJsonAnswer(Answer answer) throws IOException {
     SnapshotId referenceSnapshot = _settings.getDiffQuestion() ? _referenceSnapshot : null;
     NetworkId networkId = _settings.getContainer();
     QuestionId questionId = _settings.getQuestionName();
@@ -3193,21 +3322,21 @@ public class Batfish extends PluginConsumer implements IBatfish {
     AnswerId baseAnswerId =
         _idResolver.getAnswerId(
             networkId, _snapshot, questionId, networkNodeRolesId, referenceSnapshot);
-    _storage.storeAnswer(networkId, _snapshot, structuredAnswerString, baseAnswerId);
+    _storage.storeAnswer(networkId, _snapshot, answer, baseAnswerId);
   }
 
-  private void writeJsonAnswerWithLog(
-      String answerOutput, String workJsonLogAnswerString, boolean writeLog) throws IOException {
+  private void writeJsonAnswerWithLog(Answer answer, Answer workJsonLogAnswer, boolean writeLog)
+      throws IOException {
     if (writeLog && _settings.getTaskId() != null) {
       _storage.storeWorkJson(
-          workJsonLogAnswerString,
+          BatfishObjectMapper.writeString(workJsonLogAnswer),
           _settings.getContainer(),
           _settings.getTestrig(),
           _settings.getTaskId());
     }
     // Write answer if WorkItem was answering a question
     if (_settings.getQuestionName() != null) {
-      writeJsonAnswer(answerOutput);
+      writeJsonAnswer(answer);
     }
   }
 
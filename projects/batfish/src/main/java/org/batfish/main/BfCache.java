@@ -1,39 +1,113 @@
 package org.batfish.main;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Weigher;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
 import java.util.Collections;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.SortedMap;
+import java.util.function.ToIntFunction;
+import javax.annotation.Nonnull;
 import org.apache.commons.collections4.map.LRUMap;
+import org.batfish.common.BfConsts;
 import org.batfish.common.NetworkSnapshot;
 import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.DataPlane;
 import org.batfish.datamodel.collections.BgpAdvertisementsByVrf;
 import org.batfish.vendor.VendorConfiguration;
 
-/** Internal caches. */
+/**
+ * Internal caches.
+ *
+ * <p>The data plane, configuration, and vendor configuration caches are bounded by the total number
+ * of nodes in the cached snapshots, which is a rough estimate of their retained size. The budgets
+ * can be changed at runtime via {@link #setBudgets(int, int, int)}. The weight of a snapshot is
+ * capped at half the budget, so that the snapshot and reference snapshot of a differential question
+ * are cached together even when either is larger than the budget.
+ *
+ * <p>The {@link CachedBddReachabilityAnalysisFactory BDD reachability analysis factories} shared by
+ * the BDD-based questions about a snapshot are bounded the same way, by a separate budget. They are
+ * also dropped when their BDD node table outgrows them, and when the data plane they were built
+ * from is recomputed.
+ */
 public final class BfCache {
-  public static final Cache<NetworkSnapshot, DataPlane> CACHED_DATA_PLANES = buildDataPlaneCache();
+
+  public static final int DEFAULT_MAX_CACHED_BDD_REACHABILITY_NODES = 2_000;
+
+  private static final int MAX_CACHED_ENVIRONMENT_BGP_TABLES = 4;
+
+  public static final int DEFAULT_MAX_CACHED_TESTRIG_NODES = 5_000;
+
+  public static final int DEFAULT_MAX_CACHED_VENDOR_CONFIGURATION_NODES = 2_000;
+
+  private static final NodeWeigher<CachedBddReachabilityAnalysisFactory> BDD_REACHABILITY_WEIGHER =
+      new NodeWeigher<>(
+          CachedBddReachabilityAnalysisFactory::getNodes,
+          DEFAULT_MAX_CACHED_BDD_REACHABILITY_NODES);
+
+  private static final NodeWeigher<DataPlane> DATA_PLANE_WEIGHER =
+      new NodeWeigher<>(dp -> dp.getFibs().size(), BfConsts.DEFAULT_MAX_CACHED_DATA_PLANE_NODES);
+
+  private static final NodeWeigher<SortedMap<String, Configuration>> TESTRIG_WEIGHER =
+      new NodeWeigher<>(Map::size, DEFAULT_MAX_CACHED_TESTRIG_NODES);
+
+  private static final NodeWeigher<Map<String, VendorConfiguration>> VENDOR_CONFIGURATION_WEIGHER =
+      new NodeWeigher<>(Map::size, DEFAULT_MAX_CACHED_VENDOR_CONFIGURATION_NODES);
+
+  public static final Cache<BddReachabilityKey, CachedBddReachabilityAnalysisFactory>
+      CACHED_BDD_REACHABILITY_ANALYSIS_FACTORIES = buildWeightedCache(BDD_REACHABILITY_WEIGHER);
+  public static final Cache<NetworkSnapshot, DataPlane> CACHED_DATA_PLANES =
+      buildWeightedCache(DATA_PLANE_WEIGHER);
   public static final Map<NetworkSnapshot, SortedMap<String, BgpAdvertisementsByVrf>>
       CACHED_ENVIRONMENT_BGP_TABLES = buildEnvironmentBgpTablesCache();
   public static final Cache<NetworkSnapshot, SortedMap<String, Configuration>> CACHED_TESTRIGS =
-      buildTestrigCache();
+      buildWeightedCache(TESTRIG_WEIGHER);
   public static final Cache<NetworkSnapshot, Map<String, VendorConfiguration>>
-      CACHED_VENDOR_CONFIGURATIONS = buildVendorConfigurationCache();
+      CACHED_VENDOR_CONFIGURATIONS = buildWeightedCache(VENDOR_CONFIGURATION_WEIGHER);
 
-  private static final int MAX_CACHED_DATA_PLANES = 2;
+  private BfCache() {}
 
-  private static final int MAX_CACHED_ENVIRONMENT_BGP_TABLES = 4;
+  /** Identifies a cached {@link CachedBddReachabilityAnalysisFactory}. */
+  public record BddReachabilityKey(NetworkSnapshot snapshot, boolean ignoreFilters) {}
 
-  private static final int MAX_CACHED_TESTRIGS = 5;
+  /**
+   * Weighs a cached snapshot by its number of nodes. Weights are capped at half the budget of the
+   * cache, so that any two snapshots fit in the cache together.
+   */
+  @VisibleForTesting
+  static final class NodeWeigher<V> implements Weigher<Object, V> {
+    private final @Nonnull ToIntFunction<V> _nodes;
+    private volatile int _maximum;
 
-  private static final int MAX_CACHED_VENDOR_CONFIGURATIONS = 2;
+    NodeWeigher(ToIntFunction<V> nodes, int maximum) {
+      _nodes = nodes;
+      _maximum = maximum;
+    }
 
-  private BfCache() {}
+    int getMaximum() {
+      return _maximum;
+    }
 
-  static Cache<NetworkSnapshot, DataPlane> buildDataPlaneCache() {
-    return Caffeine.newBuilder().softValues().maximumSize(MAX_CACHED_DATA_PLANES).build();
+    @Override
+    public int weigh(Object key, V value) {
+      return Math.min(_nodes.applyAsInt(value), Math.max(1, _maximum / 2));
+    }
+  }
+
+  @VisibleForTesting
+  static <K, V> Cache<K, V> buildWeightedCache(NodeWeigher<V> weigher) {
+    return Caffeine.newBuilder()
+        .softValues()
+        .weigher(weigher)
+        .maximumWeight(weigher.getMaximum())
+        .recordStats()
+        .build();
   }
 
   static Map<NetworkSnapshot, SortedMap<String, BgpAdvertisementsByVrf>>
@@ -41,11 +115,50 @@ public final class BfCache {
     return Collections.synchronizedMap(new LRUMap<>(MAX_CACHED_ENVIRONMENT_BGP_TABLES));
   }
 
-  static Cache<NetworkSnapshot, SortedMap<String, Configuration>> buildTestrigCache() {
-    return Caffeine.newBuilder().softValues().maximumSize(MAX_CACHED_TESTRIGS).build();
+  /**
+   * Sets the maximum total number of nodes in the snapshots whose data planes, configurations, and
+   * vendor configurations are cached, evicting entries as needed.
+   */
+  public static void setBudgets(
+      int dataPlaneNodes, int testrigNodes, int vendorConfigurationNodes) {
+    setBudget(CACHED_DATA_PLANES, DATA_PLANE_WEIGHER, dataPlaneNodes);
+    setBudget(CACHED_TESTRIGS, TESTRIG_WEIGHER, testrigNodes);
+    setBudget(CACHED_VENDOR_CONFIGURATIONS, VENDOR_CONFIGURATION_WEIGHER, vendorConfigurationNodes);
+  }
+
+  @VisibleForTesting
+  static <V> void setBudget(Cache<NetworkSnapshot, V> cache, NodeWeigher<V> weigher, int nodes) {
+    checkArgument(nodes >= 0, "Cache budget must be non-negative: %s", nodes);
+    // Only affects entries inserted from now on; existing entries keep their capped weight.
+    weigher._maximum = nodes;
+    cache.policy().eviction().ifPresent(eviction -> eviction.setMaximum(nodes));
+  }
+
+  /** Returns hit, miss, load, and eviction statistics of the weighted caches, by name. */
+  public static @Nonnull Map<String, CacheStats> getStats() {
+    return ImmutableMap.of(
+        "bddReachabilityAnalysisFactories", CACHED_BDD_REACHABILITY_ANALYSIS_FACTORIES.stats(),
+        "dataPlanes", CACHED_DATA_PLANES.stats(),
+        "testrigs", CACHED_TESTRIGS.stats(),
+        "vendorConfigurations", CACHED_VENDOR_CONFIGURATIONS.stats());
+  }
+
+  /** Returns {@link #getStats()} as the value of each statistic by name, for reporting. */
+  public static @Nonnull Map<String, Map<String, Long>> getStatCounts() {
+    return getStats().entrySet().stream()
+        .collect(ImmutableMap.toImmutableMap(Entry::getKey, e -> statCounts(e.getValue())));
   }
 
-  static Cache<NetworkSnapshot, Map<String, VendorConfiguration>> buildVendorConfigurationCache() {
-    return Caffeine.newBuilder().softValues().maximumSize(MAX_CACHED_VENDOR_CONFIGURATIONS).build();
+  @VisibleForTesting
+  static @Nonnull Map<String, Long> statCounts(CacheStats stats) {
+    return ImmutableMap.<String, Long>builder()
+        .put("hitCount", stats.hitCount())
+        .put("missCount", stats.missCount())
+        .put("loadSuccessCount", stats.loadSuccessCount())
+        .put("loadFailureCount", stats.loadFailureCount())
+        .put("totalLoadTimeNanos", stats.totalLoadTime())
+        .put("evictionCount", stats.evictionCount())
+        .put("evictionWeight", stats.evictionWeight())
+        .build();
   }
 }
@@ -0,0 +1,64 @@
+package org.batfish.main;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.util.function.Function;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.annotation.concurrent.GuardedBy;
+import org.batfish.bddreachability.BDDReachabilityAnalysisFactory;
+
+/**
+ * A {@link BDDReachabilityAnalysisFactory} shared by the BDD-based questions about a snapshot. See
+ * {@link BfCache#CACHED_BDD_REACHABILITY_ANALYSIS_FACTORIES}.
+ *
+ * <p>BDD factories are not thread-safe, so analyses of a shared factory run one at a time. Nodes
+ * created by an analysis are reclaimed by the BDD garbage collector once unreferenced, but the node
+ * table never shrinks. A factory whose node table has grown past {@link #MAX_NODE_TABLE_GROWTH}
+ * times its size when built is therefore dropped from the cache and rebuilt by the next question.
+ */
+@ParametersAreNonnullByDefault
+public final class CachedBddReachabilityAnalysisFactory {
+
+  @VisibleForTesting static final int MAX_NODE_TABLE_GROWTH = 4;
+
+  /** Creates a cached factory for a snapshot with {@code nodes} nodes. */
+  static @Nonnull CachedBddReachabilityAnalysisFactory create(
+      BDDReachabilityAnalysisFactory factory, int nodes) {
+    return new CachedBddReachabilityAnalysisFactory(
+        factory,
+        nodes,
+        MAX_NODE_TABLE_GROWTH * factory.getBDDPacket().getFactory().getNodeTableSize());
+  }
+
+  @VisibleForTesting
+  CachedBddReachabilityAnalysisFactory(
+      BDDReachabilityAnalysisFactory factory, int nodes, int maxNodeTableSize) {
+    _factory = factory;
+    _nodes = nodes;
+    _maxNodeTableSize = maxNodeTableSize;
+  }
+
+  /** The number of nodes in the snapshot, by which the factory is weighed in the cache. */
+  int getNodes() {
+    return _nodes;
+  }
+
+  /**
+   * Applies {@code analysis} to the factory, after any other analysis of it has finished. BDDs
+   * created by {@code analysis} must not escape it.
+   */
+  synchronized <T> T apply(Function<BDDReachabilityAnalysisFactory, T> analysis) {
+    return analysis.apply(_factory);
+  }
+
+  /** Whether the node table of the factory has grown too large for it to stay cached. */
+  synchronized boolean isOutgrown() {
+    return _factory.getBDDPacket().getFactory().getNodeTableSize() > _maxNodeTableSize;
+  }
+
+  @GuardedBy("this")
+  private final @Nonnull BDDReachabilityAnalysisFactory _factory;
+
+  private final int _maxNodeTableSize;
+  private final int _nodes;
+}
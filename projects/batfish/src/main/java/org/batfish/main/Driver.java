@@ -1,9 +1,14 @@
 package org.batfish.main;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 import com.google.common.base.Strings;
 import com.google.common.base.Throwables;
 import java.io.IOException;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.annotation.Nonnull;
@@ -16,6 +21,7 @@ import org.batfish.common.LaunchResult;
 import org.batfish.common.NetworkSnapshot;
 import org.batfish.common.QuestionException;
 import org.batfish.common.Task;
+import org.batfish.common.bdd.BDDPacketPool;
 import org.batfish.config.Settings;
 import org.batfish.datamodel.answers.Answer;
 import org.batfish.datamodel.answers.AnswerStatus;
@@ -30,7 +36,8 @@ public class Driver {
     WORKSERVICE,
   }
 
-  private static boolean _idle = true;
+  /** Worker slots that are running a task. Each slot runs at most one task at a time. */
+  private static final Set<Integer> _busyWorkers = new HashSet<>();
 
   private static BatfishLogger _mainLogger = null;
 
@@ -41,13 +48,8 @@ public class Driver {
   static Logger networkListenerLogger =
       Logger.getLogger("org.glassfish.grizzly.http.server.NetworkListener");
 
-  private static synchronized boolean claimIdle() {
-    if (_idle) {
-      _idle = false;
-      return true;
-    }
-
-    return false;
+  private static synchronized boolean claimIdle(int worker) {
+    return _busyWorkers.add(worker);
   }
 
   @Deprecated
@@ -65,6 +67,10 @@ public class Driver {
   private static void mainInit(String[] args) {
     try {
       _mainSettings = new Settings(args);
+      BfCache.setBudgets(
+          _mainSettings.getMaxCachedDataPlaneNodes(),
+          _mainSettings.getMaxCachedTestrigNodes(),
+          _mainSettings.getMaxCachedVendorConfigurationNodes());
       networkListenerLogger.setLevel(Level.WARNING);
       httpServerLogger.setLevel(Level.WARNING);
     } catch (Exception e) {
@@ -95,30 +101,42 @@ public class Driver {
   }
 
   public static @Nonnull BatfishWorkerService getBatfishWorkerService() {
-    return BATFISH_WORKER_SERVICE;
+    return getBatfishWorkerService(0);
   }
 
-  private static final BatfishWorkerService BATFISH_WORKER_SERVICE =
-      new BatfishWorkerService() {
-
-        @Override
-        public Task getTaskStatus(String taskId) {
-          assert !Strings.isNullOrEmpty(taskId);
-          Task task = BatchManager.get().getTaskFromLog(taskId);
-          if (task == null) {
-            return new Task(TaskStatus.Unknown);
-          }
-          return task;
+  /**
+   * Returns the service for worker slot {@code worker}. Each slot runs at most one task at a time,
+   * independently of the other slots, so services for distinct slots run tasks in parallel. All
+   * slots share the caches of this process.
+   */
+  public static @Nonnull BatfishWorkerService getBatfishWorkerService(int worker) {
+    checkArgument(worker >= 0, "Worker slot must be non-negative: %s", worker);
+    return new BatfishWorkerService() {
+
+      @Override
+      public Task getTaskStatus(String taskId) {
+        assert !Strings.isNullOrEmpty(taskId);
+        Task task = BatchManager.get().getTaskFromLog(taskId);
+        if (task == null) {
+          return new Task(TaskStatus.Unknown);
         }
+        return task;
+      }
 
-        @Override
-        public LaunchResult runTask(String taskId, String[] args) {
-          return runBatfishThroughService(taskId, args);
-        }
-      };
+      @Override
+      public LaunchResult runTask(String taskId, String[] args) {
+        return runBatfishThroughService(taskId, args, worker);
+      }
+
+      @Override
+      public @Nonnull Map<String, Map<String, Long>> getCacheStats() {
+        return BfCache.getStatCounts();
+      }
+    };
+  }
 
-  private static synchronized void makeIdle() {
-    _idle = true;
+  private static synchronized void makeIdle(int worker) {
+    _busyWorkers.remove(worker);
   }
 
   private static String runBatfish(Settings settings) {
@@ -133,6 +151,7 @@ public class Driver {
               BfCache.CACHED_DATA_PLANES,
               BfCache.CACHED_ENVIRONMENT_BGP_TABLES,
               BfCache.CACHED_VENDOR_CONFIGURATIONS,
+              BfCache.CACHED_BDD_REACHABILITY_ANALYSIS_FACTORIES,
               null,
               null);
 
@@ -191,6 +210,8 @@ public class Driver {
               snapshot.getNetwork(), snapshot.getSnapshot(), stackTrace);
           batfish.setTerminatingExceptionMessage(e.getClass().getName() + ": " + e.getMessage());
         }
+        logger.debugf("Cache statistics: %s\n", BfCache.getStats());
+        logger.debugf("BDD packet pool statistics: %s\n", BDDPacketPool.getStats());
       }
 
       return batfish.getTerminatingExceptionMessage();
@@ -202,6 +223,11 @@ public class Driver {
   }
 
   public static @Nonnull LaunchResult runBatfishThroughService(String taskId, String[] args) {
+    return runBatfishThroughService(taskId, args, 0);
+  }
+
+  private static @Nonnull LaunchResult runBatfishThroughService(
+      String taskId, String[] args, int worker) {
     Settings settings;
     try {
       if (!_initialized) {
@@ -220,7 +246,7 @@ public class Driver {
       return LaunchResult.error("Non-executable command");
     }
 
-    if (!claimIdle()) {
+    if (!claimIdle(worker)) {
       return LaunchResult.busy();
     }
 
@@ -249,7 +275,7 @@ public class Driver {
                 }
                 task.setTerminated(new Date());
                 jobLogger.close();
-                makeIdle();
+                makeIdle(worker);
               });
 
       thread.start();
@@ -257,7 +283,7 @@ public class Driver {
       return LaunchResult.launched();
     } catch (Exception e) {
       _mainLogger.error("Exception while launching task: " + e.getMessage());
-      makeIdle();
+      makeIdle(worker);
       return LaunchResult.error(e.getMessage());
     }
   }
@@ -0,0 +1,176 @@
+package org.batfish.main;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.batfish.common.BatfishLogger.LEVEL_PEDANTIC;
+import static org.batfish.common.BatfishLogger.LEVEL_REDFLAG;
+import static org.batfish.common.BatfishLogger.LEVEL_UNIMPLEMENTED;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.Funnels;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.apache.commons.lang3.SerializationUtils;
+import org.batfish.common.Warnings;
+import org.batfish.common.runtime.SnapshotRuntimeData;
+import org.batfish.common.util.BatfishObjectMapper;
+import org.batfish.config.Settings;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.answers.ConvertConfigurationAnswerElement;
+import org.batfish.identifiers.NetworkId;
+import org.batfish.job.BatfishJob;
+import org.batfish.job.ConvertConfigurationJob;
+import org.batfish.job.ConvertConfigurationResult;
+import org.batfish.storage.StorageProvider;
+import org.batfish.vendor.ConversionContext;
+import org.batfish.vendor.VendorConfiguration;
+import org.batfish.version.BatfishVersion;
+
+/**
+ * Runs a {@link ConvertConfigurationJob}, or reuses its output stored as a network blob by an
+ * earlier snapshot of the network, like parse reuse does for parse results.
+ *
+ * <p>The blob is keyed by a hash of the vendor configuration and of the inputs its conversion
+ * depends on: the {@link ConversionContext}, the runtime data of the node, the warning levels, and
+ * the Batfish version. Since other runtime data is not part of the key, only outputs consisting of
+ * the single node named by the vendor configuration are stored.
+ */
+@ParametersAreNonnullByDefault
+final class GetOrConvertConfigurationJob extends BatfishJob<ConvertConfigurationResult> {
+
+  /** Returns a hash of the conversion context, which is part of every key. */
+  static @Nonnull HashCode hashConversionContext(ConversionContext conversionContext) {
+    Hasher hasher = Hashing.murmur3_128().newHasher();
+    if (!conversionContext.isEmpty()) {
+      hasher.putBytes(SerializationUtils.serialize(conversionContext));
+    }
+    return hasher.hash();
+  }
+
+  /**
+   * Returns the key of the conversion of {@code vc}. Must be called before conversion, which may
+   * modify {@code vc}.
+   */
+  static @Nonnull String computeKey(
+      Settings settings,
+      String name,
+      VendorConfiguration vc,
+      HashCode conversionContextHash,
+      SnapshotRuntimeData runtimeData) {
+    Hasher hasher =
+        Hashing.murmur3_128()
+            .newHasher()
+            .putString("Cached Conversion Result", UTF_8)
+            .putString(BatfishVersion.getVersionStatic(), UTF_8)
+            .putBoolean(settings.getLogger().isActive(LEVEL_PEDANTIC))
+            .putBoolean(settings.getLogger().isActive(LEVEL_REDFLAG))
+            .putBoolean(settings.getLogger().isActive(LEVEL_UNIMPLEMENTED))
+            .putBytes(conversionContextHash.asBytes())
+            .putString(name, UTF_8)
+            .putString(
+                BatfishObjectMapper.writeStringRuntimeError(
+                    runtimeData.getRuntimeData(name.toLowerCase())),
+                UTF_8);
+    try (ObjectOutputStream out = new ObjectOutputStream(Funnels.asOutputStream(hasher))) {
+      out.writeObject(vc);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return hasher.hash().toString();
+  }
+
+  GetOrConvertConfigurationJob(
+      Settings settings,
+      StorageProvider storage,
+      NetworkId network,
+      ConvertConfigurationJob job,
+      String name,
+      String key) {
+    super(settings);
+    _storage = storage;
+    _network = network;
+    _job = job;
+    _name = name;
+    _key = key;
+  }
+
+  @Override
+  public ConvertConfigurationResult call() {
+    long startTime = System.currentTimeMillis();
+    try (InputStream in = _storage.loadNetworkBlob(_network, _key)) {
+      CachedConversion cached = SerializationUtils.deserialize(in);
+      // sanity-check hostnames. In the extremely unlikely event of a collision, we'll lose reuse
+      // for this input.
+      if (isReusable(cached._configurations)) {
+        _logger.infof("Reusing conversion: \"%s\"\n", _name);
+        return new ConvertConfigurationResult(
+            System.currentTimeMillis() - startTime,
+            _logger.getHistory(),
+            cached._warningsByHost,
+            _name,
+            cached._configurations,
+            cached._answerElement);
+      }
+    } catch (FileNotFoundException e) {
+      // not converted before
+    } catch (Exception e) {
+      _logger.warnf(
+          "Error deserializing cached conversion result for %s: %s",
+          _name, Throwables.getStackTraceAsString(e));
+    }
+    ConvertConfigurationResult result = _job.call();
+    if (result.getFailureCause() == null && isReusable(result.getConfigurations())) {
+      try {
+        byte[] serialized =
+            SerializationUtils.serialize(
+                new CachedConversion(
+                    result.getConfigurations(),
+                    result.getWarningsByHost(),
+                    result.getAnswerElement()));
+        _storage.storeNetworkBlob(new ByteArrayInputStream(serialized), _network, _key);
+      } catch (Exception e) {
+        _logger.warnf(
+            "Error caching conversion result for %s: %s",
+            _name, Throwables.getStackTraceAsString(e));
+      }
+    }
+    return result;
+  }
+
+  private boolean isReusable(Map<String, Configuration> configurations) {
+    return configurations.keySet().equals(ImmutableSet.of(_name));
+  }
+
+  /** The stored output of a successful conversion. */
+  private static final class CachedConversion implements Serializable {
+    private CachedConversion(
+        Map<String, Configuration> configurations,
+        Map<String, Warnings> warningsByHost,
+        ConvertConfigurationAnswerElement answerElement) {
+      _configurations = configurations;
+      _warningsByHost = warningsByHost;
+      _answerElement = answerElement;
+    }
+
+    private final @Nonnull Map<String, Configuration> _configurations;
+    private final @Nonnull Map<String, Warnings> _warningsByHost;
+    private final @Nonnull ConvertConfigurationAnswerElement _answerElement;
+  }
+
+  private final @Nonnull StorageProvider _storage;
+  private final @Nonnull NetworkId _network;
+  private final @Nonnull ConvertConfigurationJob _job;
+  private final @Nonnull String _name;
+  private final @Nonnull String _key;
+}
@@ -369,6 +369,31 @@ public final class BDDReachabilityAnalysisFactoryTest {
     }
   }
 
+  @Test
+  public void testFactoryReusedAcrossQueries() throws IOException {
+    SortedMap<String, Configuration> configs = TestNetworkSources.twoNodeNetwork();
+    Batfish batfish = BatfishTestUtils.getBatfish(configs, temp);
+    BDDReachabilityAnalysisFactory factory = makeBddReachabilityAnalysisFactory(configs);
+
+    BDDReachabilityAnalysis first = factory.bddReachabilityAnalysis(ipSpaceAssignment(batfish));
+    // a different query in between must not affect later ones
+    factory.bddReachabilityAnalysis(
+        ipSpaceAssignment(batfish),
+        TRUE,
+        configs.keySet(),
+        ImmutableSet.of(),
+        configs.keySet(),
+        ALL_DISPOSITIONS);
+    BDDReachabilityAnalysis second = factory.bddReachabilityAnalysis(ipSpaceAssignment(batfish));
+
+    assertThat(
+        second.getForwardEdgeTable().cellSet().size(),
+        equalTo(first.getForwardEdgeTable().cellSet().size()));
+    assertThat(
+        second.getIngressLocationReachableBDDs(),
+        equalTo(first.getIngressLocationReachableBDDs()));
+  }
+
   private @Nonnull Set<Edge> getEdges(Map<StateExpr, Map<StateExpr, Transition>> edgeMap) {
     return edgeMap.entrySet().stream()
         .flatMap(
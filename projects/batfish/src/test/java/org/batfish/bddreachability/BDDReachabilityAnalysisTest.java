@@ -2,6 +2,7 @@ package org.batfish.bddreachability;
 
 import static org.batfish.bddreachability.BDDReachabilityUtils.computeForwardEdgeTable;
 import static org.batfish.bddreachability.BDDReachabilityUtils.fixpoint;
+import static org.batfish.bddreachability.BDDReachabilityUtils.topologicalSccIndices;
 import static org.batfish.bddreachability.BDDReachabilityUtils.toIngressLocation;
 import static org.batfish.bddreachability.TestNetwork.DST_PREFIX_1;
 import static org.batfish.bddreachability.TestNetwork.DST_PREFIX_2;
@@ -15,6 +16,8 @@ import static org.batfish.datamodel.Configuration.DEFAULT_VRF_NAME;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertEquals;
@@ -640,4 +643,74 @@ public final class BDDReachabilityAnalysisTest {
                   c, start)));
     }
   }
+
+  @Test
+  public void testTopologicalSccIndices() {
+    StateExpr a = new NodeAccept("A");
+    StateExpr b = new NodeAccept("B");
+    StateExpr c = new NodeAccept("C");
+    StateExpr d = new NodeAccept("D");
+    StateExpr e = new NodeAccept("E");
+    BDD one = _pkt.getFactory().one();
+
+    // b and c form a loop
+    Table<StateExpr, StateExpr, Transition> edges =
+        computeForwardEdgeTable(
+            ImmutableList.of(
+                new Edge(a, b, one),
+                new Edge(b, c, one),
+                new Edge(c, b, one),
+                new Edge(c, d, one),
+                new Edge(e, a, one)));
+
+    Map<StateExpr, Integer> sccs = topologicalSccIndices(edges);
+    assertThat(sccs.keySet(), containsInAnyOrder(a, b, c, d, e));
+    assertThat(sccs.get(b), equalTo(sccs.get(c)));
+    assertThat(sccs.get(e), lessThan(sccs.get(a)));
+    assertThat(sccs.get(a), lessThan(sccs.get(b)));
+    assertThat(sccs.get(d), greaterThan(sccs.get(c)));
+    assertThat(ImmutableSet.copyOf(sccs.values()), containsInAnyOrder(0, 1, 2, 3));
+  }
+
+  @Test
+  public void testFixpointLoop() {
+    StateExpr a = new NodeAccept("A");
+    StateExpr b = new NodeAccept("B");
+    StateExpr c = new NodeAccept("C");
+    StateExpr d = new NodeAccept("D");
+
+    BDD start = _pkt.getSrcPort().value(1);
+    BDD bddAB = _pkt.getDstIp().value(1);
+    BDD bddBC = _pkt.getSrcIp().value(1);
+    BDD bddCB = _pkt.getDstPort().value(1);
+    BDD bddCD = _pkt.getDstPort().value(2);
+
+    Table<StateExpr, StateExpr, Transition> forwardEdges =
+        computeForwardEdgeTable(
+            ImmutableList.of(
+                new Edge(a, b, bddAB),
+                new Edge(b, c, bddBC),
+                new Edge(c, b, bddCB),
+                new Edge(c, d, bddCD)));
+
+    Map<StateExpr, BDD> forwardReachability = new HashMap<>();
+    forwardReachability.put(a, start);
+    FixpointStats stats = new FixpointStats();
+    fixpoint(forwardReachability, forwardEdges, Transition::transitForward, stats);
+    BDD atB = start.and(bddAB);
+    BDD atC = atB.and(bddBC);
+    assertThat(
+        forwardReachability,
+        equalTo(
+            ImmutableMap.of(
+                a, start, //
+                b, atB,
+                c, atC,
+                d, atC.and(bddCD))));
+    assertThat(stats.getSccs(), equalTo(3));
+    assertThat(stats.getLargestScc(), equalTo(2));
+    // a and d are outside the loop and processed once; b is processed again after c.
+    assertThat(stats.getVisits(), equalTo(5L));
+    assertThat(stats.getTraversals(), equalTo(4L));
+  }
 }
@@ -0,0 +1,53 @@
+package org.batfish.bddreachability;
+
+import static org.batfish.bddreachability.BDDReachabilityUtils.computeForwardEdgeTable;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Table;
+import net.sf.javabdd.BDD;
+import org.batfish.bddreachability.transition.Transition;
+import org.batfish.common.bdd.BDDPacket;
+import org.batfish.symbolic.state.NodeAccept;
+import org.batfish.symbolic.state.StateExpr;
+import org.junit.Test;
+
+/** Tests of {@link IndexedStateGraph}. */
+public final class IndexedStateGraphTest {
+  private final BDDPacket _pkt = new BDDPacket();
+
+  @Test
+  public void testSccs() {
+    StateExpr a = new NodeAccept("A");
+    StateExpr b = new NodeAccept("B");
+    StateExpr c = new NodeAccept("C");
+    StateExpr d = new NodeAccept("D");
+    StateExpr e = new NodeAccept("E");
+    BDD one = _pkt.getFactory().one();
+
+    // b and c form a loop
+    Table<StateExpr, StateExpr, Transition> edges =
+        computeForwardEdgeTable(
+            ImmutableList.of(
+                new Edge(a, b, one),
+                new Edge(b, c, one),
+                new Edge(c, b, one),
+                new Edge(c, d, one),
+                new Edge(e, a, one)));
+
+    IndexedStateGraph graph = IndexedStateGraph.of(edges);
+    assertThat(graph.getNumSccs(), equalTo(4));
+    assertThat(graph.getId(new NodeAccept("F")), equalTo(-1));
+    int sccA = graph.getScc(graph.getId(a));
+    int sccB = graph.getScc(graph.getId(b));
+    int sccC = graph.getScc(graph.getId(c));
+    int sccD = graph.getScc(graph.getId(d));
+    assertThat(sccB, equalTo(sccC));
+    assertThat(graph.getScc(graph.getId(e)), lessThan(sccA));
+    assertThat(sccA, lessThan(sccB));
+    assertThat(sccD, greaterThan(sccC));
+  }
+}
@@ -0,0 +1,140 @@
+package org.batfish.bddreachability;
+
+import static org.batfish.bddreachability.PartitionedReachability.partition;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.anEmptyMap;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import net.sf.javabdd.BDD;
+import net.sf.javabdd.BDDFactory;
+import org.batfish.common.bdd.BDDPacket;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.DataPlane;
+import org.batfish.datamodel.FlowDisposition;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.IpSpace;
+import org.batfish.datamodel.UniverseIpSpace;
+import org.batfish.datamodel.acl.TrueExpr;
+import org.batfish.main.Batfish;
+import org.batfish.main.BatfishTestUtils;
+import org.batfish.specifier.ConstantIpSpaceAssignmentSpecifier;
+import org.batfish.specifier.InterfaceLocation;
+import org.batfish.specifier.IpSpaceAssignment;
+import org.batfish.specifier.Location;
+import org.batfish.specifier.LocationSpecifier;
+import org.batfish.specifier.SpecifierContext;
+import org.batfish.symbolic.IngressLocation;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Tests of {@link PartitionedReachability}. */
+public final class PartitionedReachabilityTest {
+  @Rule public TemporaryFolder temp = new TemporaryFolder();
+
+  @Test
+  public void testPartition() {
+    Location a = new InterfaceLocation("n", "a");
+    Location b = new InterfaceLocation("n", "b");
+    Location c = new InterfaceLocation("n", "c");
+    IpSpace ip1 = Ip.parse("1.1.1.1").toIpSpace();
+    IpSpace ip2 = Ip.parse("2.2.2.2").toIpSpace();
+    IpSpaceAssignment assignment =
+        IpSpaceAssignment.builder().assign(ImmutableSet.of(a, b), ip1).assign(c, ip2).build();
+
+    List<IpSpaceAssignment> partitions = partition(assignment, 2);
+    assertThat(
+        partitions,
+        contains(
+            IpSpaceAssignment.builder().assign(a, ip1).assign(c, ip2).build(),
+            IpSpaceAssignment.builder().assign(b, ip1).build()));
+
+    // no empty partitions
+    assertThat(partition(assignment, 5), hasSize(3));
+    assertThat(partition(IpSpaceAssignment.empty(), 2), hasSize(0));
+  }
+
+  @Test
+  public void testGetAllBDDs() throws IOException {
+    SortedMap<String, Configuration> configs = TestNetworkSources.twoNodeNetwork();
+    Batfish batfish = BatfishTestUtils.getBatfish(configs, temp);
+    batfish.computeDataPlane(batfish.getSnapshot());
+    DataPlane dataPlane = batfish.loadDataPlane(batfish.getSnapshot());
+    SpecifierContext ctxt = batfish.specifierContext(batfish.getSnapshot());
+    IpSpaceAssignment assignment =
+        new ConstantIpSpaceAssignmentSpecifier(UniverseIpSpace.INSTANCE)
+            .resolve(LocationSpecifier.ALL_LOCATIONS.resolve(ctxt), ctxt);
+    Set<FlowDisposition> actions = ImmutableSet.of(FlowDisposition.ACCEPTED);
+
+    BDDPacket pkt = new BDDPacket();
+    BDDReachabilityAnalysisFactory factory =
+        new BDDReachabilityAnalysisFactory(
+            pkt,
+            configs,
+            dataPlane.getForwardingAnalysis(),
+            new IpsRoutedOutInterfacesFactory(dataPlane.getFibs()),
+            false,
+            false);
+    Map<IngressLocation, BDD> expected =
+        factory.getAllBDDs(
+            assignment,
+            TrueExpr.INSTANCE,
+            ImmutableSet.of(),
+            ImmutableSet.of(),
+            configs.keySet(),
+            actions);
+
+    PartitionedReachability.Result actual =
+        PartitionedReachability.getAllBDDs(
+            partitionPkt ->
+                new BDDReachabilityAnalysisFactory(
+                    partitionPkt,
+                    configs,
+                    dataPlane.getForwardingAnalysis(),
+                    new IpsRoutedOutInterfacesFactory(dataPlane.getFibs()),
+                    false,
+                    false),
+            3,
+            assignment,
+            TrueExpr.INSTANCE,
+            ImmutableSet.of(),
+            ImmutableSet.of(),
+            configs.keySet(),
+            actions);
+
+    // the results are merged on the packet of a partition, not on a factory of their own
+    BDDFactory target = actual.getBDDPacket().getFactory();
+    assertThat(target, not(sameInstance(pkt.getFactory())));
+    assertThat(
+        actual.getIngressLocationBDDs(),
+        equalTo(Maps.transformValues(expected, target::transfer)));
+  }
+
+  @Test
+  public void testGetAllBDDsNoSources() {
+    PartitionedReachability.Result result =
+        PartitionedReachability.getAllBDDs(
+            pkt -> {
+              throw new AssertionError("no partition to analyze");
+            },
+            3,
+            IpSpaceAssignment.empty(),
+            TrueExpr.INSTANCE,
+            ImmutableSet.of(),
+            ImmutableSet.of(),
+            ImmutableSet.of(),
+            ImmutableSet.of(FlowDisposition.ACCEPTED));
+    assertThat(result.getIngressLocationBDDs(), anEmptyMap());
+  }
+}
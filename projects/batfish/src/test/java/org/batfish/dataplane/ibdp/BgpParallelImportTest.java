@@ -0,0 +1,200 @@
+package org.batfish.dataplane.ibdp;
+
+import static org.batfish.dataplane.ibdp.BgpRoutingProcess.DEFAULT_PARALLEL_IMPORT_THRESHOLD;
+import static org.batfish.dataplane.ibdp.TestUtils.assertNoRoute;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import org.batfish.common.topology.IpOwnersBaseImpl;
+import org.batfish.common.topology.L3Adjacencies;
+import org.batfish.common.topology.TopologyUtil;
+import org.batfish.datamodel.AbstractRoute;
+import org.batfish.datamodel.Bgpv4Route;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.Topology;
+import org.batfish.datamodel.tracking.PreDataPlaneTrackMethodEvaluator;
+import org.batfish.main.Batfish;
+import org.batfish.main.BatfishTestUtils;
+import org.batfish.main.TestrigText;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests that a batch of received routes large enough to be imported in parallel is filtered and
+ * installed exactly like a small one.
+ */
+public final class BgpParallelImportTest {
+
+  private static final int NUM_ROUTES = DEFAULT_PARALLEL_IMPORT_THRESHOLD + 1000;
+
+  @Rule public TemporaryFolder _folder = new TemporaryFolder();
+
+  private static Prefix staticPrefix(int i) {
+    return Prefix.create(Ip.create(Ip.parse("20.0.0.0").asLong() + ((long) i << 8)), 24);
+  }
+
+  /** Originates {@link #NUM_ROUTES} static /24s in 20.0.0.0/8 into BGP. */
+  private static String sender() {
+    StringBuilder config =
+        new StringBuilder(
+            String.join(
+                "\n",
+                "!",
+                "boot system flash this-is-an-arista-device.swi",
+                "!",
+                "hostname sender",
+                "!",
+                "interface Ethernet1",
+                " no switchport",
+                " ip address 10.0.12.1 255.255.255.0",
+                " no shutdown",
+                "!",
+                ""));
+    for (int i = 0; i < NUM_ROUTES; i++) {
+      config.append(
+          String.format("ip route %s 255.255.255.0 Null0\n", staticPrefix(i).getStartIp()));
+    }
+    config.append(
+        String.join(
+            "\n",
+            "!",
+            "router bgp 1",
+            " router-id 10.0.12.1",
+            " neighbor 10.0.12.2 remote-as 2",
+            " redistribute static",
+            "!",
+            ""));
+    return config.toString();
+  }
+
+  /**
+   * Rejects routes in 20.0.0.0/16, and otherwise sets attributes depending on the prefix and AS
+   * path of each route.
+   */
+  private static String receiver() {
+    return String.join(
+        "\n",
+        "!",
+        "boot system flash this-is-an-arista-device.swi",
+        "!",
+        "hostname receiver",
+        "!",
+        "interface Ethernet1",
+        " no switchport",
+        " ip address 10.0.12.2 255.255.255.0",
+        " no shutdown",
+        "!",
+        "ip prefix-list REJECTED seq 10 permit 20.0.0.0/16 ge 24 le 24",
+        "ip prefix-list PREFERRED seq 10 permit 20.8.0.0/14 ge 24 le 24",
+        "!",
+        "ip as-path access-list FROM_AS1 permit ^1$ any",
+        "!",
+        "route-map IMPORT deny 10",
+        " match ip address prefix-list REJECTED",
+        "!",
+        "route-map IMPORT permit 20",
+        " match ip address prefix-list PREFERRED",
+        " set local-preference 200",
+        " set community 65000:1 additive",
+        "!",
+        "route-map IMPORT permit 30",
+        " match as-path FROM_AS1",
+        " set community 65000:2 additive",
+        "!",
+        "router bgp 2",
+        " router-id 10.0.12.2",
+        " neighbor 10.0.12.1 remote-as 1",
+        " neighbor 10.0.12.1 route-map IMPORT in",
+        "!",
+        "");
+  }
+
+  private Batfish getBatfish() throws IOException {
+    return BatfishTestUtils.getBatfishFromTestrigText(
+        TestrigText.builder()
+            .setConfigurationText(ImmutableMap.of("sender", sender(), "receiver", receiver()))
+            .build(),
+        _folder);
+  }
+
+  /**
+   * Computes the data plane, importing the routes received over a session in parallel if there are
+   * at least {@code parallelImportThreshold} of them.
+   */
+  private static IncrementalDataPlane computeDataPlane(
+      Map<String, Configuration> configurations, int parallelImportThreshold) {
+    IncrementalDataPlaneSettings settings = new IncrementalDataPlaneSettings();
+    settings
+        .getConfig()
+        .setProperty(
+            IncrementalDataPlaneSettings.PROP_BGP_PARALLEL_IMPORT_THRESHOLD,
+            parallelImportThreshold);
+    IncrementalBdpEngine engine = new IncrementalBdpEngine(settings);
+    Topology topology = TopologyUtil.synthesizeL3Topology(configurations);
+    TopologyContext topologyContext = TopologyContext.builder().setLayer3Topology(topology).build();
+    return (IncrementalDataPlane)
+        engine.computeDataPlane(
+                configurations,
+                topologyContext,
+                ImmutableSet.of(),
+                new TestIpOwners(configurations, topologyContext.getL3Adjacencies()))
+            ._dataPlane;
+  }
+
+  @Test
+  public void testParallelImport() throws IOException {
+    Batfish batfish = getBatfish();
+    batfish.computeDataPlane(batfish.getSnapshot());
+    IncrementalDataPlane dataplane =
+        (IncrementalDataPlane) batfish.loadDataPlane(batfish.getSnapshot());
+    SortedMap<String, SortedMap<String, Set<AbstractRoute>>> routes =
+        IncrementalBdpEngine.getRoutes(dataplane);
+
+    Set<Prefix> received =
+        dataplane.getBgpRoutes().get("receiver", Configuration.DEFAULT_VRF_NAME).stream()
+            .map(Bgpv4Route::getNetwork)
+            .collect(ImmutableSet.toImmutableSet());
+    // The 256 routes in 20.0.0.0/16 are rejected by the import policy.
+    assertThat(received, hasSize(NUM_ROUTES - 256));
+    assertThat(received, not(hasItem(staticPrefix(0))));
+    assertThat(received, not(hasItem(staticPrefix(255))));
+    assertThat(received, hasItem(staticPrefix(256)));
+    assertThat(received, hasItem(staticPrefix(NUM_ROUTES - 1)));
+    assertNoRoute(routes, "receiver", staticPrefix(0));
+  }
+
+  @Test
+  public void testParallelImportMatchesSequentialImport() throws IOException {
+    Batfish batfish = getBatfish();
+    Map<String, Configuration> configurations = batfish.loadConfigurations(batfish.getSnapshot());
+    IncrementalDataPlane sequential = computeDataPlane(configurations, Integer.MAX_VALUE);
+    IncrementalDataPlane parallel = computeDataPlane(configurations, 1);
+
+    assertThat(
+        sequential.getBgpRoutes().get("receiver", Configuration.DEFAULT_VRF_NAME),
+        hasSize(NUM_ROUTES - 256));
+    assertThat(parallel.getBgpRoutes(), equalTo(sequential.getBgpRoutes()));
+    assertThat(
+        IncrementalBdpEngine.getRoutes(parallel),
+        equalTo(IncrementalBdpEngine.getRoutes(sequential)));
+  }
+
+  private static class TestIpOwners extends IpOwnersBaseImpl {
+    protected TestIpOwners(
+        Map<String, Configuration> configurations, L3Adjacencies initialL3Adjacencies) {
+      super(configurations, initialL3Adjacencies, PreDataPlaneTrackMethodEvaluator::new, false);
+    }
+  }
+}
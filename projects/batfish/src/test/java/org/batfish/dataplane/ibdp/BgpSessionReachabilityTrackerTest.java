@@ -0,0 +1,165 @@
+package org.batfish.dataplane.ibdp;
+
+import static org.batfish.datamodel.Configuration.DEFAULT_VRF_NAME;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.nullValue;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.ImmutableTable;
+import java.util.Map;
+import java.util.Set;
+import org.batfish.datamodel.BumTransportMethod;
+import org.batfish.datamodel.ConnectedRoute;
+import org.batfish.datamodel.DataPlane;
+import org.batfish.datamodel.Edge;
+import org.batfish.datamodel.Fib;
+import org.batfish.datamodel.FibEntry;
+import org.batfish.datamodel.FibForward;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.MockDataPlane;
+import org.batfish.datamodel.MockFib;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.Topology;
+import org.batfish.datamodel.vxlan.Layer2Vni;
+import org.junit.Test;
+
+/** Tests of {@link BgpSessionReachabilityTracker}. */
+public final class BgpSessionReachabilityTrackerTest {
+
+  private static final Topology LAYER3_TOPOLOGY =
+      new Topology(
+          ImmutableSortedSet.of(
+              Edge.of("n1", "i1", "n2", "i2"),
+              Edge.of("n2", "i2", "n1", "i1"),
+              Edge.of("n3", "i3", "n4", "i4"),
+              Edge.of("n4", "i4", "n3", "i3")));
+
+  private static final TopologyContext TOPOLOGY_CONTEXT =
+      TopologyContext.builder().setLayer3Topology(LAYER3_TOPOLOGY).build();
+
+  private static final Map<Ip, Map<String, Set<String>>> IP_VRF_OWNERS = ImmutableMap.of();
+
+  /** A FIB with a single connected route to {@code prefix}. */
+  private static Fib fib(String prefix) {
+    ConnectedRoute route = new ConnectedRoute(Prefix.parse(prefix), "i");
+    FibEntry entry = new FibEntry(FibForward.of(null, "i"), ImmutableList.of(route));
+    return MockFib.builder()
+        .setFibEntries(ImmutableMap.of(Prefix.parse(prefix).getStartIp(), ImmutableSet.of(entry)))
+        .build();
+  }
+
+  /** A data plane in which each of {@code n1} through {@code n4} has the given FIB. */
+  private static DataPlane dataplane(String n1, String n2, String n3, String n4) {
+    return MockDataPlane.builder()
+        .setFibs(
+            ImmutableMap.of(
+                "n1", ImmutableMap.of(DEFAULT_VRF_NAME, fib(n1)),
+                "n2", ImmutableMap.of(DEFAULT_VRF_NAME, fib(n2)),
+                "n3", ImmutableMap.of(DEFAULT_VRF_NAME, fib(n3)),
+                "n4", ImmutableMap.of(DEFAULT_VRF_NAME, fib(n4))))
+        .build();
+  }
+
+  @Test
+  public void testFirstUpdateInvalidatesAll() {
+    BgpSessionReachabilityTracker tracker = new BgpSessionReachabilityTracker();
+    assertThat(
+        tracker.advance(
+            dataplane("10.0.0.1/32", "10.0.0.2/32", "10.0.0.3/32", "10.0.0.4/32"),
+            TOPOLOGY_CONTEXT,
+            IP_VRF_OWNERS),
+        nullValue());
+  }
+
+  @Test
+  public void testEqualForwardingStateInvalidatesNothing() {
+    BgpSessionReachabilityTracker tracker = new BgpSessionReachabilityTracker();
+    tracker.advance(
+        dataplane("10.0.0.1/32", "10.0.0.2/32", "10.0.0.3/32", "10.0.0.4/32"),
+        TOPOLOGY_CONTEXT,
+        IP_VRF_OWNERS);
+
+    // equal but distinct FIBs
+    assertThat(
+        tracker.advance(
+            dataplane("10.0.0.1/32", "10.0.0.2/32", "10.0.0.3/32", "10.0.0.4/32"),
+            TOPOLOGY_CONTEXT,
+            IP_VRF_OWNERS),
+        empty());
+  }
+
+  @Test
+  public void testChangedFibInvalidatesNodeAndNeighbors() {
+    BgpSessionReachabilityTracker tracker = new BgpSessionReachabilityTracker();
+    tracker.advance(
+        dataplane("10.0.0.1/32", "10.0.0.2/32", "10.0.0.3/32", "10.0.0.4/32"),
+        TOPOLOGY_CONTEXT,
+        IP_VRF_OWNERS);
+
+    assertThat(
+        tracker.advance(
+            dataplane("10.0.0.9/32", "10.0.0.2/32", "10.0.0.3/32", "10.0.0.4/32"),
+            TOPOLOGY_CONTEXT,
+            IP_VRF_OWNERS),
+        containsInAnyOrder("n1", "n2"));
+  }
+
+  @Test
+  public void testChangedVnisInvalidateNodeAndNeighbors() {
+    BgpSessionReachabilityTracker tracker = new BgpSessionReachabilityTracker();
+    DataPlane dataplane = dataplane("10.0.0.1/32", "10.0.0.2/32", "10.0.0.3/32", "10.0.0.4/32");
+    tracker.advance(dataplane, TOPOLOGY_CONTEXT, IP_VRF_OWNERS);
+
+    DataPlane withVni =
+        MockDataPlane.builder()
+            .setFibs(dataplane.getFibs())
+            .setLayer2VniSettings(
+                ImmutableTable.of(
+                    "n4",
+                    DEFAULT_VRF_NAME,
+                    ImmutableSet.of(
+                        Layer2Vni.testBuilder()
+                            .setVni(10001)
+                            .setVlan(1)
+                            .setBumTransportMethod(BumTransportMethod.UNICAST_FLOOD_GROUP)
+                            .build())))
+            .build();
+    assertThat(
+        tracker.advance(withVni, TOPOLOGY_CONTEXT, IP_VRF_OWNERS),
+        containsInAnyOrder("n3", "n4"));
+  }
+
+  @Test
+  public void testChangedTopologyInvalidatesAll() {
+    BgpSessionReachabilityTracker tracker = new BgpSessionReachabilityTracker();
+    DataPlane dataplane = dataplane("10.0.0.1/32", "10.0.0.2/32", "10.0.0.3/32", "10.0.0.4/32");
+    tracker.advance(dataplane, TOPOLOGY_CONTEXT, IP_VRF_OWNERS);
+
+    assertThat(
+        tracker.advance(
+            dataplane,
+            TopologyContext.builder().setLayer3Topology(Topology.EMPTY).build(),
+            IP_VRF_OWNERS),
+        nullValue());
+  }
+
+  @Test
+  public void testChangedIpOwnersInvalidatesAll() {
+    BgpSessionReachabilityTracker tracker = new BgpSessionReachabilityTracker();
+    DataPlane dataplane = dataplane("10.0.0.1/32", "10.0.0.2/32", "10.0.0.3/32", "10.0.0.4/32");
+    tracker.advance(dataplane, TOPOLOGY_CONTEXT, IP_VRF_OWNERS);
+
+    assertThat(
+        tracker.advance(
+            dataplane,
+            TOPOLOGY_CONTEXT,
+            ImmutableMap.of(
+                Ip.parse("10.0.0.1"), ImmutableMap.of("n1", ImmutableSet.of(DEFAULT_VRF_NAME)))),
+        nullValue());
+  }
+}
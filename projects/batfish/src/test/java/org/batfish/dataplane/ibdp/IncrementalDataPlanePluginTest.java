@@ -684,6 +684,63 @@ public class IncrementalDataPlanePluginTest {
         equalTo(0));
   }
 
+  @Test
+  public void testBgpSessionChecksBatchedMatchUnbatched() throws IOException {
+    SortedMap<String, Configuration> configs = generateNetworkWithDuplicates();
+
+    Batfish batfish = BatfishTestUtils.getBatfish(configs, _folder);
+    batfish.getSettings().setDataplaneEngineName(IncrementalDataPlanePlugin.PLUGIN_NAME);
+    DataPlanePlugin dataPlanePlugin = batfish.getDataPlanePlugin();
+    ComputeDataPlaneResult result = dataPlanePlugin.computeDataPlane(batfish.getSnapshot());
+    // Computing the data plane checks all sessions together
+    ValueGraph<BgpPeerConfigId, BgpSessionProperties> bgpTopology =
+        result._topologies.getBgpTopology().getGraph();
+    TracerouteEngine tracerouteEngine =
+        new TracerouteEngineImpl(
+            result._dataPlane, result._topologies.getLayer3Topology(), configs);
+
+    ImmutableMap.Builder<BgpPeerConfigId, BgpActivePeerConfig> peersBuilder =
+        ImmutableMap.builder();
+    for (Configuration c : configs.values()) {
+      for (Vrf vrf : c.getVrfs().values()) {
+        vrf.getBgpProcess()
+            .getActiveNeighbors()
+            .forEach(
+                (ip, peer) ->
+                    peersBuilder.put(
+                        new BgpPeerConfigId(c.getHostname(), vrf.getName(), ip.toPrefix(), false),
+                        peer));
+      }
+    }
+    Map<BgpPeerConfigId, BgpActivePeerConfig> peers = peersBuilder.build();
+
+    // Check each session on its own, in both directions
+    int establishedEdges = 0;
+    for (Entry<BgpPeerConfigId, BgpActivePeerConfig> initiator : peers.entrySet()) {
+      for (Entry<BgpPeerConfigId, BgpActivePeerConfig> listener : peers.entrySet()) {
+        BgpActivePeerConfig i = initiator.getValue();
+        BgpActivePeerConfig l = listener.getValue();
+        if (!i.getPeerAddress().equals(l.getLocalIp())
+            || !l.getPeerAddress().equals(i.getLocalIp())) {
+          continue;
+        }
+        boolean establishable =
+            BgpTopologyUtils.canEstablishBgpSession(
+                    initiator.getKey(), listener.getKey(), i, l, i.getLocalIp(), tracerouteEngine)
+                || BgpTopologyUtils.canEstablishBgpSession(
+                    listener.getKey(), initiator.getKey(), l, i, l.getLocalIp(), tracerouteEngine);
+        assertThat(
+            bgpTopology.hasEdgeConnecting(initiator.getKey(), listener.getKey()),
+            equalTo(establishable));
+        if (establishable) {
+          establishedEdges++;
+        }
+      }
+    }
+    // core and n2 peer in both directions, n1 is unreachable
+    assertThat(establishedEdges, equalTo(2));
+  }
+
   @Test
   public void testGeneratedRoutesInMainRib() throws IOException {
     Configuration n1 =
@@ -11,6 +11,8 @@ import static org.batfish.datamodel.ospf.OspfAreaSummary.SummaryRouteBehavior.NO
 import static org.batfish.datamodel.ospf.OspfTopologyUtils.computeOspfTopology;
 import static org.batfish.dataplane.ibdp.TestUtils.assertNoRoute;
 import static org.batfish.dataplane.ibdp.TestUtils.assertRoute;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSortedMap;
@@ -172,6 +174,38 @@ public class OspfTest {
       Long maxMetricTransitLinks,
       @Nullable SummaryRouteBehavior summaryR1L0Behavior,
       Long summarizeR1L0Metric) {
+    return getOspfRoutes(
+        areaA,
+        areaB,
+        areaC,
+        areaD,
+        areaE,
+        areaF,
+        areaG,
+        maxMetricExternalNetworks,
+        maxMetricStubNetworks,
+        maxMetricSummaryNetworks,
+        maxMetricTransitLinks,
+        summaryR1L0Behavior,
+        summarizeR1L0Metric,
+        new IncrementalDataPlaneSettings());
+  }
+
+  private static SortedMap<String, SortedMap<String, Set<AbstractRoute>>> getOspfRoutes(
+      long areaA,
+      long areaB,
+      long areaC,
+      long areaD,
+      long areaE,
+      long areaF,
+      long areaG,
+      Long maxMetricExternalNetworks,
+      Long maxMetricStubNetworks,
+      Long maxMetricSummaryNetworks,
+      Long maxMetricTransitLinks,
+      @Nullable SummaryRouteBehavior summaryR1L0Behavior,
+      Long summarizeR1L0Metric,
+      IncrementalDataPlaneSettings settings) {
 
     String l0Name = "Loopback0";
     String l1Name = "Loopback1";
@@ -382,7 +416,7 @@ public class OspfTest {
             .put(c3.getHostname(), c3)
             .put(c4.getHostname(), c4)
             .build();
-    IncrementalBdpEngine engine = new IncrementalBdpEngine(new IncrementalDataPlaneSettings());
+    IncrementalBdpEngine engine = new IncrementalBdpEngine(settings);
     OspfTopologyUtils.initNeighborConfigs(NetworkConfigurations.of(configurations));
     Topology topology = TopologyUtil.synthesizeL3Topology(configurations);
     TopologyContext topologyContext =
@@ -418,6 +452,15 @@ public class OspfTest {
    */
   private static SortedMap<String, SortedMap<String, Set<AbstractRoute>>> getOspfStubBehavior(
       boolean noSummaryStub1, boolean noSummaryNssa2, OspfDefaultOriginateType nssaDefaultType) {
+    return getOspfStubBehavior(
+        noSummaryStub1, noSummaryNssa2, nssaDefaultType, new IncrementalDataPlaneSettings());
+  }
+
+  private static SortedMap<String, SortedMap<String, Set<AbstractRoute>>> getOspfStubBehavior(
+      boolean noSummaryStub1,
+      boolean noSummaryNssa2,
+      OspfDefaultOriginateType nssaDefaultType,
+      IncrementalDataPlaneSettings settings) {
     String r0Name = "r0";
     String r1Name = "r1";
     String r2Name = "r2";
@@ -622,7 +665,7 @@ public class OspfTest {
             .put(r5.getHostname(), r5)
             .put(r6.getHostname(), r6)
             .build();
-    IncrementalBdpEngine engine = new IncrementalBdpEngine(new IncrementalDataPlaneSettings());
+    IncrementalBdpEngine engine = new IncrementalBdpEngine(settings);
     OspfTopologyUtils.initNeighborConfigs(NetworkConfigurations.of(configurations));
     Topology topology = TopologyUtil.synthesizeL3Topology(configurations);
     TopologyContext topologyContext =
@@ -1364,6 +1407,63 @@ public class OspfTest {
     assertNoRoute(routes, "listener", Prefix.parse("192.168.61.0/24"));
   }
 
+  private static IncrementalDataPlaneSettings ospfSpfSettings() {
+    IncrementalDataPlaneSettings settings = new IncrementalDataPlaneSettings();
+    settings.getConfig().setProperty(IncrementalDataPlaneSettings.PROP_OSPF_SPF, true);
+    return settings;
+  }
+
+  @Test
+  public void testOspfSpfMatchesExchange() {
+    long[][] areaAssignments = {
+      {0L, 0L, 0L, 0L, 0L, 0L, 0L}, {1L, 1L, 0L, 0L, 0L, 2L, 2L}, {0L, 0L, 1L, 1L, 1L, 2L, 2L}
+    };
+    for (long[] areas : areaAssignments) {
+      // Seeding intra-area routes with SPF must not change the converged routes
+      assertThat(
+          getOspfRoutes(
+              areas[0],
+              areas[1],
+              areas[2],
+              areas[3],
+              areas[4],
+              areas[5],
+              areas[6],
+              MAX_METRIC_EXTERNAL_NETWORKS,
+              MAX_METRIC_STUB_NETWORKS,
+              null,
+              MAX_METRIC_TRANSIT_LINKS,
+              ADVERTISE_AND_INSTALL_DISCARD,
+              null,
+              ospfSpfSettings()),
+          equalTo(
+              getOspfRoutes(
+                  areas[0],
+                  areas[1],
+                  areas[2],
+                  areas[3],
+                  areas[4],
+                  areas[5],
+                  areas[6],
+                  MAX_METRIC_EXTERNAL_NETWORKS,
+                  MAX_METRIC_STUB_NETWORKS,
+                  null,
+                  MAX_METRIC_TRANSIT_LINKS,
+                  ADVERTISE_AND_INSTALL_DISCARD,
+                  null)));
+    }
+  }
+
+  @Test
+  public void testOspfSpfMatchesExchangeStubAreas() {
+    assertThat(
+        getOspfStubBehavior(true, false, OspfDefaultOriginateType.INTER_AREA, ospfSpfSettings()),
+        equalTo(getOspfStubBehavior(true, false, OspfDefaultOriginateType.INTER_AREA)));
+    assertThat(
+        getOspfStubBehavior(false, true, OspfDefaultOriginateType.NONE, ospfSpfSettings()),
+        equalTo(getOspfStubBehavior(false, true, OspfDefaultOriginateType.NONE)));
+  }
+
   private static class TestIpOwners extends IpOwnersBaseImpl {
     protected TestIpOwners(
         Map<String, Configuration> configurations, L3Adjacencies initialL3Adjacencies) {
@@ -0,0 +1,40 @@
+package org.batfish.dataplane.ibdp;
+
+import static org.batfish.dataplane.ibdp.ParentSnapshotDiff.changedNodes;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+/** Tests of {@link ParentSnapshotDiff}. */
+public final class ParentSnapshotDiffTest {
+
+  @Test
+  public void testChangedNodesUnchanged() {
+    assertThat(
+        changedNodes(
+            ImmutableMap.of("c1", "hash1", "c2", "hash2"),
+            ImmutableMap.of("c1", "hash1", "c2", "hash2")),
+        empty());
+  }
+
+  @Test
+  public void testChangedNodesAddedAndRemoved() {
+    assertThat(
+        changedNodes(
+            ImmutableMap.of("c1", "hash1", "c2", "hash2"),
+            ImmutableMap.of("c1", "hash1", "c3", "hash3")),
+        contains("c2", "c3"));
+  }
+
+  @Test
+  public void testChangedNodesModified() {
+    assertThat(
+        changedNodes(
+            ImmutableMap.of("c1", "hash1", "c2", "hash2"),
+            ImmutableMap.of("c1", "hash1", "c2", "hash2Modified")),
+        contains("c2"));
+  }
+}
@@ -0,0 +1,155 @@
+package org.batfish.dataplane.ibdp;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableList;
+import java.util.Optional;
+import java.util.function.Predicate;
+import org.batfish.datamodel.BgpSessionProperties;
+import org.batfish.datamodel.Bgpv4Route;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.NetworkFactory;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.PrefixRange;
+import org.batfish.datamodel.PrefixSpace;
+import org.batfish.datamodel.route.nh.NextHopIp;
+import org.batfish.datamodel.routing_policy.Environment.Direction;
+import org.batfish.datamodel.routing_policy.RoutingPolicy;
+import org.batfish.datamodel.routing_policy.expr.BgpPeerAddressNextHop;
+import org.batfish.datamodel.routing_policy.expr.DestinationNetwork;
+import org.batfish.datamodel.routing_policy.expr.ExplicitPrefixSet;
+import org.batfish.datamodel.routing_policy.expr.LiteralLong;
+import org.batfish.datamodel.routing_policy.expr.MatchPrefixSet;
+import org.batfish.datamodel.routing_policy.statement.If;
+import org.batfish.datamodel.routing_policy.statement.SetLocalPreference;
+import org.batfish.datamodel.routing_policy.statement.SetNextHop;
+import org.batfish.datamodel.routing_policy.statement.Statements;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests of {@link RoutingPolicyResultCache}. */
+public final class RoutingPolicyResultCacheTest {
+
+  private static final Predicate<String> NO_TRACKS = track -> false;
+  private static final BgpSessionProperties SESSION1 = session(Ip.parse("10.0.0.1"));
+  private static final BgpSessionProperties SESSION2 = session(Ip.parse("10.0.0.2"));
+
+  private RoutingPolicy _setLocalPreference;
+  private RoutingPolicy _setPeerNextHop;
+  private RoutingPolicyResultCache _cache;
+
+  private static BgpSessionProperties session(Ip remoteIp) {
+    return BgpSessionProperties.builder()
+        .setLocalAs(1)
+        .setRemoteAs(2)
+        .setLocalIp(Ip.parse("10.0.0.254"))
+        .setRemoteIp(remoteIp)
+        .build();
+  }
+
+  @Before
+  public void setup() {
+    NetworkFactory nf = new NetworkFactory();
+    Configuration c =
+        nf.configurationBuilder().setConfigurationFormat(ConfigurationFormat.CISCO_IOS).build();
+    // accepts routes in 1.0.0.0/8 and sets their local preference
+    _setLocalPreference =
+        nf.routingPolicyBuilder()
+            .setOwner(c)
+            .setStatements(
+                ImmutableList.of(
+                    new If(
+                        new MatchPrefixSet(
+                            DestinationNetwork.instance(),
+                            new ExplicitPrefixSet(
+                                new PrefixSpace(PrefixRange.fromString("1.0.0.0/8:8-32")))),
+                        ImmutableList.of(
+                            new SetLocalPreference(new LiteralLong(200)),
+                            Statements.ExitAccept.toStaticStatement()),
+                        ImmutableList.of(Statements.ExitReject.toStaticStatement()))))
+            .build();
+    // sets the next hop to the peer address, so depends on the session
+    _setPeerNextHop =
+        nf.routingPolicyBuilder()
+            .setOwner(c)
+            .setStatements(
+                ImmutableList.of(
+                    new SetNextHop(BgpPeerAddressNextHop.getInstance()),
+                    Statements.ExitAccept.toStaticStatement()))
+            .build();
+    _cache = new RoutingPolicyResultCache();
+  }
+
+  private static Bgpv4Route route(String prefix) {
+    return Bgpv4Route.testBuilder().setNetwork(Prefix.parse(prefix)).build();
+  }
+
+  /** A builder for the export of {@code route}, with the next hop unset as before export. */
+  private static Bgpv4Route.Builder exportBuilder(Bgpv4Route route) {
+    return route.toBuilder().clearNextHop();
+  }
+
+  private Optional<Bgpv4Route.Builder> process(
+      RoutingPolicy policy, Bgpv4Route route, BgpSessionProperties session) {
+    return _cache.process(policy, route, exportBuilder(route), session, Direction.OUT, NO_TRACKS);
+  }
+
+  @Test
+  public void testSessionIndependentOutcomeShared() {
+    Bgpv4Route route = route("1.1.1.0/24");
+    Optional<Bgpv4Route.Builder> first = process(_setLocalPreference, route, SESSION1);
+    Optional<Bgpv4Route.Builder> second = process(_setLocalPreference, route, SESSION2);
+    assertThat(_cache.getMisses(), equalTo(1L));
+    assertThat(_cache.getHits(), equalTo(1L));
+
+    assertTrue(first.isPresent());
+    assertTrue(second.isPresent());
+    // the next hop is still unset, as it was before the policy
+    assertThat(second.get().getNextHop(), nullValue());
+    assertThat(second.get().getLocalPreference(), equalTo(200L));
+    Bgpv4Route firstRoute = first.get().setNextHopIp(Ip.parse("2.2.2.2")).build();
+    Bgpv4Route secondRoute = second.get().setNextHopIp(Ip.parse("2.2.2.2")).build();
+    assertThat(secondRoute, equalTo(firstRoute));
+  }
+
+  @Test
+  public void testRejectedOutcomeCached() {
+    Bgpv4Route route = route("2.2.2.0/24");
+    assertFalse(process(_setLocalPreference, route, SESSION1).isPresent());
+    assertFalse(process(_setLocalPreference, route, SESSION2).isPresent());
+    assertThat(_cache.getHits(), equalTo(1L));
+  }
+
+  @Test
+  public void testSessionDependentOutcome() {
+    Bgpv4Route route = route("1.1.1.0/24");
+    Optional<Bgpv4Route.Builder> session1 = process(_setPeerNextHop, route, SESSION1);
+    Optional<Bgpv4Route.Builder> session2 = process(_setPeerNextHop, route, SESSION2);
+    // the policy read the session properties, so the second session could not reuse the outcome
+    assertThat(_cache.getHits(), equalTo(0L));
+    assertThat(session1.get().getNextHop(), equalTo(NextHopIp.of(Ip.parse("10.0.0.1"))));
+    assertThat(session2.get().getNextHop(), equalTo(NextHopIp.of(Ip.parse("10.0.0.2"))));
+
+    Optional<Bgpv4Route.Builder> session2Again = process(_setPeerNextHop, route, SESSION2);
+    assertThat(_cache.getHits(), equalTo(1L));
+    assertThat(session2Again.get().getNextHop(), equalTo(NextHopIp.of(Ip.parse("10.0.0.2"))));
+  }
+
+  @Test
+  public void testClear() {
+    Bgpv4Route route = route("1.1.1.0/24");
+    process(_setLocalPreference, route, SESSION1);
+    assertThat(_cache.size(), equalTo(1));
+    _cache.clear();
+    assertThat(_cache.size(), equalTo(0));
+    assertThat(_cache.getMisses(), equalTo(0L));
+    process(_setLocalPreference, route, SESSION1);
+    assertThat(_cache.getMisses(), equalTo(1L));
+  }
+}
@@ -0,0 +1,56 @@
+package org.batfish.grammar;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import com.google.common.collect.ImmutableList;
+import java.util.BitSet;
+import java.util.List;
+import org.junit.Test;
+
+/** Tests of {@link LiteralScanner}. */
+public final class LiteralScannerTest {
+
+  private static BitSet bits(int... indices) {
+    BitSet bits = new BitSet();
+    for (int i : indices) {
+      bits.set(i);
+    }
+    return bits;
+  }
+
+  @Test
+  public void testScan() {
+    LiteralScanner scanner =
+        new LiteralScanner(ImmutableList.of("he", "she", "his", "hers", "system host-name "));
+    assertThat(scanner.scan(""), equalTo(bits()));
+    assertThat(scanner.scan("ushers"), equalTo(bits(0, 1, 3)));
+    assertThat(scanner.scan("this"), equalTo(bits(2)));
+    assertThat(scanner.scan("set system host-name r1"), equalTo(bits(4)));
+    // overlapping a partial match
+    assertThat(scanner.scan("set system host-namesystem host-name "), equalTo(bits(4)));
+  }
+
+  @Test
+  public void testNonAsciiResets() {
+    LiteralScanner scanner = new LiteralScanner(ImmutableList.of("ab"));
+    assertThat(scanner.scan("a\u00e9b"), equalTo(bits()));
+    assertThat(scanner.scan("\u00e9ab\u00e9"), equalTo(bits(0)));
+  }
+
+  @Test
+  public void testEquivalentToContains() {
+    List<String> literals = ImmutableList.of("a", "ab", "bab", "abab", "bb", "{", "}");
+    LiteralScanner scanner = new LiteralScanner(literals);
+    String[] texts = {"", "a", "b", "abab", "babb", "bbbab", "x{y", "}ab{", "aaabbb"};
+    for (String text : texts) {
+      BitSet expected = new BitSet();
+      for (int i = 0; i < literals.size(); i++) {
+        if (text.contains(literals.get(i))) {
+          expected.set(i);
+        }
+      }
+      assertThat(text, scanner.scan(text), equalTo(expected));
+    }
+  }
+}
@@ -30,7 +30,10 @@ import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import com.google.common.collect.ImmutableList;
@@ -52,8 +55,11 @@ import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.apache.commons.io.IOUtils;
+import org.batfish.bddreachability.BDDReachabilityAnalysisFactory;
+import org.batfish.bddreachability.TestNetworkSources;
 import org.batfish.common.Answerer;
 import org.batfish.common.BatfishException;
 import org.batfish.common.NetworkSnapshot;
@@ -100,7 +106,9 @@ import org.batfish.identifiers.NetworkId;
 import org.batfish.identifiers.QuestionId;
 import org.batfish.identifiers.TestIdResolver;
 import org.batfish.job.ParseVendorConfigurationResult;
+import org.batfish.specifier.IpSpaceAssignment;
 import org.batfish.storage.TestStorageProvider;
+import org.batfish.symbolic.IngressLocation;
 import org.batfish.vendor.VendorConfiguration;
 import org.junit.Rule;
 import org.junit.Test;
@@ -142,6 +150,53 @@ public class BatfishTest {
         answer.getAnswerElements().get(0).toString(), containsString("Could not parse question"));
   }
 
+  @Test
+  public void testBddReachabilityAnalysisFactorySharedPerSnapshot() throws IOException {
+    Batfish batfish = BatfishTestUtils.getBatfish(TestNetworkSources.twoNodeNetwork(), _folder);
+    NetworkSnapshot snapshot = batfish.getSnapshot();
+    batfish.computeDataPlane(snapshot);
+    IpSpaceAssignment assignment =
+        batfish.getAllSourcesInferFromLocationIpSpaceAssignment(snapshot);
+    Function<BDDReachabilityAnalysisFactory, Set<IngressLocation>> reachableLocations =
+        factory ->
+            ImmutableSet.copyOf(
+                factory
+                    .bddReachabilityAnalysis(assignment)
+                    .getIngressLocationReachableBDDs()
+                    .keySet());
+    Function<BDDReachabilityAnalysisFactory, BDDReachabilityAnalysisFactory> self = f -> f;
+
+    // the second question reuses the factory of the first
+    Set<IngressLocation> locations =
+        batfish.withBddReachabilityAnalysisFactory(snapshot, false, reachableLocations);
+    BDDReachabilityAnalysisFactory factory =
+        batfish.withBddReachabilityAnalysisFactory(snapshot, false, self);
+    assertThat(
+        batfish.withBddReachabilityAnalysisFactory(snapshot, false, reachableLocations),
+        equalTo(locations));
+    assertSame(factory, batfish.withBddReachabilityAnalysisFactory(snapshot, false, self));
+
+    // ignoring filters needs a different factory
+    assertNotSame(factory, batfish.withBddReachabilityAnalysisFactory(snapshot, true, self));
+
+    // recomputing the data plane invalidates the factory
+    batfish.computeDataPlane(snapshot);
+    assertNotSame(factory, batfish.withBddReachabilityAnalysisFactory(snapshot, false, self));
+  }
+
+  @Test
+  public void testCachedBddReachabilityAnalysisFactoryIsOutgrown() throws IOException {
+    Batfish batfish = BatfishTestUtils.getBatfish(TestNetworkSources.twoNodeNetwork(), _folder);
+    NetworkSnapshot snapshot = batfish.getSnapshot();
+    batfish.computeDataPlane(snapshot);
+    BDDReachabilityAnalysisFactory factory =
+        batfish.withBddReachabilityAnalysisFactory(snapshot, false, f -> f);
+    int tableSize = factory.getBDDPacket().getFactory().getNodeTableSize();
+
+    assertFalse(new CachedBddReachabilityAnalysisFactory(factory, 2, tableSize).isOutgrown());
+    assertTrue(new CachedBddReachabilityAnalysisFactory(factory, 2, tableSize - 1).isOutgrown());
+  }
+
   @Test
   public void testOverlayIptables() throws IOException {
     SortedMap<String, byte[]> configurationsBytes = new TreeMap<>();
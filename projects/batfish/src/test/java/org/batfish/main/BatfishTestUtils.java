@@ -40,6 +40,7 @@ import org.batfish.identifiers.IdResolver;
 import org.batfish.identifiers.NetworkId;
 import org.batfish.identifiers.SnapshotId;
 import org.batfish.identifiers.StorageBasedIdResolver;
+import org.batfish.main.BfCache.BddReachabilityKey;
 import org.batfish.storage.FileBasedStorage;
 import org.batfish.storage.StorageProvider;
 import org.batfish.vendor.ConversionContext;
@@ -79,6 +80,11 @@ public class BatfishTestUtils {
     return Caffeine.newBuilder().softValues().maximumSize(2).build();
   }
 
+  private static Cache<BddReachabilityKey, CachedBddReachabilityAnalysisFactory>
+      makeBddReachabilityAnalysisFactoryCache() {
+    return Caffeine.newBuilder().maximumSize(2).build();
+  }
+
   private static void setNextTestNetworkSnapshot(Settings settings) {
     int cur = SNAPSHOT_COUNTER.incrementAndGet();
     NetworkId net = new NetworkId("net" + cur);
@@ -110,6 +116,7 @@ public class BatfishTestUtils {
             makeDataPlaneCache(),
             makeEnvBgpCache(),
             makeVendorConfigurationCache(),
+            makeBddReachabilityAnalysisFactoryCache(),
             null,
             new TestStorageBasedIdResolver(settings.getStorageBase()));
     if (!configurations.isEmpty()) {
@@ -143,6 +150,7 @@ public class BatfishTestUtils {
             makeDataPlaneCache(),
             makeEnvBgpCache(),
             makeVendorConfigurationCache(),
+            makeBddReachabilityAnalysisFactoryCache(),
             null,
             new TestStorageBasedIdResolver(settings.getStorageBase()));
     batfish.getSettings().setDiffQuestion(true);
@@ -220,6 +228,7 @@ public class BatfishTestUtils {
             makeDataPlaneCache(),
             makeEnvBgpCache(),
             makeVendorConfigurationCache(),
+            makeBddReachabilityAnalysisFactoryCache(),
             null,
             new TestStorageBasedIdResolver(settings.getStorageBase()));
     StorageProvider storage = new FileBasedStorage(settings.getStorageBase(), batfish.getLogger());
@@ -325,6 +334,7 @@ public class BatfishTestUtils {
             makeDataPlaneCache(),
             makeEnvBgpCache(),
             makeVendorConfigurationCache(),
+            makeBddReachabilityAnalysisFactoryCache(),
             storageProvider,
             idResolver);
     registerDataPlanePlugins(batfish);
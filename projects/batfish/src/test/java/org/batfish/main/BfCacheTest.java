@@ -0,0 +1,112 @@
+package org.batfish.main;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.google.common.collect.ImmutableMap;
+import java.util.Map;
+import org.batfish.common.BfConsts;
+import org.batfish.common.NetworkSnapshot;
+import org.batfish.identifiers.NetworkId;
+import org.batfish.identifiers.SnapshotId;
+import org.batfish.main.BfCache.NodeWeigher;
+import org.junit.Test;
+
+/** Tests of {@link BfCache}. */
+public final class BfCacheTest {
+
+  private static NetworkSnapshot snapshot(String name) {
+    return new NetworkSnapshot(new NetworkId("n"), new SnapshotId(name));
+  }
+
+  private static Map<String, Integer> nodes(int n) {
+    ImmutableMap.Builder<String, Integer> builder = ImmutableMap.builder();
+    for (int i = 0; i < n; i++) {
+      builder.put("node" + i, i);
+    }
+    return builder.build();
+  }
+
+  @Test
+  public void testWeightedEviction() {
+    NodeWeigher<Map<String, Integer>> weigher = new NodeWeigher<>(Map::size, 10);
+    Cache<NetworkSnapshot, Map<String, Integer>> cache = BfCache.buildWeightedCache(weigher);
+
+    // many small snapshots fit
+    cache.put(snapshot("s1"), nodes(3));
+    cache.put(snapshot("s2"), nodes(3));
+    cache.put(snapshot("s3"), nodes(3));
+    cache.cleanUp();
+    assertThat(cache.estimatedSize(), equalTo(3L));
+
+    // a snapshot larger than the budget weighs half the budget, leaving room for another
+    assertThat(weigher.weigh(snapshot("big"), nodes(50)), equalTo(5));
+  }
+
+  @Test
+  public void testSnapshotAndReferenceLargerThanBudget() {
+    NodeWeigher<Map<String, Integer>> weigher =
+        new NodeWeigher<>(Map::size, BfConsts.DEFAULT_MAX_CACHED_DATA_PLANE_NODES);
+    Cache<NetworkSnapshot, Map<String, Integer>> cache = BfCache.buildWeightedCache(weigher);
+    int nodes = BfConsts.DEFAULT_MAX_CACHED_DATA_PLANE_NODES + 500;
+
+    // a differential question needs both snapshots
+    cache.put(snapshot("snapshot"), nodes(nodes));
+    cache.put(snapshot("reference"), nodes(nodes));
+    cache.cleanUp();
+    assertThat(cache.getIfPresent(snapshot("snapshot")), notNullValue());
+    assertThat(cache.getIfPresent(snapshot("reference")), notNullValue());
+
+    // a third snapshot does not fit
+    cache.put(snapshot("other"), nodes(nodes));
+    cache.cleanUp();
+    assertThat(cache.estimatedSize(), equalTo(2L));
+  }
+
+  @Test
+  public void testSetBudget() {
+    NodeWeigher<Map<String, Integer>> weigher = new NodeWeigher<>(Map::size, 10);
+    Cache<NetworkSnapshot, Map<String, Integer>> cache = BfCache.buildWeightedCache(weigher);
+    cache.put(snapshot("s1"), nodes(5));
+    cache.put(snapshot("s2"), nodes(5));
+
+    BfCache.setBudget(cache, weigher, 5);
+    cache.cleanUp();
+    assertThat(cache.estimatedSize(), equalTo(1L));
+
+    BfCache.setBudget(cache, weigher, 0);
+    cache.cleanUp();
+    assertThat(cache.getIfPresent(snapshot("s1")), nullValue());
+    assertThat(cache.getIfPresent(snapshot("s2")), nullValue());
+  }
+
+  @Test
+  public void testStats() {
+    NodeWeigher<Map<String, Integer>> weigher = new NodeWeigher<>(Map::size, 10);
+    Cache<NetworkSnapshot, Map<String, Integer>> cache = BfCache.buildWeightedCache(weigher);
+    cache.getIfPresent(snapshot("s1"));
+    cache.get(snapshot("s1"), k -> nodes(1));
+    cache.getIfPresent(snapshot("s1"));
+    assertThat(cache.stats().hitCount(), equalTo(1L));
+    assertThat(cache.stats().missCount(), equalTo(2L));
+    assertThat(cache.stats().loadSuccessCount(), equalTo(1L));
+  }
+
+  @Test
+  public void testStatCounts() {
+    NodeWeigher<Map<String, Integer>> weigher = new NodeWeigher<>(Map::size, 10);
+    Cache<NetworkSnapshot, Map<String, Integer>> cache = BfCache.buildWeightedCache(weigher);
+    cache.getIfPresent(snapshot("s1"));
+    cache.get(snapshot("s1"), k -> nodes(1));
+    cache.getIfPresent(snapshot("s1"));
+    Map<String, Long> counts = BfCache.statCounts(cache.stats());
+    assertThat(counts, hasEntry("hitCount", 1L));
+    assertThat(counts, hasEntry("missCount", 2L));
+    assertThat(counts, hasEntry("loadSuccessCount", 1L));
+    assertThat(counts, hasEntry("evictionCount", 0L));
+  }
+}
@@ -0,0 +1,184 @@
+package org.batfish.main;
+
+import static org.batfish.datamodel.Configuration.DEFAULT_VRF_NAME;
+import static org.batfish.main.BatfishTestUtils.configureBatfishTestSettings;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashCode;
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.batfish.common.runtime.SnapshotRuntimeData;
+import org.batfish.config.Settings;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.datamodel.Vrf;
+import org.batfish.datamodel.collections.NodeInterfacePair;
+import org.batfish.identifiers.NetworkId;
+import org.batfish.job.ConvertConfigurationJob;
+import org.batfish.job.ConvertConfigurationResult;
+import org.batfish.storage.TestStorageProvider;
+import org.batfish.vendor.ConversionContext;
+import org.batfish.vendor.VendorConfiguration;
+import org.batfish.vendor.VendorSupplementalInformation;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests of {@link GetOrConvertConfigurationJob}. */
+public final class GetOrConvertConfigurationJobTest {
+
+  private static final NetworkId NETWORK = new NetworkId("network");
+  private static final HashCode NO_CONTEXT =
+      GetOrConvertConfigurationJob.hashConversionContext(new ConversionContext());
+
+  /** Converts to a single node named by its hostname, and counts conversions. */
+  private static final class CountingVendorConfiguration extends VendorConfiguration {
+    private static int _conversions = 0;
+
+    private String _hostname;
+
+    @Override
+    public String getHostname() {
+      return _hostname;
+    }
+
+    @Override
+    public void setHostname(String hostname) {
+      _hostname = hostname;
+    }
+
+    @Override
+    public void setVendor(ConfigurationFormat format) {}
+
+    @Override
+    public List<Configuration> toVendorIndependentConfigurations() {
+      _conversions++;
+      Configuration c =
+          Configuration.builder()
+              .setHostname(_hostname)
+              .setConfigurationFormat(ConfigurationFormat.CISCO_IOS)
+              .build();
+      Vrf.builder().setOwner(c).setName(DEFAULT_VRF_NAME).build();
+      return ImmutableList.of(c);
+    }
+  }
+
+  private static final class TestSupplementalInformation
+      implements VendorSupplementalInformation {}
+
+  /** Keeps network blobs in memory. */
+  private static final class BlobStorageProvider extends TestStorageProvider {
+    private final Map<String, byte[]> _blobs = new HashMap<>();
+
+    @Override
+    public InputStream loadNetworkBlob(NetworkId networkId, String key)
+        throws FileNotFoundException {
+      byte[] blob = _blobs.get(networkId.getId() + "/" + key);
+      if (blob == null) {
+        throw new FileNotFoundException(key);
+      }
+      return new ByteArrayInputStream(blob);
+    }
+
+    @Override
+    public void storeNetworkBlob(InputStream inputStream, NetworkId networkId, String key)
+        throws IOException {
+      _blobs.put(networkId.getId() + "/" + key, inputStream.readAllBytes());
+    }
+  }
+
+  private Settings _settings;
+  private BlobStorageProvider _storage;
+
+  @Before
+  public void setup() {
+    _settings = new Settings();
+    configureBatfishTestSettings(_settings);
+    _storage = new BlobStorageProvider();
+    CountingVendorConfiguration._conversions = 0;
+  }
+
+  private static VendorConfiguration vc(String hostname) {
+    VendorConfiguration vc = new CountingVendorConfiguration();
+    vc.setHostname(hostname);
+    vc.setFilename("configs/" + hostname + ".cfg");
+    return vc;
+  }
+
+  private String key(VendorConfiguration vc, SnapshotRuntimeData runtimeData) {
+    return GetOrConvertConfigurationJob.computeKey(
+        _settings, vc.getHostname(), vc, NO_CONTEXT, runtimeData);
+  }
+
+  private ConvertConfigurationResult getOrConvert(VendorConfiguration vc) {
+    SnapshotRuntimeData runtimeData = SnapshotRuntimeData.EMPTY_SNAPSHOT_RUNTIME_DATA;
+    String key = key(vc, runtimeData);
+    ConvertConfigurationJob job =
+        new ConvertConfigurationJob(_settings, null, runtimeData, vc, vc.getHostname());
+    return new GetOrConvertConfigurationJob(
+            _settings, _storage, NETWORK, job, vc.getHostname(), key)
+        .call();
+  }
+
+  @Test
+  public void testReuse() {
+    ConvertConfigurationResult first = getOrConvert(vc("r1"));
+    ConvertConfigurationResult second = getOrConvert(vc("r1"));
+    assertThat(CountingVendorConfiguration._conversions, equalTo(1));
+    assertThat(second.getFailureCause(), nullValue());
+    assertThat(second.getConfigurations().keySet(), contains("r1"));
+    assertThat(
+        second.getConfigurations().get("r1").getConfigurationFormat(),
+        equalTo(ConfigurationFormat.CISCO_IOS));
+    assertThat(
+        second.getAnswerElement().getFileMap(), equalTo(first.getAnswerElement().getFileMap()));
+
+    // a different vendor configuration is converted
+    getOrConvert(vc("r2"));
+    assertThat(CountingVendorConfiguration._conversions, equalTo(2));
+  }
+
+  @Test
+  public void testKeyDependsOnOwnRuntimeData() {
+    VendorConfiguration r1 = vc("r1");
+    String key = key(r1, SnapshotRuntimeData.EMPTY_SNAPSHOT_RUNTIME_DATA);
+    assertThat(
+        key(
+            r1,
+            SnapshotRuntimeData.builder()
+                .setInterfacesLineDown(NodeInterfacePair.of("r2", "eth0"))
+                .build()),
+        equalTo(key));
+    assertThat(
+        key(
+            r1,
+            SnapshotRuntimeData.builder()
+                .setInterfacesLineDown(NodeInterfacePair.of("r1", "eth0"))
+                .build()),
+        not(equalTo(key)));
+  }
+
+  @Test
+  public void testKeyDependsOnConversionContext() {
+    VendorConfiguration r1 = vc("r1");
+    ConversionContext context = new ConversionContext();
+    context.setCheckpointManagementConfiguration(new TestSupplementalInformation());
+    assertThat(
+        GetOrConvertConfigurationJob.computeKey(
+            _settings,
+            "r1",
+            r1,
+            GetOrConvertConfigurationJob.hashConversionContext(context),
+            SnapshotRuntimeData.EMPTY_SNAPSHOT_RUNTIME_DATA),
+        not(equalTo(key(r1, SnapshotRuntimeData.EMPTY_SNAPSHOT_RUNTIME_DATA))));
+  }
+}
@@ -627,6 +627,21 @@ public abstract class BDDFactory {
    */
   public abstract int duplicateVar(int var);
 
+  /**
+   * Returns a {@link BDD} in this factory representing the same function as {@code bdd}, which may
+   * belong to a different factory.
+   *
+   * <p>Both factories must have the same number of variables and the same variable order, e.g.
+   * because they were initialized the same way. This allows independent factories to be used
+   * concurrently (one per thread), with results combined in a single factory afterwards.
+   *
+   * <p>Reads {@code bdd}'s factory without modifying it, but neither factory may be used by another
+   * thread during the transfer.
+   *
+   * @throws BDDException if the variables of the two factories differ
+   */
+  public abstract BDD transfer(BDD bdd);
+
   /** ** BDD STATS *** */
 
   /**
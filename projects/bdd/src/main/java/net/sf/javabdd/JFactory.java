@@ -31,8 +31,10 @@ package net.sf.javabdd;
 import static com.google.common.base.Preconditions.checkArgument;
 
 import com.carrotsearch.hppc.IntHashSet;
+import com.carrotsearch.hppc.IntIntHashMap;
 import com.carrotsearch.hppc.IntSet;
 import com.carrotsearch.hppc.IntStack;
+import com.carrotsearch.hppc.cursors.IntCursor;
 import com.google.common.annotations.VisibleForTesting;
 import java.io.IOException;
 import java.io.PrintStream;
@@ -4897,6 +4899,44 @@ public final class JFactory extends BDDFactory implements Serializable {
     return bdd_setvarnum(num);
   }
 
+  @Override
+  public BDD transfer(BDD bdd) {
+    JFactory src = (JFactory) bdd.getFactory();
+    if (src == this) {
+      return bdd.id();
+    }
+    if (src.bddvarnum != bddvarnum
+        || !Arrays.equals(src.bddvar2level, 0, bddvarnum, bddvar2level, 0, bddvarnum)) {
+      throw new BDDException("Cannot transfer a BDD between factories with different variables");
+    }
+
+    // Nodes are referenced while being copied so that garbage collection cannot reclaim them
+    // before the copy is complete.
+    IntIntHashMap copied = new IntIntHashMap();
+    int res = transfer_rec(src, ((BDDImpl) bdd)._index, copied);
+    BDD ret = makeBDD(res);
+    for (IntCursor c : copied.values()) {
+      bdd_delref(c.value);
+    }
+    checkresize();
+    return ret;
+  }
+
+  private int transfer_rec(JFactory src, int r, IntIntHashMap copied) {
+    if (r < 2) {
+      return r; // constants are the same in every factory
+    }
+    int idx = copied.indexOf(r);
+    if (copied.indexExists(idx)) {
+      return copied.indexGet(idx);
+    }
+    int low = transfer_rec(src, src.LOW(r), copied);
+    int high = transfer_rec(src, src.HIGH(r), copied);
+    int res = bdd_addref(bdd_makenode(src.LEVEL(r), low, high));
+    copied.put(r, res);
+    return res;
+  }
+
   @Override
   public int duplicateVar(int var) {
     if (var < 0 || var >= bddvarnum) {
@@ -949,4 +949,40 @@ public class JFactoryTest {
     BDD result = xor.and(imp);
     assertEquals(v0.xor(v1).and(v1.imp(v2)).toReprString(), result.toReprString());
   }
+
+  @Test
+  public void testTransfer() {
+    _factory.setVarNum(8);
+    BDD bdd =
+        _factory
+            .ithVar(0)
+            .xor(_factory.ithVar(3))
+            .and(_factory.ithVar(5).imp(_factory.nithVar(7)))
+            .or(_factory.ithVar(1).and(_factory.ithVar(6)));
+
+    // a small node table forces garbage collection and resizing during the transfer
+    JFactory other = (JFactory) JFactory.init(16, 16);
+    other.setVarNum(8);
+    BDD transferred = other.transfer(bdd);
+    BDD expected =
+        other
+            .ithVar(0)
+            .xor(other.ithVar(3))
+            .and(other.ithVar(5).imp(other.nithVar(7)))
+            .or(other.ithVar(1).and(other.ithVar(6)));
+    assertEquals(expected, transferred);
+    assertEquals(bdd.toReprString(), _factory.transfer(transferred).toReprString());
+
+    assertEquals(other.zero(), other.transfer(_factory.zero()));
+    assertEquals(other.one(), other.transfer(_factory.one()));
+  }
+
+  @Test
+  public void testTransferDifferentVariables() {
+    _factory.setVarNum(8);
+    JFactory other = (JFactory) JFactory.init(16, 16);
+    other.setVarNum(4);
+    BDD bdd = _factory.ithVar(0);
+    assertThrows(BDDException.class, () -> other.transfer(bdd));
+  }
 }
@@ -1,5 +1,8 @@
 package org.batfish.common;
 
+import com.google.common.collect.ImmutableMap;
+import java.util.Map;
+import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 /**
@@ -14,4 +17,12 @@ public interface BatfishWorkerService {
 
   /** Launch the task defined by args that has the given taskId. */
   LaunchResult runTask(String taskId, String[] args);
+
+  /**
+   * Returns statistics of the worker's caches: for each cache name, the value of each statistic
+   * (e.g., {@code hitCount}) by name.
+   */
+  default @Nonnull Map<String, Map<String, Long>> getCacheStats() {
+    return ImmutableMap.of();
+  }
 }
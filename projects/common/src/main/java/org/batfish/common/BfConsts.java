@@ -67,6 +67,12 @@ public class BfConsts {
   public static final String COMMAND_PARSE_VENDOR_SPECIFIC = "sv";
   @Deprecated public static final String COMMAND_VALIDATE_SNAPSHOT = "venv";
 
+  /**
+   * Default node budget of a worker's data plane cache. The coordinator uses it to track which
+   * snapshots each worker has cached.
+   */
+  public static final int DEFAULT_MAX_CACHED_DATA_PLANE_NODES = 2_000;
+
   /*
    * JSON key names
    */
@@ -35,6 +35,7 @@ public class CoordConstsV2 {
   public static final String RSC_REFERENCE_LIBRARY = "referencelibrary";
   public static final String RSC_SETTINGS = "settings";
   public static final String RSC_SNAPSHOTS = "snapshots";
+  public static final String RSC_STATUS = "status";
   public static final String RSC_TOPOLOGY = "topology";
   public static final String RSC_VERSION = "version";
   public static final String RSC_WORK = "work";
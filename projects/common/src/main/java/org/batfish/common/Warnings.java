@@ -30,16 +30,58 @@ import org.batfish.grammar.BatfishCombinedParser;
 public class Warnings implements Serializable {
 
   public static class Settings implements Serializable {
+    private static final String PROP_PEDANTIC_RECORD = "pedanticRecord";
+    private static final String PROP_RED_FLAG_RECORD = "redFlagRecord";
+    private static final String PROP_UNIMPLEMENTED_RECORD = "unimplementedRecord";
+
     private final boolean _pedanticRecord;
     private final boolean _redFlagRecord;
     private final boolean _unimplementedRecord;
 
-    public Settings(boolean pedanticRecord, boolean redFlagRecord, boolean unimplementedRecord) {
+    @JsonCreator
+    public Settings(
+        @JsonProperty(PROP_PEDANTIC_RECORD) boolean pedanticRecord,
+        @JsonProperty(PROP_RED_FLAG_RECORD) boolean redFlagRecord,
+        @JsonProperty(PROP_UNIMPLEMENTED_RECORD) boolean unimplementedRecord) {
       this._pedanticRecord = pedanticRecord;
       this._redFlagRecord = redFlagRecord;
       this._unimplementedRecord = unimplementedRecord;
     }
 
+    @JsonProperty(PROP_PEDANTIC_RECORD)
+    public boolean getPedanticRecord() {
+      return _pedanticRecord;
+    }
+
+    @JsonProperty(PROP_RED_FLAG_RECORD)
+    public boolean getRedFlagRecord() {
+      return _redFlagRecord;
+    }
+
+    @JsonProperty(PROP_UNIMPLEMENTED_RECORD)
+    public boolean getUnimplementedRecord() {
+      return _unimplementedRecord;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Settings)) {
+        return false;
+      }
+      Settings that = (Settings) o;
+      return _pedanticRecord == that._pedanticRecord
+          && _redFlagRecord == that._redFlagRecord
+          && _unimplementedRecord == that._unimplementedRecord;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(_pedanticRecord, _redFlagRecord, _unimplementedRecord);
+    }
+
     public static @Nonnull Settings fromLogger(BatfishLogger logger) {
       return new Warnings.Settings(
           logger.isActive(LEVEL_PEDANTIC),
@@ -162,6 +204,15 @@ public class Warnings implements Serializable {
     _errorDetails = errorDetails;
   }
 
+  /**
+   * Which kinds of warnings are recorded. Not part of the JSON form of warnings, which only holds
+   * the recorded warnings.
+   */
+  @JsonIgnore
+  public @Nonnull Settings getSettings() {
+    return _settings;
+  }
+
   @JsonIgnore
   public boolean isEmpty() {
     return _pedanticWarnings.isEmpty()
@@ -321,6 +372,34 @@ public class Warnings implements Serializable {
     unimplemented(String.format(format, args));
   }
 
+  @Override
+  public boolean equals(@Nullable Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Warnings)) {
+      return false;
+    }
+    Warnings that = (Warnings) o;
+    return _settings.equals(that._settings)
+        && Objects.equals(_errorDetails, that._errorDetails)
+        && _parseWarnings.equals(that._parseWarnings)
+        && _pedanticWarnings.equals(that._pedanticWarnings)
+        && _redFlagWarnings.equals(that._redFlagWarnings)
+        && _unimplementedWarnings.equals(that._unimplementedWarnings);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(
+        _settings,
+        _errorDetails,
+        _parseWarnings,
+        _pedanticWarnings,
+        _redFlagWarnings,
+        _unimplementedWarnings);
+  }
+
   /** A class to represent a parse warning in a file. */
   public static final class ParseWarning implements Serializable {
 
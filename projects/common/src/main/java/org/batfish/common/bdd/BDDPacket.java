@@ -70,6 +70,8 @@ public class BDDPacket implements Serializable {
   private final BDDFactory _factory;
   private int _nextFreeBDDVarIdxBeforePacketVars = 0;
   private int _nextFreeBDDVarIdx = FIRST_PACKET_VAR;
+  // The first variable after the packet vars, i.e. not allocated by the constructor
+  private final int _firstVarAfterPacketVars;
 
   // Packet bits
   private final @Nonnull ImmutableBDDInteger _dscp;
@@ -168,9 +170,22 @@ public class BDDPacket implements Serializable {
             BDDUtils.concatBitvectors(_dstIp.getVar()._bitvec, _dstPort.getVar()._bitvec),
             BDDUtils.concatBitvectors(_srcIp.getVar()._bitvec, _srcPort.getVar()._bitvec));
 
+    _firstVarAfterPacketVars = _nextFreeBDDVarIdx;
     initTransientFields();
   }
 
+  /**
+   * Makes all variables allocated by {@link #allocateBDDBit(String)} and {@link
+   * #allocateBDDInteger(String, int)} (and their variants) available again, so they are reused
+   * rather than growing the factory. Any {@link BDD} previously built using those variables must
+   * no longer be used.
+   */
+  void resetAllocatedVariables() {
+    _bitNames.keySet().removeIf(i -> i < FIRST_PACKET_VAR || i >= _firstVarAfterPacketVars);
+    _nextFreeBDDVarIdxBeforePacketVars = 0;
+    _nextFreeBDDVarIdx = _firstVarAfterPacketVars;
+  }
+
   private void initTransientFields() {
     _flowConstraintGeneratorSupplier =
         Suppliers.memoize(() -> new BDDFlowConstraintGenerator(this));
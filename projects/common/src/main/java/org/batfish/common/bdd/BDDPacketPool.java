@@ -0,0 +1,144 @@
+package org.batfish.common.bdd;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.lang.ref.SoftReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import net.sf.javabdd.BDDFactory;
+
+/**
+ * A per-thread pool of {@link BDDPacket}s, for analyses that need a fresh packet per (small) unit
+ * of work, e.g. per ACL, and would otherwise spend most of their time allocating and collecting
+ * BDD factories.
+ *
+ * <p>Each thread keeps at most one idle packet. A packet is reused only if the factory did not
+ * grow during its last use; otherwise it is dropped so that one large analysis does not pin a large
+ * node table for the lifetime of the thread. Idle packets are softly referenced, so they are also
+ * reclaimed under memory pressure.
+ */
+@ParametersAreNonnullByDefault
+public final class BDDPacketPool {
+
+  /**
+   * The maximum number of nodes in use in the factory of a packet for it to be reused. Unfreed
+   * {@link net.sf.javabdd.BDD}s from earlier uses keep their nodes alive, so this bounds the
+   * garbage a reused packet can accumulate. Well below the initial node table size, so a reused
+   * packet has most of its table available.
+   */
+  @VisibleForTesting static final int MAX_REUSED_NODES = 100_000;
+
+  private static final ThreadLocal<SoftReference<PooledPacket>> IDLE_PACKET =
+      new ThreadLocal<>();
+
+  private static final LongAdder CREATED = new LongAdder();
+  private static final LongAdder REUSED = new LongAdder();
+  private static final LongAdder DROPPED = new LongAdder();
+
+  /**
+   * Applies {@code fn} to a {@link BDDPacket} of the current thread's pool, and returns its result.
+   *
+   * <p>The packet may have been used before, so {@code fn} must not make any assumptions about its
+   * factory beyond those of a new packet; in particular, variables allocated by earlier users are
+   * available to be allocated again. Neither the packet nor any {@link net.sf.javabdd.BDD} built
+   * from it may be used after {@code fn} returns, so the result must not contain them.
+   */
+  public static <T> T withPacket(Function<BDDPacket, T> fn) {
+    PooledPacket pooled = acquire();
+    // If fn throws, the packet is simply not returned to the pool.
+    T result = fn.apply(pooled._pkt);
+    release(pooled);
+    return result;
+  }
+
+  /** Returns counters of pool usage across all threads. */
+  public static @Nonnull Stats getStats() {
+    return new Stats(CREATED.sum(), REUSED.sum(), DROPPED.sum());
+  }
+
+  private static @Nonnull PooledPacket acquire() {
+    SoftReference<PooledPacket> ref = IDLE_PACKET.get();
+    // Take the packet out of the pool, so nested uses on this thread get a different one.
+    IDLE_PACKET.remove();
+    PooledPacket pooled = ref == null ? null : ref.get();
+    if (pooled != null) {
+      REUSED.increment();
+      return pooled;
+    }
+    CREATED.increment();
+    return new PooledPacket(new BDDPacket());
+  }
+
+  private static void release(PooledPacket pooled) {
+    if (!pooled.isReusable()) {
+      DROPPED.increment();
+      return;
+    }
+    pooled._pkt.resetAllocatedVariables();
+    IDLE_PACKET.set(new SoftReference<>(pooled));
+  }
+
+  /** A pooled {@link BDDPacket}, with the size of its factory's node table when it was new. */
+  @VisibleForTesting
+  static final class PooledPacket {
+    private final @Nonnull BDDPacket _pkt;
+    private final int _initialNodeTableSize;
+
+    PooledPacket(BDDPacket pkt) {
+      _pkt = pkt;
+      _initialNodeTableSize = pkt.getFactory().getNodeTableSize();
+    }
+
+    /**
+     * Whether the packet may be reused: its node table has not grown, and not too many of its nodes
+     * are in use.
+     */
+    boolean isReusable() {
+      BDDFactory factory = _pkt.getFactory();
+      if (factory.getNodeTableSize() > _initialNodeTableSize) {
+        return false;
+      }
+      if (factory.getNodeNum() > MAX_REUSED_NODES) {
+        // Freed nodes are only reclaimed by garbage collection, which is cheap next to a new table.
+        factory.runGC();
+      }
+      return factory.getNodeNum() <= MAX_REUSED_NODES;
+    }
+  }
+
+  /** Counters of {@link BDDPacketPool} usage. */
+  public static final class Stats {
+    private final long _created;
+    private final long _reused;
+    private final long _dropped;
+
+    private Stats(long created, long reused, long dropped) {
+      _created = created;
+      _reused = reused;
+      _dropped = dropped;
+    }
+
+    /** The number of packets created because none was idle in the pool of the thread. */
+    public long getCreated() {
+      return _created;
+    }
+
+    /** The number of uses served by an idle packet. */
+    public long getReused() {
+      return _reused;
+    }
+
+    /** The number of packets not returned to the pool because their factory grew too large. */
+    public long getDropped() {
+      return _dropped;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("created=%d reused=%d dropped=%d", _created, _reused, _dropped);
+    }
+  }
+
+  private BDDPacketPool() {}
+}
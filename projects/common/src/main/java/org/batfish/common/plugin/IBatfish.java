@@ -170,6 +170,20 @@ public interface IBatfish extends IPluginConsumer {
 
   DataPlane loadDataPlane(NetworkSnapshot snapshot);
 
+  /**
+   * Returns the snapshot from which {@code snapshot} was forked, if that snapshot still exists and
+   * already has a stored data plane.
+   */
+  @Nonnull
+  Optional<NetworkSnapshot> getParentSnapshotWithDataPlane(NetworkSnapshot snapshot);
+
+  /**
+   * Returns a hash of each stored vendor-independent configuration of {@code snapshot}, keyed by
+   * hostname, or {@link Optional#empty()} if none were recorded.
+   */
+  @Nonnull
+  Optional<Map<String, String>> loadConfigurationHashes(NetworkSnapshot snapshot);
+
   SortedMap<String, BgpAdvertisementsByVrf> loadEnvironmentBgpTables(NetworkSnapshot snapshot);
 
   ParseVendorConfigurationAnswerElement loadParseVendorConfigurationAnswerElement(
@@ -0,0 +1,801 @@
+package org.batfish.common.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * A Java regular expression compiled to a lazily-constructed deterministic finite automaton, for
+ * use with {@link Pattern#matcher(CharSequence) find} semantics.
+ *
+ * <p>Routing policy regexes (AS-path and community regexes in all vendor dialects) are converted
+ * to a small subset of the Java regex syntax: literals, character classes, groups, alternation,
+ * greedy and reluctant quantifiers, and the {@code ^} and {@code $} anchors. Such a regex is
+ * matched in a single pass with no backtracking, one table lookup per character once the DFA is
+ * warm. DFA states are built on demand and shared by all threads and all policies using the same
+ * regex.
+ *
+ * <p>Any regex outside that subset (back-references, lookaround, possessive quantifiers, flags,
+ * etc.), and any input containing line terminators or surrogates, is matched with {@link Pattern}
+ * instead, so results are always identical to {@code Pattern.compile(regex).matcher(s).find()}.
+ */
+@ParametersAreNonnullByDefault
+public final class DfaRegex {
+
+  /** Returns the (shared) {@link DfaRegex} for the given Java regex. */
+  public static @Nonnull DfaRegex fromString(String regex) {
+    return CACHE.get(regex);
+  }
+
+  /** Returns {@code true} iff some substring of {@code input} matches this regex. */
+  public boolean find(CharSequence input) {
+    if (_nfa == null) {
+      return PatternProvider.fromString(_regex).matcher(input).find();
+    }
+    State state = _start;
+    for (int i = 0; i < input.length(); i++) {
+      char c = input.charAt(i);
+      if (!isSupportedInput(c)) {
+        return PatternProvider.fromString(_regex).matcher(input).find();
+      }
+      if (state._accepting) {
+        return true;
+      } else if (state._nfaStates.isEmpty()) {
+        return false;
+      }
+      state = step(state, c);
+    }
+    return state._accepting || state._acceptingAtEnd;
+  }
+
+  /**
+   * Returns a new {@link Cursor} for matching input that is produced piecewise, without rendering
+   * it to a string first.
+   */
+  public @Nonnull Cursor newCursor() {
+    return new Cursor(this);
+  }
+
+  /**
+   * Matches input fed one character at a time. The input may not contain line terminators or
+   * surrogates.
+   */
+  public static final class Cursor {
+    private Cursor(DfaRegex regex) {
+      _regex = regex;
+      if (regex._nfa == null) {
+        _state = null;
+        _fallbackInput = new StringBuilder();
+      } else {
+        _state = regex._start;
+        _fallbackInput = null;
+      }
+    }
+
+    /** Appends {@code c} to the input. */
+    public @Nonnull Cursor append(char c) {
+      checkArgument(isSupportedInput(c), "Unsupported input character: %s", (int) c);
+      if (_fallbackInput != null) {
+        _fallbackInput.append(c);
+      } else if (!_state._accepting && !_state._nfaStates.isEmpty()) {
+        _state = _regex.step(_state, c);
+      }
+      return this;
+    }
+
+    /** Appends the decimal representation of {@code value} to the input. */
+    public @Nonnull Cursor append(long value) {
+      if (value < 0) {
+        return append(Long.toString(value));
+      }
+      long divisor = 1;
+      while (divisor <= value / 10) {
+        divisor *= 10;
+      }
+      for (; divisor > 0; divisor /= 10) {
+        append((char) ('0' + value / divisor % 10));
+      }
+      return this;
+    }
+
+    /** Appends {@code s} to the input. */
+    public @Nonnull Cursor append(String s) {
+      for (int i = 0; i < s.length(); i++) {
+        append(s.charAt(i));
+      }
+      return this;
+    }
+
+    /** Returns {@code true} iff some substring of the input so far matches the regex. */
+    public boolean find() {
+      if (_fallbackInput != null) {
+        return PatternProvider.fromString(_regex._regex).matcher(_fallbackInput).find();
+      }
+      return _state._accepting || _state._acceptingAtEnd;
+    }
+
+    private final @Nonnull DfaRegex _regex;
+    private @Nullable State _state;
+    private final @Nullable StringBuilder _fallbackInput;
+  }
+
+  /** Whether this regex is matched with a DFA, rather than with {@link Pattern}. */
+  @VisibleForTesting
+  boolean isCompiled() {
+    return _nfa != null;
+  }
+
+  /** The number of DFA states constructed so far. */
+  @VisibleForTesting
+  int getNumStates() {
+    return _states.size() + 1;
+  }
+
+  /** Line terminators change the meaning of {@code .} and {@code $}; surrogates of everything. */
+  private static boolean isSupportedInput(char c) {
+    return c != '\n'
+        && c != '\r'
+        && c != '\u0085'
+        && c != '\u2028'
+        && c != '\u2029'
+        && !Character.isSurrogate(c);
+  }
+
+  private DfaRegex(String regex) {
+    _regex = regex;
+    Nfa nfa;
+    try {
+      nfa = Nfa.compile(new Parser(regex).parse());
+    } catch (UnsupportedRegexException e) {
+      nfa = null;
+    }
+    _nfa = nfa;
+    _states = new ConcurrentHashMap<>();
+    if (nfa == null) {
+      _start = null;
+      _restart = null;
+      return;
+    }
+    BitSet start = new BitSet();
+    start.set(nfa._start);
+    BitSet restart = nfa.closure(start, false, false);
+    // a ^ is never passed after the beginning, so leaving it out lets anchored searches fail fast
+    for (int i = restart.nextSetBit(0); i >= 0; i = restart.nextSetBit(i + 1)) {
+      if (nfa._typeArray[i] == Nfa.BEGIN) {
+        restart.clear(i);
+      }
+    }
+    _restart = restart;
+    _start = newState(nfa.closure(start, true, false), true);
+  }
+
+  /** Returns the state reached from {@code state} on {@code c}. */
+  private @Nonnull State step(State state, char c) {
+    State next = c < ASCII ? state._asciiTransitions[c] : state._otherTransitions.get(c);
+    if (next != null) {
+      return next;
+    }
+    next = computeStep(state, c);
+    if (_states.get(next._nfaStates) != next) {
+      // not memoized, see computeStep
+      return next;
+    }
+    if (c < ASCII) {
+      // benign race: states are canonical, so concurrent writers store the same state
+      state._asciiTransitions[c] = next;
+    } else {
+      state._otherTransitions.put(c, next);
+    }
+    return next;
+  }
+
+  private @Nonnull State computeStep(State state, char c) {
+    Nfa nfa = _nfa;
+    assert nfa != null;
+    BitSet moved = new BitSet();
+    BitSet nfaStates = state._nfaStates;
+    for (int i = nfaStates.nextSetBit(0); i >= 0; i = nfaStates.nextSetBit(i + 1)) {
+      CharClass chars = nfa._chars[i];
+      if (chars != null && chars.contains(c)) {
+        moved.set(nfa._out1[i]);
+      }
+    }
+    // unanchored search: a match may also start after c
+    BitSet next = nfa.closure(moved, false, false);
+    next.or(_restart);
+    State existing = _states.get(next);
+    if (existing != null) {
+      return existing;
+    }
+    State created = newState(next, false);
+    if (_states.size() >= MAX_STATES) {
+      // too many states to memoize: degrade to simulating the NFA
+      return created;
+    }
+    existing = _states.putIfAbsent(next, created);
+    return existing != null ? existing : created;
+  }
+
+  private @Nonnull State newState(BitSet nfaStates, boolean atStart) {
+    Nfa nfa = _nfa;
+    assert nfa != null;
+    return new State(
+        nfaStates,
+        nfaStates.get(nfa._match),
+        nfa.closure(nfaStates, atStart, true).get(nfa._match));
+  }
+
+  /** A DFA state: the set of NFA states the automaton may be in. */
+  private static final class State {
+    private State(BitSet nfaStates, boolean accepting, boolean acceptingAtEnd) {
+      _nfaStates = nfaStates;
+      _accepting = accepting;
+      _acceptingAtEnd = acceptingAtEnd;
+      _asciiTransitions = new State[ASCII];
+      _otherTransitions = new ConcurrentHashMap<>();
+    }
+
+    private final @Nonnull BitSet _nfaStates;
+
+    /** Some substring of the input read so far matches. */
+    private final boolean _accepting;
+
+    /** Some substring of the input read so far matches if the input ends here. */
+    private final boolean _acceptingAtEnd;
+
+    private final @Nonnull State[] _asciiTransitions;
+    private final @Nonnull Map<Character, State> _otherTransitions;
+  }
+
+  /**
+   * A Thompson NFA. Each state is a character class with one successor, a split with two epsilon
+   * successors, a {@code ^} or {@code $} assertion with one epsilon successor, or the match state.
+   */
+  private static final class Nfa {
+    private static final int CHARS = 0;
+    private static final int SPLIT = 1;
+    private static final int BEGIN = 2;
+    private static final int END = 3;
+    private static final int MATCH = 4;
+
+    private static @Nonnull Nfa compile(Node root) {
+      Nfa nfa = new Nfa();
+      int match = nfa.add(MATCH, null);
+      nfa._match = match;
+      nfa._start = nfa.compile(root, match);
+      if (nfa._types.size() > MAX_NFA_STATES) {
+        throw new UnsupportedRegexException();
+      }
+      nfa.freeze();
+      return nfa;
+    }
+
+    /** Compiles {@code node}, continuing to state {@code next}. Returns the entry state. */
+    private int compile(Node node, int next) {
+      if (node instanceof CharsNode) {
+        int s = add(CHARS, ((CharsNode) node)._chars);
+        _out1List.set(s, next);
+        return s;
+      } else if (node instanceof AnchorNode) {
+        int s = add(((AnchorNode) node)._begin ? BEGIN : END, null);
+        _out1List.set(s, next);
+        return s;
+      } else if (node instanceof ConcatNode) {
+        List<Node> parts = ((ConcatNode) node)._parts;
+        int entry = next;
+        for (int i = parts.size() - 1; i >= 0; i--) {
+          entry = compile(parts.get(i), entry);
+        }
+        return entry;
+      } else if (node instanceof AltNode) {
+        List<Node> alternatives = ((AltNode) node)._alternatives;
+        int entry = compile(alternatives.get(alternatives.size() - 1), next);
+        for (int i = alternatives.size() - 2; i >= 0; i--) {
+          entry = split(compile(alternatives.get(i), next), entry);
+        }
+        return entry;
+      } else {
+        assert node instanceof RepeatNode;
+        RepeatNode repeat = (RepeatNode) node;
+        int entry;
+        if (repeat._max < 0) {
+          // loop: split to the body (which returns to the split) or to next
+          int loop = split(-1, next);
+          _out1List.set(loop, compile(repeat._body, loop));
+          entry = loop;
+        } else {
+          // nested optional copies
+          entry = next;
+          for (int i = repeat._min; i < repeat._max; i++) {
+            entry = split(compile(repeat._body, entry), next);
+          }
+        }
+        for (int i = 0; i < repeat._min; i++) {
+          entry = compile(repeat._body, entry);
+        }
+        return entry;
+      }
+    }
+
+    private int add(int type, @Nullable CharClass chars) {
+      if (_types.size() > MAX_NFA_STATES) {
+        throw new UnsupportedRegexException();
+      }
+      _types.add(type);
+      _charsList.add(chars);
+      _out1List.add(-1);
+      _out2List.add(-1);
+      return _types.size() - 1;
+    }
+
+    private int split(int out1, int out2) {
+      int s = add(SPLIT, null);
+      _out1List.set(s, out1);
+      _out2List.set(s, out2);
+      return s;
+    }
+
+    private void freeze() {
+      int n = _types.size();
+      _typeArray = new int[n];
+      _chars = new CharClass[n];
+      _out1 = new int[n];
+      _out2 = new int[n];
+      for (int i = 0; i < n; i++) {
+        _typeArray[i] = _types.get(i);
+        _chars[i] = _charsList.get(i);
+        _out1[i] = _out1List.get(i);
+        _out2[i] = _out2List.get(i);
+      }
+    }
+
+    /**
+     * Returns the states reachable from {@code seeds} by epsilon transitions, only passing {@code
+     * ^} if {@code atStart} and {@code $} if {@code atEnd}. Splits are omitted from the result.
+     */
+    private @Nonnull BitSet closure(BitSet seeds, boolean atStart, boolean atEnd) {
+      BitSet visited = new BitSet();
+      Deque<Integer> stack = new ArrayDeque<>();
+      for (int i = seeds.nextSetBit(0); i >= 0; i = seeds.nextSetBit(i + 1)) {
+        stack.push(i);
+      }
+      BitSet result = new BitSet();
+      while (!stack.isEmpty()) {
+        int s = stack.pop();
+        if (visited.get(s)) {
+          continue;
+        }
+        visited.set(s);
+        switch (_typeArray[s]) {
+          case SPLIT:
+            stack.push(_out2[s]);
+            stack.push(_out1[s]);
+            break;
+          case BEGIN:
+            result.set(s);
+            if (atStart) {
+              stack.push(_out1[s]);
+            }
+            break;
+          case END:
+            result.set(s);
+            if (atEnd) {
+              stack.push(_out1[s]);
+            }
+            break;
+          default:
+            result.set(s);
+            break;
+        }
+      }
+      return result;
+    }
+
+    private final List<Integer> _types = new ArrayList<>();
+    private final List<CharClass> _charsList = new ArrayList<>();
+    private final List<Integer> _out1List = new ArrayList<>();
+    private final List<Integer> _out2List = new ArrayList<>();
+
+    private int _start;
+    private int _match;
+    private int[] _typeArray;
+    private CharClass[] _chars;
+    private int[] _out1;
+    private int[] _out2;
+  }
+
+  /** A set of characters, as sorted disjoint inclusive ranges. */
+  private static final class CharClass {
+    private static @Nonnull CharClass of(char c) {
+      return new CharClass(new char[] {c}, new char[] {c});
+    }
+
+    private static @Nonnull CharClass ofRanges(List<char[]> ranges, boolean negated) {
+      BitSet members = new BitSet(Character.MAX_VALUE + 1);
+      for (char[] range : ranges) {
+        members.set(range[0], range[1] + 1);
+      }
+      if (negated) {
+        members.flip(0, Character.MAX_VALUE + 1);
+      }
+      List<char[]> normalized = new ArrayList<>();
+      for (int lo = members.nextSetBit(0); lo >= 0; ) {
+        int hi = members.nextClearBit(lo) - 1;
+        normalized.add(new char[] {(char) lo, (char) hi});
+        lo = hi >= Character.MAX_VALUE ? -1 : members.nextSetBit(hi + 1);
+      }
+      char[] lows = new char[normalized.size()];
+      char[] highs = new char[normalized.size()];
+      for (int i = 0; i < lows.length; i++) {
+        lows[i] = normalized.get(i)[0];
+        highs[i] = normalized.get(i)[1];
+      }
+      return new CharClass(lows, highs);
+    }
+
+    private CharClass(char[] lows, char[] highs) {
+      _lows = lows;
+      _highs = highs;
+    }
+
+    private boolean contains(char c) {
+      for (int i = 0; i < _lows.length && _lows[i] <= c; i++) {
+        if (c <= _highs[i]) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private final @Nonnull char[] _lows;
+    private final @Nonnull char[] _highs;
+  }
+
+  private interface Node {}
+
+  private static final class CharsNode implements Node {
+    private CharsNode(CharClass chars) {
+      _chars = chars;
+    }
+
+    private final @Nonnull CharClass _chars;
+  }
+
+  private static final class AnchorNode implements Node {
+    private AnchorNode(boolean begin) {
+      _begin = begin;
+    }
+
+    private final boolean _begin;
+  }
+
+  private static final class ConcatNode implements Node {
+    private ConcatNode(List<Node> parts) {
+      _parts = parts;
+    }
+
+    private final @Nonnull List<Node> _parts;
+  }
+
+  private static final class AltNode implements Node {
+    private AltNode(List<Node> alternatives) {
+      _alternatives = alternatives;
+    }
+
+    private final @Nonnull List<Node> _alternatives;
+  }
+
+  private static final class RepeatNode implements Node {
+    private RepeatNode(Node body, int min, int max) {
+      _body = body;
+      _min = min;
+      _max = max;
+    }
+
+    private final @Nonnull Node _body;
+    private final int _min;
+
+    /** The maximum number of repetitions, or -1 if unbounded. */
+    private final int _max;
+  }
+
+  /** Thrown when a regex uses syntax that is not compiled to a DFA. */
+  private static final class UnsupportedRegexException extends RuntimeException {
+    private UnsupportedRegexException() {
+      super(null, null, false, false);
+    }
+  }
+
+  /**
+   * Parses the supported subset of the Java regex syntax. Anything else, including malformed
+   * regexes, is rejected with {@link UnsupportedRegexException} and left to {@link Pattern}.
+   */
+  private static final class Parser {
+    private Parser(String regex) {
+      _regex = regex;
+      _pos = 0;
+    }
+
+    private @Nonnull Node parse() {
+      Node node = parseAlternation();
+      if (_pos != _regex.length()) {
+        throw new UnsupportedRegexException();
+      }
+      return node;
+    }
+
+    private @Nonnull Node parseAlternation() {
+      ImmutableList.Builder<Node> alternatives = ImmutableList.builder();
+      alternatives.add(parseConcatenation());
+      while (peek() == '|') {
+        _pos++;
+        alternatives.add(parseConcatenation());
+      }
+      List<Node> built = alternatives.build();
+      return built.size() == 1 ? built.get(0) : new AltNode(built);
+    }
+
+    private @Nonnull Node parseConcatenation() {
+      ImmutableList.Builder<Node> parts = ImmutableList.builder();
+      while (_pos < _regex.length() && peek() != '|' && peek() != ')') {
+        parts.add(parseQuantified());
+      }
+      List<Node> built = parts.build();
+      return built.size() == 1 ? built.get(0) : new ConcatNode(built);
+    }
+
+    private @Nonnull Node parseQuantified() {
+      Node atom = parseAtom();
+      int min;
+      int max;
+      switch (peek()) {
+        case '*':
+          min = 0;
+          max = -1;
+          _pos++;
+          break;
+        case '+':
+          min = 1;
+          max = -1;
+          _pos++;
+          break;
+        case '?':
+          min = 0;
+          max = 1;
+          _pos++;
+          break;
+        case '{':
+          _pos++;
+          min = parseNumber();
+          max = min;
+          if (peek() == ',') {
+            _pos++;
+            max = peek() == '}' ? -1 : parseNumber();
+          }
+          expect('}');
+          if (max >= 0 && max < min) {
+            throw new UnsupportedRegexException();
+          }
+          break;
+        default:
+          return atom;
+      }
+      if (nullable(atom) || min > MAX_REPETITIONS || max > MAX_REPETITIONS) {
+        // Pattern treats empty iterations specially, so leave them to it
+        throw new UnsupportedRegexException();
+      }
+      if (peek() == '?') {
+        // reluctant: same set of matches, so same find() result
+        _pos++;
+      } else if (peek() == '+' || peek() == '*' || peek() == '{') {
+        // possessive, or invalid
+        throw new UnsupportedRegexException();
+      }
+      return new RepeatNode(atom, min, max);
+    }
+
+    /** Whether {@code node} can match without consuming input. */
+    private static boolean nullable(Node node) {
+      if (node instanceof CharsNode) {
+        return false;
+      } else if (node instanceof AnchorNode) {
+        return true;
+      } else if (node instanceof ConcatNode) {
+        return ((ConcatNode) node)._parts.stream().allMatch(Parser::nullable);
+      } else if (node instanceof AltNode) {
+        return ((AltNode) node)._alternatives.stream().anyMatch(Parser::nullable);
+      } else {
+        RepeatNode repeat = (RepeatNode) node;
+        return repeat._min == 0 || nullable(repeat._body);
+      }
+    }
+
+    private @Nonnull Node parseAtom() {
+      char c = next();
+      switch (c) {
+        case '(':
+          if (peek() == '?') {
+            _pos++;
+            expect(':');
+          }
+          Node group = parseAlternation();
+          expect(')');
+          return group;
+        case '[':
+          return new CharsNode(parseClass());
+        case '.':
+          // input never contains line terminators, so '.' matches any input character
+          return new CharsNode(CharClass.ofRanges(ImmutableList.of(ANY), false));
+        case '^':
+          return new AnchorNode(true);
+        case '$':
+          return new AnchorNode(false);
+        case '\\':
+          return new CharsNode(parseEscape());
+        case '*':
+        case '+':
+        case '?':
+        case '{':
+        case ')':
+          throw new UnsupportedRegexException();
+        default:
+          return new CharsNode(CharClass.of(c));
+      }
+    }
+
+    private @Nonnull CharClass parseClass() {
+      boolean negated = false;
+      if (peek() == '^') {
+        negated = true;
+        _pos++;
+      }
+      if (peek() == ']') {
+        throw new UnsupportedRegexException();
+      }
+      List<char[]> ranges = new ArrayList<>();
+      while (peek() != ']') {
+        char c = next();
+        if (c == '[' || (c == '&' && peek() == '&')) {
+          // unions and intersections
+          throw new UnsupportedRegexException();
+        }
+        if (c == '\\') {
+          CharClass escaped = parseEscape();
+          if (peek() == '-' && _pos + 1 < _regex.length() && _regex.charAt(_pos + 1) != ']') {
+            // range from an escaped character
+            throw new UnsupportedRegexException();
+          }
+          for (int i = 0; i < escaped._lows.length; i++) {
+            ranges.add(new char[] {escaped._lows[i], escaped._highs[i]});
+          }
+          continue;
+        }
+        if (peek() == '-' && _pos + 1 < _regex.length() && _regex.charAt(_pos + 1) != ']') {
+          _pos++;
+          char hi = next();
+          if (hi == '\\' || hi == '[' || hi < c) {
+            throw new UnsupportedRegexException();
+          }
+          ranges.add(new char[] {c, hi});
+        } else {
+          ranges.add(new char[] {c, c});
+        }
+      }
+      _pos++;
+      return CharClass.ofRanges(ranges, negated);
+    }
+
+    private @Nonnull CharClass parseEscape() {
+      char c = next();
+      switch (c) {
+        case 'd':
+          return CharClass.ofRanges(DIGITS, false);
+        case 'D':
+          return CharClass.ofRanges(DIGITS, true);
+        case 's':
+          return CharClass.ofRanges(SPACES, false);
+        case 'S':
+          return CharClass.ofRanges(SPACES, true);
+        case 'w':
+          return CharClass.ofRanges(WORD, false);
+        case 'W':
+          return CharClass.ofRanges(WORD, true);
+        case 't':
+          return CharClass.of('\t');
+        case 'n':
+          return CharClass.of('\n');
+        case 'r':
+          return CharClass.of('\r');
+        case 'f':
+          return CharClass.of('\f');
+        default:
+          if (c < ASCII && !Character.isLetterOrDigit(c)) {
+            // escaped metacharacter
+            return CharClass.of(c);
+          }
+          // \b, \1, \p{..}, \Q, \x, etc.
+          throw new UnsupportedRegexException();
+      }
+    }
+
+    private int parseNumber() {
+      int start = _pos;
+      while (_pos < _regex.length() && Character.isDigit(_regex.charAt(_pos))) {
+        _pos++;
+      }
+      if (start == _pos || _pos - start > 4) {
+        throw new UnsupportedRegexException();
+      }
+      return Integer.parseInt(_regex.substring(start, _pos));
+    }
+
+    private void expect(char c) {
+      if (next() != c) {
+        throw new UnsupportedRegexException();
+      }
+    }
+
+    private char next() {
+      if (_pos >= _regex.length()) {
+        throw new UnsupportedRegexException();
+      }
+      return _regex.charAt(_pos++);
+    }
+
+    private char peek() {
+      return _pos < _regex.length() ? _regex.charAt(_pos) : 0;
+    }
+
+    private final @Nonnull String _regex;
+    private int _pos;
+  }
+
+  private static final int ASCII = 128;
+
+  /** Bound on memoized DFA states per regex. */
+  private static final int MAX_STATES = 1 << 12;
+
+  private static final int MAX_NFA_STATES = 1 << 12;
+  private static final int MAX_REPETITIONS = 64;
+
+  private static final char[] ANY = {0, Character.MAX_VALUE};
+  private static final List<char[]> DIGITS = ImmutableList.of(new char[] {'0', '9'});
+  private static final List<char[]> SPACES =
+      ImmutableList.of(new char[] {'\t', '\r'}, new char[] {' ', ' '});
+  private static final List<char[]> WORD =
+      ImmutableList.of(
+          new char[] {'a', 'z'},
+          new char[] {'A', 'Z'},
+          new char[] {'_', '_'},
+          new char[] {'0', '9'});
+
+  // Soft values: let it be garbage collected in times of pressure.
+  // Maximum size 2^16: Just some upper bound on cache size, as in PatternProvider.
+  private static final LoadingCache<String, DfaRegex> CACHE =
+      Caffeine.newBuilder().softValues().maximumSize(1 << 16).build(DfaRegex::new);
+
+  private final @Nonnull String _regex;
+  private final @Nullable Nfa _nfa;
+
+  /** The start state, at the beginning of the input. */
+  private final @Nullable State _start;
+
+  /** The NFA states from which a match starting after the beginning of the input may proceed. */
+  private final @Nullable BitSet _restart;
+
+  private final @Nonnull Map<BitSet, State> _states;
+}
@@ -20,6 +20,7 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 import org.apache.commons.lang3.StringUtils;
+import org.batfish.common.util.DfaRegex;
 
 @ParametersAreNonnullByDefault
 public final class AsPath implements Serializable, Comparable<AsPath> {
@@ -196,6 +197,21 @@ public final class AsPath implements Serializable, Comparable<AsPath> {
     return StringUtils.join(_asSets, " ");
   }
 
+  /**
+   * Returns {@code true} iff {@code regex} matches some substring of {@link #getAsPathString()}.
+   * The AS path is fed to the regex one AS set at a time, without rendering it.
+   */
+  public boolean containsMatch(DfaRegex regex) {
+    DfaRegex.Cursor cursor = regex.newCursor();
+    for (int i = 0; i < _asSets.size(); i++) {
+      if (i > 0) {
+        cursor.append(' ');
+      }
+      _asSets.get(i).appendTo(cursor);
+    }
+    return cursor.find();
+  }
+
   @JsonValue
   public List<AsSet> getAsSets() {
     return _asSets;
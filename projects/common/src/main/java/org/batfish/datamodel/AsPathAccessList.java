@@ -13,11 +13,9 @@ import java.io.Serial;
 import java.io.Serializable;
 import java.util.List;
 import java.util.Objects;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import org.batfish.common.util.PatternProvider;
+import org.batfish.common.util.DfaRegex;
 
 /** An AsPathAccessList is used to filter e/iBGP routes according to their AS-path attribute. */
 public final class AsPathAccessList implements Serializable {
@@ -75,11 +73,8 @@ public final class AsPathAccessList implements Serializable {
   }
 
   private boolean evaluatePermits(AsPath asPath) {
-    String asPathString = asPath.getAsPathString();
     for (AsPathAccessListLine line : _lines) {
-      Pattern p = PatternProvider.fromString(line.getRegex());
-      Matcher matcher = p.matcher(asPathString);
-      if (matcher.find()) {
+      if (asPath.containsMatch(DfaRegex.fromString(line.getRegex()))) {
         return line.getAction() == LineAction.PERMIT;
       }
     }
@@ -22,6 +22,7 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 import org.apache.commons.lang3.StringUtils;
+import org.batfish.common.util.DfaRegex;
 
 /** An immutable class representing a set of AS numbers. */
 @ParametersAreNonnullByDefault
@@ -197,6 +198,26 @@ public class AsSet implements Serializable, Comparable<AsSet> {
     return "{" + StringUtils.join(_value, ',') + "}";
   }
 
+  /** Appends {@link #toString()} to {@code cursor}, without rendering it. */
+  void appendTo(DfaRegex.Cursor cursor) {
+    if (_value.length == 1) {
+      if (_confederation) {
+        cursor.append('(').append(_value[0]).append(')');
+      } else {
+        cursor.append(_value[0]);
+      }
+      return;
+    }
+    cursor.append(_confederation ? '[' : '{');
+    for (int i = 0; i < _value.length; i++) {
+      if (i > 0) {
+        cursor.append(',');
+      }
+      cursor.append(_value[i]);
+    }
+    cursor.append(_confederation ? ']' : '}');
+  }
+
   /** Re-intern after deserialization. */
   @Serial
   private Object readResolve() throws ObjectStreamException {
@@ -86,6 +86,15 @@ public final class PrefixTrieMultiMap<T> implements Serializable {
     return parent;
   }
 
+  private static int toInt(Ip ip) {
+    return (int) ip.asLong();
+  }
+
+  /** Unchecked version of {@link Ip#getBitAtPosition(int, int)}. */
+  private static boolean bitAtPosition(int bits, int position) {
+    return (bits << position) < 0;
+  }
+
   @VisibleForTesting
   static boolean legalLeftChildPrefix(Prefix parentPrefix, Prefix childPrefix) {
     return parentPrefix.containsPrefix(childPrefix)
@@ -113,6 +122,10 @@ public final class PrefixTrieMultiMap<T> implements Serializable {
   private static final class Node<T> implements Serializable {
 
     private final @Nonnull Prefix _prefix;
+    // Primitive copies of _prefix, so that lookups do not dereference the Prefix and its Ip.
+    private final int _startIp;
+    private final int _prefixLength;
+    private final int _mask;
     private @Nonnull ImmutableSet<T> _elements;
 
     private @Nullable Node<T> _left;
@@ -124,12 +137,15 @@ public final class PrefixTrieMultiMap<T> implements Serializable {
 
     Node(Prefix prefix, Collection<T> elements) {
       _prefix = prefix;
+      _startIp = toInt(prefix.getStartIp());
+      _prefixLength = prefix.getPrefixLength();
+      _mask = Ip.numSubnetBitsToSubnetInt(_prefixLength);
       _elements = ImmutableSet.copyOf(elements);
     }
 
     private @Nonnull Node<T> createChild(Prefix prefix) {
       assert _prefix.containsPrefix(prefix);
-      boolean currentBit = prefix.getStartIp().getBitAtPosition(_prefix.getPrefixLength());
+      boolean currentBit = bitAtPosition(toInt(prefix.getStartIp()), _prefixLength);
 
       Node<T> node = new Node<>(prefix);
       if (currentBit) {
@@ -175,16 +191,21 @@ public final class PrefixTrieMultiMap<T> implements Serializable {
       return Objects.hash(_prefix, _elements, _left, _right);
     }
 
+    /** Returns {@code true} if this node's prefix contains {@code ip/prefixLength}. */
+    boolean containsPrefix(int ip, int prefixLength) {
+      return _prefixLength <= prefixLength && ((ip ^ _startIp) & _mask) == 0;
+    }
+
     /** Returns the node with the longest prefix match for a given prefix. */
     @Nonnull
     Node<T> findLongestPrefixMatchNode(Prefix prefix) {
-      return findLongestPrefixMatchNode(prefix.getStartIp(), prefix.getPrefixLength());
+      return findLongestPrefixMatchNode(toInt(prefix.getStartIp()), prefix.getPrefixLength());
     }
 
     /** Returns the node with the longest prefix match for a given prefix. */
     @Nonnull
-    Node<T> findLongestPrefixMatchNode(Ip ip, int prefixLength) {
-      assert _prefix.containsPrefix(ip, prefixLength);
+    Node<T> findLongestPrefixMatchNode(int ip, int prefixLength) {
+      assert containsPrefix(ip, prefixLength);
 
       Node<T> node = this;
       while (true) {
@@ -198,8 +219,8 @@ public final class PrefixTrieMultiMap<T> implements Serializable {
     }
 
     @Nullable
-    Node<T> findLongestPrefixMatchNonEmptyNode(Ip ip, int maxPrefixLength) {
-      assert _prefix.containsPrefix(ip, maxPrefixLength);
+    Node<T> findLongestPrefixMatchNonEmptyNode(int ip, int maxPrefixLength) {
+      assert containsPrefix(ip, maxPrefixLength);
 
       Node<T> longestNonEmpty = null;
       Node<T> node = this;
@@ -215,13 +236,32 @@ public final class PrefixTrieMultiMap<T> implements Serializable {
       return longestNonEmpty;
     }
 
+    /**
+     * Returns the deepest node on the path to {@code ip/maxPrefixLength} (starting at this node)
+     * whose elements are non-empty and satisfy {@code predicate}.
+     */
+    @Nullable
+    Node<T> findLongestPrefixMatchNode(
+        int ip, int maxPrefixLength, Predicate<? super Set<T>> predicate) {
+      assert containsPrefix(ip, maxPrefixLength);
+
+      Node<T> child = matchingChild(ip, maxPrefixLength);
+      if (child != null) {
+        Node<T> match = child.findLongestPrefixMatchNode(ip, maxPrefixLength, predicate);
+        if (match != null) {
+          return match;
+        }
+      }
+      return !_elements.isEmpty() && predicate.test(_elements) ? this : null;
+    }
+
     @Nullable
-    Node<T> matchingChild(Ip ip, int prefixLength) {
-      if (_prefix.getPrefixLength() == Prefix.MAX_PREFIX_LENGTH) {
+    Node<T> matchingChild(int ip, int prefixLength) {
+      if (_prefixLength == Prefix.MAX_PREFIX_LENGTH) {
         return null;
       }
-      Node<T> child = ip.getBitAtPosition(_prefix.getPrefixLength()) ? _right : _left;
-      return child == null || !child._prefix.containsPrefix(ip, prefixLength) ? null : child;
+      Node<T> child = bitAtPosition(ip, _prefixLength) ? _right : _left;
+      return child == null || !child.containsPrefix(ip, prefixLength) ? null : child;
     }
 
     private void setLeft(@Nullable Node<T> left) {
@@ -367,8 +407,8 @@ public final class PrefixTrieMultiMap<T> implements Serializable {
 
   private @Nullable Node<T> exactMatchNode(Prefix p) {
     int prefixLength = p.getPrefixLength();
-    Node<T> node = longestMatchNode(p.getStartIp(), prefixLength);
-    return node == null || node._prefix.getPrefixLength() != prefixLength ? null : node;
+    Node<T> node = longestMatchNode(toInt(p.getStartIp()), prefixLength);
+    return node == null || node._prefixLength != prefixLength ? null : node;
   }
 
   @Override
@@ -415,8 +455,8 @@ public final class PrefixTrieMultiMap<T> implements Serializable {
     return Objects.hashCode(_root);
   }
 
-  private @Nullable Node<T> longestMatchNode(Ip ip, int maxPrefixLength) {
-    return _root == null || !_root._prefix.containsPrefix(ip, maxPrefixLength)
+  private @Nullable Node<T> longestMatchNode(int ip, int maxPrefixLength) {
+    return _root == null || !_root.containsPrefix(ip, maxPrefixLength)
         ? null
         : _root.findLongestPrefixMatchNode(ip, maxPrefixLength);
   }
@@ -425,8 +465,8 @@ public final class PrefixTrieMultiMap<T> implements Serializable {
    * Returns the node that contains the given {@link Ip} with the longest prefix, up to {@code
    * prefixLength}.
    */
-  private @Nullable Node<T> longestMatchNonEmptyNode(Ip ip, int maxPrefixLength) {
-    return _root == null || !_root._prefix.containsPrefix(ip, maxPrefixLength)
+  private @Nullable Node<T> longestMatchNonEmptyNode(int ip, int maxPrefixLength) {
+    return _root == null || !_root.containsPrefix(ip, maxPrefixLength)
         ? null
         : _root.findLongestPrefixMatchNonEmptyNode(ip, maxPrefixLength);
   }
@@ -441,11 +481,28 @@ public final class PrefixTrieMultiMap<T> implements Serializable {
    * given maximum length.
    */
   public @Nonnull Set<T> longestPrefixMatch(Ip address, int maxPrefixLength) {
-    Node<T> node = longestMatchNonEmptyNode(address, maxPrefixLength);
+    Node<T> node = longestMatchNonEmptyNode(toInt(address), maxPrefixLength);
     assert node == null || !node._elements.isEmpty();
     return node == null ? ImmutableSet.of() : node._elements;
   }
 
+  /**
+   * Find the elements associated with the longest matching prefix of a given IP address, up to the
+   * given maximum length, considering only prefixes whose elements satisfy {@code predicate}.
+   *
+   * <p>Equivalent to calling {@link #longestPrefixMatch(Ip, int)} with decreasing maximum lengths
+   * until the result satisfies {@code predicate}, but walks the trie only once.
+   */
+  public @Nonnull Set<T> longestPrefixMatch(
+      Ip address, int maxPrefixLength, Predicate<? super Set<T>> predicate) {
+    int ip = toInt(address);
+    Node<T> node =
+        _root == null || !_root.containsPrefix(ip, maxPrefixLength)
+            ? null
+            : _root.findLongestPrefixMatchNode(ip, maxPrefixLength, predicate);
+    return node == null ? ImmutableSet.of() : node._elements;
+  }
+
   /**
    * Return all values whose keys intersect with the input {@link RangeSet}. Values are returned as
    * a {@link Stream} in post-order, so if prefix p1 contains p2, values for p2 will be returned
@@ -473,7 +530,7 @@ public final class PrefixTrieMultiMap<T> implements Serializable {
    * @return whether the multimap was modified.
    */
   public boolean putAll(Prefix p, Collection<T> elements) {
-    if (_root == null || !_root._prefix.containsPrefix(p)) {
+    if (_root == null || !_root.containsPrefix(toInt(p.getStartIp()), p.getPrefixLength())) {
       _root = combine(new Node<T>(p, elements), _root);
       return true;
     }
@@ -520,7 +577,10 @@ public final class PrefixTrieMultiMap<T> implements Serializable {
    * @return whether the multimap was modified
    */
   public boolean replaceAll(Prefix p, T e) {
-    Node<T> node = _root == null || !_root._prefix.containsPrefix(p) ? null : exactMatchNode(p);
+    Node<T> node =
+        _root == null || !_root.containsPrefix(toInt(p.getStartIp()), p.getPrefixLength())
+            ? null
+            : exactMatchNode(p);
     if (node == null) {
       return put(p, e);
     }
@@ -0,0 +1,514 @@
+package org.batfish.datamodel.acl;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.datamodel.AclLine;
+import org.batfish.datamodel.EmptyIpSpace;
+import org.batfish.datamodel.ExprAclLine;
+import org.batfish.datamodel.FilterResult;
+import org.batfish.datamodel.Flow;
+import org.batfish.datamodel.HeaderSpace;
+import org.batfish.datamodel.IpAccessList;
+import org.batfish.datamodel.IpIpSpace;
+import org.batfish.datamodel.IpProtocol;
+import org.batfish.datamodel.IpSpace;
+import org.batfish.datamodel.IpWildcard;
+import org.batfish.datamodel.IpWildcardIpSpace;
+import org.batfish.datamodel.IpWildcardSetIpSpace;
+import org.batfish.datamodel.LineAction;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.PrefixIpSpace;
+
+/**
+ * An {@link IpAccessList} indexed for evaluation on many concrete flows.
+ *
+ * <p>Each line is indexed by the destination prefixes outside of which it cannot match, when they
+ * can be read off its match condition. Lines that cannot be indexed by destination prefix are
+ * instead indexed by the IP protocols outside of which they cannot match, when known. A flow is
+ * evaluated in line order against only the lines indexed by prefixes containing its destination
+ * IP, the lines indexed by its IP protocol, and the lines that could not be indexed, so the result
+ * is the same as {@link IpAccessList#filter(Flow, String, Map, Map)}.
+ */
+@ParametersAreNonnullByDefault
+public final class IndexedAcl {
+
+  /** ACLs with fewer lines are evaluated directly, since indexing would not pay off. */
+  @VisibleForTesting static final int MIN_LINES_TO_INDEX = 16;
+
+  /** IP protocol numbers are in {@code [0, NUM_IP_PROTOCOLS)}. */
+  private static final int NUM_IP_PROTOCOLS = 256;
+
+  /**
+   * The most lists of candidate lines for a flow: one for each destination prefix length, plus the
+   * lines indexed by IP protocol.
+   */
+  private static final int MAX_CANDIDATES = Prefix.MAX_PREFIX_LENGTH + 2;
+
+  /**
+   * Indexes by ACL. Weak keys, so indexes live as long as the ACL (i.e., the configurations of a
+   * snapshot) and keys are compared by identity rather than by their expensive deep equality.
+   */
+  private static final LoadingCache<IpAccessList, IndexedAcl> INDEXES =
+      CacheBuilder.newBuilder().weakKeys().build(CacheLoader.from(IndexedAcl::new));
+
+  /** State for merging candidate lines, reused by all evaluations on a thread. */
+  private static final ThreadLocal<MergeState> MERGE_STATE =
+      ThreadLocal.withInitial(MergeState::new);
+
+  /**
+   * Returns the same result as {@link IpAccessList#filter(Flow, String, Map, Map)}, using an index
+   * of {@code acl} that is built once and reused by later calls.
+   */
+  public static @Nonnull FilterResult filter(
+      IpAccessList acl,
+      Flow flow,
+      @Nullable String srcInterface,
+      Map<String, IpAccessList> availableAcls,
+      Map<String, IpSpace> namedIpSpaces) {
+    if (acl.getLines().size() < MIN_LINES_TO_INDEX) {
+      return acl.filter(flow, srcInterface, availableAcls, namedIpSpaces);
+    }
+    return INDEXES.getUnchecked(acl).filter(flow, srcInterface, availableAcls, namedIpSpaces);
+  }
+
+  // Must not reference the ACL itself, which is a weak key of INDEXES
+  private final @Nonnull List<AclLine> _lines;
+
+  /**
+   * Indices of lines that could not be indexed by destination prefix, in increasing order, by IP
+   * protocol number. Each includes the lines that could not be indexed by IP protocol either.
+   */
+  private final @Nonnull int[][] _unindexedLinesByProtocol;
+
+  /** The lengths of destination prefixes with indexed lines, in increasing order */
+  private final @Nonnull int[] _dstPrefixLengths;
+
+  /** Networks of destination prefixes with indexed lines in increasing order, by prefix length */
+  private final @Nonnull long[][] _dstNetworks;
+
+  /** Indices of lines in increasing order, by prefix length and network of destination prefix */
+  private final @Nonnull int[][][] _linesByDstNetwork;
+
+  @VisibleForTesting
+  IndexedAcl(IpAccessList acl) {
+    _lines = acl.getLines();
+    List<Integer> unindexedLines = new ArrayList<>();
+    Map<Integer, List<Integer>> linesByProtocol = new HashMap<>();
+    SortedMap<Integer, SortedMap<Long, List<Integer>>> linesByDstPrefix = new TreeMap<>();
+    for (int i = 0; i < _lines.size(); i++) {
+      Set<Prefix> dstPrefixes = dstPrefixes(_lines.get(i));
+      if (dstPrefixes != null) {
+        for (Prefix prefix : dstPrefixes) {
+          linesByDstPrefix
+              .computeIfAbsent(prefix.getPrefixLength(), k -> new TreeMap<>())
+              .computeIfAbsent(
+                  network(prefix.getStartIp().asLong(), prefix.getPrefixLength()),
+                  k -> new ArrayList<>())
+              .add(i);
+        }
+        continue;
+      }
+      Set<IpProtocol> protocols = ipProtocols(_lines.get(i));
+      if (protocols == null) {
+        unindexedLines.add(i);
+        continue;
+      }
+      for (IpProtocol protocol : protocols) {
+        linesByProtocol.computeIfAbsent(protocol.number(), k -> new ArrayList<>()).add(i);
+      }
+    }
+
+    // Merge the lines that could not be indexed into the lines of each protocol up front
+    _unindexedLinesByProtocol = new int[NUM_IP_PROTOCOLS][];
+    Arrays.fill(_unindexedLinesByProtocol, toArray(unindexedLines));
+    linesByProtocol.forEach(
+        (protocol, lines) -> {
+          SortedSet<Integer> merged = new TreeSet<>(unindexedLines);
+          merged.addAll(lines);
+          _unindexedLinesByProtocol[protocol] = toArray(merged);
+        });
+
+    _dstPrefixLengths = new int[linesByDstPrefix.size()];
+    _dstNetworks = new long[linesByDstPrefix.size()][];
+    _linesByDstNetwork = new int[linesByDstPrefix.size()][][];
+    int i = 0;
+    for (Entry<Integer, SortedMap<Long, List<Integer>>> entry : linesByDstPrefix.entrySet()) {
+      _dstPrefixLengths[i] = entry.getKey();
+      _dstNetworks[i] = entry.getValue().keySet().stream().mapToLong(Long::longValue).toArray();
+      _linesByDstNetwork[i] =
+          entry.getValue().values().stream().map(IndexedAcl::toArray).toArray(int[][]::new);
+      i++;
+    }
+  }
+
+  /** Returns the same result as {@link IpAccessList#filter(Flow, String, Map, Map)}. */
+  public @Nonnull FilterResult filter(
+      Flow flow,
+      @Nullable String srcInterface,
+      Map<String, IpAccessList> availableAcls,
+      Map<String, IpSpace> namedIpSpaces) {
+    // Not reentrant: lines that reference other ACLs evaluate them with IpAccessList#filter
+    MergeState state = MERGE_STATE.get();
+    int[][] candidates = state._candidates;
+    int[] positions = state._positions;
+    int numCandidates = 0;
+    candidates[numCandidates++] = _unindexedLinesByProtocol[flow.getIpProtocol().number()];
+    long dstIp = flow.getDstIp().asLong();
+    for (int i = 0; i < _dstPrefixLengths.length; i++) {
+      int index = Arrays.binarySearch(_dstNetworks[i], network(dstIp, _dstPrefixLengths[i]));
+      if (index >= 0) {
+        candidates[numCandidates++] = _linesByDstNetwork[i][index];
+      }
+    }
+    Arrays.fill(positions, 0, numCandidates, 0);
+    try {
+      return filter(
+          candidates, positions, numCandidates, flow, srcInterface, availableAcls, namedIpSpaces);
+    } finally {
+      // Do not keep this index reachable from the thread
+      Arrays.fill(candidates, 0, numCandidates, null);
+    }
+  }
+
+  /** Merges the candidate lines in line order, evaluating each once until one matches. */
+  private @Nonnull FilterResult filter(
+      int[][] candidates,
+      int[] positions,
+      int numCandidates,
+      Flow flow,
+      @Nullable String srcInterface,
+      Map<String, IpAccessList> availableAcls,
+      Map<String, IpSpace> namedIpSpaces) {
+    AclLineEvaluator lineEvaluator = null;
+    int lastLine = -1;
+    while (true) {
+      int line = Integer.MAX_VALUE;
+      int from = -1;
+      for (int i = 0; i < numCandidates; i++) {
+        if (positions[i] < candidates[i].length && candidates[i][positions[i]] < line) {
+          line = candidates[i][positions[i]];
+          from = i;
+        }
+      }
+      if (from == -1) {
+        return new FilterResult(null, LineAction.DENY);
+      }
+      positions[from]++;
+      if (line == lastLine) {
+        // indexed by more than one prefix containing the destination IP
+        continue;
+      }
+      lastLine = line;
+      if (lineEvaluator == null) {
+        // not needed by flows without candidate lines
+        lineEvaluator = new AclLineEvaluator(flow, srcInterface, availableAcls, namedIpSpaces);
+      }
+      LineAction action = lineEvaluator.visit(_lines.get(line));
+      if (action != null) {
+        return new FilterResult(line, action);
+      }
+    }
+  }
+
+  /** The network of the destination prefix of the given length containing the given IP. */
+  private static long network(long ip, int prefixLength) {
+    return prefixLength == 0 ? 0L : ip >> (Prefix.MAX_PREFIX_LENGTH - prefixLength);
+  }
+
+  private static int[] toArray(Iterable<Integer> values) {
+    List<Integer> list = new ArrayList<>();
+    values.forEach(list::add);
+    int[] array = new int[list.size()];
+    for (int i = 0; i < array.length; i++) {
+      array[i] = list.get(i);
+    }
+    return array;
+  }
+
+  /** Lists of candidate lines for a flow and the position of the merge in each. */
+  private static final class MergeState {
+    private final int[][] _candidates = new int[MAX_CANDIDATES][];
+    private final int[] _positions = new int[MAX_CANDIDATES];
+  }
+
+  /**
+   * Returns IP protocols outside of which the line cannot match, or {@code null} if they are not
+   * known.
+   */
+  @VisibleForTesting
+  static @Nullable Set<IpProtocol> ipProtocols(AclLine line) {
+    if (!(line instanceof ExprAclLine)) {
+      // the referenced ACL may match anything
+      return null;
+    }
+    return IpProtocols.INSTANCE.visit(((ExprAclLine) line).getMatchCondition());
+  }
+
+  /**
+   * Returns destination prefixes outside of which the line cannot match, or {@code null} if they
+   * are not known.
+   */
+  @VisibleForTesting
+  static @Nullable Set<Prefix> dstPrefixes(AclLine line) {
+    if (!(line instanceof ExprAclLine)) {
+      // the referenced ACL may match anything
+      return null;
+    }
+    return DstPrefixes.INSTANCE.visit(((ExprAclLine) line).getMatchCondition());
+  }
+
+  /**
+   * Returns destination prefixes that cover the IP space, or {@code null} if they are not known.
+   */
+  private static @Nullable Set<Prefix> dstPrefixes(@Nullable IpSpace ipSpace) {
+    if (ipSpace instanceof EmptyIpSpace) {
+      return ImmutableSet.of();
+    } else if (ipSpace instanceof PrefixIpSpace) {
+      return ImmutableSet.of(((PrefixIpSpace) ipSpace).getPrefix());
+    } else if (ipSpace instanceof IpIpSpace) {
+      return ImmutableSet.of(
+          Prefix.create(((IpIpSpace) ipSpace).getIp(), Prefix.MAX_PREFIX_LENGTH));
+    } else if (ipSpace instanceof IpWildcardIpSpace) {
+      IpWildcard wildcard = ((IpWildcardIpSpace) ipSpace).getIpWildcard();
+      return wildcard.isPrefix() ? ImmutableSet.of(wildcard.toPrefix()) : null;
+    } else if (ipSpace instanceof IpWildcardSetIpSpace) {
+      // the blacklist only removes IPs, so the whitelist is enough
+      ImmutableSet.Builder<Prefix> prefixes = ImmutableSet.builder();
+      for (IpWildcard wildcard : ((IpWildcardSetIpSpace) ipSpace).getWhitelist()) {
+        if (!wildcard.isPrefix()) {
+          return null;
+        }
+        prefixes.add(wildcard.toPrefix());
+      }
+      return prefixes.build();
+    }
+    // includes references to named IP spaces, which are resolved per evaluation
+    return null;
+  }
+
+  /**
+   * Computes destination prefixes outside of which a match condition is false, or {@code null} if
+   * they are not known.
+   */
+  private static final class DstPrefixes implements GenericAclLineMatchExprVisitor<Set<Prefix>> {
+    private static final DstPrefixes INSTANCE = new DstPrefixes();
+
+    @Override
+    public @Nullable Set<Prefix> visitAndMatchExpr(AndMatchExpr andMatchExpr) {
+      // any conjunct's prefixes will do; use the fewest
+      Set<Prefix> best = null;
+      for (AclLineMatchExpr conjunct : andMatchExpr.getConjuncts()) {
+        Set<Prefix> prefixes = visit(conjunct);
+        if (prefixes != null && (best == null || prefixes.size() < best.size())) {
+          best = prefixes;
+        }
+      }
+      return best;
+    }
+
+    @Override
+    public @Nullable Set<Prefix> visitDeniedByAcl(DeniedByAcl deniedByAcl) {
+      return null;
+    }
+
+    @Override
+    public @Nullable Set<Prefix> visitFalseExpr(FalseExpr falseExpr) {
+      return ImmutableSet.of();
+    }
+
+    @Override
+    public @Nullable Set<Prefix> visitMatchDestinationIp(MatchDestinationIp matchDestinationIp) {
+      return dstPrefixes(matchDestinationIp.getIps());
+    }
+
+    @Override
+    public @Nullable Set<Prefix> visitMatchDestinationPort(
+        MatchDestinationPort matchDestinationPort) {
+      return null;
+    }
+
+    @Override
+    public @Nullable Set<Prefix> visitMatchHeaderSpace(MatchHeaderSpace matchHeaderSpace) {
+      HeaderSpace headerSpace = matchHeaderSpace.getHeaderspace();
+      return headerSpace.getNegate() ? null : dstPrefixes(headerSpace.getDstIps());
+    }
+
+    @Override
+    public @Nullable Set<Prefix> visitMatchIpProtocol(MatchIpProtocol matchIpProtocol) {
+      return null;
+    }
+
+    @Override
+    public @Nullable Set<Prefix> visitMatchSourceIp(MatchSourceIp matchSourceIp) {
+      return null;
+    }
+
+    @Override
+    public @Nullable Set<Prefix> visitMatchSourcePort(MatchSourcePort matchSourcePort) {
+      return null;
+    }
+
+    @Override
+    public @Nullable Set<Prefix> visitMatchSrcInterface(MatchSrcInterface matchSrcInterface) {
+      return null;
+    }
+
+    @Override
+    public @Nullable Set<Prefix> visitNotMatchExpr(NotMatchExpr notMatchExpr) {
+      return null;
+    }
+
+    @Override
+    public @Nullable Set<Prefix> visitOriginatingFromDevice(
+        OriginatingFromDevice originatingFromDevice) {
+      return null;
+    }
+
+    @Override
+    public @Nullable Set<Prefix> visitOrMatchExpr(OrMatchExpr orMatchExpr) {
+      ImmutableSet.Builder<Prefix> prefixes = ImmutableSet.builder();
+      for (AclLineMatchExpr disjunct : orMatchExpr.getDisjuncts()) {
+        Set<Prefix> disjunctPrefixes = visit(disjunct);
+        if (disjunctPrefixes == null) {
+          return null;
+        }
+        prefixes.addAll(disjunctPrefixes);
+      }
+      return prefixes.build();
+    }
+
+    @Override
+    public @Nullable Set<Prefix> visitPermittedByAcl(PermittedByAcl permittedByAcl) {
+      return null;
+    }
+
+    @Override
+    public @Nullable Set<Prefix> visitTrueExpr(TrueExpr trueExpr) {
+      return null;
+    }
+  }
+
+  /**
+   * Computes IP protocols outside of which a match condition is false, or {@code null} if they are
+   * not known.
+   */
+  private static final class IpProtocols
+      implements GenericAclLineMatchExprVisitor<Set<IpProtocol>> {
+    private static final IpProtocols INSTANCE = new IpProtocols();
+
+    @Override
+    public @Nullable Set<IpProtocol> visitAndMatchExpr(AndMatchExpr andMatchExpr) {
+      // any conjunct's protocols will do; use the fewest
+      Set<IpProtocol> best = null;
+      for (AclLineMatchExpr conjunct : andMatchExpr.getConjuncts()) {
+        Set<IpProtocol> protocols = visit(conjunct);
+        if (protocols != null && (best == null || protocols.size() < best.size())) {
+          best = protocols;
+        }
+      }
+      return best;
+    }
+
+    @Override
+    public @Nullable Set<IpProtocol> visitDeniedByAcl(DeniedByAcl deniedByAcl) {
+      return null;
+    }
+
+    @Override
+    public @Nullable Set<IpProtocol> visitFalseExpr(FalseExpr falseExpr) {
+      return ImmutableSet.of();
+    }
+
+    @Override
+    public @Nullable Set<IpProtocol> visitMatchDestinationIp(
+        MatchDestinationIp matchDestinationIp) {
+      return null;
+    }
+
+    @Override
+    public @Nullable Set<IpProtocol> visitMatchDestinationPort(
+        MatchDestinationPort matchDestinationPort) {
+      return null;
+    }
+
+    @Override
+    public @Nullable Set<IpProtocol> visitMatchHeaderSpace(MatchHeaderSpace matchHeaderSpace) {
+      HeaderSpace headerSpace = matchHeaderSpace.getHeaderspace();
+      // an empty set of protocols matches any protocol
+      return headerSpace.getNegate() || headerSpace.getIpProtocols().isEmpty()
+          ? null
+          : headerSpace.getIpProtocols();
+    }
+
+    @Override
+    public @Nullable Set<IpProtocol> visitMatchIpProtocol(MatchIpProtocol matchIpProtocol) {
+      return ImmutableSet.of(matchIpProtocol.getProtocol());
+    }
+
+    @Override
+    public @Nullable Set<IpProtocol> visitMatchSourceIp(MatchSourceIp matchSourceIp) {
+      return null;
+    }
+
+    @Override
+    public @Nullable Set<IpProtocol> visitMatchSourcePort(MatchSourcePort matchSourcePort) {
+      return null;
+    }
+
+    @Override
+    public @Nullable Set<IpProtocol> visitMatchSrcInterface(MatchSrcInterface matchSrcInterface) {
+      return null;
+    }
+
+    @Override
+    public @Nullable Set<IpProtocol> visitNotMatchExpr(NotMatchExpr notMatchExpr) {
+      return null;
+    }
+
+    @Override
+    public @Nullable Set<IpProtocol> visitOriginatingFromDevice(
+        OriginatingFromDevice originatingFromDevice) {
+      return null;
+    }
+
+    @Override
+    public @Nullable Set<IpProtocol> visitOrMatchExpr(OrMatchExpr orMatchExpr) {
+      ImmutableSet.Builder<IpProtocol> protocols = ImmutableSet.builder();
+      for (AclLineMatchExpr disjunct : orMatchExpr.getDisjuncts()) {
+        Set<IpProtocol> disjunctProtocols = visit(disjunct);
+        if (disjunctProtocols == null) {
+          return null;
+        }
+        protocols.addAll(disjunctProtocols);
+      }
+      return protocols.build();
+    }
+
+    @Override
+    public @Nullable Set<IpProtocol> visitPermittedByAcl(PermittedByAcl permittedByAcl) {
+      return null;
+    }
+
+    @Override
+    public @Nullable Set<IpProtocol> visitTrueExpr(TrueExpr trueExpr) {
+      return null;
+    }
+  }
+}
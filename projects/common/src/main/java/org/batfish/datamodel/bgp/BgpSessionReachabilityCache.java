@@ -0,0 +1,73 @@
+package org.batfish.datamodel.bgp;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.datamodel.BgpPeerConfigId;
+import org.batfish.datamodel.Ip;
+
+/**
+ * Memoizes whether BGP sessions can be established, across BGP topology computations on successive
+ * data planes (see {@link BgpTopologyUtils#initBgpTopology(Map, Map, boolean, boolean,
+ * org.batfish.common.plugin.TracerouteEngine, Map, org.batfish.common.topology.L3Adjacencies,
+ * BgpSessionReachabilityCache)}).
+ *
+ * <p>Each result records the nodes traversed by the traces it was computed from. The owner of the
+ * cache is responsible for {@link #invalidate(Set) invalidating} the results that depend on nodes
+ * whose forwarding behavior changed, or {@link #invalidateAll() all results} when the change is
+ * not confined to particular nodes.
+ */
+@ParametersAreNonnullByDefault
+public final class BgpSessionReachabilityCache {
+
+  /** Drops all results. */
+  public void invalidateAll() {
+    _results.clear();
+  }
+
+  /** Drops the results that depend on any of the given nodes. */
+  public void invalidate(Set<String> hostnames) {
+    if (hostnames.isEmpty()) {
+      return;
+    }
+    _results.values().removeIf(result -> !Collections.disjoint(result._nodes, hostnames));
+  }
+
+  /** The number of results. */
+  public int size() {
+    return _results.size();
+  }
+
+  @Nullable
+  Boolean get(Key key) {
+    Result result = _results.get(key);
+    return result == null ? null : result._establishable;
+  }
+
+  /**
+   * Records whether the session identified by {@code key} can be established, given the current
+   * forwarding behavior of {@code nodes}.
+   */
+  void put(Key key, boolean establishable, Set<String> nodes) {
+    _results.put(key, new Result(establishable, nodes));
+  }
+
+  /** A session initiated by an active peer from a local IP, to a listening peer. */
+  record Key(BgpPeerConfigId initiatorId, BgpPeerConfigId listenerId, Ip initiatorLocalIp) {}
+
+  private static final class Result {
+    private Result(boolean establishable, Set<String> nodes) {
+      _establishable = establishable;
+      _nodes = nodes;
+    }
+
+    private final boolean _establishable;
+    private final @Nonnull Set<String> _nodes;
+  }
+
+  private final @Nonnull Map<Key, Result> _results = new ConcurrentHashMap<>();
+}
@@ -3,6 +3,7 @@ package org.batfish.datamodel.bgp;
 import static com.google.common.base.Preconditions.checkArgument;
 
 import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
@@ -12,13 +13,16 @@ import com.google.common.collect.SetMultimap;
 import com.google.common.graph.MutableValueGraph;
 import com.google.common.graph.Network;
 import com.google.common.graph.ValueGraphBuilder;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -49,6 +53,7 @@ import org.batfish.datamodel.collections.NodeInterfacePair;
 import org.batfish.datamodel.flow.FirewallSessionTraceInfo;
 import org.batfish.datamodel.flow.Hop;
 import org.batfish.datamodel.flow.Trace;
+import org.batfish.datamodel.flow.TraceAndReverseFlow;
 
 /** Utility functions for computing BGP topology */
 public final class BgpTopologyUtils {
@@ -101,6 +106,31 @@ public final class BgpTopologyUtils {
       @Nullable TracerouteEngine tracerouteEngine,
       Map<String, Map<String, Fib>> fibs,
       L3Adjacencies l3Adjacencies) {
+    return initBgpTopology(
+        configurations,
+        ipVrfOwners,
+        keepInvalid,
+        checkReachability,
+        tracerouteEngine,
+        fibs,
+        l3Adjacencies,
+        null);
+  }
+
+  /**
+   * Compute the BGP topology, like {@link #initBgpTopology(Map, Map, boolean, boolean,
+   * TracerouteEngine, Map, L3Adjacencies)}, reusing the reachability checks memoized in {@code
+   * sessionCache} and recording new ones there.
+   */
+  public static @Nonnull BgpTopology initBgpTopology(
+      Map<String, Configuration> configurations,
+      Map<Ip, Map<String, Set<String>>> ipVrfOwners,
+      boolean keepInvalid,
+      boolean checkReachability,
+      @Nullable TracerouteEngine tracerouteEngine,
+      Map<String, Map<String, Fib>> fibs,
+      L3Adjacencies l3Adjacencies,
+      @Nullable BgpSessionReachabilityCache sessionCache) {
     checkArgument(
         !checkReachability || !keepInvalid,
         "Cannot check reachability while keeping invalid peers");
@@ -218,30 +248,44 @@ public final class BgpTopologyUtils {
     }
     SetMultimap<BgpPeerConfigId, Ip> localIps = localIpsBuilder.build();
 
-    // In parallel, test which sessions can be established, and collect the new edges into a list.
-    // Have to materialize so that adding the edges to the graph is done sequentially.
-    List<BgpEdge> newEdges =
+    // In parallel, find the sessions active peers may initiate. Passive ends of peerings cannot
+    // initiate a connection.
+    List<SessionCandidate> activeSessions =
         graph.nodes().parallelStream()
+            .filter(neighborId -> neighborId.getType() == BgpPeerConfigType.ACTIVE)
             .flatMap(
-                neighborId -> {
-                  return switch (neighborId.getType()) {
-                    case DYNAMIC ->
-                        // Passive end of the peering cannot initiate a connection
-                        Stream.of();
-                    case ACTIVE ->
-                        addActivePeerEdges(
-                            neighborId,
-                            networkConfigurations,
-                            ipVrfOwners,
-                            receivers,
-                            localIps.get(neighborId),
-                            checkReachability,
-                            tracerouteEngine);
-                    case UNNUMBERED ->
-                        addUnnumberedPeerEdges(
-                            neighborId, graph.nodes(), networkConfigurations, l3Adjacencies);
-                  };
-                })
+                neighborId ->
+                    activePeerSessionCandidates(
+                        neighborId,
+                        networkConfigurations,
+                        ipVrfOwners,
+                        receivers,
+                        localIps.get(neighborId)))
+            .collect(Collectors.toList());
+    if (checkReachability) {
+      assert tracerouteEngine != null; // checked above
+      activeSessions = establishableSessions(activeSessions, tracerouteEngine, sessionCache);
+    }
+
+    // Collect the new edges into a list. Have to materialize so that adding the edges to the graph
+    // is done sequentially.
+    List<BgpEdge> newEdges =
+        Stream.concat(
+                activeSessions.parallelStream()
+                    .flatMap(
+                        session ->
+                            addEdges(
+                                session._initiator,
+                                session._initiatorId,
+                                session._initiatorLocalIp,
+                                session._listenerId,
+                                networkConfigurations)),
+                graph.nodes().parallelStream()
+                    .filter(neighborId -> neighborId.getType() == BgpPeerConfigType.UNNUMBERED)
+                    .flatMap(
+                        neighborId ->
+                            addUnnumberedPeerEdges(
+                                neighborId, graph.nodes(), networkConfigurations, l3Adjacencies)))
             .collect(Collectors.toList());
     for (BgpEdge newEdge : newEdges) {
       graph.putEdgeValue(newEdge._source, newEdge._target, newEdge._sessionProps);
@@ -249,14 +293,16 @@ public final class BgpTopologyUtils {
     return new BgpTopology(graph);
   }
 
-  private static Stream<BgpEdge> addActivePeerEdges(
+  /**
+   * Returns the sessions that active peer {@code neighborId} may initiate with compatible
+   * listeners, without checking reachability.
+   */
+  private static Stream<SessionCandidate> activePeerSessionCandidates(
       BgpPeerConfigId neighborId,
       NetworkConfigurations nc,
       Map<Ip, Map<String, Set<String>>> ipOwners,
       Map<String, Multimap<String, BgpPeerConfigId>> receivers,
-      Set<Ip> potentialLocalIps,
-      boolean checkReachability,
-      TracerouteEngine tracerouteEngine) {
+      Set<Ip> potentialLocalIps) {
     BgpActivePeerConfig neighbor = nc.getBgpPointToPointPeerConfig(neighborId);
     if (neighbor == null
         || potentialLocalIps.isEmpty()
@@ -297,41 +343,60 @@ public final class BgpTopologyUtils {
                                         != null; // guaranteed by bgpCandidatePassesSanityChecks
                                     // Check if neighbor has any feasible local IPs compatible with
                                     // this candidate
-                                    Set<Ip> feasibleLocalIpsForPeeringWithCandidate =
-                                        getFeasibleLocalIps(potentialLocalIps, candidate);
-                                    if (feasibleLocalIpsForPeeringWithCandidate.isEmpty()) {
-                                      return Stream.of();
-                                    }
-                                    if (!checkReachability) {
-                                      return feasibleLocalIpsForPeeringWithCandidate.stream()
-                                          .flatMap(
-                                              ip ->
-                                                  addEdges(
-                                                      neighbor, neighborId, ip, candidateId, nc));
-                                    } else {
-                                      return feasibleLocalIpsForPeeringWithCandidate.stream()
-                                          .filter(
-                                              initiatorLocalIp ->
-                                                  canEstablishBgpSession(
-                                                      neighborId,
-                                                      candidateId,
-                                                      neighbor,
-                                                      candidate,
-                                                      initiatorLocalIp,
-                                                      tracerouteEngine))
-                                          .flatMap(
-                                              srcIp ->
-                                                  addEdges(
-                                                      neighbor,
-                                                      neighborId,
-                                                      srcIp,
-                                                      candidateId,
-                                                      nc));
-                                    }
+                                    return getFeasibleLocalIps(potentialLocalIps, candidate)
+                                        .stream()
+                                        .map(
+                                            localIp ->
+                                                new SessionCandidate(
+                                                    neighborId,
+                                                    candidateId,
+                                                    neighbor,
+                                                    candidate,
+                                                    localIp));
                                   }));
             });
   }
 
+  /** A session an active peer may initiate from a local IP, to a listening peer. */
+  private static final class SessionCandidate {
+    private final @Nonnull BgpPeerConfigId _initiatorId;
+    private final @Nonnull BgpPeerConfigId _listenerId;
+    private final @Nonnull BgpActivePeerConfig _initiator;
+    private final @Nonnull BgpPeerConfig _listener;
+    private final @Nonnull Ip _initiatorLocalIp;
+
+    private SessionCandidate(
+        @Nonnull BgpPeerConfigId initiatorId,
+        @Nonnull BgpPeerConfigId listenerId,
+        @Nonnull BgpActivePeerConfig initiator,
+        @Nonnull BgpPeerConfig listener,
+        @Nonnull Ip initiatorLocalIp) {
+      _initiatorId = initiatorId;
+      _listenerId = listenerId;
+      _initiator = initiator;
+      _listener = listener;
+      _initiatorLocalIp = initiatorLocalIp;
+    }
+
+    private @Nonnull BgpSessionReachabilityCache.Key getKey() {
+      return new BgpSessionReachabilityCache.Key(_initiatorId, _listenerId, _initiatorLocalIp);
+    }
+
+    /** The TCP SYN the initiator sends to open the session. */
+    private @Nonnull Flow getForwardFlow() {
+      return Flow.builder()
+          .setIpProtocol(IpProtocol.TCP)
+          .setTcpFlagsSyn(true)
+          .setIngressNode(_initiatorId.getHostname())
+          .setIngressVrf(_initiator.getSessionVrf().originVrf(_initiatorId.getVrfName()))
+          .setSrcIp(_initiatorLocalIp)
+          .setDstIp(_initiator.getPeerAddress())
+          .setSrcPort(NamedPort.EPHEMERAL_LOWEST.number())
+          .setDstPort(NamedPort.BGP.number())
+          .build();
+    }
+  }
+
   private static Stream<BgpEdge> addUnnumberedPeerEdges(
       BgpPeerConfigId neighborId,
       Set<BgpPeerConfigId> nodes,
@@ -594,88 +659,202 @@ public final class BgpTopologyUtils {
       @Nonnull Ip initiatorLocalIp,
       @Nonnull TracerouteEngine tracerouteEngine) {
     assert initiatorId.getType() == BgpPeerConfigType.ACTIVE;
-    Flow flowFromSrc =
-        Flow.builder()
-            .setIpProtocol(IpProtocol.TCP)
-            .setTcpFlagsSyn(true)
-            .setIngressNode(initiatorId.getHostname())
-            .setIngressVrf(initiator.getSessionVrf().originVrf(initiatorId.getVrfName()))
-            .setSrcIp(initiatorLocalIp)
-            .setDstIp(initiator.getPeerAddress())
-            .setSrcPort(NamedPort.EPHEMERAL_LOWEST.number())
-            .setDstPort(NamedPort.BGP.number())
-            .build();
-
-    TraceDag forwardTraceDag =
-        tracerouteEngine
-            .computeTraceDags(ImmutableSet.of(flowFromSrc), ImmutableSet.of(), false)
-            .get(flowFromSrc);
+    return !establishableSessions(
+            ImmutableList.of(
+                new SessionCandidate(
+                    initiatorId, listenerId, initiator, listener, initiatorLocalIp)),
+            tracerouteEngine,
+            null)
+        .isEmpty();
+  }
 
-    // TODO Session should be eBGP single-hop if either initiator or listener is eBGP single-hop
-    boolean bgpSingleHop =
-        BgpSessionProperties.getSessionType(initiator) == SessionType.EBGP_SINGLEHOP;
+  /**
+   * Returns the {@code candidates} that can be established (see {@link
+   * #canEstablishBgpSession(BgpPeerConfigId, BgpPeerConfigId, BgpActivePeerConfig, BgpPeerConfig,
+   * Ip, TracerouteEngine)}), in order.
+   *
+   * <p>Rather than tracing the flows of each session separately, traces the forward flows of all
+   * sessions in one batch, and then their reverse flows in one batch per set of firewall sessions.
+   * Results found in {@code cache} are reused, and new results are recorded there along with the
+   * nodes their traces traversed.
+   */
+  private static @Nonnull List<SessionCandidate> establishableSessions(
+      List<SessionCandidate> candidates,
+      TracerouteEngine tracerouteEngine,
+      @Nullable BgpSessionReachabilityCache cache) {
+    boolean[] establishable = new boolean[candidates.size()];
+    List<Integer> pending = new ArrayList<>();
+    for (int i = 0; i < candidates.size(); i++) {
+      Boolean cached = cache == null ? null : cache.get(candidates.get(i).getKey());
+      if (cached == null) {
+        pending.add(i);
+      } else {
+        establishable[i] = cached;
+      }
+    }
+
+    if (!pending.isEmpty()) {
+      // Forward flows, in one batch
+      Map<Flow, TraceDag> forwardTraceDags =
+          tracerouteEngine.computeTraceDags(
+              pending.stream()
+                  .map(i -> candidates.get(i).getForwardFlow())
+                  .collect(ImmutableSet.toImmutableSet()),
+              ImmutableSet.of(),
+              false);
+      List<SessionTraces> pendingTraces =
+          pending.parallelStream()
+              .map(i -> traceForward(candidates.get(i), forwardTraceDags))
+              .collect(Collectors.toList());
+
+      // Reverse flows, in one batch per set of firewall sessions
+      Map<Set<FirewallSessionTraceInfo>, Set<Flow>> reverseFlowsBySessions = new HashMap<>();
+      for (SessionTraces traces : pendingTraces) {
+        for (ReverseFlowAndFirewallSessions reverse : traces._reverseFlows) {
+          reverseFlowsBySessions
+              .computeIfAbsent(reverse.getFirewallSessions(), sessions -> new HashSet<>())
+              .add(reverse.getReverseFlow());
+        }
+      }
+      Map<Set<FirewallSessionTraceInfo>, Map<Flow, TraceDag>> reverseTraceDags = new HashMap<>();
+      reverseFlowsBySessions.forEach(
+          (sessions, flows) ->
+              reverseTraceDags.put(
+                  sessions, tracerouteEngine.computeTraceDags(flows, sessions, false)));
+
+      IntStream.range(0, pending.size())
+          .parallel()
+          .forEach(
+              j -> {
+                int i = pending.get(j);
+                SessionCandidate candidate = candidates.get(i);
+                SessionTraces traces = pendingTraces.get(j);
+                establishable[i] = traceReverse(candidate, traces, reverseTraceDags);
+                if (cache != null && traces._cacheable) {
+                  cache.put(
+                      candidate.getKey(), establishable[i], ImmutableSet.copyOf(traces._nodes));
+                }
+              });
+    }
+
+    return IntStream.range(0, candidates.size())
+        .filter(i -> establishable[i])
+        .mapToObj(candidates::get)
+        .collect(ImmutableList.toImmutableList());
+  }
+
+  /** The traces of a candidate session, and the nodes they traversed. */
+  private static final class SessionTraces {
+    /** Distinct reverse flows of forward traces the listener accepts, to be traced. */
+    private final @Nonnull List<ReverseFlowAndFirewallSessions> _reverseFlows = new ArrayList<>();
 
-    return forwardTraceDag
+    private final @Nonnull Set<String> _nodes = new HashSet<>();
+
+    /** Whether all relevant traces were examined, so the result may be memoized. */
+    private boolean _cacheable = true;
+
+    private void addNodes(TraceDag traceDag, Trace trace) {
+      if (traceDag.size() > TraceDag.TRACE_LIMIT) {
+        _cacheable = false;
+      }
+      trace.getHops().forEach(hop -> _nodes.add(hop.getNode().getName()));
+    }
+  }
+
+  private static @Nonnull SessionTraces traceForward(
+      SessionCandidate candidate, Map<Flow, TraceDag> forwardTraceDags) {
+    SessionTraces traces = new SessionTraces();
+    traces._nodes.add(candidate._initiatorId.getHostname());
+    traces._nodes.add(candidate._listenerId.getHostname());
+    TraceDag forwardTraceDag = forwardTraceDags.get(candidate.getForwardFlow());
+    // many traces can have the same reverse flow and firewall sessions. dedup
+    Set<ReverseFlowAndFirewallSessions> seen = new HashSet<>();
+    forwardTraceDag
         .getTraces()
-        .filter(
+        .forEach(
             traceAndReverseFlow -> {
-              Trace forwardTrace = traceAndReverseFlow.getTrace();
-              if (forwardTrace.getDisposition() != FlowDisposition.ACCEPTED) {
-                // The flow wasn't accepted, so BGP stack didn't get it.
-                return false;
-              }
-
-              // Make sure the listener will accept this TCP connection.
-              Flow reverseFlow = traceAndReverseFlow.getReverseFlow();
-              assert traceAndReverseFlow.getReverseFlow() != null; // success implies return flow
-              assert reverseFlow.getIngressVrf() != null; // accepted
-              if (!reverseFlow.getIngressNode().equals(listenerId.getHostname())
-                  || !listener
-                      .getSessionVrf()
-                      .acceptsIngressVrf(reverseFlow.getIngressVrf(), listenerId.getVrfName())) {
-                // This trace is success at the wrong device or in a VRF the listener won't accept.
-                return false;
-              } else if (listener.getCheckLocalIpOnAccept() && listener.getLocalIp() != null) {
-                // The destination IP must match the listener's local IP, otherwise the listener
-                // will reject the connection.
-                //
-                // The src IP on the reverse flow is the actual destination IP (post any NAT)
-                // used in the forward flow. Looking at IPs as seen by listener is most
-                // accurate way to check this.
-                if (!listener.getLocalIp().equals(reverseFlow.getSrcIp())) {
-                  return false;
+              traces.addNodes(forwardTraceDag, traceAndReverseFlow.getTrace());
+              if (listenerAccepts(candidate, traceAndReverseFlow)) {
+                ReverseFlowAndFirewallSessions reverse =
+                    new ReverseFlowAndFirewallSessions(
+                        traceAndReverseFlow.getReverseFlow(),
+                        traceAndReverseFlow.getNewFirewallSessions());
+                if (seen.add(reverse)) {
+                  traces._reverseFlows.add(reverse);
                 }
               }
+            });
+    return traces;
+  }
+
+  /** Whether the forward trace reaches the listener, and the listener accepts the connection. */
+  private static boolean listenerAccepts(
+      SessionCandidate candidate, TraceAndReverseFlow traceAndReverseFlow) {
+    Trace forwardTrace = traceAndReverseFlow.getTrace();
+    if (forwardTrace.getDisposition() != FlowDisposition.ACCEPTED) {
+      // The flow wasn't accepted, so BGP stack didn't get it.
+      return false;
+    }
+
+    // Make sure the listener will accept this TCP connection.
+    BgpPeerConfig listener = candidate._listener;
+    Flow reverseFlow = traceAndReverseFlow.getReverseFlow();
+    assert reverseFlow != null; // success implies return flow
+    assert reverseFlow.getIngressVrf() != null; // accepted
+    if (!reverseFlow.getIngressNode().equals(candidate._listenerId.getHostname())
+        || !listener
+            .getSessionVrf()
+            .acceptsIngressVrf(reverseFlow.getIngressVrf(), candidate._listenerId.getVrfName())) {
+      // This trace is success at the wrong device or in a VRF the listener won't accept.
+      return false;
+    } else if (listener.getCheckLocalIpOnAccept() && listener.getLocalIp() != null) {
+      // The destination IP must match the listener's local IP, otherwise the listener
+      // will reject the connection.
+      //
+      // The src IP on the reverse flow is the actual destination IP (post any NAT)
+      // used in the forward flow. Looking at IPs as seen by listener is most
+      // accurate way to check this.
+      if (!listener.getLocalIp().equals(reverseFlow.getSrcIp())) {
+        return false;
+      }
+    }
 
-              // Check the path count in case of ebgp singlehop session.
-              return !bgpSingleHop || forwardTrace.getHops().size() <= 2;
-            })
-        // many traces can have the same reverse flow and firewall sessions. dedup
-        .map(
-            tarf ->
-                new ReverseFlowAndFirewallSessions(
-                    tarf.getReverseFlow(), tarf.getNewFirewallSessions()))
-        .distinct()
-        .anyMatch(
-            reverseFlowAndFirewallSessions ->
-                tracerouteEngine
-                    .computeTraceDags(
-                        ImmutableSet.of(reverseFlowAndFirewallSessions.getReverseFlow()),
-                        reverseFlowAndFirewallSessions.getFirewallSessions(),
-                        false)
-                    .get(reverseFlowAndFirewallSessions.getReverseFlow())
-                    .getTraces()
-                    .anyMatch(
-                        traceAndReverseFlow -> {
-                          Trace reverseTrace = traceAndReverseFlow.getTrace();
-                          List<Hop> hops = reverseTrace.getHops();
-                          return !hops.isEmpty()
-                              && hops.get(hops.size() - 1)
-                                  .getNode()
-                                  .getName()
-                                  .equals(initiatorId.getHostname())
-                              && reverseTrace.getDisposition() == FlowDisposition.ACCEPTED;
-                        }));
+    // TODO Session should be eBGP single-hop if either initiator or listener is eBGP single-hop
+    boolean bgpSingleHop =
+        BgpSessionProperties.getSessionType(candidate._initiator) == SessionType.EBGP_SINGLEHOP;
+
+    // Check the path count in case of ebgp singlehop session.
+    return !bgpSingleHop || forwardTrace.getHops().size() <= 2;
+  }
+
+  /** Whether any reverse flow of {@code traces} makes it back to the initiator. */
+  private static boolean traceReverse(
+      SessionCandidate candidate,
+      SessionTraces traces,
+      Map<Set<FirewallSessionTraceInfo>, Map<Flow, TraceDag>> reverseTraceDags) {
+    for (ReverseFlowAndFirewallSessions reverse : traces._reverseFlows) {
+      TraceDag reverseTraceDag =
+          reverseTraceDags.get(reverse.getFirewallSessions()).get(reverse.getReverseFlow());
+      boolean reachesInitiator =
+          reverseTraceDag
+              .getTraces()
+              .anyMatch(
+                  traceAndReverseFlow -> {
+                    Trace reverseTrace = traceAndReverseFlow.getTrace();
+                    traces.addNodes(reverseTraceDag, reverseTrace);
+                    List<Hop> hops = reverseTrace.getHops();
+                    return !hops.isEmpty()
+                        && hops.get(hops.size() - 1)
+                            .getNode()
+                            .getName()
+                            .equals(candidate._initiatorId.getHostname())
+                        && reverseTrace.getDisposition() == FlowDisposition.ACCEPTED;
+                  });
+      if (reachesInitiator) {
+        return true;
+      }
+    }
+    return false;
   }
 
   /** Returns the confederation members for the BGP process associated with the given peer. */
@@ -0,0 +1,342 @@
+package org.batfish.datamodel.routing_policy;
+
+import java.util.List;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.RouteFilterList;
+import org.batfish.datamodel.routing_policy.communities.CommunityContext;
+import org.batfish.datamodel.routing_policy.communities.CommunitySet;
+import org.batfish.datamodel.routing_policy.communities.CommunitySetExpr;
+import org.batfish.datamodel.routing_policy.communities.CommunitySetExprEvaluator;
+import org.batfish.datamodel.routing_policy.communities.CommunitySetMatchExpr;
+import org.batfish.datamodel.routing_policy.communities.MatchCommunities;
+import org.batfish.datamodel.routing_policy.expr.BooleanExpr;
+import org.batfish.datamodel.routing_policy.expr.BooleanExprs.StaticBooleanExpr;
+import org.batfish.datamodel.routing_policy.expr.CallExpr;
+import org.batfish.datamodel.routing_policy.expr.Conjunction;
+import org.batfish.datamodel.routing_policy.expr.Disjunction;
+import org.batfish.datamodel.routing_policy.expr.MatchPrefixSet;
+import org.batfish.datamodel.routing_policy.expr.NamedPrefixSet;
+import org.batfish.datamodel.routing_policy.expr.Not;
+import org.batfish.datamodel.routing_policy.expr.PrefixExpr;
+import org.batfish.datamodel.routing_policy.statement.CallStatement;
+import org.batfish.datamodel.routing_policy.statement.If;
+import org.batfish.datamodel.routing_policy.statement.Statement;
+import org.batfish.datamodel.routing_policy.statement.Statements.StaticStatement;
+import org.batfish.datamodel.routing_policy.statement.TraceableStatement;
+import org.batfish.datamodel.trace.Tracer;
+
+/**
+ * A {@link RoutingPolicy} compiled into a tree of closures, for evaluating it many times.
+ *
+ * <p>Evaluation is equivalent to {@link RoutingPolicy#call(Environment)}. Compared to interpreting
+ * the statement tree, the compiled policy:
+ *
+ * <ul>
+ *   <li>dispatches on the type of each statement and expression once, at compile time;
+ *   <li>calls the compiled form of called policies, rather than interpreting them; and
+ *   <li>returns shared {@link Result} instances instead of allocating one per statement.
+ * </ul>
+ *
+ * <p>Like the interpreter, the compiled policy resolves called policies, named route filter lists,
+ * and named community set match expressions through the {@link Environment} of each call, so it
+ * observes changes to them. Statements and expressions without a specialized compilation are
+ * evaluated by the interpreter. The compiled policy does not observe later changes to the nested
+ * statements of {@link If} and {@link TraceableStatement} statements; see {@link
+ * RoutingPolicy#getCompiled()}.
+ */
+@ParametersAreNonnullByDefault
+public final class CompiledRoutingPolicy {
+
+  /** Compiles {@code policy}. */
+  public static @Nonnull CompiledRoutingPolicy compile(RoutingPolicy policy) {
+    return new CompiledRoutingPolicy(policy.getName(), compileStatements(policy.getStatements()));
+  }
+
+  /** Evaluates the policy in {@code environment}, like {@link RoutingPolicy#call(Environment)}. */
+  public @Nonnull Result call(Environment environment) {
+    for (CompiledStatement statement : _statements) {
+      Result result = statement.execute(environment);
+      if (result.getExit()) {
+        return result;
+      }
+      if (result.getReturn()) {
+        return withoutReturn(result);
+      }
+    }
+    return result(environment.getDefaultAction(), false, true, false);
+  }
+
+  /** The name of the compiled policy. */
+  public @Nonnull String getName() {
+    return _name;
+  }
+
+  @FunctionalInterface
+  private interface CompiledStatement {
+    @Nonnull
+    Result execute(Environment environment);
+  }
+
+  @FunctionalInterface
+  private interface CompiledBooleanExpr {
+    @Nonnull
+    Result evaluate(Environment environment);
+  }
+
+  /** All 16 possible {@link Result results}, indexed by {@link #index}. */
+  private static final Result[] RESULTS = new Result[16];
+
+  static {
+    for (int i = 0; i < RESULTS.length; i++) {
+      RESULTS[i] = new Result((i & 1) != 0, (i & 2) != 0, (i & 4) != 0, (i & 8) != 0);
+    }
+  }
+
+  private static final Result FALSE = result(false, false, false, false);
+  private static final Result TRUE = result(true, false, false, false);
+  private static final Result FALL_THROUGH = result(false, false, true, false);
+
+  private static int index(
+      boolean booleanValue, boolean exit, boolean fallThrough, boolean aReturn) {
+    return (booleanValue ? 1 : 0) | (exit ? 2 : 0) | (fallThrough ? 4 : 0) | (aReturn ? 8 : 0);
+  }
+
+  private static @Nonnull Result result(
+      boolean booleanValue, boolean exit, boolean fallThrough, boolean aReturn) {
+    return RESULTS[index(booleanValue, exit, fallThrough, aReturn)];
+  }
+
+  private static @Nonnull Result result(boolean booleanValue) {
+    return booleanValue ? TRUE : FALSE;
+  }
+
+  private static @Nonnull Result withoutReturn(Result result) {
+    return result(result.getBooleanValue(), result.getExit(), result.getFallThrough(), false);
+  }
+
+  /** Executes {@code statements} in order, like the body of an {@link If}. */
+  private static @Nonnull Result executeAll(
+      CompiledStatement[] statements, Environment environment) {
+    for (CompiledStatement statement : statements) {
+      Result result = statement.execute(environment);
+      if (result.getExit() || result.getReturn()) {
+        return result;
+      }
+    }
+    return FALL_THROUGH;
+  }
+
+  private static @Nonnull CompiledStatement[] compileStatements(
+      @Nullable List<Statement> statements) {
+    if (statements == null) {
+      return new CompiledStatement[0];
+    }
+    return statements.stream()
+        .map(CompiledRoutingPolicy::compileStatement)
+        .toArray(CompiledStatement[]::new);
+  }
+
+  private static @Nonnull CompiledStatement compileStatement(Statement statement) {
+    if (statement instanceof If) {
+      return compileIf((If) statement);
+    } else if (statement instanceof TraceableStatement) {
+      return compileTraceableStatement((TraceableStatement) statement);
+    } else if (statement instanceof CallStatement) {
+      return compileCallStatement((CallStatement) statement);
+    } else if (statement instanceof StaticStatement) {
+      return compileStaticStatement((StaticStatement) statement);
+    }
+    return statement::execute;
+  }
+
+  private static @Nonnull CompiledStatement compileIf(If ifStatement) {
+    CompiledBooleanExpr guard = compileBooleanExpr(ifStatement.getGuard());
+    CompiledStatement[] trueStatements = compileStatements(ifStatement.getTrueStatements());
+    CompiledStatement[] falseStatements = compileStatements(ifStatement.getFalseStatements());
+    return environment -> {
+      Result guardResult = guard.evaluate(environment);
+      if (guardResult.getExit()) {
+        return guardResult;
+      }
+      return executeAll(
+          guardResult.getBooleanValue() ? trueStatements : falseStatements, environment);
+    };
+  }
+
+  private static @Nonnull CompiledStatement compileTraceableStatement(
+      TraceableStatement statement) {
+    CompiledStatement[] innerStatements = compileStatements(statement.getInnerStatements());
+    return environment -> {
+      Tracer tracer = environment.getTracer();
+      if (tracer == null) {
+        return executeAll(innerStatements, environment);
+      }
+      tracer.newSubTrace();
+      tracer.setTraceElement(statement.getTraceElement());
+      try {
+        return executeAll(innerStatements, environment);
+      } finally {
+        tracer.endSubTrace();
+      }
+    };
+  }
+
+  private static @Nonnull CompiledStatement compileCallStatement(CallStatement statement) {
+    return environment -> {
+      RoutingPolicy callee =
+          environment.getRoutingPolicies().get(statement.getCalledPolicyName());
+      if (callee == null) {
+        // let the interpreter report the error
+        return statement.execute(environment);
+      }
+      boolean oldCallStatementContext = environment.getCallStatementContext();
+      environment.setCallStatementContext(true);
+      Result policyResult = callee.getCompiled().call(environment);
+      environment.setCallStatementContext(oldCallStatementContext);
+      return withoutReturn(policyResult);
+    };
+  }
+
+  private static @Nonnull CompiledStatement compileStaticStatement(StaticStatement statement) {
+    Result result =
+        switch (statement.getType()) {
+          case ExitAccept -> result(true, true, false, false);
+          case ExitReject -> result(false, true, false, false);
+          case FallThrough -> result(false, false, true, true);
+          case Return -> result(false, false, false, true);
+          case ReturnFalse -> result(false, false, false, true);
+          case ReturnTrue -> result(true, false, false, true);
+          default -> null;
+        };
+    return result == null ? statement::execute : environment -> result;
+  }
+
+  private static @Nonnull CompiledBooleanExpr compileBooleanExpr(BooleanExpr expr) {
+    if (expr instanceof Conjunction) {
+      return compileConjunction((Conjunction) expr);
+    } else if (expr instanceof Disjunction) {
+      return compileDisjunction((Disjunction) expr);
+    } else if (expr instanceof Not) {
+      return compileNot((Not) expr);
+    } else if (expr instanceof StaticBooleanExpr) {
+      return compileStaticBooleanExpr((StaticBooleanExpr) expr);
+    } else if (expr instanceof CallExpr) {
+      return compileCallExpr((CallExpr) expr);
+    } else if (expr instanceof MatchPrefixSet) {
+      return compileMatchPrefixSet((MatchPrefixSet) expr);
+    } else if (expr instanceof MatchCommunities) {
+      return compileMatchCommunities((MatchCommunities) expr);
+    }
+    return expr::evaluate;
+  }
+
+  private static @Nonnull CompiledBooleanExpr[] compileBooleanExprs(List<BooleanExpr> exprs) {
+    return exprs.stream()
+        .map(CompiledRoutingPolicy::compileBooleanExpr)
+        .toArray(CompiledBooleanExpr[]::new);
+  }
+
+  private static @Nonnull CompiledBooleanExpr compileConjunction(Conjunction conjunction) {
+    CompiledBooleanExpr[] conjuncts = compileBooleanExprs(conjunction.getConjuncts());
+    return environment -> {
+      for (CompiledBooleanExpr conjunct : conjuncts) {
+        Result conjunctResult = conjunct.evaluate(environment);
+        if (conjunctResult.getExit()) {
+          return conjunctResult;
+        } else if (!conjunctResult.getBooleanValue()) {
+          return withoutReturn(conjunctResult);
+        }
+      }
+      return TRUE;
+    };
+  }
+
+  private static @Nonnull CompiledBooleanExpr compileDisjunction(Disjunction disjunction) {
+    CompiledBooleanExpr[] disjuncts = compileBooleanExprs(disjunction.getDisjuncts());
+    return environment -> {
+      for (CompiledBooleanExpr disjunct : disjuncts) {
+        Result disjunctResult = disjunct.evaluate(environment);
+        if (disjunctResult.getExit()) {
+          return disjunctResult;
+        } else if (disjunctResult.getBooleanValue()) {
+          return withoutReturn(disjunctResult);
+        }
+      }
+      return FALSE;
+    };
+  }
+
+  private static @Nonnull CompiledBooleanExpr compileNot(Not not) {
+    CompiledBooleanExpr expr = compileBooleanExpr(not.getExpr());
+    return environment -> {
+      Result result = expr.evaluate(environment);
+      return result.getExit() ? result : result(!result.getBooleanValue());
+    };
+  }
+
+  private static @Nonnull CompiledBooleanExpr compileStaticBooleanExpr(StaticBooleanExpr expr) {
+    return switch (expr.getType()) {
+      case CallExprContext -> environment -> result(environment.getCallExprContext());
+      case CallStatementContext -> environment -> result(environment.getCallStatementContext());
+      case False -> environment -> FALSE;
+      case True -> environment -> TRUE;
+    };
+  }
+
+  private static @Nonnull CompiledBooleanExpr compileCallExpr(CallExpr expr) {
+    String calledPolicyName = expr.getCalledPolicyName();
+    return environment -> {
+      RoutingPolicy callee = environment.getRoutingPolicies().get(calledPolicyName);
+      if (callee == null) {
+        // let the interpreter report the error
+        return expr.evaluate(environment);
+      }
+      boolean oldCallExprContext = environment.getCallExprContext();
+      boolean oldLocalDefaultAction = environment.getLocalDefaultAction();
+      environment.setCallExprContext(true);
+      Result policyResult = callee.getCompiled().call(environment);
+      environment.setCallExprContext(oldCallExprContext);
+      environment.setLocalDefaultAction(oldLocalDefaultAction);
+      return withoutReturn(policyResult);
+    };
+  }
+
+  private static @Nonnull CompiledBooleanExpr compileMatchPrefixSet(MatchPrefixSet expr) {
+    if (!(expr.getPrefixSet() instanceof NamedPrefixSet)) {
+      return expr::evaluate;
+    }
+    String name = ((NamedPrefixSet) expr.getPrefixSet()).getName();
+    PrefixExpr prefixExpr = expr.getPrefix();
+    return environment -> {
+      RouteFilterList list = environment.getRouteFilterLists().get(name);
+      if (list == null) {
+        // let the interpreter report the error
+        return expr.evaluate(environment);
+      }
+      Prefix prefix = prefixExpr.evaluate(environment);
+      return prefix == null ? FALSE : result(list.permits(prefix));
+    };
+  }
+
+  private static @Nonnull CompiledBooleanExpr compileMatchCommunities(MatchCommunities expr) {
+    CommunitySetMatchExpr matchExpr = expr.getCommunitySetMatchExpr();
+    CommunitySetExpr communitySetExpr = expr.getCommunitySetExpr();
+    return environment -> {
+      CommunityContext ctx = CommunityContext.fromEnvironment(environment);
+      CommunitySet communitySet =
+          communitySetExpr.accept(CommunitySetExprEvaluator.instance(), ctx);
+      return result(matchExpr.accept(ctx.getCommunitySetMatchExprEvaluator(), communitySet));
+    };
+  }
+
+  private CompiledRoutingPolicy(String name, CompiledStatement[] statements) {
+    _name = name;
+    _statements = statements;
+  }
+
+  private final @Nonnull String _name;
+  private final @Nonnull CompiledStatement[] _statements;
+}
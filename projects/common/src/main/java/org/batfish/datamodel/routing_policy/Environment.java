@@ -78,6 +78,7 @@ public class Environment {
    */
   private final @Nullable BgpSessionProperties _bgpSessionProperties;
 
+  private boolean _bgpSessionPropertiesRead;
   private boolean _callExprContext;
   private boolean _callStatementContext;
   private final Map<String, CommunityMatchExpr> _communityMatchExprs;
@@ -177,9 +178,19 @@ public class Environment {
    * <em>to</em> the node processing the policy. (Note direction is unintuitive for route exports.)
    */
   public @Nullable BgpSessionProperties getBgpSessionProperties() {
+    _bgpSessionPropertiesRead = true;
     return _bgpSessionProperties;
   }
 
+  /**
+   * Whether the {@link #getBgpSessionProperties() BGP session properties} have been read, directly
+   * or through an accessor such as {@link #getRemoteIp()}. If not, evaluation so far did not depend
+   * on them.
+   */
+  public boolean getBgpSessionPropertiesRead() {
+    return _bgpSessionPropertiesRead;
+  }
+
   public @Nonnull Map<String, AsPathExpr> getAsPathExprs() {
     return _asPathExprs;
   }
@@ -249,7 +260,7 @@ public class Environment {
    * are no {@link BgpSessionProperties}.
    */
   public Optional<Long> getLocalAs() {
-    return Optional.ofNullable(_bgpSessionProperties).map(BgpSessionProperties::getLocalAs);
+    return Optional.ofNullable(getBgpSessionProperties()).map(BgpSessionProperties::getLocalAs);
   }
 
   /**
@@ -257,7 +268,7 @@ public class Environment {
    * are no {@link BgpSessionProperties}.
    */
   public Optional<Ip> getLocalIp() {
-    return Optional.ofNullable(_bgpSessionProperties).map(BgpSessionProperties::getLocalIp);
+    return Optional.ofNullable(getBgpSessionProperties()).map(BgpSessionProperties::getLocalIp);
   }
 
   /**
@@ -265,7 +276,7 @@ public class Environment {
    * there are no {@link BgpSessionProperties}.
    */
   public Optional<Long> getRemoteAs() {
-    return Optional.ofNullable(_bgpSessionProperties).map(BgpSessionProperties::getRemoteAs);
+    return Optional.ofNullable(getBgpSessionProperties()).map(BgpSessionProperties::getRemoteAs);
   }
 
   /**
@@ -273,7 +284,7 @@ public class Environment {
    * there are no {@link BgpSessionProperties}.
    */
   public Optional<Ip> getRemoteIp() {
-    return Optional.ofNullable(_bgpSessionProperties).map(BgpSessionProperties::getRemoteIp);
+    return Optional.ofNullable(getBgpSessionProperties()).map(BgpSessionProperties::getRemoteIp);
   }
 
   /** Whether the output route's tag has been explicitly set in the current routing policy */
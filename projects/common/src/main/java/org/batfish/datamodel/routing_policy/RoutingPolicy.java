@@ -13,6 +13,7 @@ import com.google.common.base.Predicates;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import java.io.Serializable;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -89,6 +90,7 @@ public class RoutingPolicy implements Serializable {
   private static final String PROP_NAME = "name";
   private static final String PROP_STATEMENTS = "statements";
 
+  private transient volatile @Nullable CompiledRoutingPolicy _compiled;
   private final @Nonnull String _name;
   private @Nullable Configuration _owner;
   private transient @Nullable Set<String> _sources;
@@ -186,10 +188,46 @@ public class RoutingPolicy implements Serializable {
     return _sources;
   }
 
-  /** Returns the list of routing-policy statements to execute */
+  /**
+   * Returns the list of routing-policy statements to execute. Modifying the list discards the
+   * {@link #getCompiled() compiled form} of this policy.
+   */
   @JsonProperty(PROP_STATEMENTS)
   public @Nonnull List<Statement> getStatements() {
-    return _statements;
+    return new StatementList();
+  }
+
+  /** A view of {@link #_statements} that discards {@link #_compiled} when modified. */
+  private final class StatementList extends AbstractList<Statement> {
+    @Override
+    public Statement get(int index) {
+      return _statements.get(index);
+    }
+
+    @Override
+    public int size() {
+      return _statements.size();
+    }
+
+    @Override
+    public Statement set(int index, Statement statement) {
+      Statement old = _statements.set(index, statement);
+      _compiled = null;
+      return old;
+    }
+
+    @Override
+    public void add(int index, Statement statement) {
+      _statements.add(index, statement);
+      _compiled = null;
+    }
+
+    @Override
+    public Statement remove(int index) {
+      Statement old = _statements.remove(index);
+      _compiled = null;
+      return old;
+    }
   }
 
   /**
@@ -285,6 +323,33 @@ public class RoutingPolicy implements Serializable {
         inputRoute, outputRoute, sessionProperties, null, direction, successfulTrack, null);
   }
 
+  /**
+   * The outcome of {@link #processBgpRouteWithDependencies processing} a route.
+   *
+   * @param accepted Whether the policy accepted the route
+   * @param readBgpSessionProperties Whether processing read the {@link BgpSessionProperties}. If
+   *     not, processing the same route with any other session properties has the same outcome,
+   *     including the changes to the output route.
+   */
+  public record BgpRouteProcessingOutcome(boolean accepted, boolean readBgpSessionProperties) {}
+
+  /**
+   * Process a given {@code inputRoute} through this BGP routing policy, like {@link
+   * #processBgpRoute}, and also report whether the outcome depends on {@code sessionProperties}.
+   */
+  public @Nonnull BgpRouteProcessingOutcome processBgpRouteWithDependencies(
+      AbstractRouteDecorator inputRoute,
+      BgpRoute.Builder<?, ?> outputRoute,
+      @Nullable BgpSessionProperties sessionProperties,
+      Direction direction,
+      @Nullable Predicate<String> successfulTrack) {
+    Environment environment =
+        buildEnvironment(
+            inputRoute, outputRoute, sessionProperties, null, direction, successfulTrack, null);
+    boolean accepted = accepted(getCompiled().call(environment), environment);
+    return new BgpRouteProcessingOutcome(accepted, environment.getBgpSessionPropertiesRead());
+  }
+
   private boolean process(
       AbstractRouteDecorator inputRoute,
       AbstractRouteBuilder<?, ?> outputRoute,
@@ -293,24 +358,63 @@ public class RoutingPolicy implements Serializable {
       Direction direction,
       @Nullable Predicate<String> successfulTrack,
       @Nullable Tracer tracer) {
-    checkState(_owner != null, "Cannot evaluate routing policy without a Configuration");
     Environment environment =
-        Environment.builder(_owner)
-            .setBgpSessionProperties(bgpSessionProperties)
-            .setOriginalRoute(inputRoute)
-            .setOutputRoute(outputRoute)
-            .setDirection(direction)
-            .setEigrpProcess(eigrpProcess)
-            .setSuccessfulTrack(successfulTrack)
-            .setTracer(tracer)
-            .build();
-    Result result = call(environment);
+        buildEnvironment(
+            inputRoute,
+            outputRoute,
+            bgpSessionProperties,
+            eigrpProcess,
+            direction,
+            successfulTrack,
+            tracer);
+    return accepted(getCompiled().call(environment), environment);
+  }
+
+  private @Nonnull Environment buildEnvironment(
+      AbstractRouteDecorator inputRoute,
+      AbstractRouteBuilder<?, ?> outputRoute,
+      @Nullable BgpSessionProperties bgpSessionProperties,
+      @Nullable EigrpProcess eigrpProcess,
+      Direction direction,
+      @Nullable Predicate<String> successfulTrack,
+      @Nullable Tracer tracer) {
+    checkState(_owner != null, "Cannot evaluate routing policy without a Configuration");
+    return Environment.builder(_owner)
+        .setBgpSessionProperties(bgpSessionProperties)
+        .setOriginalRoute(inputRoute)
+        .setOutputRoute(outputRoute)
+        .setDirection(direction)
+        .setEigrpProcess(eigrpProcess)
+        .setSuccessfulTrack(successfulTrack)
+        .setTracer(tracer)
+        .build();
+  }
+
+  private static boolean accepted(Result result, Environment environment) {
     return result.getBooleanValue() && !(Boolean.TRUE.equals(environment.getSuppressed()));
   }
 
+  /**
+   * Returns this policy compiled, compiling it on first use. Routes are processed by the compiled
+   * policy. Setting or modifying the {@link #getStatements() statements} of this policy discards
+   * the compiled form, but modifying the statements nested in them (e.g., the branches of an {@link
+   * org.batfish.datamodel.routing_policy.statement.If}) does not. Called policies and other named
+   * structures are resolved when the policy is evaluated.
+   */
+  @JsonIgnore
+  public @Nonnull CompiledRoutingPolicy getCompiled() {
+    CompiledRoutingPolicy compiled = _compiled;
+    if (compiled == null) {
+      compiled = CompiledRoutingPolicy.compile(this);
+      _compiled = compiled;
+    }
+    return compiled;
+  }
+
   @JsonProperty(PROP_STATEMENTS)
   public void setStatements(@Nullable List<Statement> statements) {
     _statements = firstNonNull(statements, ImmutableList.of());
+    _compiled = null;
   }
 
   public RoutingPolicy simplify() {
@@ -4,7 +4,7 @@ import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.google.common.annotations.VisibleForTesting;
 import javax.annotation.Nonnull;
-import org.batfish.common.util.PatternProvider;
+import org.batfish.common.util.DfaRegex;
 import org.batfish.datamodel.LineAction;
 import org.batfish.datamodel.bgp.community.Community;
 import org.batfish.datamodel.routing_policy.expr.IntMatchExprEvaluator;
@@ -98,12 +98,11 @@ public final class CommunitySetMatchExprEvaluator
           .maximumSize(1 << 20) // 1M instances that are each using maybe 40 bytes
           .build(
               k ->
-                  PatternProvider.fromString(k._regex.getRegex())
-                      .matcher(
+                  DfaRegex.fromString(k._regex.getRegex())
+                      .find(
                           k._regex
                               .getCommunitySetRendering()
-                              .accept(CommunitySetToRegexInputString.instance(), k._set))
-                      .find());
+                              .accept(CommunitySetToRegexInputString.instance(), k._set));
 
   @VisibleForTesting
   static final class RegexCacheKey {
@@ -0,0 +1,105 @@
+package org.batfish.storage;
+
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Ordering;
+import com.google.common.collect.Table;
+import java.io.Serializable;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.function.Function;
+import javax.annotation.Nonnull;
+import org.batfish.datamodel.DataPlane;
+
+/**
+ * Index of a stored {@link DataPlane}: the hostnames with a stored {@link PerHostDataPlane}, and
+ * for each per-node table, the VRFs with an entry. Lets a {@link LazyDataPlane} answer key queries
+ * without deserializing any {@link PerHostDataPlane}.
+ */
+final class DataPlaneIndex implements Serializable {
+  private final @Nonnull SortedSet<String> _hostnames;
+  private final @Nonnull SortedMap<String, SortedSet<String>> _bgpRoutes;
+  private final @Nonnull SortedMap<String, SortedSet<String>> _bgpBackupRoutes;
+  private final @Nonnull SortedMap<String, SortedSet<String>> _evpnRoutes;
+  private final @Nonnull SortedMap<String, SortedSet<String>> _evpnBackupRoutes;
+  private final @Nonnull SortedMap<String, SortedSet<String>> _layer2Vnis;
+  private final @Nonnull SortedMap<String, SortedSet<String>> _layer3Vnis;
+  private final @Nonnull SortedMap<String, SortedSet<String>> _ribs;
+
+  /** Create the index of {@code dataPlane}, as stored one file per node in its FIBs. */
+  static @Nonnull DataPlaneIndex of(DataPlane dataPlane) {
+    Set<String> hostnames = dataPlane.getFibs().keySet();
+    return new DataPlaneIndex(
+        ImmutableSortedSet.copyOf(hostnames),
+        columnKeysByRow(hostnames, dataPlane.getBgpRoutes()),
+        columnKeysByRow(hostnames, dataPlane.getBgpBackupRoutes()),
+        columnKeysByRow(hostnames, dataPlane.getEvpnRoutes()),
+        columnKeysByRow(hostnames, dataPlane.getEvpnBackupRoutes()),
+        columnKeysByRow(hostnames, dataPlane.getLayer2Vnis()),
+        columnKeysByRow(hostnames, dataPlane.getLayer3Vnis()),
+        columnKeysByRow(hostnames, dataPlane.getRibs()));
+  }
+
+  private static @Nonnull SortedMap<String, SortedSet<String>> columnKeysByRow(
+      Set<String> hostnames, Table<String, String, ?> table) {
+    return hostnames.stream()
+        .filter(table::containsRow)
+        .collect(
+            ImmutableSortedMap.<String, String, SortedSet<String>>toImmutableSortedMap(
+                Ordering.natural(),
+                Function.identity(),
+                hostname -> ImmutableSortedSet.copyOf(table.row(hostname).keySet())));
+  }
+
+  private DataPlaneIndex(
+      SortedSet<String> hostnames,
+      SortedMap<String, SortedSet<String>> bgpRoutes,
+      SortedMap<String, SortedSet<String>> bgpBackupRoutes,
+      SortedMap<String, SortedSet<String>> evpnRoutes,
+      SortedMap<String, SortedSet<String>> evpnBackupRoutes,
+      SortedMap<String, SortedSet<String>> layer2Vnis,
+      SortedMap<String, SortedSet<String>> layer3Vnis,
+      SortedMap<String, SortedSet<String>> ribs) {
+    _hostnames = hostnames;
+    _bgpRoutes = bgpRoutes;
+    _bgpBackupRoutes = bgpBackupRoutes;
+    _evpnRoutes = evpnRoutes;
+    _evpnBackupRoutes = evpnBackupRoutes;
+    _layer2Vnis = layer2Vnis;
+    _layer3Vnis = layer3Vnis;
+    _ribs = ribs;
+  }
+
+  public @Nonnull SortedSet<String> getHostnames() {
+    return _hostnames;
+  }
+
+  public @Nonnull SortedMap<String, SortedSet<String>> getBgpRoutes() {
+    return _bgpRoutes;
+  }
+
+  public @Nonnull SortedMap<String, SortedSet<String>> getBgpBackupRoutes() {
+    return _bgpBackupRoutes;
+  }
+
+  public @Nonnull SortedMap<String, SortedSet<String>> getEvpnRoutes() {
+    return _evpnRoutes;
+  }
+
+  public @Nonnull SortedMap<String, SortedSet<String>> getEvpnBackupRoutes() {
+    return _evpnBackupRoutes;
+  }
+
+  public @Nonnull SortedMap<String, SortedSet<String>> getLayer2Vnis() {
+    return _layer2Vnis;
+  }
+
+  public @Nonnull SortedMap<String, SortedSet<String>> getLayer3Vnis() {
+    return _layer3Vnis;
+  }
+
+  public @Nonnull SortedMap<String, SortedSet<String>> getRibs() {
+    return _ribs;
+  }
+}
@@ -5,8 +5,6 @@ import static com.google.common.collect.Streams.stream;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.batfish.common.BfConsts.RELPATH_INPUT;
 import static org.batfish.common.BfConsts.RELPATH_ISP_CONFIG_FILE;
-import static org.batfish.common.plugin.PluginConsumer.DEFAULT_HEADER_LENGTH_BYTES;
-import static org.batfish.common.plugin.PluginConsumer.detectFormat;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.google.common.annotations.VisibleForTesting;
@@ -17,8 +15,11 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.Sets;
 import com.google.common.collect.Streams;
-import com.google.common.io.Closer;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingOutputStream;
 import com.google.common.io.MoreFiles;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import com.google.errorprone.annotations.MustBeClosed;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -26,9 +27,7 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.ObjectOutputStream;
 import java.io.OutputStream;
-import java.io.PushbackInputStream;
 import java.io.Serializable;
 import java.io.UncheckedIOException;
 import java.nio.charset.Charset;
@@ -52,19 +51,16 @@ import java.util.Set;
 import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
-import java.util.zip.GZIPInputStream;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
-import net.jpountz.lz4.LZ4FrameInputStream;
-import net.jpountz.lz4.LZ4FrameOutputStream;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
-import org.apache.commons.lang3.SerializationUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.batfish.common.BatfishException;
@@ -72,7 +68,6 @@ import org.batfish.common.BatfishLogger;
 import org.batfish.common.BfConsts;
 import org.batfish.common.CompletionMetadata;
 import org.batfish.common.NetworkSnapshot;
-import org.batfish.common.plugin.PluginConsumer.Format;
 import org.batfish.common.runtime.SnapshotRuntimeData;
 import org.batfish.common.topology.L3Adjacencies;
 import org.batfish.common.topology.Layer1Topology;
@@ -83,6 +78,7 @@ import org.batfish.datamodel.DataPlane;
 import org.batfish.datamodel.ForwardingAnalysis;
 import org.batfish.datamodel.SnapshotMetadata;
 import org.batfish.datamodel.Topology;
+import org.batfish.datamodel.answers.Answer;
 import org.batfish.datamodel.answers.AnswerMetadata;
 import org.batfish.datamodel.answers.ConvertConfigurationAnswerElement;
 import org.batfish.datamodel.answers.ParseEnvironmentBgpTablesAnswerElement;
@@ -135,6 +131,7 @@ public class FileBasedStorage implements StorageProvider {
   private static final String RELPATH_ENV_TOPOLOGY_FILE = "env_topology";
   private static final String RELPATH_CONVERSION_CONTEXT = "conversion_context";
   private static final String RELPATH_CONVERT_ANSWER_PATH = "convert_answer";
+  private static final String RELPATH_CONFIGURATION_HASHES = "configuration_hashes.json";
   private static final String RELPATH_ANSWERS_DIR = "answers";
   private static final String RELPATH_ANSWER_METADATA = "answer_metadata.json";
   private static final String RELPATH_ANSWER_JSON = "answer.json";
@@ -142,6 +139,7 @@ public class FileBasedStorage implements StorageProvider {
   private static final String RELPATH_SNAPSHOT_ZIP_FILE = "snapshot.zip";
   private static final String RELPATH_DATA_PLANE = "dp";
   private static final String RELPATH_DATA_PLANE_FORWARDING_ANALYSIS = "forwarding_analysis";
+  private static final String RELPATH_DATA_PLANE_INDEX = "index";
   private static final String RELPATH_SERIALIZED_ENVIRONMENT_BGP_TABLES = "bgp_processed";
   private static final String RELPATH_ENVIRONMENT_BGP_TABLES_ANSWER = "bgp_answer";
   private static final String RELPATH_PARSE_ANSWER_PATH = "parse_answer";
@@ -150,6 +148,9 @@ public class FileBasedStorage implements StorageProvider {
   private static final String RELPATH_SNAPSHOTS_DIR = "snapshots";
   private static final String RELPATH_OUTPUT = "output";
 
+  /** Serializers used for objects stored in binary form; see {@link StorageSerializer}. */
+  private static final StorageSerializers SERIALIZERS = StorageSerializers.load();
+
   private final BatfishLogger _logger;
   private final BiFunction<String, Integer, AtomicInteger> _newBatch;
   private final Path _baseDir;
@@ -468,7 +469,25 @@ public class FileBasedStorage implements StorageProvider {
             "Serializing %s vendor-independent configuration structures for snapshot %s",
             configurations.size(), snapshot);
 
-    storeConfigurations(outputDir, batchName, configurations);
+    Map<String, String> hashes = storeConfigurations(outputDir, batchName, configurations);
+    writeJsonFile(getConfigurationHashesPath(network, snapshot), ImmutableSortedMap.copyOf(hashes));
+  }
+
+  @Override
+  public @Nonnull Optional<Map<String, String>> loadConfigurationHashes(NetworkSnapshot snapshot)
+      throws IOException {
+    Path hashesPath = getConfigurationHashesPath(snapshot.getNetwork(), snapshot.getSnapshot());
+    // not recorded by older versions
+    if (!Files.exists(hashesPath)) {
+      return Optional.empty();
+    }
+    return Optional.of(
+        BatfishObjectMapper.mapper()
+            .readValue(hashesPath.toFile(), new TypeReference<SortedMap<String, String>>() {}));
+  }
+
+  private @Nonnull Path getConfigurationHashesPath(NetworkId network, SnapshotId snapshot) {
+    return getSnapshotOutputDir(network, snapshot).resolve(RELPATH_CONFIGURATION_HASHES);
   }
 
   @Override
@@ -493,7 +512,8 @@ public class FileBasedStorage implements StorageProvider {
     return getSnapshotOutputDir(network, snapshot).resolve(RELPATH_SYNTHESIZED_LAYER1_TOPOLOGY);
   }
 
-  private void storeConfigurations(
+  /** Stores the given configurations, and returns the hash of each stored configuration. */
+  private @Nonnull Map<String, String> storeConfigurations(
       Path outputDir, String batchName, Map<String, Configuration> configurations)
       throws IOException {
     _logger.infof("\n*** %s***\n", batchName.toUpperCase());
@@ -503,13 +523,15 @@ public class FileBasedStorage implements StorageProvider {
     deleteDirectory(outputDir);
     mkdirs(outputDir);
 
+    Map<String, String> hashes = new ConcurrentHashMap<>();
     configurations.entrySet().parallelStream()
         .forEach(
             e -> {
               Path currentOutputPath = outputDir.resolve(e.getKey());
-              serializeObject(e.getValue(), currentOutputPath);
+              hashes.put(e.getKey(), serializeObject(e.getValue(), currentOutputPath).toString());
               progressCount.incrementAndGet();
             });
+    return hashes;
   }
 
   @Override
@@ -521,6 +543,12 @@ public class FileBasedStorage implements StorageProvider {
     writeStringToFile(answerPath, answerStr, UTF_8);
   }
 
+  @Override
+  public void storeAnswer(NetworkId network, SnapshotId snapshot, Answer answer, AnswerId answerId)
+      throws IOException {
+    writeJsonFile(getAnswerPath(network, snapshot, answerId), answer);
+  }
+
   @Override
   public void storeAnswerMetadata(
       NetworkId networkId, SnapshotId snapshotId, AnswerMetadata answerMetadata, AnswerId answerId)
@@ -530,27 +558,13 @@ public class FileBasedStorage implements StorageProvider {
     writeJsonFile(answerMetadataPath, answerMetadata);
   }
 
-  @SuppressWarnings("PMD.CloseResource") // PMD does not understand Closer
   private <S extends Serializable> S deserializeObjectUnchecked(Path inputFile)
       throws BatfishException {
     Path sanitizedInputFile = validatePath(inputFile);
-    try (Closer closer = Closer.create()) {
-      FileInputStream fis = closer.register(new FileInputStream(sanitizedInputFile.toFile()));
-      PushbackInputStream pbstream =
-          closer.register(new PushbackInputStream(fis, DEFAULT_HEADER_LENGTH_BYTES));
-      Format f = detectFormat(pbstream);
-      InputStream ois;
-      if (f == Format.GZIP) {
-        ois = closer.register(new GZIPInputStream(pbstream, 8192 /* enlarge buffer */));
-      } else if (f == Format.LZ4) {
-        ois = closer.register(new LZ4FrameInputStream(pbstream));
-      } else if (f == Format.JAVA_SERIALIZED) {
-        ois = pbstream;
-      } else {
-        throw new BatfishException(
-            String.format("Could not detect format of the file %s", sanitizedInputFile));
-      }
-      return SerializationUtils.deserialize(ois);
+    try (InputStream in = Files.newInputStream(sanitizedInputFile)) {
+      @SuppressWarnings("unchecked")
+      S output = (S) SERIALIZERS.deserialize(in);
+      return output;
     } catch (Exception e) {
       throw new BatfishException(
           String.format("Failed to deserialize object from file %s", sanitizedInputFile), e);
@@ -604,24 +618,29 @@ public class FileBasedStorage implements StorageProvider {
 
   /**
    * Writes a single object of the given class to the given file. Uses the {@link FileBasedStorage}
-   * default file encoding including serialization format and compression.
+   * default file encoding including serialization format and compression. Returns a hash of the
+   * written file.
    */
   @VisibleForTesting
-  void serializeObject(Serializable object, Path outputFile) {
+  @CanIgnoreReturnValue
+  @Nonnull
+  HashCode serializeObject(Serializable object, Path outputFile) {
     Path sanitizedOutputFile = validatePath(outputFile);
     try {
       Path tmpFile = tempOutputFilePath(outputFile);
       try {
         mkdirs(sanitizedOutputFile.getParent());
-        try (OutputStream out = Files.newOutputStream(tmpFile);
-            LZ4FrameOutputStream gos = new LZ4FrameOutputStream(out);
-            ObjectOutputStream oos = new ObjectOutputStream(gos)) {
-          oos.writeObject(object);
+        HashCode hash;
+        try (HashingOutputStream out =
+            new HashingOutputStream(Hashing.murmur3_128(), Files.newOutputStream(tmpFile))) {
+          SERIALIZERS.serialize(object, out);
+          hash = out.hash();
         } catch (Throwable e) {
           throw new BatfishException(
               "Failed to serialize object to output file: " + sanitizedOutputFile, e);
         }
         Files.move(tmpFile, sanitizedOutputFile, StandardCopyOption.REPLACE_EXISTING);
+        return hash;
       } finally {
         Files.deleteIfExists(tmpFile);
       }
@@ -692,6 +711,22 @@ public class FileBasedStorage implements StorageProvider {
     throw new FileNotFoundException(String.format("Could not find answer with ID: %s", answerId));
   }
 
+  @MustBeClosed
+  @Override
+  public @Nonnull InputStream loadAnswerStream(
+      NetworkId networkId, SnapshotId snapshotId, AnswerId answerId) throws IOException {
+    Path answerPath = getAnswerPath(networkId, snapshotId, answerId);
+    if (Files.exists(answerPath)) {
+      return Files.newInputStream(answerPath);
+    }
+    // look for the answer in the legacy location
+    Path oldAnswerPath = getOldAnswerPath(answerId);
+    if (Files.exists(oldAnswerPath)) {
+      return Files.newInputStream(oldAnswerPath);
+    }
+    throw new FileNotFoundException(String.format("Could not find answer with ID: %s", answerId));
+  }
+
   @Override
   public @Nonnull AnswerMetadata loadAnswerMetadata(
       NetworkId networkId, SnapshotId snapshotId, AnswerId answerId) throws IOException {
@@ -1538,12 +1573,23 @@ public class FileBasedStorage implements StorageProvider {
 
   @Override
   public @Nonnull DataPlane loadDataPlane(NetworkSnapshot snapshot) throws IOException {
+    Path indexPath = getDataPlaneIndexPath(snapshot);
+    if (Files.exists(indexPath)) {
+      // Per-node data planes are deserialized on first access.
+      return new LazyDataPlane(
+          deserializeObject(indexPath, DataPlaneIndex.class),
+          hostname ->
+              deserializeObject(getDataPlaneHostPath(snapshot, hostname), PerHostDataPlane.class),
+          () -> deserializeObjectUnchecked(getDataPlaneForwardingAnalysisPath(snapshot)));
+    }
+    // Data plane was stored without an index, so load it eagerly.
     Map<Path, String> namesByPath = new TreeMap<>();
     Path dataplanePath = getDataPlanePath(snapshot);
     try (DirectoryStream<Path> hostDataPlanes = Files.newDirectoryStream(dataplanePath)) {
       for (Path hostDataPlane : hostDataPlanes) {
         String name = hostDataPlane.getFileName().toString();
-        if (name.equals(RELPATH_DATA_PLANE_FORWARDING_ANALYSIS)) {
+        if (name.equals(RELPATH_DATA_PLANE_FORWARDING_ANALYSIS)
+            || name.equals(RELPATH_DATA_PLANE_INDEX)) {
           continue;
         }
         namesByPath.put(hostDataPlane, fromBase64(name));
@@ -1578,6 +1624,8 @@ public class FileBasedStorage implements StorageProvider {
             });
     serializeObject(
         dataPlane.getForwardingAnalysis(), getDataPlaneForwardingAnalysisPath(snapshot));
+    // Written last, so that an index is only present for a completely stored data plane.
+    serializeObject(DataPlaneIndex.of(dataPlane), getDataPlaneIndexPath(snapshot));
   }
 
   @Override
@@ -1707,6 +1755,10 @@ public class FileBasedStorage implements StorageProvider {
     return getDataPlanePath(snapshot).resolve(RELPATH_DATA_PLANE_FORWARDING_ANALYSIS);
   }
 
+  private @Nonnull Path getDataPlaneIndexPath(NetworkSnapshot snapshot) {
+    return getDataPlanePath(snapshot).resolve(RELPATH_DATA_PLANE_INDEX);
+  }
+
   private @Nonnull Path getReferenceLibraryPath(NetworkId network) {
     return getNetworkDir(network).resolve(BfConsts.RELPATH_REFERENCE_LIBRARY_PATH);
   }
@@ -0,0 +1,75 @@
+package org.batfish.storage;
+
+import static org.batfish.common.plugin.PluginConsumer.DEFAULT_HEADER_LENGTH_BYTES;
+import static org.batfish.common.plugin.PluginConsumer.detectFormat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.io.Serializable;
+import java.util.zip.GZIPInputStream;
+import javax.annotation.Nonnull;
+import net.jpountz.lz4.LZ4FrameInputStream;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+import org.batfish.common.plugin.PluginConsumer.Format;
+
+/**
+ * The default {@link StorageSerializer}: Java serialization compressed with LZ4. Can also read
+ * uncompressed and GZIP-compressed Java serialization data.
+ */
+public final class JavaStorageSerializer implements StorageSerializer {
+
+  public static final JavaStorageSerializer INSTANCE = new JavaStorageSerializer();
+
+  public static final String NAME = "java";
+
+  @Override
+  public @Nonnull String getName() {
+    return NAME;
+  }
+
+  @Override
+  public int getVersion() {
+    return 1;
+  }
+
+  @Override
+  public boolean supports(Class<?> c) {
+    return Serializable.class.isAssignableFrom(c);
+  }
+
+  @Override
+  public void serialize(Serializable object, OutputStream out) throws IOException {
+    // Closing the LZ4 stream is required to write the end of the frame.
+    try (ObjectOutputStream oos = new ObjectOutputStream(new LZ4FrameOutputStream(out))) {
+      oos.writeObject(object);
+    }
+  }
+
+  @Override
+  public @Nonnull Serializable deserialize(InputStream in) throws IOException {
+    PushbackInputStream pbstream = new PushbackInputStream(in, DEFAULT_HEADER_LENGTH_BYTES);
+    Format f = detectFormat(pbstream);
+    InputStream decompressed;
+    if (f == Format.GZIP) {
+      decompressed = new GZIPInputStream(pbstream, 8192 /* enlarge buffer */);
+    } else if (f == Format.LZ4) {
+      decompressed = new LZ4FrameInputStream(pbstream);
+    } else if (f == Format.JAVA_SERIALIZED) {
+      decompressed = pbstream;
+    } else {
+      throw new IOException("Could not detect format of serialized data");
+    }
+    ObjectInputStream ois = new ObjectInputStream(decompressed);
+    try {
+      return (Serializable) ois.readObject();
+    } catch (ClassNotFoundException e) {
+      throw new IOException(e);
+    }
+  }
+
+  private JavaStorageSerializer() {}
+}
@@ -0,0 +1,87 @@
+package org.batfish.storage;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import net.jpountz.lz4.LZ4FrameInputStream;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+import org.batfish.common.Warnings;
+import org.batfish.common.util.BatfishObjectMapper;
+import org.batfish.datamodel.answers.ConvertConfigurationAnswerElement;
+
+/**
+ * A {@link StorageSerializer} that stores objects as JSON compressed with LZ4.
+ *
+ * <p>Only supports classes whose JSON form is known to round-trip, i.e. whose every field is read
+ * back by their {@link com.fasterxml.jackson.annotation.JsonCreator}. The {@link Warnings.Settings}
+ * of {@link Warnings}, which are not part of their JSON form in answers, are stored as well. The
+ * class of each object is recorded before its JSON, and only supported classes are read back.
+ *
+ * <p>Not registered by default, so stored data stays in Java serialization unless a deployment
+ * registers this serializer via {@link java.util.ServiceLoader}.
+ */
+public final class JsonStorageSerializer implements StorageSerializer {
+
+  public static final String NAME = "json";
+
+  /** The supported classes, by the name recorded in stored data. */
+  @VisibleForTesting
+  static final Map<String, Class<? extends Serializable>> SUPPORTED_CLASSES =
+      ImmutableMap.of(
+          ConvertConfigurationAnswerElement.class.getName(),
+          ConvertConfigurationAnswerElement.class);
+
+  /** Stores the settings of {@link Warnings}, which their JSON form in answers leaves out. */
+  private abstract static class WarningsMixIn {
+    @JsonProperty("settings")
+    private Warnings.Settings _settings;
+  }
+
+  private static final ObjectMapper MAPPER =
+      BatfishObjectMapper.mapper().copy().addMixIn(Warnings.class, WarningsMixIn.class);
+
+  @Override
+  public @Nonnull String getName() {
+    return NAME;
+  }
+
+  @Override
+  public int getVersion() {
+    return 2;
+  }
+
+  @Override
+  public boolean supports(Class<?> c) {
+    return SUPPORTED_CLASSES.containsValue(c);
+  }
+
+  @Override
+  public void serialize(Serializable object, OutputStream out) throws IOException {
+    // Closing the LZ4 stream is required to write the end of the frame.
+    try (DataOutputStream dos = new DataOutputStream(new LZ4FrameOutputStream(out))) {
+      dos.writeUTF(object.getClass().getName());
+      // Write via bytes so the mapper does not close the stream before the frame is finished.
+      dos.write(MAPPER.writeValueAsBytes(object));
+    }
+  }
+
+  @Override
+  public @Nonnull Serializable deserialize(InputStream in) throws IOException {
+    DataInputStream dis = new DataInputStream(new LZ4FrameInputStream(in));
+    String className = dis.readUTF();
+    Class<? extends Serializable> c = SUPPORTED_CLASSES.get(className);
+    if (c == null) {
+      throw new IOException(String.format("Unsupported class for JSON storage: %s", className));
+    }
+    return MAPPER.readValue(dis.readAllBytes(), c);
+  }
+}
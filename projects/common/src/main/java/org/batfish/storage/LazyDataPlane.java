@@ -0,0 +1,133 @@
+package org.batfish.storage;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Table;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.datamodel.Bgpv4Route;
+import org.batfish.datamodel.DataPlane;
+import org.batfish.datamodel.EvpnRoute;
+import org.batfish.datamodel.Fib;
+import org.batfish.datamodel.FinalMainRib;
+import org.batfish.datamodel.ForwardingAnalysis;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.vxlan.Layer2Vni;
+import org.batfish.datamodel.vxlan.Layer3Vni;
+
+/**
+ * A {@link DataPlane} backed by per-node files, each of which is deserialized only when a query
+ * first touches that node. Keys are served from a {@link DataPlaneIndex}, so e.g. answering a
+ * question about a single node loads only that node's {@link PerHostDataPlane}.
+ */
+@ParametersAreNonnullByDefault
+final class LazyDataPlane implements DataPlane {
+  private final @Nonnull SortedMap<String, Map<String, Fib>> _fibs;
+  private final @Nonnull Supplier<ForwardingAnalysis> _forwardingAnalysis;
+  private final @Nonnull Table<String, String, Set<Bgpv4Route>> _bgpRoutes;
+  private final @Nonnull Table<String, String, Set<Bgpv4Route>> _bgpBackupRoutes;
+  private final @Nonnull Table<String, String, Set<EvpnRoute<?, ?>>> _evpnRoutes;
+  private final @Nonnull Table<String, String, Set<EvpnRoute<?, ?>>> _evpnBackupRoutes;
+  private final @Nonnull Table<String, String, Set<Layer2Vni>> _layer2Vnis;
+  private final @Nonnull Table<String, String, Set<Layer3Vni>> _layer3Vnis;
+  private final @Nonnull SortedMap<String, SortedMap<String, Map<Prefix, Map<String, Set<String>>>>>
+      _prefixTracingInfoSummary;
+  private final @Nonnull Table<String, String, FinalMainRib> _ribs;
+
+  /**
+   * @param index the index of the stored data plane
+   * @param perHostDataPlaneLoader loads the {@link PerHostDataPlane} of a node in {@code index}
+   * @param forwardingAnalysisLoader loads the {@link ForwardingAnalysis}
+   */
+  LazyDataPlane(
+      DataPlaneIndex index,
+      Function<String, PerHostDataPlane> perHostDataPlaneLoader,
+      Supplier<ForwardingAnalysis> forwardingAnalysisLoader) {
+    LoadingCache<String, PerHostDataPlane> perHostDataPlanes =
+        Caffeine.newBuilder().build(perHostDataPlaneLoader::apply);
+    _fibs = Maps.asMap(index.getHostnames(), host -> perHostDataPlanes.get(host).getFibs());
+    _forwardingAnalysis = Suppliers.memoize(forwardingAnalysisLoader::get);
+    _bgpRoutes =
+        new LazyRowTable<>(
+            index.getBgpRoutes(), host -> perHostDataPlanes.get(host).getBgpRoutes());
+    _bgpBackupRoutes =
+        new LazyRowTable<>(
+            index.getBgpBackupRoutes(), host -> perHostDataPlanes.get(host).getBgpBackupRoutes());
+    _evpnRoutes =
+        new LazyRowTable<>(
+            index.getEvpnRoutes(), host -> perHostDataPlanes.get(host).getEvpnRoutes());
+    _evpnBackupRoutes =
+        new LazyRowTable<>(
+            index.getEvpnBackupRoutes(),
+            host -> perHostDataPlanes.get(host).getEvpnBackupRoutes());
+    _layer2Vnis =
+        new LazyRowTable<>(
+            index.getLayer2Vnis(), host -> perHostDataPlanes.get(host).getLayer2Vnis());
+    _layer3Vnis =
+        new LazyRowTable<>(
+            index.getLayer3Vnis(), host -> perHostDataPlanes.get(host).getLayer3Vnis());
+    _prefixTracingInfoSummary =
+        Maps.asMap(
+            index.getHostnames(),
+            host -> perHostDataPlanes.get(host).getPrefixTracingInfoSummary());
+    _ribs = new LazyRowTable<>(index.getRibs(), host -> perHostDataPlanes.get(host).getRibs());
+  }
+
+  @Override
+  public @Nonnull Table<String, String, Set<Bgpv4Route>> getBgpRoutes() {
+    return _bgpRoutes;
+  }
+
+  @Override
+  public @Nonnull Table<String, String, Set<Bgpv4Route>> getBgpBackupRoutes() {
+    return _bgpBackupRoutes;
+  }
+
+  @Override
+  public @Nonnull Table<String, String, Set<EvpnRoute<?, ?>>> getEvpnRoutes() {
+    return _evpnRoutes;
+  }
+
+  @Override
+  public @Nonnull Table<String, String, Set<EvpnRoute<?, ?>>> getEvpnBackupRoutes() {
+    return _evpnBackupRoutes;
+  }
+
+  @Override
+  public @Nonnull Map<String, Map<String, Fib>> getFibs() {
+    return _fibs;
+  }
+
+  @Override
+  public @Nonnull ForwardingAnalysis getForwardingAnalysis() {
+    return _forwardingAnalysis.get();
+  }
+
+  @Override
+  public @Nonnull Table<String, String, Set<Layer2Vni>> getLayer2Vnis() {
+    return _layer2Vnis;
+  }
+
+  @Override
+  public @Nonnull Table<String, String, Set<Layer3Vni>> getLayer3Vnis() {
+    return _layer3Vnis;
+  }
+
+  @Override
+  public @Nonnull SortedMap<String, SortedMap<String, Map<Prefix, Map<String, Set<String>>>>>
+      getPrefixTracingInfoSummary() {
+    return _prefixTracingInfoSummary;
+  }
+
+  @Override
+  public @Nonnull Table<String, String, FinalMainRib> getRibs() {
+    return _ribs;
+  }
+}
@@ -0,0 +1,184 @@
+package org.batfish.storage;
+
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableTable;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Table;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * A read-only {@link Table} keyed by hostname and VRF whose rows are loaded on demand.
+ *
+ * <p>Row and column keys are known up front, so key queries, {@link #row(String)}, {@link
+ * #get(Object, Object)}, and {@link #rowMap()} load only the rows they touch. Operations that
+ * inspect cells across all rows, such as {@link #cellSet()} or {@link #column(String)}, load every
+ * row.
+ */
+@ParametersAreNonnullByDefault
+final class LazyRowTable<V> implements Table<String, String, V> {
+
+  private final @Nonnull SortedMap<String, SortedSet<String>> _columnKeysByRow;
+  private final @Nonnull Function<String, Map<String, V>> _rowLoader;
+  private final @Nonnull Supplier<Table<String, String, V>> _materialized;
+
+  /**
+   * @param columnKeysByRow the column keys of each non-empty row
+   * @param rowLoader loads the contents of a row present in {@code columnKeysByRow}
+   */
+  LazyRowTable(
+      SortedMap<String, SortedSet<String>> columnKeysByRow,
+      Function<String, Map<String, V>> rowLoader) {
+    _columnKeysByRow = columnKeysByRow;
+    _rowLoader = rowLoader;
+    _materialized = Suppliers.memoize(this::materialize);
+  }
+
+  private @Nonnull Table<String, String, V> materialize() {
+    Map<String, Map<String, V>> rows =
+        _columnKeysByRow.keySet().parallelStream()
+            .collect(toImmutableMap(Function.identity(), _rowLoader));
+    ImmutableTable.Builder<String, String, V> builder = ImmutableTable.builder();
+    rows.forEach((row, columns) -> columns.forEach((column, v) -> builder.put(row, column, v)));
+    return builder.build();
+  }
+
+  @Override
+  public boolean contains(@Nullable Object rowKey, @Nullable Object columnKey) {
+    Set<String> columnKeys = _columnKeysByRow.get(rowKey);
+    return columnKeys != null && columnKeys.contains(columnKey);
+  }
+
+  @Override
+  public boolean containsRow(@Nullable Object rowKey) {
+    return _columnKeysByRow.containsKey(rowKey);
+  }
+
+  @Override
+  public boolean containsColumn(@Nullable Object columnKey) {
+    return _columnKeysByRow.values().stream()
+        .anyMatch(columnKeys -> columnKeys.contains(columnKey));
+  }
+
+  @Override
+  public boolean containsValue(@Nullable Object value) {
+    return _materialized.get().containsValue(value);
+  }
+
+  @Override
+  public @Nullable V get(@Nullable Object rowKey, @Nullable Object columnKey) {
+    if (!contains(rowKey, columnKey)) {
+      return null;
+    }
+    return _rowLoader.apply((String) rowKey).get(columnKey);
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return _columnKeysByRow.isEmpty();
+  }
+
+  @Override
+  public int size() {
+    return _columnKeysByRow.values().stream().mapToInt(Set::size).sum();
+  }
+
+  @Override
+  public void clear() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public V put(String rowKey, String columnKey, V value) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void putAll(Table<? extends String, ? extends String, ? extends V> table) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public V remove(@Nullable Object rowKey, @Nullable Object columnKey) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public @Nonnull Map<String, V> row(String rowKey) {
+    if (!containsRow(rowKey)) {
+      return ImmutableMap.of();
+    }
+    return Collections.unmodifiableMap(_rowLoader.apply(rowKey));
+  }
+
+  @Override
+  public @Nonnull Map<String, V> column(String columnKey) {
+    return _materialized.get().column(columnKey);
+  }
+
+  @Override
+  public @Nonnull Set<Cell<String, String, V>> cellSet() {
+    return _materialized.get().cellSet();
+  }
+
+  @Override
+  public @Nonnull Set<String> rowKeySet() {
+    return Collections.unmodifiableSet(_columnKeysByRow.keySet());
+  }
+
+  @Override
+  public @Nonnull Set<String> columnKeySet() {
+    return _columnKeysByRow.values().stream()
+        .flatMap(Collection::stream)
+        .collect(toImmutableSet());
+  }
+
+  @Override
+  public @Nonnull Collection<V> values() {
+    return _materialized.get().values();
+  }
+
+  @Override
+  public @Nonnull Map<String, Map<String, V>> rowMap() {
+    return Collections.unmodifiableMap(Maps.asMap(_columnKeysByRow.keySet(), this::row));
+  }
+
+  @Override
+  public @Nonnull Map<String, Map<String, V>> columnMap() {
+    return _materialized.get().columnMap();
+  }
+
+  @Override
+  public boolean equals(@Nullable Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof Table)) {
+      return false;
+    }
+    return cellSet().equals(((Table<?, ?, ?>) obj).cellSet());
+  }
+
+  @Override
+  public int hashCode() {
+    return cellSet().hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return rowMap().toString();
+  }
+}
@@ -23,6 +23,7 @@ import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.DataPlane;
 import org.batfish.datamodel.SnapshotMetadata;
 import org.batfish.datamodel.Topology;
+import org.batfish.datamodel.answers.Answer;
 import org.batfish.datamodel.answers.AnswerMetadata;
 import org.batfish.datamodel.answers.ConvertConfigurationAnswerElement;
 import org.batfish.datamodel.answers.ParseEnvironmentBgpTablesAnswerElement;
@@ -158,6 +159,19 @@ public interface StorageProvider {
   void storeAnswer(NetworkId network, SnapshotId snapshot, String answerStr, AnswerId answerId)
       throws IOException;
 
+  /**
+   * Store the answer to an ad-hoc question, serializing it directly to storage rather than to an
+   * intermediate string.
+   *
+   * @param network The id of the network
+   * @param snapshot The id of the snapshot
+   * @param answer The answer
+   * @param answerId The ID of the answer
+   * @throws IOException if there is an error
+   */
+  void storeAnswer(NetworkId network, SnapshotId snapshot, Answer answer, AnswerId answerId)
+      throws IOException;
+
   /**
    * Store the metadata for the answer to an ad-hoc question.
    *
@@ -202,6 +216,21 @@ public interface StorageProvider {
   String loadAnswer(NetworkId network, SnapshotId snapshot, AnswerId answerId)
       throws FileNotFoundException, IOException;
 
+  /**
+   * Returns an {@link InputStream} over the JSON-serialized answer to an ad-hoc question, so that
+   * large answers can be read without holding their text in memory.
+   *
+   * @param network The id of the network
+   * @param snapshot The id of the snapshot
+   * @param answerId The ID of the answer
+   * @throws FileNotFoundException if answer does not exist; {@link IOException} if there is an
+   *     error reading the answer.
+   */
+  @MustBeClosed
+  @Nonnull
+  InputStream loadAnswerStream(NetworkId network, SnapshotId snapshot, AnswerId answerId)
+      throws FileNotFoundException, IOException;
+
   /**
    * Load the metadata for the answer to an ad-hoc question.
    *
@@ -492,6 +521,17 @@ public interface StorageProvider {
   @Nonnull
   EigrpTopology loadEigrpTopology(NetworkSnapshot networkSnapshot) throws IOException;
 
+  /**
+   * Loads a hash of each stored vendor-independent configuration of the snapshot, keyed by
+   * hostname. Configurations with equal hashes in two snapshots were stored identically. Returns
+   * {@link Optional#empty()} if no hashes were recorded, e.g. by an older version.
+   *
+   * @throws IOException if there is an error reading the hashes
+   */
+  @Nonnull
+  Optional<Map<String, String>> loadConfigurationHashes(NetworkSnapshot snapshot)
+      throws IOException;
+
   /**
    * Loads the {@link Layer1Topology} synthesized internally (e.g., for AWS).
    *
@@ -0,0 +1,37 @@
+package org.batfish.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import javax.annotation.Nonnull;
+
+/**
+ * A format in which {@link FileBasedStorage} can store serialized objects.
+ *
+ * <p>Implementations are discovered via {@link java.util.ServiceLoader}, e.g. by annotating them
+ * with {@code @AutoService(StorageSerializer.class)}. Objects whose class is not supported by any
+ * registered implementation are stored using {@link JavaStorageSerializer}.
+ */
+public interface StorageSerializer {
+
+  /** A unique, stable name for this serializer, recorded in the header of every stored object. */
+  @Nonnull
+  String getName();
+
+  /**
+   * The version of the encoding produced by this serializer, recorded in the header of every stored
+   * object. Must be changed whenever previously stored objects can no longer be read.
+   */
+  int getVersion();
+
+  /** Returns {@code true} if this serializer should be used to store objects of class {@code c}. */
+  boolean supports(Class<?> c);
+
+  /** Writes {@code object} to {@code out}. May close {@code out} when done. */
+  void serialize(Serializable object, OutputStream out) throws IOException;
+
+  /** Reads an object written by {@link #serialize(Serializable, OutputStream)} from {@code in}. */
+  @Nonnull
+  Serializable deserialize(InputStream in) throws IOException;
+}
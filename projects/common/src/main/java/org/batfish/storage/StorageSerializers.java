@@ -0,0 +1,116 @@
+package org.batfish.storage;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * Chooses the {@link StorageSerializer} used to store each object.
+ *
+ * <p>Objects stored with a registered {@link StorageSerializer} are prefixed with a header naming
+ * the serializer and its version, so that data written by a different serializer or an incompatible
+ * version is rejected instead of being misread. Objects of classes not supported by any registered
+ * serializer are stored using {@link JavaStorageSerializer} without a header, which is also how all
+ * existing stored data was written. Data without a header is always read as Java serialization.
+ */
+@ParametersAreNonnullByDefault
+final class StorageSerializers {
+
+  @VisibleForTesting static final byte[] MAGIC = {'B', 'F', 'S', 'Z'};
+  @VisibleForTesting static final int HEADER_VERSION = 1;
+
+  /** Returns the serializers registered via {@link ServiceLoader}. */
+  static @Nonnull StorageSerializers load() {
+    return new StorageSerializers(
+        ImmutableList.copyOf(
+            ServiceLoader.load(StorageSerializer.class, StorageSerializers.class.getClassLoader())));
+  }
+
+  @VisibleForTesting
+  StorageSerializers(List<StorageSerializer> serializers) {
+    ImmutableMap.Builder<String, StorageSerializer> byName = ImmutableMap.builder();
+    for (StorageSerializer serializer : serializers) {
+      checkArgument(
+          !serializer.getName().equals(JavaStorageSerializer.NAME),
+          "Serializer name '%s' is reserved",
+          JavaStorageSerializer.NAME);
+      byName.put(serializer.getName(), serializer);
+    }
+    _serializers = ImmutableList.copyOf(serializers);
+    _serializersByName = byName.buildOrThrow();
+  }
+
+  /** Returns the serializer that will be used to store objects of class {@code c}. */
+  @Nonnull
+  StorageSerializer serializerFor(Class<?> c) {
+    return _serializers.stream()
+        .filter(serializer -> serializer.supports(c))
+        .findFirst()
+        .orElse(JavaStorageSerializer.INSTANCE);
+  }
+
+  /** Writes {@code object} to {@code out}. May close {@code out} when done. */
+  void serialize(Serializable object, OutputStream out) throws IOException {
+    StorageSerializer serializer = serializerFor(object.getClass());
+    if (serializer == JavaStorageSerializer.INSTANCE) {
+      serializer.serialize(object, out);
+      return;
+    }
+    DataOutputStream dos = new DataOutputStream(out);
+    dos.write(MAGIC);
+    dos.writeByte(HEADER_VERSION);
+    dos.writeUTF(serializer.getName());
+    dos.writeInt(serializer.getVersion());
+    dos.flush();
+    serializer.serialize(object, out);
+  }
+
+  /** Reads an object written by {@link #serialize(Serializable, OutputStream)} from {@code in}. */
+  @Nonnull
+  Serializable deserialize(InputStream in) throws IOException {
+    PushbackInputStream pbstream = new PushbackInputStream(in, MAGIC.length);
+    byte[] magic = new byte[MAGIC.length];
+    int read = pbstream.readNBytes(magic, 0, magic.length);
+    if (read < MAGIC.length || !Arrays.equals(magic, MAGIC)) {
+      pbstream.unread(magic, 0, read);
+      return JavaStorageSerializer.INSTANCE.deserialize(pbstream);
+    }
+    DataInputStream dis = new DataInputStream(pbstream);
+    int headerVersion = dis.readUnsignedByte();
+    if (headerVersion != HEADER_VERSION) {
+      throw new IOException(
+          String.format("Unsupported serialization header version: %d", headerVersion));
+    }
+    String name = dis.readUTF();
+    int version = dis.readInt();
+    StorageSerializer serializer = _serializersByName.get(name);
+    if (serializer == null) {
+      throw new IOException(String.format("Serializer '%s' is not registered", name));
+    }
+    if (serializer.getVersion() != version) {
+      throw new IOException(
+          String.format(
+              "Data was written by version %d of serializer '%s', but version %d is registered",
+              version, name, serializer.getVersion()));
+    }
+    return serializer.deserialize(pbstream);
+  }
+
+  private final @Nonnull List<StorageSerializer> _serializers;
+  private final @Nonnull Map<String, StorageSerializer> _serializersByName;
+}
@@ -9,10 +9,30 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.equalTo;
 
+import com.google.common.testing.EqualsTester;
 import org.junit.Test;
 
 /** Tests of {@link Warnings}. */
 public class WarningsTest {
+  @Test
+  public void testEquals() {
+    Warnings redFlag = new Warnings(true, true, true);
+    redFlag.redFlag("message");
+    Warnings sameRedFlag = new Warnings(true, true, true);
+    sameRedFlag.redFlag("message");
+    Warnings unimplemented = new Warnings(true, true, true);
+    unimplemented.unimplemented("message");
+    new EqualsTester()
+        .addEqualityGroup(new Warnings(), new Warnings(false, false, false))
+        .addEqualityGroup(new Warnings(true, false, false))
+        .addEqualityGroup(new Warnings(false, true, false))
+        .addEqualityGroup(new Warnings(false, false, true))
+        .addEqualityGroup(redFlag, sameRedFlag)
+        .addEqualityGroup(unimplemented)
+        .addEqualityGroup(new Object())
+        .testEquals();
+  }
+
   @Test
   public void testRedFlagWarnings() {
     Warnings ws = new Warnings(true, true, true);
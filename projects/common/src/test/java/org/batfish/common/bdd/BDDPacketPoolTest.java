@@ -0,0 +1,88 @@
+package org.batfish.common.bdd;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import net.sf.javabdd.BDD;
+import org.junit.Test;
+
+/** Tests of {@link BDDPacketPool}. */
+public final class BDDPacketPoolTest {
+
+  @Test
+  public void testReuse() {
+    BDDPacket first = BDDPacketPool.withPacket(Function.identity());
+    BDDPacket second = BDDPacketPool.withPacket(Function.identity());
+    assertThat(second, sameInstance(first));
+
+    // nested uses get different packets, and the outermost one stays in the pool
+    BDDPacket outermost =
+        BDDPacketPool.withPacket(
+            outer -> {
+              assertThat(BDDPacketPool.withPacket(Function.identity()), not(sameInstance(outer)));
+              return outer;
+            });
+    assertThat(BDDPacketPool.withPacket(Function.identity()), sameInstance(outermost));
+  }
+
+  @Test
+  public void testStats() {
+    // the first use on this thread may reuse a packet of an earlier test
+    BDDPacketPool.withPacket(Function.identity());
+    BDDPacketPool.Stats before = BDDPacketPool.getStats();
+    BDDPacketPool.withPacket(Function.identity());
+    BDDPacketPool.Stats after = BDDPacketPool.getStats();
+    assertThat(after.getReused(), equalTo(before.getReused() + 1));
+    assertThat(after.getCreated(), equalTo(before.getCreated()));
+  }
+
+  @Test
+  public void testReuseAllocatedVariables() {
+    int[] vars =
+        BDDPacketPool.withPacket(
+            pkt ->
+                new int[] {
+                  pkt.allocateBDDBit("before", true).var(),
+                  pkt.allocateBDDBit("after").var(),
+                  pkt.getFactory().varNum()
+                });
+    int[] reusedVars =
+        BDDPacketPool.withPacket(
+            pkt ->
+                new int[] {
+                  pkt.allocateBDDBit("before", true).var(),
+                  pkt.allocateBDDBit("after").var(),
+                  pkt.getFactory().varNum()
+                });
+    assertThat(reusedVars, equalTo(vars));
+  }
+
+  @Test
+  public void testResetAllocatedVariables() {
+    BDDPacket pkt = new BDDPacket();
+    BDD before = pkt.allocateBDDBit("before", true);
+    BDD after = pkt.allocateBDDInteger("after", 4).getVars();
+    pkt.resetAllocatedVariables();
+    assertThat(pkt.allocateBDDBit("before", true), equalTo(before));
+    assertThat(pkt.allocateBDDInteger("after", 4).getVars(), equalTo(after));
+  }
+
+  @Test
+  public void testIsReusable() {
+    BDDPacket pkt = new BDDPacket();
+    BDDPacketPool.PooledPacket pooled = new BDDPacketPool.PooledPacket(pkt);
+    assertThat(pooled.isReusable(), equalTo(true));
+
+    // unfreed BDDs from an earlier use keep too many nodes alive
+    List<BDD> live = new ArrayList<>();
+    for (int i = 0; i < BDDPacketPool.MAX_REUSED_NODES / 8; i++) {
+      live.add(pkt.getDstIp().value(i));
+    }
+    assertThat(pooled.isReusable(), equalTo(false));
+  }
+}
@@ -240,6 +240,17 @@ public class IBatfishTestAdapter implements IBatfish {
     throw new UnsupportedOperationException();
   }
 
+  @Override
+  public @Nonnull Optional<NetworkSnapshot> getParentSnapshotWithDataPlane(
+      NetworkSnapshot snapshot) {
+    return Optional.empty();
+  }
+
+  @Override
+  public @Nonnull Optional<Map<String, String>> loadConfigurationHashes(NetworkSnapshot snapshot) {
+    return Optional.empty();
+  }
+
   @Override
   public NodeRolesData getNodeRolesData() {
     throw new UnsupportedOperationException();
@@ -0,0 +1,142 @@
+package org.batfish.common.util;
+
+import static org.batfish.datamodel.routing_policy.Common.DEFAULT_UNDERSCORE_REPLACEMENT;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import java.util.regex.Pattern;
+import org.junit.Test;
+
+/** Tests of {@link DfaRegex}. */
+public final class DfaRegexTest {
+
+  /** The regex for the Cisco-style AS-path regex {@code cisco}. */
+  private static String cisco(String cisco) {
+    // as in CiscoConversions#toJavaRegex
+    return cisco.replaceAll("_", DEFAULT_UNDERSCORE_REPLACEMENT);
+  }
+
+  private static final List<String> REGEXES =
+      ImmutableList.of(
+          "",
+          "^$",
+          ".*",
+          "1",
+          "^1",
+          "1$",
+          "^1$",
+          "a^b",
+          "a$b",
+          "^(^| )\\d+$",
+          "^((^| )\\d+)((^| )(1|2|3))$",
+          "(^| )65000( |$)",
+          "^65000:[0-9]+$",
+          "^[0-9]+:(100|200)$",
+          "[^0-9 ]",
+          "\\{1,2\\}",
+          "(?:12|2)+3*?",
+          "^1{2,3}$",
+          "^(12){1,}$",
+          "^1{0}2",
+          "[\\d,]{3}",
+          "\\D\\S\\W",
+          "[a-c-]x",
+          cisco("_65000_"),
+          cisco("^65000_"),
+          cisco("_65000$"),
+          cisco("^(65000_)+$"),
+          cisco("_1[2-5]_"),
+          cisco("_(6451[2-9]|645[2-9][0-9]|64[6-9][0-9][0-9]|65[0-4][0-9][0-9]|655[0-2][0-9])_"));
+
+  private static final List<String> INPUTS =
+      ImmutableList.of(
+          "",
+          "1",
+          "12",
+          "111",
+          "1212",
+          "2",
+          "123",
+          "65000",
+          "650001",
+          "65000 65001",
+          "65001 65000",
+          "1 65000 3",
+          "{1,2}",
+          "65000:100",
+          "65000:1000",
+          "(65000) [1,2] {3,4}",
+          "64513 1299 174",
+          "a-x",
+          "ab",
+          "1 2 3");
+
+  @Test
+  public void testFindEquivalentToPattern() {
+    for (String regex : REGEXES) {
+      DfaRegex dfa = DfaRegex.fromString(regex);
+      assertTrue(regex, dfa.isCompiled());
+      Pattern pattern = Pattern.compile(regex);
+      for (String input : INPUTS) {
+        boolean expected = pattern.matcher(input).find();
+        String message = String.format("regex '%s' on input '%s'", regex, input);
+        assertThat(message, dfa.find(input), equalTo(expected));
+        assertThat(message, dfa.newCursor().append(input).find(), equalTo(expected));
+      }
+    }
+  }
+
+  @Test
+  public void testUnsupportedSyntaxFallsBackToPattern() {
+    for (String regex :
+        ImmutableList.of(
+            "(1)\\1", "(?i)a", "1++", "\\b1", "[1&&[0-9]]", "(?=1)2", "(^|1)+", "\\Q1\\E")) {
+      DfaRegex dfa = DfaRegex.fromString(regex);
+      assertFalse(regex, dfa.isCompiled());
+      Pattern pattern = Pattern.compile(regex);
+      for (String input : INPUTS) {
+        assertThat(dfa.find(input), equalTo(pattern.matcher(input).find()));
+        assertThat(dfa.newCursor().append(input).find(), equalTo(pattern.matcher(input).find()));
+      }
+    }
+  }
+
+  @Test
+  public void testLineTerminatorsFallBackToPattern() {
+    // '$' may match before a final line terminator
+    DfaRegex dfa = DfaRegex.fromString("^1$");
+    assertTrue(dfa.find("1\n"));
+    assertFalse(dfa.find("1\n2"));
+    assertFalse(DfaRegex.fromString("1.2").find("1\n2"));
+  }
+
+  @Test
+  public void testCursorAppendLong() {
+    assertTrue(DfaRegex.fromString("^0$").newCursor().append(0L).find());
+    assertTrue(DfaRegex.fromString("^4294967295$").newCursor().append(4294967295L).find());
+    assertTrue(
+        DfaRegex.fromString("^1 -2$").newCursor().append(1L).append(' ').append(-2L).find());
+  }
+
+  @Test
+  public void testFromStringShared() {
+    assertThat(DfaRegex.fromString("^1$"), sameInstance(DfaRegex.fromString("^1$")));
+  }
+
+  @Test
+  public void testStatesBuiltLazily() {
+    DfaRegex dfa = DfaRegex.fromString(cisco("_7[2-5]_"));
+    int before = dfa.getNumStates();
+    dfa.find("7 73 2");
+    int after = dfa.getNumStates();
+    assertTrue(after > before);
+    // warm: no new states
+    dfa.find("7 73 2");
+    assertThat(dfa.getNumStates(), equalTo(after));
+  }
+}
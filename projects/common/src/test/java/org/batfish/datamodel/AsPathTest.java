@@ -4,6 +4,8 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 
 import com.google.common.collect.ImmutableList;
+import java.util.regex.Pattern;
+import org.batfish.common.util.DfaRegex;
 import org.junit.Test;
 
 /** Tests of {@link AsPath} */
@@ -96,4 +98,32 @@ public class AsPathTest {
         AsPath.aggregateContributors(ImmutableList.of(a, b)),
         equalTo(AsPath.ofSingletonAsSets(65000L)));
   }
+
+  @Test
+  public void testContainsMatch() {
+    AsPath path =
+        AsPath.of(
+            ImmutableList.of(
+                AsSet.confed(1L),
+                AsSet.confed(2L, 3L),
+                AsSet.of(65000L),
+                AsSet.of(4L, 5L),
+                AsSet.of(0L)));
+    assertThat(path.getAsPathString(), equalTo("(1) [2,3] 65000 {4,5} 0"));
+    for (String regex :
+        ImmutableList.of(
+            "^\\(1\\) \\[2,3\\] 65000 \\{4,5\\} 0$",
+            "(^| )65000( |$)",
+            "(^| )6500( |$)",
+            "\\{4,5\\}",
+            "\\{5",
+            " 0$",
+            "^0")) {
+      assertThat(
+          regex,
+          path.containsMatch(DfaRegex.fromString(regex)),
+          equalTo(Pattern.compile(regex).matcher(path.getAsPathString()).find()));
+    }
+    assertThat(AsPath.empty().containsMatch(DfaRegex.fromString("^$")), equalTo(true));
+  }
 }
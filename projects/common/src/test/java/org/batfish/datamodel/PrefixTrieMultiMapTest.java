@@ -140,6 +140,21 @@ public class PrefixTrieMultiMapTest {
     assertThat(ptm1.longestPrefixMatch(Ip.parse("1.1.1.130")), equalTo(ImmutableSet.of(2)));
   }
 
+  @Test
+  public void testLongestPrefixMatchWithPredicate() {
+    PrefixTrieMultiMap<Integer> ptm1 = new PrefixTrieMultiMap<>();
+    ptm1.put(Prefix.parse("1.1.1.0/24"), 1);
+    ptm1.put(Prefix.parse("1.1.1.128/25"), 2);
+    ptm1.put(Prefix.parse("1.1.1.129/32"), 3);
+    Ip ip = Ip.parse("1.1.1.129");
+    assertThat(ptm1.longestPrefixMatch(ip, 32, s -> true), equalTo(ImmutableSet.of(3)));
+    assertThat(ptm1.longestPrefixMatch(ip, 31, s -> true), equalTo(ImmutableSet.of(2)));
+    assertThat(ptm1.longestPrefixMatch(ip, 32, s -> !s.contains(3)), equalTo(ImmutableSet.of(2)));
+    assertThat(ptm1.longestPrefixMatch(ip, 32, s -> s.contains(1)), equalTo(ImmutableSet.of(1)));
+    assertThat(ptm1.longestPrefixMatch(ip, 32, s -> false), empty());
+    assertThat(ptm1.longestPrefixMatch(Ip.parse("2.2.2.2"), 32, s -> true), empty());
+  }
+
   @Test
   public void testPutAtRoot() {
     PrefixTrieMultiMap<Integer> map = new PrefixTrieMultiMap<>();
@@ -0,0 +1,169 @@
+package org.batfish.datamodel.acl;
+
+import static org.batfish.datamodel.ExprAclLine.accepting;
+import static org.batfish.datamodel.ExprAclLine.rejecting;
+import static org.batfish.datamodel.acl.AclLineMatchExprs.and;
+import static org.batfish.datamodel.acl.AclLineMatchExprs.matchDst;
+import static org.batfish.datamodel.acl.AclLineMatchExprs.matchDstPort;
+import static org.batfish.datamodel.acl.AclLineMatchExprs.matchIpProtocol;
+import static org.batfish.datamodel.acl.AclLineMatchExprs.matchIpProtocols;
+import static org.batfish.datamodel.acl.AclLineMatchExprs.matchSrc;
+import static org.batfish.datamodel.acl.AclLineMatchExprs.not;
+import static org.batfish.datamodel.acl.AclLineMatchExprs.or;
+import static org.batfish.datamodel.acl.AclLineMatchExprs.permittedByAcl;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.Map;
+import org.batfish.datamodel.AclAclLine;
+import org.batfish.datamodel.AclLine;
+import org.batfish.datamodel.ExprAclLine;
+import org.batfish.datamodel.FilterResult;
+import org.batfish.datamodel.Flow;
+import org.batfish.datamodel.HeaderSpace;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.IpAccessList;
+import org.batfish.datamodel.IpProtocol;
+import org.batfish.datamodel.IpSpace;
+import org.batfish.datamodel.IpSpaceReference;
+import org.batfish.datamodel.IpWildcard;
+import org.batfish.datamodel.Prefix;
+import org.junit.Test;
+
+/** Tests of {@link IndexedAcl}. */
+public final class IndexedAclTest {
+
+  private static final IpAccessList REFERENCED =
+      IpAccessList.builder()
+          .setName("referenced")
+          .setLines(accepting(matchDst(Prefix.parse("10.0.3.0/24"))))
+          .build();
+
+  private static final Map<String, IpSpace> NAMED_IP_SPACES =
+      ImmutableMap.of("space", Prefix.parse("10.0.2.0/24").toIpSpace());
+
+  private static Flow flow(String dstIp, IpProtocol ipProtocol, int dstPort) {
+    return Flow.builder()
+        .setIngressNode("node")
+        .setIpProtocol(ipProtocol)
+        .setSrcIp(Ip.parse("192.168.0.1"))
+        .setDstIp(Ip.parse(dstIp))
+        .setSrcPort(1000)
+        .setDstPort(dstPort)
+        .build();
+  }
+
+  @Test
+  public void testDstPrefixes() {
+    Prefix p1 = Prefix.parse("10.0.0.0/24");
+    Prefix p2 = Prefix.parse("10.0.1.0/24");
+    assertThat(IndexedAcl.dstPrefixes(accepting(matchDst(p1))), containsInAnyOrder(p1));
+    assertThat(
+        IndexedAcl.dstPrefixes(accepting(or(matchDst(p1), matchDst(p2)))),
+        containsInAnyOrder(p1, p2));
+    assertThat(
+        IndexedAcl.dstPrefixes(accepting(and(matchSrc(p2), matchDst(p1), matchDstPort(22)))),
+        containsInAnyOrder(p1));
+    assertThat(
+        IndexedAcl.dstPrefixes(accepting(matchDst(Ip.parse("10.0.0.1")))),
+        containsInAnyOrder(Prefix.parse("10.0.0.1/32")));
+    assertThat(IndexedAcl.dstPrefixes(accepting(FalseExpr.INSTANCE)), empty());
+
+    // not known
+    assertThat(IndexedAcl.dstPrefixes(accepting(or(matchDst(p1), matchSrc(p2)))), nullValue());
+    assertThat(IndexedAcl.dstPrefixes(accepting(not(matchDst(p1)))), nullValue());
+    assertThat(
+        IndexedAcl.dstPrefixes(accepting(matchDst(IpWildcard.parse("10.0.0.0:0.255.0.255")))),
+        nullValue());
+    assertThat(
+        IndexedAcl.dstPrefixes(accepting(matchDst(new IpSpaceReference("space")))), nullValue());
+    assertThat(
+        IndexedAcl.dstPrefixes(
+            ExprAclLine.acceptingHeaderSpace(
+                HeaderSpace.builder().setDstIps(p1.toIpSpace()).setNegate(true).build())),
+        nullValue());
+    assertThat(IndexedAcl.dstPrefixes(new AclAclLine("line", REFERENCED.getName())), nullValue());
+  }
+
+  @Test
+  public void testIpProtocols() {
+    assertThat(
+        IndexedAcl.ipProtocols(accepting(matchIpProtocol(IpProtocol.TCP))),
+        containsInAnyOrder(IpProtocol.TCP));
+    assertThat(
+        IndexedAcl.ipProtocols(accepting(matchIpProtocols(IpProtocol.TCP, IpProtocol.UDP))),
+        containsInAnyOrder(IpProtocol.TCP, IpProtocol.UDP));
+    assertThat(
+        IndexedAcl.ipProtocols(accepting(and(matchDstPort(22), matchIpProtocol(IpProtocol.TCP)))),
+        containsInAnyOrder(IpProtocol.TCP));
+    assertThat(
+        IndexedAcl.ipProtocols(
+            ExprAclLine.acceptingHeaderSpace(
+                HeaderSpace.builder().setIpProtocols(IpProtocol.UDP).build())),
+        containsInAnyOrder(IpProtocol.UDP));
+    assertThat(IndexedAcl.ipProtocols(accepting(FalseExpr.INSTANCE)), empty());
+
+    // not known
+    assertThat(IndexedAcl.ipProtocols(accepting(matchDstPort(22))), nullValue());
+    assertThat(
+        IndexedAcl.ipProtocols(accepting(or(matchIpProtocol(IpProtocol.TCP), matchDstPort(22)))),
+        nullValue());
+    assertThat(
+        IndexedAcl.ipProtocols(accepting(not(matchIpProtocol(IpProtocol.TCP)))), nullValue());
+    assertThat(
+        IndexedAcl.ipProtocols(
+            ExprAclLine.acceptingHeaderSpace(
+                HeaderSpace.builder().setIpProtocols(IpProtocol.UDP).setNegate(true).build())),
+        nullValue());
+    assertThat(
+        IndexedAcl.ipProtocols(ExprAclLine.acceptingHeaderSpace(HeaderSpace.builder().build())),
+        nullValue());
+    assertThat(IndexedAcl.ipProtocols(new AclAclLine("line", REFERENCED.getName())), nullValue());
+  }
+
+  @Test
+  public void testFilterMatchesIpAccessList() {
+    ImmutableList.Builder<AclLine> lines = ImmutableList.builder();
+    for (int i = 0; i < 8; i++) {
+      Prefix prefix = Prefix.parse(String.format("10.0.%d.0/24", i));
+      lines.add(rejecting(and(matchDst(prefix), matchDstPort(22))));
+      lines.add(accepting(matchDst(Prefix.create(prefix.getStartIp(), 28))));
+    }
+    lines.add(accepting(or(matchDst(Prefix.parse("10.0.0.0/16")), matchDst(Ip.parse("10.1.0.1")))));
+    lines.add(rejecting(matchDst(new IpSpaceReference("space"))));
+    lines.add(accepting(permittedByAcl(REFERENCED.getName())));
+    lines.add(new AclAclLine("referenced line", REFERENCED.getName()));
+    lines.add(rejecting(matchDstPort(53)));
+    lines.add(rejecting(and(matchIpProtocol(IpProtocol.TCP), matchDstPort(80))));
+    lines.add(accepting(and(matchIpProtocol(IpProtocol.UDP), matchDstPort(22))));
+    lines.add(accepting(matchDst(Prefix.parse("10.0.0.0/8"))));
+    lines.add(rejecting(matchIpProtocols(IpProtocol.TCP, IpProtocol.UDP)));
+    IpAccessList acl = IpAccessList.builder().setName("acl").setLines(lines.build()).build();
+    assertThat(acl.getLines().size() >= IndexedAcl.MIN_LINES_TO_INDEX, equalTo(true));
+    Map<String, IpAccessList> acls = ImmutableMap.of(acl.getName(), acl, "referenced", REFERENCED);
+
+    IndexedAcl indexedAcl = new IndexedAcl(acl);
+    for (String dstIp :
+        new String[] {
+          "10.0.0.1", "10.0.0.100", "10.0.2.1", "10.0.2.100", "10.0.3.100", "10.0.7.20",
+          "10.0.9.1", "10.1.0.1", "10.2.0.1", "11.0.0.1"
+        }) {
+      for (IpProtocol ipProtocol : new IpProtocol[] {IpProtocol.TCP, IpProtocol.UDP}) {
+        for (int dstPort : new int[] {22, 53, 80}) {
+          Flow flow = flow(dstIp, ipProtocol, dstPort);
+          FilterResult expected = acl.filter(flow, null, acls, NAMED_IP_SPACES);
+          FilterResult actual = indexedAcl.filter(flow, null, acls, NAMED_IP_SPACES);
+          assertThat(flow.toString(), actual.getMatchLine(), equalTo(expected.getMatchLine()));
+          assertThat(flow.toString(), actual.getAction(), equalTo(expected.getAction()));
+          FilterResult cached = IndexedAcl.filter(acl, flow, null, acls, NAMED_IP_SPACES);
+          assertThat(flow.toString(), cached.getMatchLine(), equalTo(expected.getMatchLine()));
+        }
+      }
+    }
+  }
+}
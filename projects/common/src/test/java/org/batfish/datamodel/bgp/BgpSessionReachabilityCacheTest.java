@@ -0,0 +1,63 @@
+package org.batfish.datamodel.bgp;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+import com.google.common.collect.ImmutableSet;
+import org.batfish.datamodel.BgpPeerConfigId;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.bgp.BgpSessionReachabilityCache.Key;
+import org.junit.Test;
+
+/** Tests of {@link BgpSessionReachabilityCache}. */
+public final class BgpSessionReachabilityCacheTest {
+
+  private static final Key KEY1 =
+      new Key(
+          new BgpPeerConfigId("n1", "default", Prefix.parse("10.0.0.2/32"), false),
+          new BgpPeerConfigId("n2", "default", Prefix.parse("10.0.0.1/32"), false),
+          Ip.parse("10.0.0.1"));
+  private static final Key KEY2 =
+      new Key(
+          new BgpPeerConfigId("n3", "default", Prefix.parse("10.0.1.2/32"), false),
+          new BgpPeerConfigId("n4", "default", Prefix.parse("10.0.1.1/32"), false),
+          Ip.parse("10.0.1.1"));
+
+  @Test
+  public void testGetPut() {
+    BgpSessionReachabilityCache cache = new BgpSessionReachabilityCache();
+    assertThat(cache.get(KEY1), nullValue());
+    cache.put(KEY1, true, ImmutableSet.of("n1", "n2"));
+    cache.put(KEY2, false, ImmutableSet.of("n3"));
+    assertThat(cache.get(KEY1), equalTo(true));
+    assertThat(cache.get(KEY2), equalTo(false));
+    assertThat(cache.size(), equalTo(2));
+  }
+
+  @Test
+  public void testInvalidate() {
+    BgpSessionReachabilityCache cache = new BgpSessionReachabilityCache();
+    cache.put(KEY1, true, ImmutableSet.of("n1", "n2", "n5"));
+    cache.put(KEY2, true, ImmutableSet.of("n3", "n4"));
+
+    cache.invalidate(ImmutableSet.of());
+    assertThat(cache.size(), equalTo(2));
+
+    // a transit node of the first session changed
+    cache.invalidate(ImmutableSet.of("n5", "n6"));
+    assertThat(cache.get(KEY1), nullValue());
+    assertThat(cache.get(KEY2), equalTo(true));
+  }
+
+  @Test
+  public void testInvalidateAll() {
+    BgpSessionReachabilityCache cache = new BgpSessionReachabilityCache();
+    cache.put(KEY1, true, ImmutableSet.of("n1"));
+    cache.put(KEY2, false, ImmutableSet.of("n3"));
+    cache.invalidateAll();
+    assertThat(cache.size(), equalTo(0));
+    assertThat(cache.get(KEY1), nullValue());
+  }
+}
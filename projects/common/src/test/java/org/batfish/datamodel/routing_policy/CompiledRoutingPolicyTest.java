@@ -0,0 +1,256 @@
+package org.batfish.datamodel.routing_policy;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.List;
+import org.batfish.datamodel.Bgpv4Route;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.datamodel.LineAction;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.RouteFilterLine;
+import org.batfish.datamodel.RouteFilterList;
+import org.batfish.datamodel.SubRange;
+import org.batfish.datamodel.TraceElement;
+import org.batfish.datamodel.bgp.community.StandardCommunity;
+import org.batfish.datamodel.routing_policy.Environment.Direction;
+import org.batfish.datamodel.routing_policy.communities.CommunityIs;
+import org.batfish.datamodel.routing_policy.communities.CommunitySet;
+import org.batfish.datamodel.routing_policy.communities.CommunitySetMatchExprReference;
+import org.batfish.datamodel.routing_policy.communities.HasCommunity;
+import org.batfish.datamodel.routing_policy.communities.InputCommunities;
+import org.batfish.datamodel.routing_policy.communities.MatchCommunities;
+import org.batfish.datamodel.routing_policy.expr.BooleanExprs;
+import org.batfish.datamodel.routing_policy.expr.CallExpr;
+import org.batfish.datamodel.routing_policy.expr.Conjunction;
+import org.batfish.datamodel.routing_policy.expr.DestinationNetwork;
+import org.batfish.datamodel.routing_policy.expr.Disjunction;
+import org.batfish.datamodel.routing_policy.expr.LiteralLong;
+import org.batfish.datamodel.routing_policy.expr.MatchPrefixSet;
+import org.batfish.datamodel.routing_policy.expr.NamedPrefixSet;
+import org.batfish.datamodel.routing_policy.expr.Not;
+import org.batfish.datamodel.routing_policy.statement.CallStatement;
+import org.batfish.datamodel.routing_policy.statement.If;
+import org.batfish.datamodel.routing_policy.statement.SetLocalPreference;
+import org.batfish.datamodel.routing_policy.statement.SetMetric;
+import org.batfish.datamodel.routing_policy.statement.Statement;
+import org.batfish.datamodel.routing_policy.statement.Statements;
+import org.batfish.datamodel.routing_policy.statement.TraceableStatement;
+import org.batfish.datamodel.trace.Tracer;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of {@link CompiledRoutingPolicy}, which check that compiled policies are equivalent to
+ * interpreting them with {@link RoutingPolicy#call(Environment)}.
+ */
+public final class CompiledRoutingPolicyTest {
+
+  private static final StandardCommunity COMMUNITY = StandardCommunity.of(1, 1);
+
+  private Configuration _c;
+  private RoutingPolicy _main;
+
+  @Before
+  public void setup() {
+    _c =
+        Configuration.builder()
+            .setHostname("c")
+            .setConfigurationFormat(ConfigurationFormat.CISCO_IOS)
+            .build();
+    _c.getRouteFilterLists()
+        .put(
+            "rfl",
+            new RouteFilterList(
+                "rfl",
+                ImmutableList.of(
+                    new RouteFilterLine(
+                        LineAction.PERMIT, Prefix.parse("10.0.0.0/8"), new SubRange(8, 24)))));
+    _c.setCommunitySetMatchExprs(
+        ImmutableMap.of("has_community", new HasCommunity(new CommunityIs(COMMUNITY))));
+
+    RoutingPolicy.builder()
+        .setOwner(_c)
+        .setName("called")
+        .addStatement(
+            new If(
+                new MatchPrefixSet(DestinationNetwork.instance(), new NamedPrefixSet("rfl")),
+                ImmutableList.of(
+                    new SetLocalPreference(new LiteralLong(300)),
+                    Statements.ReturnTrue.toStaticStatement()),
+                ImmutableList.of(Statements.ReturnFalse.toStaticStatement())))
+        .build();
+    RoutingPolicy.builder()
+        .setOwner(_c)
+        .setName("setter")
+        .addStatement(new SetLocalPreference(new LiteralLong(400)))
+        .addStatement(Statements.Return.toStaticStatement())
+        .build();
+    _main =
+        RoutingPolicy.builder()
+            .setOwner(_c)
+            .setName("main")
+            .addStatement(
+                new If(
+                    new Conjunction(
+                        ImmutableList.of(
+                            new CallExpr("called"),
+                            new Not(
+                                new MatchCommunities(
+                                    InputCommunities.instance(),
+                                    new CommunitySetMatchExprReference("has_community"))))),
+                    ImmutableList.of(
+                        new SetMetric(new LiteralLong(5)),
+                        new CallStatement("setter"),
+                        Statements.ExitAccept.toStaticStatement())))
+            .addStatement(
+                new TraceableStatement(
+                    TraceElement.of("fallback"),
+                    ImmutableList.of(
+                        new If(
+                            new Disjunction(
+                                BooleanExprs.CALL_EXPR_CONTEXT,
+                                new MatchPrefixSet(
+                                    DestinationNetwork.instance(), new NamedPrefixSet("missing"))),
+                            ImmutableList.of(Statements.ExitAccept.toStaticStatement())),
+                        new CallStatement("missing"))))
+            .addStatement(Statements.SetDefaultActionReject.toStaticStatement())
+            .build();
+  }
+
+  private static Bgpv4Route route(String prefix, boolean withCommunity) {
+    return Bgpv4Route.testBuilder()
+        .setNetwork(Prefix.parse(prefix))
+        .setCommunities(withCommunity ? CommunitySet.of(COMMUNITY) : CommunitySet.empty())
+        .build();
+  }
+
+  /**
+   * Asserts that the compiled {@code policy} has the same result, side effects, and trace as the
+   * interpreted policy on {@code route}.
+   */
+  private void assertEquivalent(RoutingPolicy policy, Bgpv4Route route) {
+    Bgpv4Route.Builder interpretedOutput = route.toBuilder();
+    Tracer interpretedTracer = new Tracer();
+    Environment interpreted = environment(route, interpretedOutput, interpretedTracer);
+    interpretedTracer.newSubTrace();
+    Result interpretedResult = policy.call(interpreted);
+    interpretedTracer.endSubTrace();
+
+    Bgpv4Route.Builder compiledOutput = route.toBuilder();
+    Tracer compiledTracer = new Tracer();
+    Environment compiled = environment(route, compiledOutput, compiledTracer);
+    compiledTracer.newSubTrace();
+    Result compiledResult = policy.getCompiled().call(compiled);
+    compiledTracer.endSubTrace();
+
+    assertThat(compiledResult, equalTo(interpretedResult));
+    assertThat(compiled.getError(), equalTo(interpreted.getError()));
+    assertThat(compiled.getDefaultAction(), equalTo(interpreted.getDefaultAction()));
+    assertThat(compiledOutput.build(), equalTo(interpretedOutput.build()));
+    assertThat(compiledTracer.getTrace(), equalTo(interpretedTracer.getTrace()));
+  }
+
+  private Environment environment(Bgpv4Route route, Bgpv4Route.Builder output, Tracer tracer) {
+    return Environment.builder(_c)
+        .setOriginalRoute(route)
+        .setOutputRoute(output)
+        .setDirection(Direction.IN)
+        .setTracer(tracer)
+        .build();
+  }
+
+  @Test
+  public void testEquivalence() {
+    List<Bgpv4Route> routes =
+        ImmutableList.of(
+            route("10.0.0.0/8", false),
+            route("10.1.0.0/16", true),
+            route("10.1.1.0/24", false),
+            route("10.1.1.0/25", false),
+            route("20.0.0.0/8", false),
+            route("20.0.0.0/8", true));
+    for (RoutingPolicy policy : _c.getRoutingPolicies().values()) {
+      for (Bgpv4Route route : routes) {
+        assertEquivalent(policy, route);
+      }
+    }
+  }
+
+  @Test
+  public void testProcess() {
+    Bgpv4Route.Builder output = route("10.1.0.0/16", false).toBuilder();
+    assertThat(_main.process(route("10.1.0.0/16", false), output, Direction.IN), equalTo(true));
+    // set by the called policies
+    assertThat(output.build().getLocalPreference(), equalTo(400L));
+    assertThat(output.build().getMetric(), equalTo(5L));
+
+    Bgpv4Route rejected = route("20.0.0.0/8", false);
+    assertThat(_main.process(rejected, rejected.toBuilder(), Direction.IN), equalTo(false));
+  }
+
+  @Test
+  public void testGetCompiled() {
+    CompiledRoutingPolicy compiled = _main.getCompiled();
+    assertThat(compiled.getName(), equalTo("main"));
+    assertThat(_main.getCompiled(), sameInstance(compiled));
+
+    // changing the statements recompiles the policy
+    _main.setStatements(ImmutableList.of(Statements.ExitAccept.toStaticStatement()));
+    assertThat(_main.getCompiled(), not(sameInstance(compiled)));
+    assertEquivalent(_main, route("20.0.0.0/8", false));
+  }
+
+  @Test
+  public void testGetCompiledAfterModifyingStatements() {
+    RoutingPolicy policy = new RoutingPolicy("mutable", _c);
+    policy.getStatements().add(Statements.ExitReject.toStaticStatement());
+    CompiledRoutingPolicy compiled = policy.getCompiled();
+    Bgpv4Route route = route("10.0.0.0/8", false);
+    assertThat(policy.process(route, route.toBuilder(), Direction.IN), equalTo(false));
+
+    // modifying the statements recompiles the policy
+    policy.getStatements().add(0, Statements.ExitAccept.toStaticStatement());
+    assertThat(policy.getCompiled(), not(sameInstance(compiled)));
+    assertThat(policy.process(route, route.toBuilder(), Direction.IN), equalTo(true));
+    assertEquivalent(policy, route);
+  }
+
+  @Test
+  public void testReferencesResolvedWhenEvaluated() {
+    Bgpv4Route route = route("10.1.0.0/16", false);
+    Bgpv4Route.Builder output = route.toBuilder();
+    assertThat(_main.process(route, output, Direction.IN), equalTo(true));
+    assertThat(output.build().getLocalPreference(), equalTo(400L));
+
+    // replace a policy called by the compiled policy
+    RoutingPolicy.builder()
+        .setOwner(_c)
+        .setName("setter")
+        .addStatement(new SetLocalPreference(new LiteralLong(500)))
+        .addStatement(Statements.Return.toStaticStatement())
+        .build();
+    output = route.toBuilder();
+    assertThat(_main.process(route, output, Direction.IN), equalTo(true));
+    assertThat(output.build().getLocalPreference(), equalTo(500L));
+
+    // replace a route filter list matched by a called policy
+    _c.getRouteFilterLists().put("rfl", new RouteFilterList("rfl", ImmutableList.of()));
+    assertThat(_main.process(route, route.toBuilder(), Direction.IN), equalTo(false));
+    assertEquivalent(_main, route);
+  }
+
+  @Test
+  public void testCompileRecursive() {
+    List<Statement> statements = ImmutableList.of(new CallStatement("recursive"));
+    RoutingPolicy recursive =
+        RoutingPolicy.builder().setOwner(_c).setName("recursive").setStatements(statements).build();
+    // must terminate
+    assertThat(recursive.getCompiled().getName(), equalTo("recursive"));
+  }
+}
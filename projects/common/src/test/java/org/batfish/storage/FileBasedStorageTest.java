@@ -83,6 +83,7 @@ import org.batfish.datamodel.ReceivedFromIp;
 import org.batfish.datamodel.RoutingProtocol;
 import org.batfish.datamodel.SnapshotMetadata;
 import org.batfish.datamodel.UniverseIpSpace;
+import org.batfish.datamodel.answers.Answer;
 import org.batfish.datamodel.answers.AnswerMetadata;
 import org.batfish.datamodel.answers.AnswerStatus;
 import org.batfish.datamodel.answers.ConvertConfigurationAnswerElement;
@@ -140,6 +141,38 @@ public final class FileBasedStorageTest {
     assertThat(deserialized.keySet(), equalTo(Sets.newHashSet("node1")));
   }
 
+  @Test
+  public void testLoadConfigurationHashes() throws IOException {
+    NetworkId network = new NetworkId("network");
+    NetworkSnapshot snapshot1 = new NetworkSnapshot(network, new SnapshotId("snapshot1"));
+    NetworkSnapshot snapshot2 = new NetworkSnapshot(network, new SnapshotId("snapshot2"));
+    assertThat(_storage.loadConfigurationHashes(snapshot1), equalTo(Optional.empty()));
+
+    Configuration modified = new Configuration("node2", ConfigurationFormat.CISCO_IOS);
+    modified.setDomainName("example.com");
+    _storage.storeConfigurations(
+        ImmutableMap.of(
+            "node1", new Configuration("node1", ConfigurationFormat.CISCO_IOS),
+            "node2", new Configuration("node2", ConfigurationFormat.CISCO_IOS)),
+        new ConvertConfigurationAnswerElement(),
+        Layer1Topology.EMPTY,
+        network,
+        snapshot1.getSnapshot());
+    _storage.storeConfigurations(
+        ImmutableMap.of(
+            "node1", new Configuration("node1", ConfigurationFormat.CISCO_IOS), "node2", modified),
+        new ConvertConfigurationAnswerElement(),
+        Layer1Topology.EMPTY,
+        network,
+        snapshot2.getSnapshot());
+
+    Map<String, String> hashes1 = _storage.loadConfigurationHashes(snapshot1).get();
+    Map<String, String> hashes2 = _storage.loadConfigurationHashes(snapshot2).get();
+    assertThat(hashes1.keySet(), contains("node1", "node2"));
+    assertThat(hashes2.get("node1"), equalTo(hashes1.get("node1")));
+    assertThat(hashes2.get("node2"), not(equalTo(hashes1.get("node2"))));
+  }
+
   @Test
   public void loadMissingConfigurationsReturnsNull() {
     assertThat(
@@ -521,6 +554,31 @@ public final class FileBasedStorageTest {
             new StoredObjectMetadata(key2, content2.getBytes().length)));
   }
 
+  @Test
+  public void testStoreAnswerStreamed() throws IOException {
+    NetworkId networkId = new NetworkId("network");
+    SnapshotId snapshotId = new SnapshotId("snapshot");
+    AnswerId answerId = new AnswerId("answerId");
+    Answer answer = Answer.failureAnswer("message", null);
+
+    _storage.storeAnswer(networkId, snapshotId, answer, answerId);
+
+    assertThat(
+        _storage.loadAnswer(networkId, snapshotId, answerId),
+        equalTo(BatfishObjectMapper.writeString(answer)));
+    try (InputStream in = _storage.loadAnswerStream(networkId, snapshotId, answerId)) {
+      assertThat(
+          BatfishObjectMapper.mapper().readValue(in, Answer.class).getStatus(),
+          equalTo(AnswerStatus.FAILURE));
+    }
+
+    _thrown.expect(FileNotFoundException.class);
+    try (InputStream missing =
+        _storage.loadAnswerStream(networkId, snapshotId, new AnswerId("missing"))) {
+      fail();
+    }
+  }
+
   /**
    * Test that the answer is loaded from the legacy location if nothing is found in the primary
    * location
@@ -1065,4 +1123,45 @@ public final class FileBasedStorageTest {
     assertThat(dp2.getPrefixTracingInfoSummary(), hasEntry(equalTo("n"), hasKey("vp")));
     assertThat(dp2.getRibs().rowMap(), hasEntry(equalTo("n"), hasKey("vr")));
   }
+
+  /** Test that loading a dataplane only deserializes the nodes that are accessed. */
+  @Test
+  public void testDataplaneLazyLoad() throws IOException {
+    NetworkSnapshot snapshot =
+        new NetworkSnapshot(new NetworkId("network"), new SnapshotId("snapshot"));
+    DataPlane dp =
+        MockDataPlane.builder()
+            .setFibs(
+                ImmutableMap.of(
+                    "n1",
+                    ImmutableMap.of("v", MockFib.builder().build()),
+                    "n2",
+                    ImmutableMap.of("v", MockFib.builder().build())))
+            .setRibs(
+                ImmutableTable.<String, String, FinalMainRib>builder()
+                    .put("n1", "v", FinalMainRib.of())
+                    .put("n2", "v", FinalMainRib.of())
+                    .build())
+            .build();
+    _storage.storeDataPlane(dp, snapshot);
+
+    // Delete the stored data plane of n2, so that any attempt to deserialize it would fail.
+    String n2FileName = FileBasedStorage.toBase64("n2");
+    try (Stream<Path> paths = Files.walk(_containerDir.getParent())) {
+      Files.delete(
+          Iterables.getOnlyElement(
+              paths
+                  .filter(path -> path.getFileName().toString().equals(n2FileName))
+                  .collect(ImmutableList.toImmutableList())));
+    }
+
+    DataPlane dp2 = _storage.loadDataPlane(snapshot);
+    // Keys come from the index
+    assertThat(dp2.getRibs().rowKeySet(), containsInAnyOrder("n1", "n2"));
+    assertTrue(dp2.getRibs().contains("n2", "v"));
+    assertThat(dp2.getFibs().keySet(), containsInAnyOrder("n1", "n2"));
+    // Values are only loaded for n1
+    assertThat(dp2.getRibs().row("n1"), hasKey("v"));
+    assertThat(dp2.getFibs().get("n1"), hasKey("v"));
+  }
 }
@@ -0,0 +1,113 @@
+package org.batfish.storage;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSetMultimap;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+import org.batfish.common.Warnings;
+import org.batfish.common.util.BatfishObjectMapper;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.answers.ConvertConfigurationAnswerElement;
+import org.batfish.datamodel.answers.ConvertStatus;
+import org.junit.Test;
+
+/** Tests of {@link JsonStorageSerializer}. */
+public final class JsonStorageSerializerTest {
+
+  private static byte[] serialize(Serializable object) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new JsonStorageSerializer().serialize(object, out);
+    return out.toByteArray();
+  }
+
+  @Test
+  public void testSupports() {
+    JsonStorageSerializer serializer = new JsonStorageSerializer();
+    assertTrue(serializer.supports(ConvertConfigurationAnswerElement.class));
+    assertFalse(serializer.supports(Configuration.class));
+    assertFalse(serializer.supports(String.class));
+  }
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    ConvertConfigurationAnswerElement ccae = new ConvertConfigurationAnswerElement();
+    ccae.getConvertStatus().put("n1", ConvertStatus.WARNINGS);
+    ccae.getFileMap().put("configs/n1.cfg", "n1");
+    Warnings warnings = new Warnings(true, false, true);
+    warnings.redFlag("red flag");
+    warnings.unimplemented("unimplemented");
+    ccae.getWarnings().put("n1", warnings);
+
+    Serializable deserialized =
+        new JsonStorageSerializer().deserialize(new ByteArrayInputStream(serialize(ccae)));
+
+    assertThat(deserialized, instanceOf(ConvertConfigurationAnswerElement.class));
+    ConvertConfigurationAnswerElement actual = (ConvertConfigurationAnswerElement) deserialized;
+    assertThat(actual.getConvertStatus(), equalTo(ccae.getConvertStatus()));
+    assertThat(
+        ImmutableSetMultimap.copyOf(actual.getFileMap()),
+        equalTo(ImmutableSetMultimap.copyOf(ccae.getFileMap())));
+    assertThat(actual.getVersion(), equalTo(ccae.getVersion()));
+    // including which kinds of warnings are recorded, which the JSON form in answers leaves out
+    assertThat(actual.getWarnings(), equalTo(ccae.getWarnings()));
+    assertThat(
+        actual.getWarnings().get("n1").getSettings(),
+        equalTo(new Warnings.Settings(true, false, true)));
+    assertThat(
+        BatfishObjectMapper.writeString(actual), equalTo(BatfishObjectMapper.writeString(ccae)));
+  }
+
+  @Test
+  public void testDeserializeUnsupportedClass() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (DataOutputStream dos = new DataOutputStream(new LZ4FrameOutputStream(out))) {
+      dos.writeUTF(String.class.getName());
+      dos.write(BatfishObjectMapper.mapper().writeValueAsBytes("foo"));
+    }
+    assertThrows(
+        IOException.class,
+        () ->
+            new JsonStorageSerializer()
+                .deserialize(new ByteArrayInputStream(out.toByteArray())));
+  }
+
+  @Test
+  public void testNotRegisteredByDefault() {
+    assertThat(
+        StorageSerializers.load().serializerFor(ConvertConfigurationAnswerElement.class),
+        sameInstance(JavaStorageSerializer.INSTANCE));
+  }
+
+  @Test
+  public void testSelectedWhenRegistered() throws IOException {
+    StorageSerializers serializers =
+        new StorageSerializers(ImmutableList.of(new JsonStorageSerializer()));
+    assertThat(
+        serializers.serializerFor(ConvertConfigurationAnswerElement.class),
+        instanceOf(JsonStorageSerializer.class));
+    assertThat(
+        serializers.serializerFor(Configuration.class),
+        sameInstance(JavaStorageSerializer.INSTANCE));
+
+    ConvertConfigurationAnswerElement ccae = new ConvertConfigurationAnswerElement();
+    ccae.getWarnings().put("n1", new Warnings(false, true, false));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    serializers.serialize(ccae, out);
+    ConvertConfigurationAnswerElement actual =
+        (ConvertConfigurationAnswerElement)
+            serializers.deserialize(new ByteArrayInputStream(out.toByteArray()));
+    assertThat(actual.getWarnings(), equalTo(ccae.getWarnings()));
+  }
+}
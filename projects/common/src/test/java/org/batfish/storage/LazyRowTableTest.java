@@ -0,0 +1,75 @@
+package org.batfish.storage;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.anEmptyMap;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.ImmutableTable;
+import com.google.common.collect.Table;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+/** Tests of {@link LazyRowTable}. */
+public final class LazyRowTableTest {
+
+  private static final Map<String, Map<String, Integer>> ROWS =
+      ImmutableMap.of("a", ImmutableMap.of("x", 1, "y", 2), "b", ImmutableMap.of("y", 3));
+
+  private final List<String> _loaded = new ArrayList<>();
+
+  private LazyRowTable<Integer> table() {
+    return new LazyRowTable<>(
+        ImmutableSortedMap.of(
+            "a", ImmutableSortedSet.of("x", "y"), "b", ImmutableSortedSet.of("y")),
+        row -> {
+          _loaded.add(row);
+          return ROWS.get(row);
+        });
+  }
+
+  @Test
+  public void testKeyQueriesDoNotLoad() {
+    LazyRowTable<Integer> table = table();
+    assertThat(table.rowKeySet(), contains("a", "b"));
+    assertThat(table.columnKeySet(), containsInAnyOrder("x", "y"));
+    assertTrue(table.contains("a", "x"));
+    assertFalse(table.contains("b", "x"));
+    assertTrue(table.containsRow("b"));
+    assertFalse(table.containsRow("c"));
+    assertTrue(table.containsColumn("x"));
+    assertThat(table.size(), equalTo(3));
+    assertThat(_loaded, empty());
+  }
+
+  @Test
+  public void testRowLoadsOnlyThatRow() {
+    LazyRowTable<Integer> table = table();
+    assertThat(table.row("b"), equalTo(ImmutableMap.of("y", 3)));
+    assertThat(table.get("b", "y"), equalTo(3));
+    assertThat(table.get("b", "x"), nullValue());
+    assertThat(table.row("c"), anEmptyMap());
+    assertThat(_loaded, contains("b", "b"));
+  }
+
+  @Test
+  public void testEquals() {
+    Table<String, String, Integer> expected =
+        ImmutableTable.<String, String, Integer>builder()
+            .put("a", "x", 1)
+            .put("a", "y", 2)
+            .put("b", "y", 3)
+            .build();
+    assertThat(table(), equalTo(expected));
+  }
+}
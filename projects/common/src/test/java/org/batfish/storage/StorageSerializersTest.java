@@ -0,0 +1,137 @@
+package org.batfish.storage;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.collect.ImmutableList;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.zip.GZIPOutputStream;
+import javax.annotation.Nonnull;
+import org.apache.commons.lang3.SerializationUtils;
+import org.junit.Test;
+
+/** Tests of {@link StorageSerializers}. */
+public final class StorageSerializersTest {
+
+  /** Stores {@link String strings} as UTF-8. */
+  private static final class StringSerializer implements StorageSerializer {
+    private final int _version;
+
+    private StringSerializer(int version) {
+      _version = version;
+    }
+
+    @Override
+    public @Nonnull String getName() {
+      return "string";
+    }
+
+    @Override
+    public int getVersion() {
+      return _version;
+    }
+
+    @Override
+    public boolean supports(Class<?> c) {
+      return c == String.class;
+    }
+
+    @Override
+    public void serialize(Serializable object, OutputStream out) throws IOException {
+      new DataOutputStream(out).writeUTF((String) object);
+    }
+
+    @Override
+    public @Nonnull Serializable deserialize(InputStream in) throws IOException {
+      return new DataInputStream(in).readUTF();
+    }
+  }
+
+  private static byte[] serialize(StorageSerializers serializers, Serializable object)
+      throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    serializers.serialize(object, out);
+    return out.toByteArray();
+  }
+
+  private static Serializable deserialize(StorageSerializers serializers, byte[] bytes)
+      throws IOException {
+    return serializers.deserialize(new ByteArrayInputStream(bytes));
+  }
+
+  @Test
+  public void testSerializerFor() {
+    StorageSerializer string = new StringSerializer(1);
+    StorageSerializers serializers = new StorageSerializers(ImmutableList.of(string));
+    assertThat(serializers.serializerFor(String.class), sameInstance(string));
+    assertThat(
+        serializers.serializerFor(Integer.class), sameInstance(JavaStorageSerializer.INSTANCE));
+  }
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    StorageSerializers serializers =
+        new StorageSerializers(ImmutableList.of(new StringSerializer(1)));
+    byte[] bytes = serialize(serializers, "foo");
+    assertThat(bytes[0], equalTo(StorageSerializers.MAGIC[0]));
+    assertThat(deserialize(serializers, bytes), equalTo("foo"));
+
+    // unsupported classes use Java serialization without a header
+    ArrayList<Integer> list = new ArrayList<>(ImmutableList.of(1, 2));
+    assertThat(deserialize(serializers, serialize(serializers, list)), equalTo(list));
+  }
+
+  @Test
+  public void testFallbackToJava() throws IOException {
+    StorageSerializers serializers =
+        new StorageSerializers(ImmutableList.of(new StringSerializer(1)));
+
+    // written before any serializer was registered
+    byte[] legacy = serialize(new StorageSerializers(ImmutableList.of()), "foo");
+    assertThat(deserialize(serializers, legacy), equalTo("foo"));
+
+    // uncompressed
+    assertThat(deserialize(serializers, SerializationUtils.serialize("foo")), equalTo("foo"));
+
+    // gzip
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (GZIPOutputStream gos = new GZIPOutputStream(out)) {
+      SerializationUtils.serialize("foo", gos);
+    }
+    assertThat(deserialize(serializers, out.toByteArray()), equalTo("foo"));
+  }
+
+  @Test
+  public void testVersionMismatch() throws IOException {
+    byte[] bytes =
+        serialize(new StorageSerializers(ImmutableList.of(new StringSerializer(1))), "foo");
+    IOException e =
+        assertThrows(
+            IOException.class,
+            () ->
+                deserialize(
+                    new StorageSerializers(ImmutableList.of(new StringSerializer(2))), bytes));
+    assertThat(e.getMessage(), containsString("version 1 of serializer 'string'"));
+  }
+
+  @Test
+  public void testUnregisteredSerializer() throws IOException {
+    byte[] bytes =
+        serialize(new StorageSerializers(ImmutableList.of(new StringSerializer(1))), "foo");
+    IOException e =
+        assertThrows(
+            IOException.class, () -> deserialize(new StorageSerializers(ImmutableList.of()), bytes));
+    assertThat(e.getMessage(), containsString("'string' is not registered"));
+  }
+}
@@ -21,6 +21,7 @@ import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.DataPlane;
 import org.batfish.datamodel.SnapshotMetadata;
 import org.batfish.datamodel.Topology;
+import org.batfish.datamodel.answers.Answer;
 import org.batfish.datamodel.answers.AnswerMetadata;
 import org.batfish.datamodel.answers.ConvertConfigurationAnswerElement;
 import org.batfish.datamodel.answers.ParseEnvironmentBgpTablesAnswerElement;
@@ -148,6 +149,12 @@ public class TestStorageProvider implements StorageProvider {
     throw new UnsupportedOperationException("no implementation for generated method");
   }
 
+  @Override
+  public void storeAnswer(NetworkId network, SnapshotId snapshot, Answer answer, AnswerId answerId)
+      throws IOException {
+    throw new UnsupportedOperationException("no implementation for generated method");
+  }
+
   @Override
   public void storeAnswerMetadata(
       NetworkId network, SnapshotId snapshot, AnswerMetadata answerMetadata, AnswerId answerId)
@@ -161,6 +168,12 @@ public class TestStorageProvider implements StorageProvider {
     throw new UnsupportedOperationException("no implementation for generated method");
   }
 
+  @Override
+  public InputStream loadAnswerStream(NetworkId network, SnapshotId snapshot, AnswerId answerId)
+      throws FileNotFoundException, IOException {
+    throw new UnsupportedOperationException("no implementation for generated method");
+  }
+
   @Override
   public AnswerMetadata loadAnswerMetadata(
       NetworkId network, SnapshotId snapshot, AnswerId answerId)
@@ -496,6 +509,12 @@ public class TestStorageProvider implements StorageProvider {
     throw new UnsupportedOperationException();
   }
 
+  @Override
+  public @Nonnull Optional<Map<String, String>> loadConfigurationHashes(NetworkSnapshot snapshot)
+      throws IOException {
+    throw new UnsupportedOperationException();
+  }
+
   @Override
   public @Nonnull Stream<String> listInputEnvironmentBgpTableKeys(NetworkSnapshot snapshot)
       throws IOException {
@@ -0,0 +1,190 @@
+package org.batfish.coordinator;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntBiFunction;
+import java.util.stream.Stream;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.annotation.concurrent.GuardedBy;
+import org.batfish.common.BfConsts.TaskStatus;
+import org.batfish.common.Task;
+import org.batfish.identifiers.NetworkId;
+import org.batfish.identifiers.SnapshotId;
+
+/**
+ * {@link WorkExecutor} that distributes work across several workers.
+ *
+ * <p>Workers cache the data planes of the snapshots they recently worked on, so work is first
+ * offered to the workers that likely have a snapshot of the work cached. If none of them accepts
+ * it, the remaining workers are tried from least to most loaded, where load is the number of tasks
+ * submitted to a worker that have not yet terminated.
+ *
+ * <p>The snapshots a worker has cached are tracked the way the worker's data plane cache bounds
+ * them: each snapshot weighs its number of nodes, capped at half the node budget of the cache, and
+ * the most recently used snapshots are kept while their total weight fits in the budget.
+ */
+@ParametersAreNonnullByDefault
+public final class AffinityWorkExecutor implements WorkExecutor {
+
+  private static final class Worker {
+    private final @Nonnull WorkExecutor _executor;
+
+    /** Weights of recently used snapshots, least recently used first. */
+    @GuardedBy("AffinityWorkExecutor.this")
+    private final @Nonnull Map<SnapshotId, Integer> _recentSnapshots = new LinkedHashMap<>();
+
+    @GuardedBy("AffinityWorkExecutor.this")
+    private int _recentWeight;
+
+    @GuardedBy("AffinityWorkExecutor.this")
+    private int _load;
+
+    private Worker(WorkExecutor executor) {
+      _executor = executor;
+    }
+  }
+
+  /**
+   * Creates an executor distributing work across {@code workers}.
+   *
+   * @param cachedNodes the node budget of the data plane cache of each worker
+   * @param snapshotNodes returns the number of nodes in a snapshot
+   */
+  public AffinityWorkExecutor(
+      List<WorkExecutor> workers,
+      int cachedNodes,
+      ToIntBiFunction<NetworkId, SnapshotId> snapshotNodes) {
+    checkArgument(!workers.isEmpty(), "At least one worker is required");
+    checkArgument(cachedNodes >= 0, "Cache budget must be non-negative: %s", cachedNodes);
+    _workers = workers.stream().map(Worker::new).collect(ImmutableList.toImmutableList());
+    _cachedNodes = cachedNodes;
+    _snapshotNodes = snapshotNodes;
+  }
+
+  @Override
+  public SubmissionResult submit(QueuedWork work) {
+    for (Worker worker : candidates(work)) {
+      SubmissionResult result = worker._executor.submit(work);
+      switch (result.getType()) {
+        case SUCCESS -> {
+          recordAssignment(worker, weights(work));
+          return SubmissionResult.success(trackTermination(worker, result.getTaskHandle()));
+        }
+        case ERROR -> {
+          return result;
+        }
+        case BUSY -> {}
+      }
+    }
+    return SubmissionResult.busy();
+  }
+
+  @Override
+  public @Nonnull List<Map<String, Map<String, Long>>> getWorkerCacheStats() {
+    return _workers.stream()
+        .flatMap(worker -> worker._executor.getWorkerCacheStats().stream())
+        .collect(ImmutableList.toImmutableList());
+  }
+
+  /** Returns the workers to offer {@code work} to, in order of preference. */
+  private synchronized @Nonnull List<Worker> candidates(QueuedWork work) {
+    List<SnapshotId> snapshots = snapshots(work);
+    return _workers.stream()
+        .sorted(
+            Comparator.comparing((Worker w) -> !hasAffinity(w, snapshots))
+                .thenComparing(w -> w._load))
+        .collect(ImmutableList.toImmutableList());
+  }
+
+  /** Returns the number of unterminated tasks submitted to the worker at {@code index}. */
+  @VisibleForTesting
+  synchronized int getLoad(int index) {
+    return _workers.get(index)._load;
+  }
+
+  private static boolean hasAffinity(Worker worker, List<SnapshotId> snapshots) {
+    return snapshots.stream().anyMatch(worker._recentSnapshots::containsKey);
+  }
+
+  private static @Nonnull List<SnapshotId> snapshots(QueuedWork work) {
+    WorkDetails details = work.getDetails();
+    SnapshotId reference = details.isDifferential() ? details.getReferenceSnapshotId() : null;
+    return Stream.of(details.getSnapshotId(), reference)
+        .filter(s -> s != null)
+        .collect(ImmutableList.toImmutableList());
+  }
+
+  /**
+   * Returns the weights of the snapshots of {@code work} in a worker's data plane cache. Computed
+   * on each assignment, since the size of a snapshot is only known once it is parsed.
+   */
+  private @Nonnull Map<SnapshotId, Integer> weights(QueuedWork work) {
+    NetworkId network = work.getDetails().getNetworkId();
+    int maxWeight = Math.max(1, _cachedNodes / 2);
+    return snapshots(work).stream()
+        .distinct()
+        .collect(
+            ImmutableMap.toImmutableMap(
+                s -> s, s -> Math.min(_snapshotNodes.applyAsInt(network, s), maxWeight)));
+  }
+
+  private synchronized void recordAssignment(Worker worker, Map<SnapshotId, Integer> weights) {
+    worker._load++;
+    weights.forEach(
+        (snapshot, weight) -> {
+          // re-insert to mark as most recently used
+          Integer oldWeight = worker._recentSnapshots.remove(snapshot);
+          if (oldWeight != null) {
+            worker._recentWeight -= oldWeight;
+          }
+          worker._recentSnapshots.put(snapshot, weight);
+          worker._recentWeight += weight;
+        });
+    Iterator<Integer> leastRecent = worker._recentSnapshots.values().iterator();
+    while (worker._recentWeight > _cachedNodes) {
+      worker._recentWeight -= leastRecent.next();
+      leastRecent.remove();
+    }
+  }
+
+  private synchronized void recordTermination(Worker worker) {
+    worker._load--;
+  }
+
+  /** Wraps {@code handle} so that {@code worker}'s load is decreased when the task terminates. */
+  private @Nonnull TaskHandle trackTermination(Worker worker, TaskHandle handle) {
+    return new TaskHandle() {
+      private boolean _terminated;
+
+      @Override
+      public synchronized @Nonnull Task checkTask() {
+        Task task = handle.checkTask();
+        if (!_terminated && isDone(task.getStatus())) {
+          _terminated = true;
+          recordTermination(worker);
+        }
+        return task;
+      }
+    };
+  }
+
+  /** Returns whether the worker is no longer running a task with the given status. */
+  private static boolean isDone(@Nullable TaskStatus status) {
+    // Unknown means the worker lost track of the task; it will be rescheduled.
+    return status == null || status.isTerminated() || status == TaskStatus.Unknown;
+  }
+
+  private final int _cachedNodes;
+  private final @Nonnull ToIntBiFunction<NetworkId, SnapshotId> _snapshotNodes;
+  private final @Nonnull List<Worker> _workers;
+}
@@ -42,6 +42,11 @@ public class BatfishWorkerServiceWorkExecutor implements WorkExecutor {
     }
   }
 
+  @Override
+  public @Nonnull List<Map<String, Map<String, Long>>> getWorkerCacheStats() {
+    return ImmutableList.of(_batfishWorkerService.getCacheStats());
+  }
+
   @VisibleForTesting
   @Nonnull
   SubmissionResult doSubmit(QueuedWork work) {
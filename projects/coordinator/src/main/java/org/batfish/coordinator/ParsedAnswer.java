@@ -0,0 +1,137 @@
+package org.batfish.coordinator;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.IntStream;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.common.ColumnFilter;
+import org.batfish.common.ColumnSortOption;
+import org.batfish.datamodel.answers.Answer;
+import org.batfish.datamodel.answers.AnswerElement;
+import org.batfish.datamodel.table.Row;
+import org.batfish.datamodel.table.TableAnswerElement;
+
+/**
+ * A stored {@link Answer} parsed by the coordinator. If it is a table answer, remembers which rows
+ * match recently requested filters and the order of rows for recently requested sort orders, so
+ * that paging through the answer does not filter and sort all rows for each page.
+ *
+ * <p>Must not be modified once built, since it is shared by concurrent requests.
+ */
+@ParametersAreNonnullByDefault
+final class ParsedAnswer {
+
+  /** The maximum number of filter results, and separately sort orders, remembered per answer. */
+  private static final int MAX_INDEXES = 8;
+
+  /**
+   * Creates a parsed answer from {@code answer}, whose stored form is {@code storedBytes} long.
+   */
+  ParsedAnswer(Answer answer, long storedBytes) {
+    _answer = answer;
+    _storedBytes = storedBytes;
+    List<AnswerElement> elements = answer.getAnswerElements();
+    if (!elements.isEmpty() && elements.get(0) instanceof TableAnswerElement) {
+      _table = (TableAnswerElement) elements.get(0);
+      _rows = ImmutableList.copyOf(_table.getRowsList());
+    } else {
+      _table = null;
+      _rows = ImmutableList.of();
+    }
+    _matchingRows = CacheBuilder.newBuilder().maximumSize(MAX_INDEXES).build();
+    _sortedRows = CacheBuilder.newBuilder().maximumSize(MAX_INDEXES).build();
+  }
+
+  /** The parsed answer. */
+  @Nonnull
+  Answer getAnswer() {
+    return _answer;
+  }
+
+  /** The first answer element, if it is a table; otherwise {@code null}. */
+  @Nullable
+  TableAnswerElement getTable() {
+    return _table;
+  }
+
+  /** The rows of {@link #getTable()}, or an empty list if the answer is not a table. */
+  @Nonnull
+  List<Row> getRows() {
+    return _rows;
+  }
+
+  /**
+   * The weight of this answer in a cache: the size of the stored answer in kibibytes, rounded up.
+   * The stored size is a proxy for the retained size of table and non-table answers alike.
+   */
+  int getWeight() {
+    return (int) Math.min(Integer.MAX_VALUE, (_storedBytes + 1023) / 1024);
+  }
+
+  /** Returns the ids of the rows that match all of {@code filters}. Must not be modified. */
+  @Nonnull
+  BitSet getMatchingRows(List<ColumnFilter> filters) {
+    return get(
+        _matchingRows,
+        ImmutableSet.copyOf(filters),
+        () -> {
+          BitSet matching = new BitSet(_rows.size());
+          for (int rowId = 0; rowId < _rows.size(); rowId++) {
+            Row row = _rows.get(rowId);
+            if (filters.stream().allMatch(filter -> filter.matches(row))) {
+              matching.set(rowId);
+            }
+          }
+          return matching;
+        });
+  }
+
+  /**
+   * Returns the ids of all rows, sorted stably by {@code comparator}, which must be the comparator
+   * of {@code sortOrder}. Must not be modified.
+   */
+  @Nonnull
+  int[] getSortedRows(List<ColumnSortOption> sortOrder, Comparator<Row> comparator) {
+    return get(
+        _sortedRows,
+        ImmutableList.copyOf(sortOrder),
+        () ->
+            IntStream.range(0, _rows.size())
+                .boxed()
+                .sorted(
+                    Comparator.comparing((Integer rowId) -> _rows.get(rowId), comparator)
+                        .thenComparingInt(rowId -> rowId))
+                .mapToInt(Integer::intValue)
+                .toArray());
+  }
+
+  private static <K, V> V get(Cache<K, V> cache, K key, Callable<V> loader) {
+    try {
+      return cache.get(key, loader);
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      // surface errors of filters and comparators, e.g. on bad column names, as is
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  private final @Nonnull Answer _answer;
+  private final long _storedBytes;
+  private final @Nullable TableAnswerElement _table;
+  private final @Nonnull List<Row> _rows;
+  private final @Nonnull Cache<Set<ColumnFilter>, BitSet> _matchingRows;
+  private final @Nonnull Cache<List<ColumnSortOption>, int[]> _sortedRows;
+}
@@ -0,0 +1,124 @@
+package org.batfish.coordinator;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.common.NetworkSnapshot;
+import org.batfish.identifiers.AnswerId;
+import org.batfish.identifiers.NetworkId;
+import org.batfish.identifiers.SnapshotId;
+
+/**
+ * A cache of stored answers parsed by the coordinator, bounded by the total size of the stored
+ * answers.
+ *
+ * <p>Answers are stored by workers, so entries must be invalidated via {@link
+ * #invalidate(NetworkId, SnapshotId)} when work on a snapshot completes. Each snapshot has a
+ * generation that is part of the keys of its entries and is incremented on invalidation, so that an
+ * answer still being loaded during an invalidation is not served afterwards.
+ */
+@ParametersAreNonnullByDefault
+final class ParsedAnswerCache {
+
+  ParsedAnswerCache(long maxBytes) {
+    _cache =
+        CacheBuilder.newBuilder()
+            .maximumWeight(maxBytes / 1024)
+            .<Key, ParsedAnswer>weigher((key, parsed) -> parsed.getWeight())
+            .build();
+  }
+
+  /**
+   * Returns the parsed answer with the given ids, parsing it with {@code loader} if it is not
+   * cached.
+   */
+  @Nonnull
+  ParsedAnswer get(
+      NetworkId networkId, SnapshotId snapshotId, AnswerId answerId, Callable<ParsedAnswer> loader)
+      throws IOException {
+    NetworkSnapshot snapshot = new NetworkSnapshot(networkId, snapshotId);
+    Key key = new Key(snapshot, getGeneration(snapshot), answerId);
+    ParsedAnswer parsed;
+    try {
+      parsed = _cache.get(key, loader);
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      } else if (cause instanceof UncheckedIOException) {
+        throw ((UncheckedIOException) cause).getCause();
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IOException(cause);
+    }
+    if (getGeneration(snapshot) != key._generation) {
+      // invalidated while loading, so the answer may be stale for later requests
+      _cache.invalidate(key);
+    }
+    return parsed;
+  }
+
+  /** Drops all cached answers of the given snapshot, whose answers may have been rewritten. */
+  void invalidate(NetworkId networkId, SnapshotId snapshotId) {
+    NetworkSnapshot snapshot = new NetworkSnapshot(networkId, snapshotId);
+    // first, so that answers being loaded are dropped by their loaders
+    _generations.merge(snapshot, 1L, Long::sum);
+    _cache.asMap().keySet().removeIf(key -> key._snapshot.equals(snapshot));
+  }
+
+  private long getGeneration(NetworkSnapshot snapshot) {
+    return _generations.getOrDefault(snapshot, 0L);
+  }
+
+  @VisibleForTesting
+  long size() {
+    return _cache.size();
+  }
+
+  private static final class Key {
+    private final @Nonnull NetworkSnapshot _snapshot;
+    private final long _generation;
+    private final @Nonnull AnswerId _answerId;
+
+    private Key(NetworkSnapshot snapshot, long generation, AnswerId answerId) {
+      _snapshot = snapshot;
+      _generation = generation;
+      _answerId = answerId;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+      if (this == o) {
+        return true;
+      } else if (!(o instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) o;
+      return _snapshot.equals(key._snapshot)
+          && _generation == key._generation
+          && _answerId.equals(key._answerId);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(_snapshot, _generation, _answerId);
+    }
+  }
+
+  private final @Nonnull Cache<Key, ParsedAnswer> _cache;
+
+  /** Generations of the snapshots that were invalidated at least once. */
+  private final @Nonnull Map<NetworkSnapshot, Long> _generations = new ConcurrentHashMap<>();
+}
@@ -47,6 +47,10 @@ public class QueuedWork {
     return _assignedHandle;
   }
 
+  public Date getDateAssigned() {
+    return _dateAssigned;
+  }
+
   public Date getDateCreated() {
     return _dateCreated;
   }
@@ -1,5 +1,9 @@
 package org.batfish.coordinator;
 
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nonnull;
 import javax.annotation.ParametersAreNonnullByDefault;
 
 /** Entity that executes work items to be performed work to some abstract batfish worker. */
@@ -8,4 +12,12 @@ public interface WorkExecutor {
 
   /** Attempt to assign work and return the result of the attempt. */
   SubmissionResult submit(QueuedWork work);
+
+  /**
+   * Returns the cache statistics of each worker this executor submits work to, in the format of
+   * {@link org.batfish.common.BatfishWorkerService#getCacheStats()}.
+   */
+  default @Nonnull List<Map<String, Map<String, Long>>> getWorkerCacheStats() {
+    return ImmutableList.of();
+  }
 }
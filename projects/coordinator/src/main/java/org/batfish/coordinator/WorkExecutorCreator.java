@@ -1,6 +1,5 @@
 package org.batfish.coordinator;
 
-import java.util.function.BiFunction;
 import org.batfish.common.BatfishLogger;
 import org.batfish.coordinator.config.Settings;
 
@@ -9,4 +8,12 @@ import org.batfish.coordinator.config.Settings;
  * org.batfish.common.BatfishLogger} and {@link org.batfish.coordinator.config.Settings}.
  */
 @FunctionalInterface
-public interface WorkExecutorCreator extends BiFunction<BatfishLogger, Settings, WorkExecutor> {}
+public interface WorkExecutorCreator {
+
+  /**
+   * Creates the {@link WorkExecutor} for the worker at index {@code worker}, ranging from 0 to the
+   * configured number of workers (exclusive). Executors created for distinct indices must submit
+   * work to distinct workers.
+   */
+  WorkExecutor create(BatfishLogger logger, Settings settings, int worker);
+}
@@ -15,12 +15,15 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Comparators;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedSet;
-import com.google.common.collect.Maps;
+import com.google.common.collect.MinMaxPriorityQueue;
+import com.google.common.io.CountingInputStream;
 import com.google.errorprone.annotations.MustBeClosed;
 import java.io.ByteArrayInputStream;
 import java.io.File;
@@ -38,9 +41,13 @@ import java.nio.file.attribute.FileAttribute;
 import java.time.Instant;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
@@ -60,6 +67,7 @@ import java.util.concurrent.ThreadPoolExecutor.DiscardOldestPolicy;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -86,6 +94,7 @@ import org.batfish.common.util.UnzipUtility;
 import org.batfish.common.util.WorkItemBuilder;
 import org.batfish.coordinator.WorkDetails.WorkType;
 import org.batfish.coordinator.WorkQueueMgr.QueueType;
+import org.batfish.coordinator.WorkQueueMgr.QueueWaitStats;
 import org.batfish.coordinator.config.Settings;
 import org.batfish.coordinator.id.IdManager;
 import org.batfish.coordinator.resources.ForkSnapshotBean;
@@ -187,6 +196,8 @@ public class WorkMgr extends AbstractCoordinator {
   private static final Set<String> WELL_KNOWN_NETWORK_FILENAMES =
       ImmutableSet.of(BfConsts.RELPATH_REFERENCE_LIBRARY_PATH, BfConsts.RELPATH_NODE_ROLES_PATH);
 
+  private static final int MAX_CACHED_SNAPSHOT_NODE_COUNTS = 1024;
+
   private static final String SNAPSHOT_PACKAGING_INSTRUCTIONS_URL =
       "https://batfish.readthedocs.io/en/latest/notebooks/interacting.html#Packaging-snapshot-data";
 
@@ -196,6 +207,11 @@ public class WorkMgr extends AbstractCoordinator {
   private WorkQueueMgr _workQueueMgr;
   private final StorageProvider _storage;
   private final ExecutorService _gcExecutor;
+  private final ParsedAnswerCache _parsedAnswers;
+
+  /** Number of nodes of recently assigned snapshots, see {@link #countNodes}. */
+  private final Cache<SnapshotId, Integer> _snapshotNodeCounts =
+      CacheBuilder.newBuilder().maximumSize(MAX_CACHED_SNAPSHOT_NODE_COUNTS).build();
 
   public WorkMgr(
       Settings settings,
@@ -213,7 +229,57 @@ public class WorkMgr extends AbstractCoordinator {
     _gcExecutor =
         new ThreadPoolExecutor(
             0, 1, 0L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(1), new DiscardOldestPolicy());
-    _workExecutor = workExecutorCreator.apply(logger, settings);
+    _workExecutor = createWorkExecutor(settings, logger, workExecutorCreator);
+    _parsedAnswers = new ParsedAnswerCache(settings.getMaxCachedAnswerBytes());
+  }
+
+  /**
+   * Creates the {@link WorkExecutor} for the configured number of workers. With several workers,
+   * {@code workExecutorCreator} is called once per worker index and work is routed by snapshot
+   * affinity.
+   */
+  private @Nonnull WorkExecutor createWorkExecutor(
+      Settings settings, BatfishLogger logger, WorkExecutorCreator workExecutorCreator) {
+    int workers = settings.getWorkers();
+    checkArgument(workers >= 1, "At least one worker is required: %s", workers);
+    if (workers == 1) {
+      return workExecutorCreator.create(logger, settings, 0);
+    }
+    return new AffinityWorkExecutor(
+        IntStream.range(0, workers)
+            .mapToObj(i -> workExecutorCreator.create(logger, settings, i))
+            .collect(ImmutableList.toImmutableList()),
+        settings.getWorkerCachedDataPlaneNodes(),
+        this::countNodes);
+  }
+
+  /**
+   * Returns the number of nodes in the given snapshot, or 1 if it is not known yet (e.g., before
+   * the snapshot is parsed).
+   */
+  private int countNodes(NetworkId networkId, SnapshotId snapshotId) {
+    Integer cached = _snapshotNodeCounts.getIfPresent(snapshotId);
+    if (cached != null) {
+      return cached;
+    }
+    try {
+      Topology topology =
+          BatfishObjectMapper.mapper()
+              .readValue(_storage.loadPojoTopology(networkId, snapshotId), Topology.class);
+      int nodes = Math.max(1, topology.getNodes().size());
+      // The nodes of a snapshot are fixed by its uploaded input, so the count can be cached once
+      // the snapshot is parsed.
+      _snapshotNodeCounts.put(snapshotId, nodes);
+      return nodes;
+    } catch (IOException e) {
+      return 1;
+    }
+  }
+
+  @VisibleForTesting
+  @Nonnull
+  WorkExecutor getWorkExecutor() {
+    return _workExecutor;
   }
 
   @VisibleForTesting
@@ -268,6 +334,11 @@ public class WorkMgr extends AbstractCoordinator {
         } catch (Exception e) {
           _logger.errorf("exception: %s\n", Throwables.getStackTraceAsString(e));
         }
+        if (work.getStatus().isTerminated()) {
+          // the work may have stored new answers for its snapshot
+          _parsedAnswers.invalidate(
+              work.getDetails().getNetworkId(), work.getDetails().getSnapshotId());
+        }
       }
     } catch (Exception e) {
       _logger.errorf("Got exception in checkTasks: %s\n", Throwables.getStackTraceAsString(e));
@@ -429,10 +500,68 @@ public class WorkMgr extends AbstractCoordinator {
   public @Nullable Answer getAnswer(
       String network, String snapshot, String question, @Nullable String referenceSnapshot)
       throws IOException {
-    String ansString = loadAnswer(network, snapshot, question, referenceSnapshot);
-    return ansString == null
-        ? null
-        : BatfishObjectMapper.mapper().readValue(ansString, Answer.class);
+    // Parse the answer straight from storage, since the text of a large answer can take several
+    // times the memory of the parsed answer.
+    return loadAnswer(
+        network,
+        snapshot,
+        question,
+        referenceSnapshot,
+        (networkId, snapshotId, answerId) -> {
+          try (InputStream answerStream =
+              _storage.loadAnswerStream(networkId, snapshotId, answerId)) {
+            return BatfishObjectMapper.mapper().readValue(answerStream, Answer.class);
+          }
+        });
+  }
+
+  /**
+   * Get the answer for the specified question, with the specified filtering options applied.
+   * Returns {@code null} if the question is not answered.
+   *
+   * <p>Parsed answers are cached, along with the results of filtering and sorting their rows, so
+   * that paging through a large answer does not parse, filter, and sort it for every page.
+   *
+   * @throws IllegalArgumentException if the network, question, or snapshots cannot be found
+   * @throws IOException if there are any other errors
+   */
+  public @Nullable Answer getFilteredAnswer(
+      String network,
+      String snapshot,
+      String question,
+      @Nullable String referenceSnapshot,
+      AnswerRowsOptions options)
+      throws IOException {
+    ParsedAnswer parsed =
+        loadAnswer(
+            network,
+            snapshot,
+            question,
+            referenceSnapshot,
+            (networkId, snapshotId, answerId) ->
+                _parsedAnswers.get(
+                    networkId,
+                    snapshotId,
+                    answerId,
+                    () -> {
+                      try (CountingInputStream answerStream =
+                          new CountingInputStream(
+                              _storage.loadAnswerStream(networkId, snapshotId, answerId))) {
+                        Answer answer =
+                            BatfishObjectMapper.mapper().readValue(answerStream, Answer.class);
+                        return new ParsedAnswer(answer, answerStream.getCount());
+                      }
+                    }));
+    if (parsed == null) {
+      return null;
+    }
+    if (parsed.getTable() == null) {
+      return parsed.getAnswer();
+    }
+    Answer answer = new Answer();
+    answer.setStatus(parsed.getAnswer().getStatus());
+    answer.addAnswerElement(processAnswerTable2(parsed, options));
+    return answer;
   }
 
   /** Get the answer string for the specified question. */
@@ -466,6 +595,27 @@ public class WorkMgr extends AbstractCoordinator {
   private @Nullable String loadAnswer(
       String network, String snapshot, String question, @Nullable String referenceSnapshot)
       throws IOException {
+    return loadAnswer(network, snapshot, question, referenceSnapshot, _storage::loadAnswer);
+  }
+
+  /** Loads a stored answer. */
+  @FunctionalInterface
+  private interface AnswerLoader<T> {
+    @Nonnull
+    T load(NetworkId networkId, SnapshotId snapshotId, AnswerId answerId) throws IOException;
+  }
+
+  /**
+   * Loads the answer for the specified question using {@code loader}. Returns {@code null} if the
+   * question is not answered.
+   */
+  private @Nullable <T> T loadAnswer(
+      String network,
+      String snapshot,
+      String question,
+      @Nullable String referenceSnapshot,
+      AnswerLoader<T> loader)
+      throws IOException {
     Optional<NetworkId> networkIdOpt = _idManager.getNetworkId(network);
     checkArgument(networkIdOpt.isPresent(), "Missing network: '%s'", network);
     NetworkId networkId = networkIdOpt.get();
@@ -496,7 +646,7 @@ public class WorkMgr extends AbstractCoordinator {
     if (!_storage.hasAnswerMetadata(networkId, snapshotId, answerId)) {
       return null;
     }
-    return _storage.loadAnswer(networkId, snapshotId, answerId);
+    return loader.load(networkId, snapshotId, answerId);
   }
 
   /**
@@ -711,6 +861,21 @@ public class WorkMgr extends AbstractCoordinator {
     return _workQueueMgr.getMatchingWork(workItem, qType);
   }
 
+  /** Returns the number of work items in the queue of the given type. */
+  public long getQueueLength(QueueType qType) {
+    return _workQueueMgr.getLength(qType);
+  }
+
+  /** Returns statistics on how long assigned work waited in the queue. */
+  public @Nonnull QueueWaitStats getQueueWaitStats() {
+    return _workQueueMgr.getQueueWaitStats();
+  }
+
+  /** Returns the cache statistics of each worker, see {@link WorkExecutor#getWorkerCacheStats}. */
+  public @Nonnull List<Map<String, Map<String, Long>>> getWorkerCacheStats() {
+    return _workExecutor.getWorkerCacheStats();
+  }
+
   public QueuedWork getWork(UUID workItemId) {
     return _workQueueMgr.getWork(workItemId);
   }
@@ -1586,10 +1751,78 @@ public class WorkMgr extends AbstractCoordinator {
   @VisibleForTesting
   @Nonnull
   TableView processAnswerTable2(TableAnswerElement rawTable, AnswerRowsOptions options) {
-    Map<Row, Integer> rowIds = Maps.newIdentityHashMap();
-    CommonUtil.forEachWithIndex(rawTable.getRowsList(), (i, row) -> rowIds.put(row, i));
     Map<String, ColumnMetadata> rawColumnMap = rawTable.getMetadata().toColumnMap();
+    checkColumns(rawColumnMap, options);
+
+    // Sort stably: rows that compare equal stay in answer order.
+    Comparator<TableViewRow> comparator =
+        options.getSortOrder().isEmpty()
+            ? null
+            : comparing(TableViewRow::getRow, buildComparator(rawColumnMap, options.getSortOrder()))
+                .thenComparingInt(TableViewRow::getId);
+
+    // Filter in a single pass over the answer, only keeping rows that can end up in the requested
+    // page. Unless rows must be made unique, that is at most the first (or, when sorting, the
+    // least) rowOffset + maxRows of them.
+    long pageEnd = (long) options.getRowOffset() + options.getMaxRows();
+    boolean bounded = !options.getUniqueRows() && pageEnd < rawTable.getRows().size();
+    Collection<TableViewRow> candidates =
+        bounded && comparator != null
+            ? MinMaxPriorityQueue.orderedBy(comparator).maximumSize((int) pageEnd).create()
+            : new ArrayList<>();
+    int numResults = 0;
+    Iterator<Row> rows = rawTable.getRows().iterator();
+    for (int rowId = 0; rows.hasNext(); rowId++) {
+      Row row = rows.next();
+      if (!options.getFilters().stream().allMatch(filter -> filter.matches(row))) {
+        continue;
+      }
+      numResults++;
+      if (bounded && comparator == null && candidates.size() >= pageEnd) {
+        continue;
+      }
+      candidates.add(new TableViewRow(rowId, row));
+    }
 
+    Stream<TableViewRow> rowStream = candidates.stream();
+    if (comparator != null) {
+      // sort using specified sort order
+      rowStream = rowStream.sorted(comparator);
+    }
+    return toTableView(rawTable, rawColumnMap, options, rowStream, numResults);
+  }
+
+  /**
+   * Like {@link #processAnswerTable2(TableAnswerElement, AnswerRowsOptions)}, but reuses the
+   * filtered and sorted rows of {@code parsed} computed for earlier requests.
+   */
+  @VisibleForTesting
+  @Nonnull
+  TableView processAnswerTable2(ParsedAnswer parsed, AnswerRowsOptions options) {
+    TableAnswerElement rawTable = requireNonNull(parsed.getTable());
+    Map<String, ColumnMetadata> rawColumnMap = rawTable.getMetadata().toColumnMap();
+    checkColumns(rawColumnMap, options);
+
+    BitSet matchingRows = parsed.getMatchingRows(options.getFilters());
+    IntStream rowIds =
+        options.getSortOrder().isEmpty()
+            ? matchingRows.stream()
+            : Arrays.stream(
+                    parsed.getSortedRows(
+                        options.getSortOrder(),
+                        buildComparator(rawColumnMap, options.getSortOrder())))
+                .filter(matchingRows::get);
+    List<Row> rows = parsed.getRows();
+    return toTableView(
+        rawTable,
+        rawColumnMap,
+        options,
+        rowIds.mapToObj(rowId -> new TableViewRow(rowId, rows.get(rowId))),
+        matchingRows.cardinality());
+  }
+
+  private static void checkColumns(
+      Map<String, ColumnMetadata> rawColumnMap, AnswerRowsOptions options) {
     for (String c : options.getColumns()) {
       if (!rawColumnMap.containsKey(c)) {
         Collection<String> sortedColumnNames = new TreeSet<>(rawColumnMap.keySet());
@@ -1597,17 +1830,18 @@ public class WorkMgr extends AbstractCoordinator {
             String.format("Column %s is not in the answer: %s", c, sortedColumnNames));
       }
     }
+  }
 
-    List<Row> filteredRows =
-        rawTable.getRowsList().stream()
-            .filter(row -> options.getFilters().stream().allMatch(filter -> filter.matches(row)))
-            .collect(ImmutableList.toImmutableList());
-
-    Stream<Row> rowStream = filteredRows.stream();
-    if (!options.getSortOrder().isEmpty()) {
-      // sort using specified sort order
-      rowStream = rowStream.sorted(buildComparator(rawColumnMap, options.getSortOrder()));
-    }
+  /**
+   * Projects, uniquifies, and pages the filtered and sorted rows of {@code rawTable} into a {@link
+   * TableView}.
+   */
+  private static @Nonnull TableView toTableView(
+      TableAnswerElement rawTable,
+      Map<String, ColumnMetadata> rawColumnMap,
+      AnswerRowsOptions options,
+      Stream<TableViewRow> rowStream,
+      int numResults) {
     TableMetadata tableMetadata;
     if (options.getColumns().isEmpty()) {
       tableMetadata = rawTable.getMetadata();
@@ -1615,11 +1849,10 @@ public class WorkMgr extends AbstractCoordinator {
       // project to desired columns
       rowStream =
           rowStream.map(
-              rawRow -> {
-                Row row = Row.builder().putAll(rawRow, options.getColumns()).build();
-                rowIds.put(row, rowIds.get(rawRow));
-                return row;
-              });
+              rawRow ->
+                  new TableViewRow(
+                      rawRow.getId(),
+                      Row.builder().putAll(rawRow.getRow(), options.getColumns()).build()));
       // TableMetadata requires at least one key. For simplicity, make them all keys.
       Map<String, ColumnMetadata> columnMap =
           options.getColumns().stream()
@@ -1641,8 +1874,9 @@ public class WorkMgr extends AbstractCoordinator {
       tableMetadata = new TableMetadata(columnMetadata, rawTable.getMetadata().getTextDesc());
     }
     if (options.getUniqueRows()) {
-      // uniquify if desired
-      rowStream = rowStream.distinct();
+      // uniquify if desired, keeping the first of each set of equal rows
+      Set<Row> seen = new HashSet<>();
+      rowStream = rowStream.filter(row -> seen.add(row.getRow()));
     }
     // offset, truncate, and add to table
     TableView tableView =
@@ -1651,13 +1885,20 @@ public class WorkMgr extends AbstractCoordinator {
             rowStream
                 .skip(options.getRowOffset())
                 .limit(options.getMaxRows())
-                .map(row -> new TableViewRow(rowIds.get(row), row))
                 .collect(ImmutableList.toImmutableList()),
             tableMetadata,
             rawTable.getWarnings());
+    // copy the summary, since the raw table may be cached and shared
+    AnswerSummary rawSummary = rawTable.getSummary();
     tableView.setSummary(
-        rawTable.getSummary() != null ? rawTable.getSummary() : new AnswerSummary());
-    tableView.getSummary().setNumResults(filteredRows.size());
+        rawSummary != null
+            ? new AnswerSummary(
+                rawSummary.getNotes(),
+                rawSummary.getNumFailed(),
+                rawSummary.getNumPassed(),
+                rawSummary.getNumResults())
+            : new AnswerSummary());
+    tableView.getSummary().setNumResults(numResults);
     return tableView;
   }
 
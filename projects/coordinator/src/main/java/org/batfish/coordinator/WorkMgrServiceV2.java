@@ -30,6 +30,7 @@ import org.batfish.common.Container;
 import org.batfish.common.CoordConsts;
 import org.batfish.common.CoordConstsV2;
 import org.batfish.coordinator.resources.NetworkResource;
+import org.batfish.coordinator.resources.StatusBean;
 import org.batfish.version.Versioned;
 import org.glassfish.jersey.jackson.JacksonFeature;
 
@@ -125,6 +126,13 @@ public class WorkMgrServiceV2 {
     return new NetworkResource(_apiKey, id);
   }
 
+  /** Handle request for the status of the work queues */
+  @GET
+  @Path(CoordConstsV2.RSC_STATUS)
+  public Response getStatus() {
+    return Response.ok().entity(new StatusBean(Main.getWorkMgr())).build();
+  }
+
   /** Handle request for component versions */
   @GET
   @Path(CoordConstsV2.RSC_VERSION)
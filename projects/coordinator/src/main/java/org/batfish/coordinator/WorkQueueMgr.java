@@ -1,14 +1,21 @@
 package org.batfish.coordinator;
 
+import com.google.common.base.MoreObjects;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.GuardedBy;
@@ -37,6 +44,48 @@ public class WorkQueueMgr {
     INCOMPLETE
   }
 
+  /** Statistics on how long work waited in the queue before being assigned to a worker. */
+  public static final class QueueWaitStats {
+    private final long _count;
+    private final long _totalMillis;
+    private final long _maxMillis;
+
+    private QueueWaitStats(long count, long totalMillis, long maxMillis) {
+      _count = count;
+      _totalMillis = totalMillis;
+      _maxMillis = maxMillis;
+    }
+
+    /** Number of work items assigned. */
+    public long getCount() {
+      return _count;
+    }
+
+    /** Longest time any work item waited before assignment. */
+    public long getMaxMillis() {
+      return _maxMillis;
+    }
+
+    /** Average time work items waited before assignment, or 0 if none were assigned. */
+    public double getMeanMillis() {
+      return _count == 0 ? 0 : (double) _totalMillis / _count;
+    }
+
+    /** Total time all work items waited before assignment. */
+    public long getTotalMillis() {
+      return _totalMillis;
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this)
+          .add("count", _count)
+          .add("meanMillis", getMeanMillis())
+          .add("maxMillis", _maxMillis)
+          .toString();
+    }
+  }
+
   @GuardedBy("this")
   private Set<UUID> _blockingWork;
 
@@ -49,12 +98,35 @@ public class WorkQueueMgr {
   @GuardedBy("this")
   private WorkQueue _queueIncompleteWork;
 
+  // Position of each work in the incomplete queue
+  @GuardedBy("this")
+  private final Map<UUID, Long> _incompleteWorkOrder;
+
+  @GuardedBy("this")
+  private long _nextIncompleteWorkOrder;
+
+  // Incomplete work whose status is UNASSIGNED, keyed by position in the incomplete queue, so that
+  // assignment does not scan the incomplete queue.
+  @GuardedBy("this")
+  private final NavigableMap<Long, QueuedWork> _unassignedWork;
+
+  @GuardedBy("this")
+  private long _queueWaitCount;
+
+  @GuardedBy("this")
+  private long _queueWaitTotalMillis;
+
+  @GuardedBy("this")
+  private long _queueWaitMaxMillis;
+
   WorkQueueMgr(BatfishLogger logger, SnapshotMetadataMgr snapshotMetadataManager) {
     _blockingWork = new HashSet<>();
     _logger = logger;
     _snapshotMetadataManager = snapshotMetadataManager;
     _queueCompletedWork = new MemoryQueue();
     _queueIncompleteWork = new MemoryQueue();
+    _incompleteWorkOrder = new HashMap<>();
+    _unassignedWork = new TreeMap<>();
   }
 
   private void cleanUpInitMetaDataIfNeeded(NetworkId networkId, SnapshotId snapshotId)
@@ -218,7 +290,7 @@ public class WorkQueueMgr {
   public synchronized List<QueuedWork> getCompletedWork(
       NetworkId networkId, SnapshotId snapshotId) {
     ImmutableList.Builder<QueuedWork> b = ImmutableList.builder();
-    for (QueuedWork work : _queueCompletedWork) {
+    for (QueuedWork work : _queueCompletedWork.getWorkForSnapshot(snapshotId)) {
       if (work.getDetails().getNetworkId().equals(networkId)
           && work.getDetails().getSnapshotId().equals(snapshotId)) {
         b.add(work);
@@ -229,7 +301,7 @@ public class WorkQueueMgr {
 
   private synchronized QueuedWork getIncompleteWork(
       NetworkId networkId, SnapshotId snapshotId, WorkType wType) {
-    for (QueuedWork work : _queueIncompleteWork) {
+    for (QueuedWork work : _queueIncompleteWork.getWorkForSnapshot(snapshotId)) {
       WorkDetails wDetails = work.getDetails();
       if (networkId.equals(work.getDetails().getNetworkId())
           && ((snapshotId.equals(wDetails.getSnapshotId()))
@@ -257,7 +329,7 @@ public class WorkQueueMgr {
   }
 
   private synchronized QueuedWork getMatchingWork(WorkItem workItem, WorkQueue queue) {
-    for (QueuedWork work : queue) {
+    for (QueuedWork work : queue.getWorkForNames(workItem.getNetwork(), workItem.getSnapshot())) {
       if (work.getWorkItem().matches(workItem)) {
         return work;
       }
@@ -281,22 +353,20 @@ public class WorkQueueMgr {
   }
 
   public synchronized @Nullable QueuedWork getWorkForAssignment() {
-
-    for (QueuedWork work : _queueIncompleteWork) {
-      if (work.getStatus() == WorkStatusCode.UNASSIGNED) {
-        work.setStatus(WorkStatusCode.TRYINGTOASSIGN);
-        return work;
-      }
+    Map.Entry<Long, QueuedWork> first = _unassignedWork.firstEntry();
+    if (first == null) {
+      return null;
     }
-
-    return null;
+    QueuedWork work = first.getValue();
+    setStatus(work, WorkStatusCode.TRYINGTOASSIGN);
+    return work;
   }
 
   public synchronized @Nonnull List<QueuedWork> getWorkForChecking() {
     List<QueuedWork> workToCheck = new ArrayList<>();
     for (QueuedWork work : _queueIncompleteWork) {
       if (work.getStatus() == WorkStatusCode.ASSIGNED) {
-        work.setStatus(WorkStatusCode.CHECKINGSTATUS);
+        setStatus(work, WorkStatusCode.CHECKINGSTATUS);
         workToCheck.add(work);
       }
     }
@@ -306,7 +376,11 @@ public class WorkQueueMgr {
   public synchronized List<QueuedWork> listIncompleteWork(
       NetworkId networkId, @Nullable SnapshotId snapshotId, @Nullable WorkType workType) {
     List<QueuedWork> retList = new LinkedList<>();
-    for (QueuedWork work : _queueIncompleteWork) {
+    Iterable<QueuedWork> candidates =
+        snapshotId == null
+            ? _queueIncompleteWork
+            : _queueIncompleteWork.getWorkForSnapshot(snapshotId);
+    for (QueuedWork work : candidates) {
       // Add to queue if it matches container, testrig if provided, and work type if provided
       if (work.getDetails().getNetworkId().equals(networkId)
           && (snapshotId == null || work.getDetails().getSnapshotId().equals(snapshotId))
@@ -317,24 +391,76 @@ public class WorkQueueMgr {
     return retList;
   }
 
+  /** Returns statistics on how long assigned work waited in the queue. */
+  public synchronized @Nonnull QueueWaitStats getQueueWaitStats() {
+    return new QueueWaitStats(_queueWaitCount, _queueWaitTotalMillis, _queueWaitMaxMillis);
+  }
+
+  private synchronized void recordQueueWait(QueuedWork work) {
+    long waitMillis = work.getDateAssigned().getTime() - work.getDateCreated().getTime();
+    _queueWaitCount++;
+    _queueWaitTotalMillis += waitMillis;
+    _queueWaitMaxMillis = Math.max(_queueWaitMaxMillis, waitMillis);
+    _logger.debugf(
+        "Work %s was assigned after waiting %d ms in queue (%s)\n",
+        work.getId(), waitMillis, getQueueWaitStats());
+  }
+
+  /**
+   * Sets the status of {@code work}, keeping track of which incomplete work is waiting to be
+   * assigned.
+   */
+  private synchronized void setStatus(QueuedWork work, WorkStatusCode status) {
+    work.setStatus(status);
+    Long order = _incompleteWorkOrder.get(work.getId());
+    if (order == null) {
+      return;
+    }
+    if (status == WorkStatusCode.UNASSIGNED) {
+      _unassignedWork.put(order, work);
+    } else {
+      _unassignedWork.remove(order);
+    }
+  }
+
+  private synchronized boolean enqueIncomplete(QueuedWork work) {
+    if (!_queueIncompleteWork.enque(work)) {
+      return false;
+    }
+    long order = _nextIncompleteWorkOrder++;
+    _incompleteWorkOrder.put(work.getId(), order);
+    if (work.getStatus() == WorkStatusCode.UNASSIGNED) {
+      _unassignedWork.put(order, work);
+    }
+    return true;
+  }
+
+  private synchronized void deleteIncomplete(QueuedWork work) {
+    if (!_queueIncompleteWork.delete(work)) {
+      return;
+    }
+    _unassignedWork.remove(_incompleteWorkOrder.remove(work.getId()));
+  }
+
   public synchronized void makeWorkUnassigned(QueuedWork work) {
-    work.setStatus(WorkStatusCode.UNASSIGNED);
+    setStatus(work, WorkStatusCode.UNASSIGNED);
   }
 
   // when assignment attempt ends in error, we do not try to reassign
   public synchronized void markAssignmentError(QueuedWork work) {
-    _queueIncompleteWork.delete(work);
+    deleteIncomplete(work);
     _queueCompletedWork.enque(work);
-    work.setStatus(WorkStatusCode.ASSIGNMENTERROR);
+    setStatus(work, WorkStatusCode.ASSIGNMENTERROR);
   }
 
   public synchronized void markAssignmentFailure(QueuedWork work) {
-    work.setStatus(WorkStatusCode.UNASSIGNED);
+    setStatus(work, WorkStatusCode.UNASSIGNED);
   }
 
   public synchronized void markAssignmentSuccess(QueuedWork work, TaskHandle taskHandle)
       throws IOException {
     work.setAssignment(taskHandle);
+    recordQueueWait(work);
 
     // update testrig metadata
     WorkDetails wDetails = work.getDetails();
@@ -355,7 +481,7 @@ public class WorkQueueMgr {
     switch (task.getStatus()) {
       case Unscheduled:
       case InProgress:
-        work.setStatus(WorkStatusCode.ASSIGNED);
+        setStatus(work, WorkStatusCode.ASSIGNED);
         work.recordTaskCheckResult(task);
         break;
       case TerminatedAbnormally:
@@ -364,9 +490,9 @@ public class WorkQueueMgr {
       case RequeueFailure:
         {
           // move the work to completed queue
-          _queueIncompleteWork.delete(work);
+          deleteIncomplete(work);
           _queueCompletedWork.enque(work);
-          work.setStatus(WorkStatusCode.fromTerminatedTaskStatus(task.getStatus()));
+          setStatus(work, WorkStatusCode.fromTerminatedTaskStatus(task.getStatus()));
           work.recordTaskCheckResult(task);
 
           // update testrig metadata
@@ -404,16 +530,10 @@ public class WorkQueueMgr {
           // check if we unblocked anything
           if (_blockingWork.contains(wItem.getId())) {
             _blockingWork.remove(wItem.getId());
-            List<QueuedWork> requeueWorks = new LinkedList<>();
-            for (QueuedWork incompleteWork : _queueIncompleteWork) {
-              if (incompleteWork.getStatus() == WorkStatusCode.BLOCKED
-                  && wDetails.isOverlappingInput(incompleteWork.getDetails())) {
-                requeueWorks.add(incompleteWork);
-              }
-            }
+            List<QueuedWork> requeueWorks = getBlockedOverlappingWork(wDetails);
             for (QueuedWork requeueWork : requeueWorks) {
-              _queueIncompleteWork.delete(requeueWork);
-              requeueWork.setStatus(WorkStatusCode.UNASSIGNED);
+              deleteIncomplete(requeueWork);
+              setStatus(requeueWork, WorkStatusCode.UNASSIGNED);
             }
             for (QueuedWork requeueWork : requeueWorks) {
               try {
@@ -427,7 +547,7 @@ public class WorkQueueMgr {
                 _logger.errorf("exception: %s\n", stackTrace);
                 // put this work back on incomplete queue and process as if it terminatedabnormally
                 // people may be checking its status and this work may be blocking others
-                _queueIncompleteWork.enque(requeueWork);
+                enqueIncomplete(requeueWork);
                 Task fakeTask =
                     new Task(
                         TaskStatus.RequeueFailure,
@@ -440,14 +560,14 @@ public class WorkQueueMgr {
         break;
       case Unknown:
         // we mark this unassigned, so we try to schedule it again
-        work.setStatus(WorkStatusCode.UNASSIGNED);
+        setStatus(work, WorkStatusCode.UNASSIGNED);
         work.clearAssignment();
         break;
       case UnreachableOrBadResponse:
         {
           if (work.getLastTaskCheckResult().getStatus() == TaskStatus.UnreachableOrBadResponse) {
             // if we saw the same thing last time around, free the task to be scheduled elsewhere
-            work.setStatus(WorkStatusCode.UNASSIGNED);
+            setStatus(work, WorkStatusCode.UNASSIGNED);
             work.clearAssignment();
             work.recordTaskCheckResult(task);
 
@@ -485,7 +605,7 @@ public class WorkQueueMgr {
               }
             }
           } else {
-            work.setStatus(WorkStatusCode.ASSIGNED);
+            setStatus(work, WorkStatusCode.ASSIGNED);
             work.recordTaskCheckResult(task);
           }
         }
@@ -493,6 +613,26 @@ public class WorkQueueMgr {
     }
   }
 
+  /**
+   * Returns the blocked incomplete work whose input overlaps that of {@code details}, in queue
+   * order.
+   */
+  private synchronized @Nonnull List<QueuedWork> getBlockedOverlappingWork(WorkDetails details) {
+    // Overlapping work must share a snapshot with details, so only the snapshot index needs to be
+    // consulted rather than the whole queue.
+    List<QueuedWork> candidates =
+        details.isDifferential()
+            ? _queueIncompleteWork.getWorkForSnapshots(
+                ImmutableSet.of(details.getSnapshotId(), details.getReferenceSnapshotId()))
+            : _queueIncompleteWork.getWorkForSnapshot(details.getSnapshotId());
+    return candidates.stream()
+        .filter(
+            work ->
+                work.getStatus() == WorkStatusCode.BLOCKED
+                    && details.isOverlappingInput(work.getDetails()))
+        .collect(Collectors.toList());
+  }
+
   private synchronized boolean queueDependentAnsweringWork(
       QueuedWork work, boolean dataplaneDependent) throws Exception {
     WorkDetails wDetails = work.getDetails();
@@ -521,13 +661,13 @@ public class WorkQueueMgr {
         return queueBlockedWork(work, deltaBlocker);
       }
     }
-    return _queueIncompleteWork.enque(work);
+    return enqueIncomplete(work);
   }
 
   private synchronized boolean queueBlockedWork(QueuedWork work, QueuedWork blocker) {
     _blockingWork.add(blocker.getId());
-    work.setStatus(WorkStatusCode.BLOCKED);
-    return _queueIncompleteWork.enque(work);
+    setStatus(work, WorkStatusCode.BLOCKED);
+    return enqueIncomplete(work);
   }
 
   private synchronized boolean queueDataplaningWork(QueuedWork work) throws Exception {
@@ -550,7 +690,7 @@ public class WorkQueueMgr {
 
     QueuedWork blocker = getBlockerForDataplaningWork(work);
     if (blocker == null) {
-      return _queueIncompleteWork.enque(work);
+      return enqueIncomplete(work);
     } else {
       return queueBlockedWork(work, blocker);
     }
@@ -587,7 +727,7 @@ public class WorkQueueMgr {
       }
     }
 
-    return _queueIncompleteWork.enque(work);
+    return enqueIncomplete(work);
   }
 
   public synchronized boolean queueUnassignedWork(QueuedWork work) throws Exception {
@@ -606,10 +746,10 @@ public class WorkQueueMgr {
       case DATAPLANING -> queueDataplaningWork(work);
       case INDEPENDENT_ANSWERING ->
           // assume that this type of work shouldn't be blocked at all
-          _queueIncompleteWork.enque(work);
+          enqueIncomplete(work);
       case PARSING_DEPENDENT_ANSWERING -> queueDependentAnsweringWork(work, false);
       case DATAPLANE_DEPENDENT_ANSWERING -> queueDependentAnsweringWork(work, true);
-      case UNKNOWN -> _queueIncompleteWork.enque(work);
+      case UNKNOWN -> enqueIncomplete(work);
     };
   }
 }
@@ -23,6 +23,7 @@ public class Settings extends BaseSettings {
   private static final String ARG_FILE_AUTHORIZER_USERS_FILE = "fileauthusersfile";
   private static final String ARG_HELP = "help";
   private static final String ARG_LOG_LEVEL = "loglevel";
+  private static final String ARG_MAX_CACHED_ANSWER_BYTES = "maxcachedanswerbytes";
   private static final String ARG_PERIOD_ASSIGN_WORK_MS = "periodassignworkms";
   private static final String ARG_PERIOD_CHECK_WORK_MS = "periodcheckworkms";
   private static final String ARG_PERIOD_WORKER_STATUS_REFRESH_MS = "periodworkerrefreshms";
@@ -32,6 +33,8 @@ public class Settings extends BaseSettings {
   public static final String ARG_SERVICE_WORK_V2_PORT = "workv2port";
 
   private static final String ARG_WORK_BIND_HOST = "workbindhost";
+  private static final String ARG_WORKER_CACHED_DATA_PLANE_NODES = "workercacheddataplanenodes";
+  private static final String ARG_WORKERS = "workers";
 
   private static final String ARGNAME_PATHS = "path..";
 
@@ -42,11 +45,14 @@ public class Settings extends BaseSettings {
   private Path _fileAuthorizerPermsFile;
   private Path _fileAuthorizerRootDir;
   private Path _fileAuthorizerUsersFile;
+  private long _maxCachedAnswerBytes;
   private long _periodAssignWorkMs;
   private List<Path> _questionTemplateDirs;
   private String _serviceName;
   private int _serviceWorkV2Port;
   private String _workBindHost;
+  private int _workerCachedDataPlaneNodes;
+  private int _workers;
 
   public Settings(String[] args) {
     super(
@@ -80,6 +86,10 @@ public class Settings extends BaseSettings {
     return _fileAuthorizerUsersFile;
   }
 
+  public long getMaxCachedAnswerBytes() {
+    return _maxCachedAnswerBytes;
+  }
+
   public long getPeriodAssignWorkMs() {
     return _periodAssignWorkMs;
   }
@@ -100,6 +110,14 @@ public class Settings extends BaseSettings {
     return _workBindHost;
   }
 
+  public int getWorkerCachedDataPlaneNodes() {
+    return _workerCachedDataPlaneNodes;
+  }
+
+  public int getWorkers() {
+    return _workers;
+  }
+
   private void initConfigDefaults() {
     setDefaultProperty(ARG_AUTHORIZER_TYPE, Authorizer.Type.none.toString());
     setDefaultProperty(ARG_CONTAINERS_LOCATION, "containers");
@@ -108,11 +126,15 @@ public class Settings extends BaseSettings {
     setDefaultProperty(ARG_FILE_AUTHORIZER_USERS_FILE, "users.json");
     setDefaultProperty(ARG_HELP, false);
     setDefaultProperty(ARG_LOG_LEVEL, BatfishLogger.getLogLevelStr(BatfishLogger.LEVEL_OUTPUT));
+    setDefaultProperty(ARG_MAX_CACHED_ANSWER_BYTES, 64L * 1024 * 1024);
     setDefaultProperty(ARG_PERIOD_ASSIGN_WORK_MS, 100);
     setDefaultProperty(ARG_PERIOD_CHECK_WORK_MS, 100);
     setDefaultProperty(ARG_PERIOD_WORKER_STATUS_REFRESH_MS, 10000);
     setDefaultProperty(ARG_QUESTION_TEMPLATE_DIRS, Collections.emptyList());
     setDefaultProperty(ARG_WORK_BIND_HOST, Ip.ZERO.toString());
+    setDefaultProperty(
+        ARG_WORKER_CACHED_DATA_PLANE_NODES, BfConsts.DEFAULT_MAX_CACHED_DATA_PLANE_NODES);
+    setDefaultProperty(ARG_WORKERS, 1);
     setDefaultProperty(ARG_SERVICE_NAME, "coordinator-service");
     setDefaultProperty(ARG_SERVICE_WORK_V2_PORT, CoordConsts.SVC_CFG_WORK_V2_PORT);
   }
@@ -126,6 +148,11 @@ public class Settings extends BaseSettings {
 
     addOption(ARG_LOG_LEVEL, "log level", "loglevel");
 
+    addOption(
+        ARG_MAX_CACHED_ANSWER_BYTES,
+        "max total size in bytes of stored answers whose parsed form is cached in memory",
+        "num_bytes");
+
     addOption(
         ARG_PERIOD_WORKER_STATUS_REFRESH_MS,
         "period with which to check worker status (ms)",
@@ -154,6 +181,18 @@ public class Settings extends BaseSettings {
         "port for work management service v2",
         "port_number_work_v2_service");
 
+    addOption(
+        ARG_WORKER_CACHED_DATA_PLANE_NODES,
+        "max total number of nodes in snapshots whose data planes each worker caches; should match"
+            + " the maxcacheddataplanenodes setting of the workers",
+        "num_nodes");
+
+    addOption(
+        ARG_WORKERS,
+        "number of workers to distribute work across, preferring workers that recently ran work"
+            + " for the same snapshots",
+        "num_workers");
+
     // deprecated and ignored
     for (String deprecatedStringArg :
         new String[] {
@@ -212,6 +251,9 @@ public class Settings extends BaseSettings {
     _serviceWorkV2Port = getIntegerOptionValue(ARG_SERVICE_WORK_V2_PORT);
     _containersLocation = getPathOptionValue(ARG_CONTAINERS_LOCATION);
     _periodAssignWorkMs = getLongOptionValue(ARG_PERIOD_ASSIGN_WORK_MS);
+    _maxCachedAnswerBytes = getLongOptionValue(ARG_MAX_CACHED_ANSWER_BYTES);
+    _workerCachedDataPlaneNodes = getIntegerOptionValue(ARG_WORKER_CACHED_DATA_PLANE_NODES);
+    _workers = getIntegerOptionValue(ARG_WORKERS);
   }
 
   public void setQuestionTemplateDirs(List<Path> questionTemplateDirs) {
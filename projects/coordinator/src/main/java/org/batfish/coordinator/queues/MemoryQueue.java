@@ -1,47 +1,120 @@
 package org.batfish.coordinator.queues;
 
-import java.util.LinkedList;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.SetMultimap;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.batfish.coordinator.QueuedWork;
+import org.batfish.coordinator.WorkDetails;
+import org.batfish.identifiers.SnapshotId;
 
 // we don't synchronize on this queue
 // all synchronization is in inside WorkQueueMgr
 
-public class MemoryQueue extends LinkedList<QueuedWork> implements WorkQueue {
+/**
+ * An in-memory {@link WorkQueue} indexed by work ID, by snapshot, and by network and snapshot name,
+ * so that lookups do not scan the whole queue.
+ */
+public class MemoryQueue implements WorkQueue {
+
+  private final @Nonnull Map<UUID, QueuedWork> _work = new LinkedHashMap<>();
+  // Position of each work in the queue, used to order work found via _workBySnapshot.
+  private final @Nonnull Map<UUID, Long> _sequenceNumbers = new HashMap<>();
+  private long _nextSequenceNumber;
+  private final @Nonnull SetMultimap<SnapshotId, QueuedWork> _workBySnapshot =
+      LinkedHashMultimap.create();
+  private final @Nonnull SetMultimap<Names, QueuedWork> _workByNames =
+      LinkedHashMultimap.create();
 
   @Override
   public boolean delete(QueuedWork qWork) {
-    return remove(qWork);
+    if (_work.get(qWork.getId()) != qWork) {
+      return false;
+    }
+    _work.remove(qWork.getId());
+    _sequenceNumbers.remove(qWork.getId());
+    WorkDetails details = qWork.getDetails();
+    _workBySnapshot.remove(details.getSnapshotId(), qWork);
+    if (details.isDifferential()) {
+      _workBySnapshot.remove(details.getReferenceSnapshotId(), qWork);
+    }
+    _workByNames.remove(namesKey(qWork), qWork);
+    return true;
   }
 
   @Override
   public @Nullable QueuedWork deque() {
-    if (size() == 0) {
+    if (_work.isEmpty()) {
       return null;
     }
-
-    return pop();
+    QueuedWork work = _work.values().iterator().next();
+    delete(work);
+    return work;
   }
 
   @Override
   public boolean enque(QueuedWork work) {
-    return add(work);
+    if (_work.containsKey(work.getId())) {
+      return false;
+    }
+    _work.put(work.getId(), work);
+    _sequenceNumbers.put(work.getId(), _nextSequenceNumber++);
+    WorkDetails details = work.getDetails();
+    _workBySnapshot.put(details.getSnapshotId(), work);
+    if (details.isDifferential()) {
+      _workBySnapshot.put(details.getReferenceSnapshotId(), work);
+    }
+    _workByNames.put(namesKey(work), work);
+    return true;
   }
 
   @Override
   public long getLength() {
-    return size();
+    return _work.size();
   }
 
   @Override
   public @Nullable QueuedWork getWork(UUID workItemId) {
-    for (QueuedWork work : this) {
-      if (work.getWorkItem().getId().equals(workItemId)) {
-        return work;
-      }
-    }
+    return _work.get(workItemId);
+  }
+
+  @Override
+  public @Nonnull List<QueuedWork> getWorkForSnapshot(SnapshotId snapshotId) {
+    return ImmutableList.copyOf(_workBySnapshot.get(snapshotId));
+  }
 
-    return null;
+  @Override
+  public @Nonnull List<QueuedWork> getWorkForSnapshots(Collection<SnapshotId> snapshotIds) {
+    return snapshotIds.stream()
+        .flatMap(snapshotId -> _workBySnapshot.get(snapshotId).stream())
+        .distinct()
+        .sorted(Comparator.comparing(work -> _sequenceNumbers.get(work.getId())))
+        .collect(ImmutableList.toImmutableList());
+  }
+
+  @Override
+  public @Nonnull List<QueuedWork> getWorkForNames(String network, String snapshot) {
+    return ImmutableList.copyOf(_workByNames.get(new Names(network, snapshot)));
+  }
+
+  private static @Nonnull Names namesKey(QueuedWork work) {
+    return new Names(work.getWorkItem().getNetwork(), work.getWorkItem().getSnapshot());
+  }
+
+  private record Names(@Nullable String network, @Nullable String snapshot) {}
+
+  @Override
+  public @Nonnull Iterator<QueuedWork> iterator() {
+    return Iterators.unmodifiableIterator(_work.values().iterator());
   }
 }
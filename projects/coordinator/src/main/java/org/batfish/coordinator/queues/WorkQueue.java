@@ -1,7 +1,10 @@
 package org.batfish.coordinator.queues;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 import org.batfish.coordinator.QueuedWork;
+import org.batfish.identifiers.SnapshotId;
 
 public interface WorkQueue extends Iterable<QueuedWork> {
 
@@ -14,4 +17,22 @@ public interface WorkQueue extends Iterable<QueuedWork> {
   long getLength();
 
   QueuedWork getWork(UUID workItemId);
+
+  /**
+   * Returns the work in this queue whose snapshot or (for differential work) reference snapshot is
+   * {@code snapshotId}, in queue order.
+   */
+  List<QueuedWork> getWorkForSnapshot(SnapshotId snapshotId);
+
+  /**
+   * Returns the work in this queue whose snapshot or (for differential work) reference snapshot is
+   * any of {@code snapshotIds}, in queue order.
+   */
+  List<QueuedWork> getWorkForSnapshots(Collection<SnapshotId> snapshotIds);
+
+  /**
+   * Returns the work in this queue whose {@link org.batfish.common.WorkItem} names {@code network}
+   * and {@code snapshot}, in queue order.
+   */
+  List<QueuedWork> getWorkForNames(String network, String snapshot);
 }
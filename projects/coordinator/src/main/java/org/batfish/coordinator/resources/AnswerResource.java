@@ -51,11 +51,12 @@ public final class AnswerResource {
     }
     Answer ans =
         Main.getWorkMgr()
-            .getAnswer(
+            .getFilteredAnswer(
                 _network,
                 filterAnswerBean.snapshot,
                 _questionName,
-                filterAnswerBean.referenceSnapshot);
+                filterAnswerBean.referenceSnapshot,
+                filterAnswerBean.filterOptions);
     if (ans == null) {
       return Response.status(Status.NOT_FOUND)
           .entity(
@@ -69,10 +70,7 @@ public final class AnswerResource {
           .build();
     }
 
-    // Filter the resulting answer
-    return Response.ok()
-        .entity(Main.getWorkMgr().filterAnswer(ans, filterAnswerBean.filterOptions))
-        .build();
+    return Response.ok().entity(ans).build();
   }
 
   /**
@@ -0,0 +1,28 @@
+package org.batfish.coordinator.resources;
+
+import java.util.List;
+import java.util.Map;
+import org.batfish.coordinator.WorkMgr;
+import org.batfish.coordinator.WorkQueueMgr.QueueType;
+import org.batfish.coordinator.WorkQueueMgr.QueueWaitStats;
+
+/** A bean for information about the status of the coordinator's work queues and workers */
+public class StatusBean {
+
+  public final long completedWork;
+  public final long incompleteWork;
+  public final long queueWaitCount;
+  public final long queueWaitMaxMillis;
+  public final double queueWaitMeanMillis;
+  public final List<Map<String, Map<String, Long>>> workerCacheStats;
+
+  public StatusBean(WorkMgr workMgr) {
+    completedWork = workMgr.getQueueLength(QueueType.COMPLETED);
+    incompleteWork = workMgr.getQueueLength(QueueType.INCOMPLETE);
+    QueueWaitStats waitStats = workMgr.getQueueWaitStats();
+    queueWaitCount = waitStats.getCount();
+    queueWaitMaxMillis = waitStats.getMaxMillis();
+    queueWaitMeanMillis = waitStats.getMeanMillis();
+    workerCacheStats = workMgr.getWorkerCacheStats();
+  }
+}
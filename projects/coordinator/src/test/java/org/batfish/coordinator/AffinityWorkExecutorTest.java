@@ -0,0 +1,167 @@
+package org.batfish.coordinator;
+
+import static org.batfish.coordinator.SubmissionResult.Type.BUSY;
+import static org.batfish.coordinator.SubmissionResult.Type.ERROR;
+import static org.batfish.coordinator.SubmissionResult.Type.SUCCESS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import org.batfish.common.BfConsts.TaskStatus;
+import org.batfish.common.Task;
+import org.batfish.common.WorkItem;
+import org.batfish.coordinator.WorkDetails.WorkType;
+import org.batfish.identifiers.NetworkId;
+import org.batfish.identifiers.SnapshotId;
+import org.junit.Test;
+
+/** Tests of {@link AffinityWorkExecutor}. */
+public final class AffinityWorkExecutorTest {
+
+  /** A worker that accepts work unless busy and records what it ran. */
+  private static final class TestWorker implements WorkExecutor {
+    private final String _name;
+    private final List<String> _log;
+    private boolean _busy;
+    private TaskStatus _status = TaskStatus.InProgress;
+
+    private TestWorker(String name, List<String> log) {
+      _name = name;
+      _log = log;
+    }
+
+    @Override
+    public SubmissionResult submit(QueuedWork work) {
+      if (_busy) {
+        return SubmissionResult.busy();
+      }
+      _log.add(_name + ":" + work.getDetails().getSnapshotId().getId());
+      return SubmissionResult.success(() -> new Task(_status));
+    }
+  }
+
+  private static @Nonnull QueuedWork work(String snapshot) {
+    return new QueuedWork(
+        new WorkItem("n", snapshot),
+        WorkDetails.builder()
+            .setNetworkId(new NetworkId("n"))
+            .setSnapshotId(new SnapshotId(snapshot))
+            .setWorkType(WorkType.INDEPENDENT_ANSWERING)
+            .build());
+  }
+
+  /** Returns an executor whose workers cache many single-node snapshots. */
+  private static @Nonnull AffinityWorkExecutor executor(WorkExecutor... workers) {
+    return new AffinityWorkExecutor(ImmutableList.copyOf(workers), 100, (n, s) -> 1);
+  }
+
+  @Test
+  public void testLeastLoadedThenAffinity() {
+    List<String> log = new ArrayList<>();
+    TestWorker w0 = new TestWorker("w0", log);
+    TestWorker w1 = new TestWorker("w1", log);
+    AffinityWorkExecutor executor = executor(w0, w1);
+
+    // no affinity: least loaded
+    executor.submit(work("s1"));
+    executor.submit(work("s2"));
+    // affinity wins over load
+    executor.submit(work("s1"));
+    executor.submit(work("s2"));
+    assertThat(log, contains("w0:s1", "w1:s2", "w0:s1", "w1:s2"));
+    assertThat(executor.getLoad(0), equalTo(2));
+    assertThat(executor.getLoad(1), equalTo(2));
+  }
+
+  @Test
+  public void testAffinityLimitedByWorkerCache() {
+    List<String> log = new ArrayList<>();
+    TestWorker w0 = new TestWorker("w0", log);
+    TestWorker w1 = new TestWorker("w1", log);
+    Map<String, Integer> nodes = ImmutableMap.of("small1", 1, "small2", 1, "big1", 50, "big2", 50);
+    // each worker caches 4 nodes, and a snapshot weighs at most 2
+    AffinityWorkExecutor executor =
+        new AffinityWorkExecutor(ImmutableList.of(w0, w1), 4, (n, s) -> nodes.get(s.getId()));
+
+    executor.submit(work("small1"));
+    executor.submit(work("small2"));
+    executor.submit(work("small1"));
+    executor.submit(work("small1"));
+    // w1 is less loaded, and caches small2 and big1 within its budget
+    executor.submit(work("big1"));
+    // w1 is still less loaded; caching big2 evicts small2
+    executor.submit(work("big2"));
+    // so small2 goes to the first of the equally loaded workers
+    executor.submit(work("small2"));
+    assertThat(
+        log,
+        contains(
+            "w0:small1", "w1:small2", "w0:small1", "w0:small1", "w1:big1", "w1:big2", "w0:small2"));
+  }
+
+  @Test
+  public void testFallbackWhenBusy() {
+    List<String> log = new ArrayList<>();
+    TestWorker w0 = new TestWorker("w0", log);
+    TestWorker w1 = new TestWorker("w1", log);
+    AffinityWorkExecutor executor = executor(w0, w1);
+
+    executor.submit(work("s1"));
+    w0._busy = true;
+    assertThat(executor.submit(work("s1")).getType(), equalTo(SUCCESS));
+    w1._busy = true;
+    assertThat(executor.submit(work("s1")).getType(), equalTo(BUSY));
+    assertThat(log, contains("w0:s1", "w1:s1"));
+  }
+
+  @Test
+  public void testLoadReleasedOnTermination() {
+    List<String> log = new ArrayList<>();
+    TestWorker w0 = new TestWorker("w0", log);
+    AffinityWorkExecutor executor = executor(w0);
+
+    TaskHandle handle = executor.submit(work("s1")).getTaskHandle();
+    handle.checkTask();
+    assertThat(executor.getLoad(0), equalTo(1));
+    w0._status = TaskStatus.TerminatedNormally;
+    handle.checkTask();
+    handle.checkTask();
+    assertThat(executor.getLoad(0), equalTo(0));
+  }
+
+  @Test
+  public void testError() {
+    WorkExecutor failing = work -> SubmissionResult.error("boom");
+    List<String> log = new ArrayList<>();
+    AffinityWorkExecutor executor = executor(failing, new TestWorker("w1", log));
+    SubmissionResult result = executor.submit(work("s1"));
+    assertThat(result.getType(), equalTo(ERROR));
+    assertThat(result.getMessage(), equalTo("boom"));
+  }
+
+  @Test
+  public void testGetWorkerCacheStats() {
+    Map<String, Map<String, Long>> stats =
+        ImmutableMap.of("dataPlanes", ImmutableMap.of("hitCount", 1L));
+    WorkExecutor reporting =
+        new WorkExecutor() {
+          @Override
+          public SubmissionResult submit(QueuedWork work) {
+            return SubmissionResult.busy();
+          }
+
+          @Override
+          public @Nonnull List<Map<String, Map<String, Long>>> getWorkerCacheStats() {
+            return ImmutableList.of(stats);
+          }
+        };
+    AffinityWorkExecutor executor = executor(reporting, reporting);
+    assertThat(executor.getWorkerCacheStats(), contains(stats, stats));
+  }
+}
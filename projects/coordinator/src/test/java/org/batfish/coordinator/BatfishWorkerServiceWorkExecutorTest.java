@@ -6,6 +6,7 @@ import static org.batfish.coordinator.SubmissionResult.Type.BUSY;
 import static org.batfish.coordinator.SubmissionResult.Type.ERROR;
 import static org.batfish.coordinator.SubmissionResult.Type.SUCCESS;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.sameInstance;
@@ -14,6 +15,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Map;
 import java.util.UUID;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -57,6 +59,35 @@ public final class BatfishWorkerServiceWorkExecutorTest {
     }
   }
 
+  @Test
+  public void testGetWorkerCacheStats() {
+    Map<String, Map<String, Long>> stats =
+        ImmutableMap.of("dataPlanes", ImmutableMap.of("hitCount", 1L));
+    BatfishWorkerService service =
+        new BatfishWorkerService() {
+          @Override
+          public @Nullable Task getTaskStatus(String taskId) {
+            return TEST_TASK;
+          }
+
+          @Override
+          public LaunchResult runTask(String taskId, String[] args) {
+            throw new UnsupportedOperationException();
+          }
+
+          @Override
+          public @Nonnull Map<String, Map<String, Long>> getCacheStats() {
+            return stats;
+          }
+        };
+    BatfishWorkerServiceWorkExecutor we =
+        new BatfishWorkerServiceWorkExecutor(
+            new BatfishLogger(BatfishLogger.LEVELSTR_ERROR, false),
+            Paths.get("/dev/null"),
+            service);
+    assertThat(we.getWorkerCacheStats(), contains(stats));
+  }
+
   @Test
   public void testGetRunArgs() {
     Path containersLocation = Paths.get("/dev/null");
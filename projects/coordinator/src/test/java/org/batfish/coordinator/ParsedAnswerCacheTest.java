@@ -0,0 +1,83 @@
+package org.batfish.coordinator;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.io.IOException;
+import org.batfish.datamodel.answers.Answer;
+import org.batfish.identifiers.AnswerId;
+import org.batfish.identifiers.NetworkId;
+import org.batfish.identifiers.SnapshotId;
+import org.junit.Test;
+
+/** Tests of {@link ParsedAnswerCache}. */
+public final class ParsedAnswerCacheTest {
+
+  private static final NetworkId NETWORK = new NetworkId("network");
+  private static final SnapshotId SNAPSHOT = new SnapshotId("snapshot");
+  private static final SnapshotId OTHER_SNAPSHOT = new SnapshotId("other");
+  private static final AnswerId ANSWER = new AnswerId("answer");
+
+  private static ParsedAnswer parsed(long storedBytes) {
+    return new ParsedAnswer(new Answer(), storedBytes);
+  }
+
+  @Test
+  public void testGetCaches() throws IOException {
+    ParsedAnswerCache cache = new ParsedAnswerCache(1024 * 1024);
+    ParsedAnswer parsed = parsed(1);
+    assertThat(cache.get(NETWORK, SNAPSHOT, ANSWER, () -> parsed), sameInstance(parsed));
+    assertThat(cache.get(NETWORK, SNAPSHOT, ANSWER, () -> parsed(1)), sameInstance(parsed));
+  }
+
+  @Test
+  public void testWeighedByStoredSize() throws IOException {
+    // room for 4 KiB of stored answers
+    ParsedAnswerCache cache = new ParsedAnswerCache(4 * 1024);
+    cache.get(NETWORK, SNAPSHOT, new AnswerId("a1"), () -> parsed(1024));
+    cache.get(NETWORK, SNAPSHOT, new AnswerId("a2"), () -> parsed(1024));
+    assertThat(cache.size(), equalTo(2L));
+
+    // a non-table answer of 3 KiB does not fit with both
+    cache.get(NETWORK, SNAPSHOT, new AnswerId("a3"), () -> parsed(3 * 1024));
+    assertThat(cache.size(), equalTo(2L));
+  }
+
+  @Test
+  public void testInvalidate() throws IOException {
+    ParsedAnswerCache cache = new ParsedAnswerCache(1024 * 1024);
+    ParsedAnswer parsed = parsed(1);
+    ParsedAnswer other = parsed(1);
+    cache.get(NETWORK, SNAPSHOT, ANSWER, () -> parsed);
+    cache.get(NETWORK, OTHER_SNAPSHOT, ANSWER, () -> other);
+
+    cache.invalidate(NETWORK, SNAPSHOT);
+
+    ParsedAnswer reloaded = parsed(1);
+    assertThat(cache.get(NETWORK, SNAPSHOT, ANSWER, () -> reloaded), sameInstance(reloaded));
+    assertThat(cache.get(NETWORK, OTHER_SNAPSHOT, ANSWER, () -> parsed(1)), sameInstance(other));
+  }
+
+  @Test
+  public void testInvalidateDuringLoad() throws IOException {
+    ParsedAnswerCache cache = new ParsedAnswerCache(1024 * 1024);
+    ParsedAnswer stale = parsed(1);
+    // work on the snapshot completes while its old answer is being loaded
+    ParsedAnswer loaded =
+        cache.get(
+            NETWORK,
+            SNAPSHOT,
+            ANSWER,
+            () -> {
+              cache.invalidate(NETWORK, SNAPSHOT);
+              return stale;
+            });
+    assertThat(loaded, sameInstance(stale));
+
+    // the stale answer is not served to later requests
+    ParsedAnswer fresh = parsed(1);
+    assertThat(cache.get(NETWORK, SNAPSHOT, ANSWER, () -> fresh), sameInstance(fresh));
+    assertThat(cache.size(), equalTo(1L));
+  }
+}
@@ -224,6 +224,22 @@ public class WorkMgrServiceV2Test extends WorkMgrServiceV2TestBase {
     }
   }
 
+  @Test
+  public void testGetStatus() {
+    try (Response response =
+        target(CoordConsts.SVC_CFG_WORK_MGR2)
+            .path(CoordConstsV2.RSC_STATUS)
+            .request()
+            .header(CoordConstsV2.HTTP_HEADER_BATFISH_APIKEY, CoordConsts.DEFAULT_API_KEY)
+            .get()) {
+      assertThat(response.getStatus(), equalTo(OK.getStatusCode()));
+      Map<String, Object> result = response.readEntity(new GenericType<Map<String, Object>>() {});
+      assertThat(result, hasEntry(equalTo("incompleteWork"), equalTo(0)));
+      assertThat(result, hasEntry(equalTo("queueWaitCount"), equalTo(0)));
+      assertThat(result, hasEntry(equalTo("workerCacheStats"), equalTo(ImmutableList.of())));
+    }
+  }
+
   @Test
   public void testGetVersion() {
     try (Response response =
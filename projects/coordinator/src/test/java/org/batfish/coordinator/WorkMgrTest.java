@@ -18,6 +18,7 @@ import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.emptyIterable;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.iterableWithSize;
 import static org.hamcrest.Matchers.lessThan;
@@ -57,21 +58,26 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.UUID;
+import java.util.stream.IntStream;
 import javax.ws.rs.BadRequestException;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.batfish.common.AnswerRowsOptions;
 import org.batfish.common.BatfishException;
+import org.batfish.common.BatfishLogger;
 import org.batfish.common.BfConsts;
+import org.batfish.common.BfConsts.TaskStatus;
 import org.batfish.common.ColumnFilter;
 import org.batfish.common.ColumnSortOption;
 import org.batfish.common.Container;
+import org.batfish.common.Task;
 import org.batfish.common.WorkItem;
 import org.batfish.common.runtime.RuntimeData;
 import org.batfish.common.runtime.SnapshotRuntimeData;
 import org.batfish.common.util.BatfishObjectMapper;
 import org.batfish.common.util.CommonUtil;
 import org.batfish.coordinator.WorkDetails.WorkType;
+import org.batfish.coordinator.config.Settings;
 import org.batfish.coordinator.id.IdManager;
 import org.batfish.coordinator.resources.ForkSnapshotBean;
 import org.batfish.datamodel.Edge;
@@ -1269,6 +1275,88 @@ public final class WorkMgrTest {
     assertThat(_manager.getAnswer(network, snapshot, questionName, referenceSnapshot), nullValue());
   }
 
+  @Test
+  public void testGetFilteredAnswer() throws IOException {
+    String network = "network";
+    String snapshot = "snapshot";
+    String questionName = "question";
+
+    TableAnswerElement table =
+        new TableAnswerElement(
+            new TableMetadata(
+                ImmutableList.of(
+                    new ColumnMetadata("key", Schema.STRING, "the key column", true, false),
+                    new ColumnMetadata("val", Schema.INTEGER, "the value column", false, true))));
+    Row row0 = Row.of("key", "a", "val", 5);
+    Row row1 = Row.of("key", "b", "val", 3);
+    Row row2 = Row.of("key", "c", "val", 1);
+    Row row3 = Row.of("key", "d", "val", 4);
+    ImmutableList.of(row0, row1, row2, row3).forEach(table::addRow);
+    Answer answer = new Answer();
+    answer.addAnswerElement(table);
+    _manager.initNetwork(network, null);
+    uploadTestSnapshot(network, snapshot);
+    setupQuestionAndAnswer(network, snapshot, questionName, answer);
+    List<ColumnSortOption> sortOrder = ImmutableList.of(new ColumnSortOption("val", false));
+    AnswerRowsOptions firstPage =
+        new AnswerRowsOptions(ImmutableSet.of(), ImmutableList.of(), 2, 0, sortOrder, false);
+    AnswerRowsOptions secondPage =
+        new AnswerRowsOptions(ImmutableSet.of(), ImmutableList.of(), 2, 2, sortOrder, false);
+
+    TableView first =
+        (TableView)
+            _manager
+                .getFilteredAnswer(network, snapshot, questionName, null, firstPage)
+                .getAnswerElements()
+                .get(0);
+    TableView second =
+        (TableView)
+            _manager
+                .getFilteredAnswer(network, snapshot, questionName, null, secondPage)
+                .getAnswerElements()
+                .get(0);
+
+    assertThat(first.getRows(), contains(new TableViewRow(2, row2), new TableViewRow(1, row1)));
+    assertThat(second.getRows(), contains(new TableViewRow(3, row3), new TableViewRow(0, row0)));
+    assertThat(second.getSummary().getNumResults(), equalTo(4));
+  }
+
+  @Test
+  public void testGetFilteredAnswerNotTable() throws IOException {
+    String network = "network";
+    String snapshot = "snapshot";
+    String questionName = "question";
+
+    Answer expectedAnswer = new Answer();
+    expectedAnswer.addAnswerElement(new StringAnswerElement("foo1"));
+    String expectedAnswerString = BatfishObjectMapper.writeString(expectedAnswer);
+    _manager.initNetwork(network, null);
+    uploadTestSnapshot(network, snapshot);
+    setupQuestionAndAnswer(network, snapshot, questionName, expectedAnswer);
+    Answer ans =
+        _manager.getFilteredAnswer(
+            network, snapshot, questionName, null, AnswerRowsOptions.NO_FILTER);
+
+    // Answers that are not tables are returned as is
+    assertThat(BatfishObjectMapper.writeString(ans), equalTo(expectedAnswerString));
+  }
+
+  @Test
+  public void testGetFilteredAnswerNotFound() throws IOException {
+    String network = "network";
+    String snapshot = "snapshot";
+    String questionName = "question";
+
+    _manager.initNetwork(network, null);
+    uploadTestSnapshot(network, snapshot);
+    setupQuestionAndAnswer(network, snapshot, questionName, null, null);
+
+    assertThat(
+        _manager.getFilteredAnswer(
+            network, snapshot, questionName, null, AnswerRowsOptions.NO_FILTER),
+        nullValue());
+  }
+
   @Test
   public void testGetAnswerMetadataAdHocSuccess() throws IOException {
     String networkName = "network1";
@@ -1993,6 +2081,86 @@ public final class WorkMgrTest {
     assertThat(projectedRows.get(1).getId(), equalTo(1));
   }
 
+  @Test
+  public void testProcessAnswerTable2Page() {
+    TableAnswerElement table =
+        new TableAnswerElement(
+            new TableMetadata(
+                ImmutableList.of(
+                    new ColumnMetadata("key", Schema.STRING, "the key column", true, false),
+                    new ColumnMetadata("val", Schema.INTEGER, "the value column", false, true))));
+    Row row0 = Row.of("key", "a", "val", 5);
+    Row row1 = Row.of("key", "b", "val", 3);
+    Row row2 = Row.of("key", "c", "val", 1);
+    Row row3 = Row.of("key", "d", "val", 4);
+    Row row4 = Row.of("key", "e", "val", 2);
+    Row row5 = Row.of("key", "f", "val", 3);
+    ImmutableList.of(row0, row1, row2, row3, row4, row5).forEach(table::addRow);
+    AnswerRowsOptions optionsPage =
+        new AnswerRowsOptions(
+            ImmutableSet.of(), ImmutableList.of(), 2, 1, ImmutableList.of(), false);
+    AnswerRowsOptions optionsSortedPage =
+        new AnswerRowsOptions(
+            ImmutableSet.of(),
+            ImmutableList.of(),
+            3,
+            1,
+            ImmutableList.of(new ColumnSortOption("val", false)),
+            false);
+
+    TableView page = _manager.processAnswerTable2(table, optionsPage);
+    TableView sortedPage = _manager.processAnswerTable2(table, optionsSortedPage);
+
+    assertThat(page.getRows(), contains(new TableViewRow(1, row1), new TableViewRow(2, row2)));
+    // rows that compare equal keep their order in the answer
+    assertThat(
+        sortedPage.getRows(),
+        contains(new TableViewRow(4, row4), new TableViewRow(1, row1), new TableViewRow(5, row5)));
+    assertThat(page.getSummary().getNumResults(), equalTo(6));
+    assertThat(sortedPage.getSummary().getNumResults(), equalTo(6));
+  }
+
+  @Test
+  public void testProcessAnswerTable2ParsedAnswer() {
+    TableAnswerElement table =
+        new TableAnswerElement(
+            new TableMetadata(
+                ImmutableList.of(
+                    new ColumnMetadata("key", Schema.STRING, "the key column", true, false),
+                    new ColumnMetadata("val", Schema.INTEGER, "the value column", false, true))));
+    Row row0 = Row.of("key", "a", "val", 5);
+    Row row1 = Row.of("key", "b", "val", 3);
+    Row row2 = Row.of("key", "c", "val", 1);
+    Row row3 = Row.of("key", "d", "val", 4);
+    Row row4 = Row.of("key", "e", "val", 2);
+    Row row5 = Row.of("key", "f", "val", 3);
+    ImmutableList.of(row0, row1, row2, row3, row4, row5).forEach(table::addRow);
+    Answer answer = new Answer();
+    answer.addAnswerElement(table);
+    ParsedAnswer parsed = new ParsedAnswer(answer, 0);
+    List<ColumnSortOption> sortOrder = ImmutableList.of(new ColumnSortOption("val", false));
+    AnswerRowsOptions optionsSortedPage =
+        new AnswerRowsOptions(ImmutableSet.of(), ImmutableList.of(), 3, 1, sortOrder, false);
+    AnswerRowsOptions optionsFilteredSortedPage =
+        new AnswerRowsOptions(
+            ImmutableSet.of(),
+            ImmutableList.of(new ColumnFilter("key", "b", false)),
+            3,
+            0,
+            sortOrder,
+            false);
+
+    TableView sortedPage = _manager.processAnswerTable2(parsed, optionsSortedPage);
+    TableView filteredSortedPage = _manager.processAnswerTable2(parsed, optionsFilteredSortedPage);
+
+    assertThat(
+        sortedPage.getRows(),
+        contains(new TableViewRow(4, row4), new TableViewRow(1, row1), new TableViewRow(5, row5)));
+    assertThat(filteredSortedPage.getRows(), contains(new TableViewRow(1, row1)));
+    assertThat(sortedPage.getSummary().getNumResults(), equalTo(6));
+    assertThat(filteredSortedPage.getSummary().getNumResults(), equalTo(1));
+  }
+
   @Test
   public void testProcessAnswerTable2ProjectWrongColumn() {
     TableMetadata metadata =
@@ -2765,4 +2933,64 @@ public final class WorkMgrTest {
     // Confirm filter options were applied correctly
     assertThat(processedRows, equalTo(table.getRowsList()));
   }
+
+  @Test
+  public void testWorkersRoutedBySnapshotAffinity() throws IOException {
+    String network = "network";
+    _manager.initNetwork(network, null);
+    WorkMgrTestUtils.initSnapshotWithTopology(network, "small1", ImmutableSet.of("n1"));
+    WorkMgrTestUtils.initSnapshotWithTopology(network, "small2", ImmutableSet.of("n1"));
+    Set<String> bigNodes =
+        IntStream.range(0, 50).mapToObj(i -> "n" + i).collect(ImmutableSet.toImmutableSet());
+    WorkMgrTestUtils.initSnapshotWithTopology(network, "big1", bigNodes);
+    WorkMgrTestUtils.initSnapshotWithTopology(network, "big2", bigNodes);
+
+    List<String> log = new ArrayList<>();
+    List<WorkExecutor> workers = new ArrayList<>();
+    WorkExecutorCreator creator =
+        (logger, settings, index) -> {
+          String name = "w" + index;
+          WorkExecutor worker =
+              work -> {
+                log.add(name + ":" + work.getWorkItem().getSnapshot());
+                return SubmissionResult.success(() -> new Task(TaskStatus.InProgress));
+              };
+          workers.add(worker);
+          return worker;
+        };
+    // each worker caches 4 nodes, and a snapshot weighs at most 2
+    Settings settings =
+        new Settings(
+            new String[] {
+              "-containerslocation",
+              _folder.getRoot().toString(),
+              "-workers",
+              "2",
+              "-workercacheddataplanenodes",
+              "4"
+            });
+    WorkMgr manager =
+        new WorkMgr(settings, new BatfishLogger("debug", false), _idManager, _storage, creator);
+    assertThat(workers, hasSize(2));
+
+    NetworkId networkId = _idManager.getNetworkId(network).get();
+    for (String snapshot :
+        ImmutableList.of("small1", "small2", "small1", "small1", "big1", "big2", "small2")) {
+      manager
+          .getWorkExecutor()
+          .submit(
+              new QueuedWork(
+                  new WorkItem(network, snapshot),
+                  WorkDetails.builder()
+                      .setNetworkId(networkId)
+                      .setSnapshotId(_idManager.getSnapshotId(snapshot, networkId).get())
+                      .setWorkType(WorkType.INDEPENDENT_ANSWERING)
+                      .build()));
+    }
+    // caching big1 and big2 on the less loaded w1 evicts small2, whose size is read from storage
+    assertThat(
+        log,
+        contains(
+            "w0:small1", "w1:small2", "w0:small1", "w0:small1", "w1:big1", "w1:big2", "w0:small2"));
+  }
 }
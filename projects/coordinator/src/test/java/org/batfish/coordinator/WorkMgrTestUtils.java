@@ -199,7 +199,7 @@ public final class WorkMgrTestUtils {
   static class TestWorkExecutorCreator implements WorkExecutorCreator {
 
     @Override
-    public WorkExecutor apply(BatfishLogger batfishLogger, Settings settings) {
+    public WorkExecutor create(BatfishLogger batfishLogger, Settings settings, int worker) {
       return new WorkExecutor() {
         @Override
         public SubmissionResult submit(QueuedWork work) {
@@ -7,6 +7,7 @@ import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.iterableWithSize;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertSame;
 
@@ -306,6 +307,59 @@ public final class WorkQueueMgrTest {
                 hasWorkItem(equalTo(work2.getWorkItem())))));
   }
 
+  @Test
+  public void getQueueWaitStats() throws Exception {
+    WorkMgrTestUtils.initSnapshotWithTopology(NETWORK, SNAPSHOT, ImmutableSet.of());
+    SnapshotId snapshotId = _idManager.getSnapshotId(SNAPSHOT, _networkId).get();
+    QueuedWork work =
+        new QueuedWork(
+            new WorkItem(NETWORK, SNAPSHOT),
+            WorkDetails.builder()
+                .setNetworkId(_networkId)
+                .setSnapshotId(snapshotId)
+                .setWorkType(WorkType.UNKNOWN)
+                .build());
+    _workQueueMgr.queueUnassignedWork(work);
+    assertThat(_workQueueMgr.getQueueWaitStats().getCount(), equalTo(0L));
+
+    assertSame(work, _workQueueMgr.getWorkForAssignment());
+    _workQueueMgr.markAssignmentSuccess(work, () -> new Task(TaskStatus.InProgress));
+    assertThat(_workQueueMgr.getQueueWaitStats().getCount(), equalTo(1L));
+    assertThat(
+        _workQueueMgr.getQueueWaitStats().getTotalMillis(),
+        equalTo(work.getDateAssigned().getTime() - work.getDateCreated().getTime()));
+  }
+
+  @Test
+  public void getWorkForAssignmentInQueueOrder() throws Exception {
+    WorkMgrTestUtils.initSnapshotWithTopology(NETWORK, SNAPSHOT, ImmutableSet.of());
+    SnapshotId snapshotId = _idManager.getSnapshotId(SNAPSHOT, _networkId).get();
+    WorkDetails details =
+        WorkDetails.builder()
+            .setNetworkId(_networkId)
+            .setSnapshotId(snapshotId)
+            .setWorkType(WorkType.UNKNOWN)
+            .build();
+    QueuedWork work1 = new QueuedWork(new WorkItem(NETWORK, SNAPSHOT), details);
+    QueuedWork work2 = new QueuedWork(new WorkItem(NETWORK, SNAPSHOT), details);
+    _workQueueMgr.queueUnassignedWork(work1);
+    _workQueueMgr.queueUnassignedWork(work2);
+
+    // work that fails assignment keeps its place in the queue
+    assertSame(work1, _workQueueMgr.getWorkForAssignment());
+    _workQueueMgr.markAssignmentFailure(work1);
+    assertSame(work1, _workQueueMgr.getWorkForAssignment());
+    _workQueueMgr.markAssignmentSuccess(work1, () -> new Task(TaskStatus.InProgress));
+    assertSame(work2, _workQueueMgr.getWorkForAssignment());
+    _workQueueMgr.markAssignmentError(work2);
+    assertThat(_workQueueMgr.getWorkForAssignment(), nullValue());
+
+    // work whose task status is unknown becomes assignable again
+    assertThat(_workQueueMgr.getWorkForChecking(), contains(work1));
+    _workQueueMgr.processTaskCheckResult(work1, new Task(TaskStatus.Unknown));
+    assertSame(work1, _workQueueMgr.getWorkForAssignment());
+  }
+
   @Test
   public void getCompletedWorkBadFilter() {
     // Make sure we get no results or error filtering on a bogus snapshot
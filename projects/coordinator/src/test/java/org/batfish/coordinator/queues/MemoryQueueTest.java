@@ -0,0 +1,121 @@
+package org.batfish.coordinator.queues;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableList;
+import org.batfish.common.WorkItem;
+import org.batfish.coordinator.QueuedWork;
+import org.batfish.coordinator.WorkDetails;
+import org.batfish.coordinator.WorkDetails.WorkType;
+import org.batfish.identifiers.NetworkId;
+import org.batfish.identifiers.SnapshotId;
+import org.junit.Test;
+
+/** Tests of {@link MemoryQueue}. */
+public final class MemoryQueueTest {
+
+  private static final NetworkId NETWORK = new NetworkId("network");
+  private static final SnapshotId SNAPSHOT1 = new SnapshotId("snapshot1");
+  private static final SnapshotId SNAPSHOT2 = new SnapshotId("snapshot2");
+  private static final SnapshotId SNAPSHOT3 = new SnapshotId("snapshot3");
+
+  private static QueuedWork work(SnapshotId snapshot) {
+    return new QueuedWork(
+        new WorkItem(NETWORK.getId(), snapshot.getId()),
+        WorkDetails.builder()
+            .setNetworkId(NETWORK)
+            .setSnapshotId(snapshot)
+            .setWorkType(WorkType.UNKNOWN)
+            .build());
+  }
+
+  private static QueuedWork differentialWork(SnapshotId snapshot, SnapshotId reference) {
+    return new QueuedWork(
+        new WorkItem(NETWORK.getId(), snapshot.getId()),
+        WorkDetails.builder()
+            .setNetworkId(NETWORK)
+            .setSnapshotId(snapshot)
+            .setReferenceSnapshotId(reference)
+            .setIsDifferential(true)
+            .setWorkType(WorkType.UNKNOWN)
+            .build());
+  }
+
+  @Test
+  public void testQueueOrder() {
+    MemoryQueue queue = new MemoryQueue();
+    QueuedWork work1 = work(SNAPSHOT1);
+    QueuedWork work2 = work(SNAPSHOT2);
+    QueuedWork work3 = work(SNAPSHOT1);
+    assertTrue(queue.enque(work1));
+    assertTrue(queue.enque(work2));
+    assertTrue(queue.enque(work3));
+    assertFalse(queue.enque(work2));
+
+    assertThat(queue.getLength(), equalTo(3L));
+    assertThat(queue, contains(work1, work2, work3));
+    assertThat(queue.deque(), sameInstance(work1));
+    assertThat(queue, contains(work2, work3));
+  }
+
+  @Test
+  public void testGetWork() {
+    MemoryQueue queue = new MemoryQueue();
+    QueuedWork work = work(SNAPSHOT1);
+    queue.enque(work);
+    assertThat(queue.getWork(work.getId()), sameInstance(work));
+    assertTrue(queue.delete(work));
+    assertFalse(queue.delete(work));
+    assertThat(queue.getWork(work.getId()), nullValue());
+    assertThat(queue.deque(), nullValue());
+  }
+
+  @Test
+  public void testGetWorkForSnapshot() {
+    MemoryQueue queue = new MemoryQueue();
+    QueuedWork work1 = work(SNAPSHOT1);
+    QueuedWork diff = differentialWork(SNAPSHOT2, SNAPSHOT1);
+    QueuedWork work2 = work(SNAPSHOT2);
+    QueuedWork work3 = work(SNAPSHOT3);
+    queue.enque(work1);
+    queue.enque(diff);
+    queue.enque(work2);
+    queue.enque(work3);
+
+    assertThat(queue.getWorkForSnapshot(SNAPSHOT1), contains(work1, diff));
+    assertThat(queue.getWorkForSnapshot(SNAPSHOT2), contains(diff, work2));
+    assertThat(
+        queue.getWorkForSnapshots(ImmutableList.of(SNAPSHOT3, SNAPSHOT2, SNAPSHOT1)),
+        contains(work1, diff, work2, work3));
+
+    queue.delete(diff);
+    assertThat(queue.getWorkForSnapshot(SNAPSHOT1), contains(work1));
+    assertThat(queue.getWorkForSnapshot(SNAPSHOT2), contains(work2));
+    assertThat(queue.getWorkForSnapshot(new SnapshotId("other")), empty());
+  }
+
+  @Test
+  public void testGetWorkForNames() {
+    MemoryQueue queue = new MemoryQueue();
+    QueuedWork work1 = work(SNAPSHOT1);
+    QueuedWork work2 = work(SNAPSHOT2);
+    QueuedWork work3 = work(SNAPSHOT1);
+    queue.enque(work1);
+    queue.enque(work2);
+    queue.enque(work3);
+
+    assertThat(queue.getWorkForNames(NETWORK.getId(), SNAPSHOT1.getId()), contains(work1, work3));
+    assertThat(queue.getWorkForNames(NETWORK.getId(), SNAPSHOT2.getId()), contains(work2));
+    assertThat(queue.getWorkForNames("other", SNAPSHOT1.getId()), empty());
+
+    queue.delete(work1);
+    assertThat(queue.getWorkForNames(NETWORK.getId(), SNAPSHOT1.getId()), contains(work3));
+  }
+}
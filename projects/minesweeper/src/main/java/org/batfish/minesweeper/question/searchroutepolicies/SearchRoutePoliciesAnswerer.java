@@ -3,19 +3,26 @@ package org.batfish.minesweeper.question.searchroutepolicies;
 import static com.google.common.base.Preconditions.checkArgument;
 import static org.batfish.datamodel.LineAction.PERMIT;
 import static org.batfish.minesweeper.bdd.TransferBDD.isRelevantForDestination;
+import static org.batfish.question.testroutepolicies.TestRoutePoliciesAnswerer.COL_NODE;
 import static org.batfish.question.testroutepolicies.TestRoutePoliciesAnswerer.toRow;
 import static org.batfish.specifier.NameRegexRoutingPolicySpecifier.ALL_ROUTING_POLICIES;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.BoundType;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Range;
 import dk.brics.automaton.Automaton;
 import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -42,6 +49,7 @@ import org.batfish.datamodel.PrefixSpace;
 import org.batfish.datamodel.answers.AnswerElement;
 import org.batfish.datamodel.answers.NextHopBgpPeerAddress;
 import org.batfish.datamodel.answers.NextHopSelf;
+import org.batfish.datamodel.pojo.Node;
 import org.batfish.datamodel.questions.BgpRoute;
 import org.batfish.datamodel.routing_policy.Environment;
 import org.batfish.datamodel.routing_policy.RoutingPolicy;
@@ -579,7 +587,7 @@ public final class SearchRoutePoliciesAnswerer extends Answerer {
    * @param policies all route policies in that node
    * @return all results from analyzing those route policies
    */
-  private Stream<Row> searchPoliciesForNode(Configuration config, Set<RoutingPolicy> policies) {
+  private List<Row> searchPoliciesForNode(Configuration config, Set<RoutingPolicy> policies) {
     ConfigAtomicPredicates configAPs =
         new ConfigAtomicPredicates(
             ImmutableList.of(new SimpleImmutableEntry<>(config, policies)),
@@ -602,7 +610,9 @@ public final class SearchRoutePoliciesAnswerer extends Answerer {
                 .map(RegexConstraint::getRegex)
                 .collect(ImmutableSet.toImmutableSet()));
 
-    return policies.stream().flatMap(policy -> searchPolicy(policy, configAPs).stream());
+    return policies.stream()
+        .flatMap(policy -> searchPolicy(policy, configAPs).stream())
+        .collect(ImmutableList.toImmutableList());
   }
 
   /**
@@ -637,12 +647,35 @@ public final class SearchRoutePoliciesAnswerer extends Answerer {
     SpecifierContext context = _batfish.specifierContext(snapshot);
     Set<String> nodes = _nodeSpecifier.resolve(context);
     validateCommunityConstraints(_nodeSpecifier.resolve(context), context);
+
+    // Nodes with identical policies and structures (e.g., from the same template) have the same
+    // results up to the node name, so analyze only one node of each group.
+    Map<NodePolicies, String> representatives = new HashMap<>();
+    Map<String, String> representativeByNode = new LinkedHashMap<>();
+    for (String node : nodes) {
+      NodePolicies key =
+          new NodePolicies(context.getConfigs().get(node), _policySpecifier.resolve(node, context));
+      representativeByNode.put(node, representatives.computeIfAbsent(key, k -> node));
+    }
+
+    // Nodes are independent, and each policy is analyzed with its own BDD factory.
+    Map<String, List<Row>> rowsByRepresentative =
+        representatives.entrySet().parallelStream()
+            .collect(
+                ImmutableMap.toImmutableMap(
+                    Entry::getValue,
+                    e -> searchPoliciesForNode(e.getKey()._config, e.getKey()._policies)));
+
     List<Row> rows =
-        nodes.stream()
+        representativeByNode.entrySet().stream()
             .flatMap(
-                node ->
-                    searchPoliciesForNode(
-                        context.getConfigs().get(node), _policySpecifier.resolve(node, context)))
+                e -> {
+                  String node = e.getKey();
+                  List<Row> representativeRows = rowsByRepresentative.get(e.getValue());
+                  return node.equals(e.getValue())
+                      ? representativeRows.stream()
+                      : representativeRows.stream().map(row -> relabel(row, node));
+                })
             .collect(ImmutableList.toImmutableList());
 
     TableAnswerElement answerElement = new TableAnswerElement(TestRoutePoliciesAnswerer.metadata());
@@ -650,6 +683,61 @@ public final class SearchRoutePoliciesAnswerer extends Answerer {
     return answerElement;
   }
 
+  /** Returns a copy of a result row of another node, for the given node. */
+  private static @Nonnull Row relabel(Row row, String node) {
+    return Row.builder().putAll(row).put(COL_NODE, new Node(node)).build();
+  }
+
+  /**
+   * The policies to analyze on a node, and everything in the node's configuration that their
+   * analysis or simulation may read. Nodes with equal {@link NodePolicies} have the same results up
+   * to the node name.
+   */
+  private static final class NodePolicies {
+    private final @Nonnull Configuration _config;
+    private final @Nonnull Set<RoutingPolicy> _policies;
+    // Everything compared, besides the policies (which are compared without their owner)
+    private final @Nonnull List<Object> _structures;
+    private final int _hashCode;
+
+    NodePolicies(Configuration config, Set<RoutingPolicy> policies) {
+      _config = config;
+      _policies = policies;
+      _structures =
+          Arrays.asList(
+              Environment.useOutputAttributesFor(config),
+              config.getAsPathAccessLists(),
+              config.getAsPathExprs(),
+              config.getAsPathMatchExprs(),
+              config.getCommunityMatchExprs(),
+              config.getCommunitySetExprs(),
+              config.getCommunitySetMatchExprs(),
+              config.getCommunitySets(),
+              config.getIpAccessLists(),
+              config.getRouteFilterLists(),
+              config.getRoutingPolicies());
+      _hashCode = Objects.hash(_policies, _structures);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      } else if (!(o instanceof NodePolicies)) {
+        return false;
+      }
+      NodePolicies that = (NodePolicies) o;
+      return _hashCode == that._hashCode
+          && _policies.equals(that._policies)
+          && _structures.equals(that._structures);
+    }
+
+    @Override
+    public int hashCode() {
+      return _hashCode;
+    }
+  }
+
   @VisibleForTesting
   @Nonnull
   NodeSpecifier getNodeSpecifier() {
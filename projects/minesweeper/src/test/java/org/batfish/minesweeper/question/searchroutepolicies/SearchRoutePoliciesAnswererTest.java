@@ -32,6 +32,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
+import java.util.TreeMap;
 import org.apache.commons.lang3.SerializationUtils;
 import org.batfish.common.NetworkSnapshot;
 import org.batfish.common.plugin.IBatfish;
@@ -267,6 +268,76 @@ public class SearchRoutePoliciesAnswererTest {
                 hasColumn(COL_DIFF, equalTo(diff), Schema.BGP_ROUTE_DIFFS))));
   }
 
+  @Test
+  public void testNodesWithIdenticalPolicies() {
+    NetworkFactory nf = new NetworkFactory();
+    SortedMap<String, Configuration> configs = new TreeMap<>();
+    for (String hostname : ImmutableList.of("n1", "n2", "n3")) {
+      Configuration c =
+          nf.configurationBuilder()
+              .setHostname(hostname)
+              .setConfigurationFormat(ConfigurationFormat.CISCO_IOS)
+              .build();
+      nf.vrfBuilder().setOwner(c).setName(Configuration.DEFAULT_VRF_NAME).build();
+      // n1 and n2 are identical up to their names, n3 is not
+      Prefix prefix = Prefix.parse(hostname.equals("n3") ? "2.0.0.0/8" : "1.0.0.0/8");
+      nf.routingPolicyBuilder()
+          .setOwner(c)
+          .setName(POLICY_NAME)
+          .addStatement(
+              new If(
+                  matchPrefixSet(ImmutableList.of(PrefixRange.fromPrefix(prefix))),
+                  ImmutableList.of(new StaticStatement(Statements.ExitAccept))))
+          .build();
+      configs.put(hostname, c);
+    }
+    IBatfish batfish = new MockBatfish(configs);
+
+    SearchRoutePoliciesQuestion question =
+        new SearchRoutePoliciesQuestion(
+            DEFAULT_DIRECTION,
+            EMPTY_CONSTRAINTS,
+            EMPTY_CONSTRAINTS,
+            null,
+            POLICY_NAME,
+            PERMIT,
+            DEFAULT_PATH_OPTION);
+    SearchRoutePoliciesAnswerer answerer = new SearchRoutePoliciesAnswerer(question, batfish);
+
+    TableAnswerElement answer = (TableAnswerElement) answerer.answer(batfish.getSnapshot());
+
+    BgpRoute inputRoute =
+        BgpRoute.builder()
+            .setNetwork(Prefix.parse("1.0.0.0/8"))
+            .setOriginatorIp(Ip.ZERO)
+            .setOriginMechanism(OriginMechanism.LEARNED)
+            .setOriginType(OriginType.EGP)
+            .setProtocol(RoutingProtocol.BGP)
+            .setNextHopIp(Ip.parse("0.0.0.1"))
+            .setLocalPreference(Bgpv4Route.DEFAULT_LOCAL_PREFERENCE)
+            .build();
+    BgpRoute n3InputRoute = inputRoute.toBuilder().setNetwork(Prefix.parse("2.0.0.0/8")).build();
+
+    assertThat(
+        answer.getRows().getData(),
+        Matchers.containsInAnyOrder(
+            allOf(
+                hasColumn(COL_NODE, equalTo(new Node("n1")), Schema.NODE),
+                hasColumn(COL_POLICY_NAME, equalTo(POLICY_NAME), Schema.STRING),
+                hasColumn(COL_INPUT_ROUTE, equalTo(inputRoute), Schema.BGP_ROUTE),
+                hasColumn(COL_OUTPUT_ROUTE, equalTo(inputRoute), Schema.BGP_ROUTE)),
+            allOf(
+                hasColumn(COL_NODE, equalTo(new Node("n2")), Schema.NODE),
+                hasColumn(COL_POLICY_NAME, equalTo(POLICY_NAME), Schema.STRING),
+                hasColumn(COL_INPUT_ROUTE, equalTo(inputRoute), Schema.BGP_ROUTE),
+                hasColumn(COL_OUTPUT_ROUTE, equalTo(inputRoute), Schema.BGP_ROUTE)),
+            allOf(
+                hasColumn(COL_NODE, equalTo(new Node("n3")), Schema.NODE),
+                hasColumn(COL_POLICY_NAME, equalTo(POLICY_NAME), Schema.STRING),
+                hasColumn(COL_INPUT_ROUTE, equalTo(n3InputRoute), Schema.BGP_ROUTE),
+                hasColumn(COL_OUTPUT_ROUTE, equalTo(n3InputRoute), Schema.BGP_ROUTE))));
+  }
+
   @Test
   public void testPermitAllOut() {
     RoutingPolicy policy =
@@ -24,7 +24,7 @@ import java.util.stream.Collectors;
 import javax.annotation.ParametersAreNonnullByDefault;
 import org.batfish.common.Answerer;
 import org.batfish.common.NetworkSnapshot;
-import org.batfish.common.bdd.BDDPacket;
+import org.batfish.common.bdd.BDDPacketPool;
 import org.batfish.common.plugin.IBatfish;
 import org.batfish.datamodel.AclLine;
 import org.batfish.datamodel.Configuration;
@@ -454,7 +454,11 @@ public class FilterLineReachabilityAnswerer extends Answerer {
     return aclSpecs.parallelStream()
         .flatMap(
             aclSpec ->
-                FilterLineReachabilityUtils.computeUnreachableFilterLines(aclSpec, new BDDPacket()))
+                BDDPacketPool.withPacket(
+                        pkt ->
+                            FilterLineReachabilityUtils.computeUnreachableFilterLines(aclSpec, pkt)
+                                .collect(ImmutableList.toImmutableList()))
+                    .stream())
         .collect(Collectors.toList());
   }
 }
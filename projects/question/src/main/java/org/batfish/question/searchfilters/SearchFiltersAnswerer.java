@@ -26,6 +26,7 @@ import org.batfish.common.Answerer;
 import org.batfish.common.BatfishException;
 import org.batfish.common.NetworkSnapshot;
 import org.batfish.common.bdd.BDDPacket;
+import org.batfish.common.bdd.BDDPacketPool;
 import org.batfish.common.bdd.BDDSourceManager;
 import org.batfish.common.bdd.IpAccessListToBdd;
 import org.batfish.common.bdd.IpAccessListToBddImpl;
@@ -58,18 +59,27 @@ public final class SearchFiltersAnswerer extends Answerer {
   @Override
   public AnswerElement answer(NetworkSnapshot snapshot) {
     SearchFiltersQuestion question = (SearchFiltersQuestion) _question;
-    nonDifferentialAnswer(snapshot, question);
-    return _tableAnswerElement;
+    return BDDPacketPool.withPacket(
+        pkt -> {
+          nonDifferentialAnswer(snapshot, question, pkt);
+          return _tableAnswerElement;
+        });
   }
 
   @Override
   public AnswerElement answerDiff(NetworkSnapshot snapshot, NetworkSnapshot reference) {
-    differentialAnswer((SearchFiltersQuestion) _question, snapshot, reference);
-    return _tableAnswerElement;
+    return BDDPacketPool.withPacket(
+        pkt -> {
+          differentialAnswer((SearchFiltersQuestion) _question, snapshot, reference, pkt);
+          return _tableAnswerElement;
+        });
   }
 
   private void differentialAnswer(
-      SearchFiltersQuestion question, NetworkSnapshot snapshot, NetworkSnapshot reference) {
+      SearchFiltersQuestion question,
+      NetworkSnapshot snapshot,
+      NetworkSnapshot reference,
+      BDDPacket pkt) {
     SearchFiltersParameters parameters = question.toSearchFiltersParameters();
     SearchFiltersQuery query = question.getQuery();
 
@@ -79,7 +89,7 @@ public final class SearchFiltersAnswerer extends Answerer {
     Map<String, Map<String, IpAccessList>> acls = getSpecifiedAcls(snapshot, question);
     Map<String, Map<String, IpAccessList>> refAcls = getSpecifiedAcls(reference, question);
     Map<String, DiffConfigContext> configContexts =
-        getDiffConfigContexts(acls, refAcls, snapshot, reference, parameters);
+        getDiffConfigContexts(acls, refAcls, snapshot, reference, parameters, pkt);
 
     for (Entry<String, DiffConfigContext> e : configContexts.entrySet()) {
       String hostname = e.getKey();
@@ -136,7 +146,8 @@ public final class SearchFiltersAnswerer extends Answerer {
     _tableAnswerElement.postProcessAnswer(question, diffTable.getRows().getData());
   }
 
-  private void nonDifferentialAnswer(NetworkSnapshot snapshot, SearchFiltersQuestion question) {
+  private void nonDifferentialAnswer(
+      NetworkSnapshot snapshot, SearchFiltersQuestion question, BDDPacket pkt) {
     Map<String, Map<String, IpAccessList>> specifiedAcls = getSpecifiedAcls(snapshot, question);
     if (specifiedAcls.values().stream().allMatch(Map::isEmpty)) {
       throw new BatfishException("No matching filters");
@@ -151,7 +162,7 @@ public final class SearchFiltersAnswerer extends Answerer {
     SearchFiltersParameters parameters = question.toSearchFiltersParameters();
     SearchFiltersQuery query = question.getQuery();
     for (Entry<String, NonDiffConfigContext> e :
-        getConfigContexts(specifiedAcls, snapshot, parameters).entrySet()) {
+        getConfigContexts(specifiedAcls, snapshot, parameters, pkt).entrySet()) {
       String hostname = e.getKey();
       NonDiffConfigContext configContext = e.getValue();
       for (IpAccessList acl : specifiedAcls.get(hostname).values()) {
@@ -182,9 +193,9 @@ public final class SearchFiltersAnswerer extends Answerer {
   private Map<String, NonDiffConfigContext> getConfigContexts(
       Map<String, Map<String, IpAccessList>> specifiedAcls,
       NetworkSnapshot snapshot,
-      SearchFiltersParameters parameters) {
+      SearchFiltersParameters parameters,
+      BDDPacket pkt) {
     Map<String, Configuration> configs = _batfish.loadConfigurations(snapshot);
-    BDDPacket pkt = new BDDPacket();
     return specifiedAcls.entrySet().stream()
         .collect(
             ImmutableMap.toImmutableMap(
@@ -205,10 +216,10 @@ public final class SearchFiltersAnswerer extends Answerer {
       Map<String, Map<String, IpAccessList>> refAcls,
       NetworkSnapshot snapshot,
       NetworkSnapshot reference,
-      SearchFiltersParameters parameters) {
+      SearchFiltersParameters parameters,
+      BDDPacket pkt) {
     Map<String, Configuration> baseConfigs = _batfish.loadConfigurations(snapshot);
     Map<String, Configuration> refConfigs = _batfish.loadConfigurations(reference);
-    BDDPacket pkt = new BDDPacket();
 
     Set<String> commonNodes = Sets.intersection(baseAcls.keySet(), refAcls.keySet());
     ImmutableMap.Builder<String, DiffConfigContext> configContexts = ImmutableMap.builder();
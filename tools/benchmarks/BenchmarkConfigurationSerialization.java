@@ -0,0 +1,137 @@
+package tools.benchmarks;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static org.batfish.main.TestrigText.loadTestrig;
+
+import com.google.common.collect.Streams;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.batfish.config.Settings;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.answers.ConvertConfigurationAnswerElement;
+import org.batfish.main.Batfish;
+import org.batfish.main.BatfishTestUtils;
+import org.batfish.storage.JavaStorageSerializer;
+import org.batfish.storage.JsonStorageSerializer;
+import org.batfish.storage.StorageSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares {@link StorageSerializer storage serializers} on the stored objects of a snapshot: its
+ * {@link ConvertConfigurationAnswerElement} by default, or its {@link Configuration configurations}
+ * with {@code -p objects=configurations}. The serializer must support the objects, so that it is
+ * the one measured; only {@link JavaStorageSerializer} supports configurations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BenchmarkConfigurationSerialization {
+  @Param({"REQUIRED INPUT PARAM"})
+  public String snapshotDir;
+
+  @Param({JavaStorageSerializer.NAME, JsonStorageSerializer.NAME})
+  public String serializer;
+
+  @Param({"convertAnswerElement"})
+  public String objects;
+
+  private StorageSerializer _serializer;
+  private List<Serializable> _objects;
+  private List<byte[]> _serialized;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    _serializer =
+        Stream.concat(
+                Stream.of(JavaStorageSerializer.INSTANCE, new JsonStorageSerializer()),
+                Streams.stream(ServiceLoader.load(StorageSerializer.class)))
+            .filter(s -> s.getName().equals(serializer))
+            .findFirst()
+            .orElse(null);
+    checkArgument(_serializer != null, "No serializer named '%s'", serializer);
+
+    Path tmp = Files.createTempDirectory(this.getClass().getSimpleName());
+    Batfish batfish = BatfishTestUtils.getBatfishFromTestrigText(loadTestrig(snapshotDir), tmp);
+
+    Settings settings = batfish.getSettings();
+    settings.setDisableUnrecognized(false);
+    settings.setHaltOnConvertError(false);
+    settings.setHaltOnParseError(false);
+    settings.setThrowOnLexerError(false);
+    settings.setThrowOnParserError(false);
+
+    SortedMap<String, Configuration> configs = batfish.loadConfigurations(batfish.getSnapshot());
+    checkState(!configs.isEmpty(), "No configs were parsed");
+    if (objects.equals("configurations")) {
+      _objects = List.copyOf(configs.values());
+    } else {
+      checkArgument(objects.equals("convertAnswerElement"), "Unknown objects '%s'", objects);
+      _objects =
+          List.of(batfish.loadConvertConfigurationAnswerElementOrReparse(batfish.getSnapshot()));
+    }
+    _objects.forEach(
+        o ->
+            checkArgument(
+                _serializer.supports(o.getClass()),
+                "Serializer '%s' does not support %s",
+                serializer,
+                o.getClass().getSimpleName()));
+
+    _serialized =
+        _objects.stream()
+            .map(
+                c -> {
+                  try {
+                    return serialize(c);
+                  } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                  }
+                })
+            .collect(Collectors.toList());
+  }
+
+  private byte[] serialize(Serializable object) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    _serializer.serialize(object, out);
+    return out.toByteArray();
+  }
+
+  @Benchmark
+  public long serialize() throws IOException {
+    long size = 0;
+    for (Serializable object : _objects) {
+      size += serialize(object).length;
+    }
+    return size;
+  }
+
+  @Benchmark
+  public int deserialize() throws IOException {
+    int count = 0;
+    for (int i = 0; i < _objects.size(); i++) {
+      if (_serializer.deserialize(new ByteArrayInputStream(_serialized.get(i))) != null) {
+        count++;
+      }
+    }
+    return count;
+  }
+}
@@ -0,0 +1,149 @@
+package tools.benchmarks;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.batfish.datamodel.Bgpv4Route;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.LineAction;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.RouteFilterLine;
+import org.batfish.datamodel.RouteFilterList;
+import org.batfish.datamodel.SubRange;
+import org.batfish.datamodel.bgp.community.StandardCommunity;
+import org.batfish.datamodel.routing_policy.Environment;
+import org.batfish.datamodel.routing_policy.Environment.Direction;
+import org.batfish.datamodel.routing_policy.Result;
+import org.batfish.datamodel.routing_policy.RoutingPolicy;
+import org.batfish.datamodel.routing_policy.communities.CommunityIs;
+import org.batfish.datamodel.routing_policy.communities.CommunitySet;
+import org.batfish.datamodel.routing_policy.communities.CommunitySetMatchExprReference;
+import org.batfish.datamodel.routing_policy.communities.HasCommunity;
+import org.batfish.datamodel.routing_policy.communities.InputCommunities;
+import org.batfish.datamodel.routing_policy.communities.MatchCommunities;
+import org.batfish.datamodel.routing_policy.expr.CallExpr;
+import org.batfish.datamodel.routing_policy.expr.Conjunction;
+import org.batfish.datamodel.routing_policy.expr.DestinationNetwork;
+import org.batfish.datamodel.routing_policy.expr.LiteralLong;
+import org.batfish.datamodel.routing_policy.expr.MatchPrefixSet;
+import org.batfish.datamodel.routing_policy.expr.NamedPrefixSet;
+import org.batfish.datamodel.routing_policy.statement.If;
+import org.batfish.datamodel.routing_policy.statement.SetLocalPreference;
+import org.batfish.datamodel.routing_policy.statement.Statements;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares interpreting a {@link RoutingPolicy} to evaluating its compiled form, on a route-map
+ * like policy whose clauses match prefix lists and communities.
+ */
+@BenchmarkMode(Mode.Throughput)
+@State(Scope.Benchmark)
+public class BenchmarkRoutingPolicy {
+  private static final int NUM_ROUTES = 1000;
+  private static final StandardCommunity NO_EXPORT = StandardCommunity.of(65535, 65281);
+
+  @Param({"4", "16", "64"})
+  public int _numClauses;
+
+  private Configuration _c;
+  private RoutingPolicy _policy;
+  private List<Bgpv4Route> _routes;
+  private Random _rng;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    _c =
+        Configuration.builder()
+            .setHostname("c")
+            .setConfigurationFormat(ConfigurationFormat.CISCO_IOS)
+            .build();
+    _c.setCommunitySetMatchExprs(
+        ImmutableMap.of("no_export", new HasCommunity(new CommunityIs(NO_EXPORT))));
+    RoutingPolicy.builder()
+        .setOwner(_c)
+        .setName("filter_no_export")
+        .addStatement(
+            new If(
+                new MatchCommunities(
+                    InputCommunities.instance(), new CommunitySetMatchExprReference("no_export")),
+                ImmutableList.of(Statements.ReturnFalse.toStaticStatement()),
+                ImmutableList.of(Statements.ReturnTrue.toStaticStatement())))
+        .build();
+
+    RoutingPolicy.Builder policy = RoutingPolicy.builder().setOwner(_c).setName("route_map");
+    for (int i = 0; i < _numClauses; i++) {
+      String name = "prefix_list_" + i;
+      _c.getRouteFilterLists()
+          .put(
+              name,
+              new RouteFilterList(
+                  name,
+                  ImmutableList.of(
+                      new RouteFilterLine(
+                          LineAction.PERMIT,
+                          Prefix.create(Ip.create((long) i << 16), 16),
+                          SubRange.singleton(24)))));
+      policy.addStatement(
+          new If(
+              new Conjunction(
+                  ImmutableList.of(
+                      new MatchPrefixSet(DestinationNetwork.instance(), new NamedPrefixSet(name)),
+                      new CallExpr("filter_no_export"))),
+              ImmutableList.of(
+                  new SetLocalPreference(new LiteralLong(100 + i)),
+                  Statements.ExitAccept.toStaticStatement()),
+              ImmutableList.of()));
+    }
+    policy.addStatement(Statements.ExitReject.toStaticStatement());
+    _policy = policy.build();
+
+    _rng = new Random(0);
+    _routes =
+        IntStream.range(0, NUM_ROUTES)
+            .mapToObj(
+                i ->
+                    Bgpv4Route.testBuilder()
+                        .setNetwork(
+                            Prefix.create(
+                                Ip.create(
+                                    (long) _rng.nextInt(_numClauses * 2) << 16 | (i % 256) << 8),
+                                24))
+                        .setCommunities(
+                            i % 4 == 0 ? CommunitySet.of(NO_EXPORT) : CommunitySet.empty())
+                        .build())
+            .collect(ImmutableList.toImmutableList());
+  }
+
+  private Bgpv4Route randomRoute() {
+    return _routes.get(_rng.nextInt(_routes.size()));
+  }
+
+  private Environment environment(Bgpv4Route route) {
+    return Environment.builder(_c)
+        .setOriginalRoute(route)
+        .setOutputRoute(route.toBuilder())
+        .setDirection(Direction.OUT)
+        .build();
+  }
+
+  @Benchmark
+  public Result benchInterpreted() {
+    return _policy.call(environment(randomRoute()));
+  }
+
+  @Benchmark
+  public Result benchCompiled() {
+    return _policy.getCompiled().call(environment(randomRoute()));
+  }
+}
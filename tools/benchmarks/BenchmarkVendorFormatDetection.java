@@ -0,0 +1,74 @@
+package tools.benchmarks;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.base.Strings;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.grammar.VendorConfigurationFormatDetector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures {@link VendorConfigurationFormatDetector#identifyConfigurationFormat(String)} on every
+ * file under a directory, e.g. {@code -p configsDir=$PWD/tests/parsing-tests/networks}. Each file
+ * can be repeated to approximate multi-megabyte configurations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BenchmarkVendorFormatDetection {
+  @Param({"REQUIRED INPUT PARAM"})
+  public String configsDir;
+
+  @Param({"1", "100"})
+  public int copies;
+
+  private List<String> _fileTexts;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    try (Stream<Path> paths = Files.walk(Paths.get(configsDir))) {
+      _fileTexts =
+          paths
+              .filter(Files::isRegularFile)
+              .map(BenchmarkVendorFormatDetection::readText)
+              .map(text -> Strings.repeat(text, copies))
+              .collect(Collectors.toList());
+    }
+    checkState(!_fileTexts.isEmpty(), "No files found in %s", configsDir);
+  }
+
+  private static String readText(Path path) {
+    try {
+      return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Benchmark
+  public void identifyConfigurationFormat(Blackhole bh) {
+    for (String fileText : _fileTexts) {
+      ConfigurationFormat format =
+          VendorConfigurationFormatDetector.identifyConfigurationFormat(fileText);
+      bh.consume(format);
+    }
+  }
+}